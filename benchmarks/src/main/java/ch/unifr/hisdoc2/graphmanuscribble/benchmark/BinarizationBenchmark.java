@@ -0,0 +1,80 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinarizationAlgos;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinaryPageImageProcessing;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.DoGBinarizer;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.FastSauvola;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.Image;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.Matrix;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.Otsu;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.processing.algorithm.DifferenceOfGaussian;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binarization of a synthetic page: the float matrix version of Sauvola against the integral image version, Otsu
+ * and the difference of gaussian binarization used by the GUI with openimaj and on flat buffers. 4000x6000 is the
+ * size of a full-resolution scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinarizationBenchmark{
+
+    private static final int SAUVOLA_WINDOW = 150;
+
+    @Param({"1200x1600", "2400x3200", "4000x6000"})
+    public String pageSize;
+
+    private BufferedImage page;
+
+    @Setup
+    public void setup(){
+        String[] size = pageSize.split("x");
+        page = PageFixtures.page(PageFixtures.SEED, Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    @Benchmark
+    public BufferedImage sauvolaMatrix() throws IOException{
+        Image img = new Image(page);
+        img.toYUV();
+        return new Matrix(img.getLayer(0)).sauvolaBinarization(SAUVOLA_WINDOW).getImage();
+    }
+
+    @Benchmark
+    public BufferedImage sauvolaIntegral(){
+        return FastSauvola.binarize(page, SAUVOLA_WINDOW);
+    }
+
+    @Benchmark
+    public BufferedImage otsu(){
+        return Otsu.binarize(page);
+    }
+
+    @Benchmark
+    public BufferedImage dog() throws IOException{
+        return BinaryPageImageProcessing.binariseImage(page, false, BinarizationAlgos.DOG, new float[1]);
+    }
+
+    @Benchmark
+    public BufferedImage dogFlatBuffers(){
+        return DoGBinarizer.binarize(page, 0.1f, 15f, 1.5f);
+    }
+
+    /**
+     * The former DoG path of BinaryPageImageProcessing.
+     */
+    @Benchmark
+    public BufferedImage dogOpenImaj(){
+        FImage img = ImageUtilities.createFImage(page).clone().process(new DifferenceOfGaussian(15f, 1.5f));
+        return ImageUtilities.createBufferedImage(img.threshold(0.1f));
+    }
+}
@@ -0,0 +1,38 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.TopologyUtil;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole hull pipeline of a component (triangulation, erosion, buffer and simplification) by component size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcaveHullBenchmark{
+
+    @Param({"10", "100", "1000", "10000"})
+    public int componentSize;
+
+    private List<PointHD2> component;
+
+    @Setup
+    public void setup(){
+        component = PageFixtures.component(PageFixtures.SEED, componentSize);
+    }
+
+    @Benchmark
+    public List<PointHD2> pointListToConcaveHull(){
+        //the method clears the list if it fails, so it gets a copy
+        return TopologyUtil.pointListToConcaveHull(new ArrayList<>(component), Constants.CONCAVE_TIGHTNESS);
+    }
+}
@@ -0,0 +1,157 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.EdgeIndex;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.EdgeRTree;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Quadtree;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collision detection of scribbles with the MST edges of a page, by the side length of the scribble:
+ * <ul>
+ * <li>the candidate query of the Quadtree and of the bulk loaded R-tree</li>
+ * <li>the hit test of the candidates on the plain edge segments against a test on JTS geometries like the old
+ * polygon based hit test</li>
+ * <li>the bulk load of the R-tree against filling the Quadtree edge by edge</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EdgeIndexBenchmark{
+
+    private static final int SCRIBBLES = 256;
+
+    @Param({"1200x1600"})
+    public String pageSize;
+
+    @Param({"10", "100", "500"})
+    public int scribbleSize;
+
+    private int width;
+    private int height;
+    private ArrayList<GraphEdge> edges;
+    private IdentityHashMap<GraphEdge, Geometry> edgeGeometries;
+    private EdgeIndex quadtree;
+    private EdgeIndex rTree;
+    private double[][] scribbles;
+    private double[][] bounds;
+    private Geometry[] scribbleGeometries;
+    private int next;
+
+    @Setup
+    public void setup(){
+        String[] size = pageSize.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst =
+                graph.createMSTGraph(PageFixtures.pagePoints(PageFixtures.SEED, width, height));
+
+        GeometryFactory gf = new GeometryFactory();
+        edges = new ArrayList<>(mst.edgeSet());
+        edgeGeometries = new IdentityHashMap<>(edges.size());
+        for(GraphEdge e : edges){
+            GraphVertex source = mst.getEdgeSource(e);
+            GraphVertex target = mst.getEdgeTarget(e);
+            e.createSegment(source, target);
+            edgeGeometries.put(e, gf.createLineString(new Coordinate[]{source.toCoordinate(), target.toCoordinate()}));
+        }
+        quadtree = buildQuadtree();
+        rTree = new EdgeRTree(edges);
+
+        Random r = new Random(PageFixtures.SEED);
+        scribbles = new double[SCRIBBLES][];
+        bounds = new double[SCRIBBLES][];
+        scribbleGeometries = new Geometry[SCRIBBLES];
+        for(int i = 0; i < SCRIBBLES; i++){
+            double[] polyline = PageFixtures.scribble(r, width, height, scribbleSize);
+            scribbles[i] = polyline;
+            double t = Constants.SCRIBBLE_HIT_TOLERANCE;
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            Coordinate[] coordinates = new Coordinate[polyline.length / 2];
+            for(int j = 0; j < coordinates.length; j++){
+                coordinates[j] = new Coordinate(polyline[2 * j], polyline[2 * j + 1]);
+                minX = Math.min(minX, polyline[2 * j]);
+                maxX = Math.max(maxX, polyline[2 * j]);
+                minY = Math.min(minY, polyline[2 * j + 1]);
+                maxY = Math.max(maxY, polyline[2 * j + 1]);
+            }
+            bounds[i] = new double[]{minX - t, minY - t, maxX + t, maxY + t};
+            scribbleGeometries[i] = gf.createLineString(coordinates).buffer(t);
+        }
+    }
+
+    private Quadtree buildQuadtree(){
+        Quadtree q = new Quadtree(0, 0, 0, width, height);
+        for(GraphEdge e : edges){
+            q.insert(e);
+        }
+        return q;
+    }
+
+    private int nextScribble(){
+        next = (next + 1) % SCRIBBLES;
+        return next;
+    }
+
+    @Benchmark
+    public ArrayList<GraphEdge> quadtreeRetrieve(){
+        double[] b = bounds[nextScribble()];
+        return quadtree.retrieve(new ArrayList<>(), b[0], b[1], b[2], b[3]);
+    }
+
+    @Benchmark
+    public ArrayList<GraphEdge> rTreeRetrieve(){
+        double[] b = bounds[nextScribble()];
+        return rTree.retrieve(new ArrayList<>(), b[0], b[1], b[2], b[3]);
+    }
+
+    @Benchmark
+    public void segmentHitTest(Blackhole bh){
+        int i = nextScribble();
+        double[] b = bounds[i];
+        for(GraphEdge e : rTree.retrieve(new ArrayList<>(), b[0], b[1], b[2], b[3])){
+            bh.consume(e.intersects(scribbles[i], Constants.SCRIBBLE_HIT_TOLERANCE));
+        }
+    }
+
+    @Benchmark
+    public void geometryHitTest(Blackhole bh){
+        int i = nextScribble();
+        double[] b = bounds[i];
+        for(GraphEdge e : rTree.retrieve(new ArrayList<>(), b[0], b[1], b[2], b[3])){
+            bh.consume(scribbleGeometries[i].intersects(edgeGeometries.get(e)));
+        }
+    }
+
+    @Benchmark
+    public EdgeIndex quadtreeBuild(){
+        return buildQuadtree();
+    }
+
+    @Benchmark
+    public EdgeIndex rTreeBulkLoad(){
+        return new EdgeRTree(edges);
+    }
+}
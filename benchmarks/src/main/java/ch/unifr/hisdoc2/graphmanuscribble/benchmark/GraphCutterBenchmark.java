@@ -0,0 +1,63 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphCutter;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The edge histogram of the GraphCutter (built in its constructor) and the cutting of the high cost edges.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphCutterBenchmark{
+
+    @Param({"1200x1600"})
+    public String pageSize;
+
+    private Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst;
+    private GraphCutter cutter;
+    private Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> copy;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        String[] size = pageSize.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        mst = graph.createMSTGraph(PageFixtures.pagePoints(PageFixtures.SEED, width, height));
+        cutter = new GraphCutter(mst);
+    }
+
+    /**
+     * The cut labels the edges as deleted and removes them from the graph, so each invocation gets a fresh copy.
+     */
+    @Setup(Level.Invocation)
+    public void copyGraph(){
+        for(GraphEdge e : mst.edgeSet()){
+            e.setDeleted(false);
+        }
+        copy = new Subgraph<>(mst.getBase(), mst.vertexSet(), mst.edgeSet());
+    }
+
+    @Benchmark
+    public GraphCutter createHistogram(){
+        return new GraphCutter(mst);
+    }
+
+    @Benchmark
+    public Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> cutHighCostEdges(){
+        cutter.cutHighCostEdges(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,64 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the heap of the page MST as JGraphT graph and as CompactGraph with JOL, for the page sizes of the
+ * MSTBenchmark. It is not a JMH benchmark, run it with
+ * <pre>
+ *     java -cp target/benchmarks.jar ch.unifr.hisdoc2.graphmanuscribble.benchmark.GraphFootprint
+ * </pre>
+ * The bytes per vertex are measured on a graph with the vertices only, the bytes per edge are the rest of the full
+ * graph divided by the edges. These are the numbers behind the JGraphT estimate of the CompactGraph.
+ */
+public final class GraphFootprint{
+
+    private static final String[] PAGE_SIZES = {"600x800", "1200x1600", "2400x3200"};
+
+    private GraphFootprint(){
+    }
+
+    public static void main(String[] args){
+        System.out.println("page        vertices  edges     kruskal MB  streaming MB  compact MB  B/vertex  B/edge");
+        for(String pageSize : PAGE_SIZES){
+            String[] size = pageSize.split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            List<PointHD2> points = PageFixtures.pagePoints(PageFixtures.SEED, width, height);
+
+            //the old path keeps the whole triangulation as base graph of the MST subgraph
+            AngieMSTGraph kruskal = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+            kruskal.setStreamingMST(false);
+            long kruskalBytes = GraphLayout.parseInstance(kruskal.createMSTGraph(points)).totalSize();
+
+            AngieMSTGraph streaming = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+            CompactGraph compact = streaming.createCompactMSTGraph(points);
+            Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst = compact.toSubgraph();
+            long streamingBytes = GraphLayout.parseInstance(mst).totalSize();
+
+            SimpleWeightedGraph<GraphVertex, GraphEdge> vertices = new SimpleWeightedGraph<>(GraphEdge.class);
+            for(GraphVertex v : mst.vertexSet()){
+                vertices.addVertex(new GraphVertex(v.getX(), v.getY()));
+            }
+            long vertexBytes = GraphLayout.parseInstance(
+                    new Subgraph<>(vertices, vertices.vertexSet(), vertices.edgeSet())).totalSize();
+
+            int v = compact.getVertexCount();
+            int e = compact.getEdgeCount();
+            System.out.println(String.format(Locale.ROOT, "%-11s %-9d %-9d %-11.1f %-13.1f %-11.2f %-9.0f %.0f",
+                    pageSize, v, e, kruskalBytes / 1e6, streamingBytes / 1e6, compact.memoryFootprint() / 1e6,
+                    vertexBytes / (double) v, (streamingBytes - vertexBytes) / (double) e));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.StreamingGraphExporter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.StreamingGraphImporter;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export and import of the MST of a page as gxml, plain and gzip compressed. The import only parses the graph, the
+ * forest and its hulls are not built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GxmlBenchmark{
+
+    @Param({"1200x1600", "2400x3200"})
+    public String pageSize;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst;
+    private File dir;
+    private File exportFile;
+    private File importFile;
+
+    @Setup
+    public void setup() throws IOException, XMLStreamException{
+        String[] size = pageSize.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        mst = graph.createMSTGraph(PageFixtures.pagePoints(PageFixtures.SEED, width, height));
+
+        dir = Files.createTempDirectory("gxml-benchmark").toFile();
+        exportFile = new File(dir, "export.gxml");
+        importFile = new File(dir, "import.gxml");
+        StreamingGraphExporter.write(mst, importFile, "benchmark", gzip);
+    }
+
+    @TearDown
+    public void tearDown(){
+        exportFile.delete();
+        importFile.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public File export() throws IOException, XMLStreamException{
+        StreamingGraphExporter.write(mst, exportFile, "benchmark", gzip);
+        return exportFile;
+    }
+
+    @Benchmark
+    public SimpleWeightedGraph<GraphVertex, GraphEdge> parse() throws IOException, XMLStreamException{
+        return StreamingGraphImporter.read(importFile, new ArrayList<>());
+    }
+}
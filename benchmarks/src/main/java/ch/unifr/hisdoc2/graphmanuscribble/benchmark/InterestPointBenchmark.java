@@ -0,0 +1,46 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interest point extraction of a synthetic page with each InterestPointDetector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterestPointBenchmark{
+
+    @Param({"CP", "SCP", "CCCM", "DOG", "HARRIS"})
+    public String detector;
+
+    @Param({"1200x1600"})
+    public String pageSize;
+
+    private BufferedImage page;
+    private AngieMSTGraph graph;
+
+    @Setup
+    public void setup(){
+        String[] size = pageSize.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        page = PageFixtures.page(PageFixtures.SEED, width, height);
+        graph = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        graph.setInterestPointDetector(AngieMSTGraph.InterestPointDetector.valueOf(detector));
+    }
+
+    @Benchmark
+    public List<PointHD2> extractInterestPoints(){
+        return graph.extractInterestPoints(page, page);
+    }
+}
@@ -0,0 +1,63 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delaunay triangulation and minimum spanning tree of the interest points of a page. The JTS edge geometry with the
+ * KruskalMinimumSpanningTree (createAttributedGraphsFromPage) against the MST built directly from the triangulation,
+ * once as CompactGraph like in the batch and once materialized as JGraphT graph like in the GUI.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MSTBenchmark{
+
+    @Param({"600x800", "1200x1600", "2400x3200"})
+    public String pageSize;
+
+    private List<PointHD2> points;
+    private AngieMSTGraph kruskal;
+    private AngieMSTGraph streaming;
+
+    @Setup
+    public void setup(){
+        String[] size = pageSize.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        points = PageFixtures.pagePoints(PageFixtures.SEED, width, height);
+
+        kruskal = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        kruskal.setStreamingMST(false);
+        streaming = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        streaming.setStreamingMST(true);
+    }
+
+    @Benchmark
+    public Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> delaunayKruskal(){
+        return kruskal.createMSTGraph(points);
+    }
+
+    @Benchmark
+    public CompactGraph compactMST(){
+        return streaming.createCompactMSTGraph(points);
+    }
+
+    @Benchmark
+    public Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> streamingMST(){
+        return streaming.createMSTGraph(points);
+    }
+}
@@ -0,0 +1,180 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic pages for the benchmarks. The layout looks like a page of handwriting: text lines with words of
+ * slightly tilted letters, ascenders and descenders and some noise. Everything is generated from the seed, so the
+ * same parameters always give the same page.
+ */
+public final class PageFixtures{
+
+    public static final long SEED = 42;
+
+    private static final int MARGIN = 80;
+    private static final int LINE_HEIGHT = 60;
+    private static final int X_HEIGHT = 18;
+
+    private PageFixtures(){
+    }
+
+    /**
+     * Draws a binary page with black text on white.
+     *
+     * @param seed   - the seed of the layout
+     * @param width  - width of the page
+     * @param height - height of the page
+     * @return - the page
+     */
+    public static BufferedImage page(long seed, int width, int height){
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+
+        for(Letter l : layout(seed, width, height)){
+            g.fillOval(l.x, l.y - l.height, l.width, l.height);
+            //keep the inside white like in the bowl of a letter
+            if(l.width > 6 && l.height > 6){
+                g.setColor(Color.WHITE);
+                g.fillOval(l.x + 2, l.y - l.height + 2, l.width - 4, l.height - 4);
+                g.setColor(Color.BLACK);
+            }
+        }
+
+        //noise
+        Random r = new Random(seed + 1);
+        for(int i = 0; i < width * height / 20000; i++){
+            g.fillRect(r.nextInt(width), r.nextInt(height), 1 + r.nextInt(2), 1 + r.nextInt(2));
+        }
+
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Returns the contour points of the letters of a page, like the sparse contour points of a real page.
+     *
+     * @param seed   - the seed of the layout
+     * @param width  - width of the page
+     * @param height - height of the page
+     * @return - the points
+     */
+    public static List<PointHD2> pagePoints(long seed, int width, int height){
+        List<PointHD2> points = new ArrayList<>();
+        Random r = new Random(seed + 2);
+        for(Letter l : layout(seed, width, height)){
+            addLetterPoints(l, r, points);
+        }
+        return points;
+    }
+
+    /**
+     * Returns the points of a single connected component: one word with about the given number of points.
+     *
+     * @param seed   - the seed of the component
+     * @param points - number of points
+     * @return - the points of the component
+     */
+    public static List<PointHD2> component(long seed, int points){
+        Random r = new Random(seed);
+        List<PointHD2> result = new ArrayList<>(points);
+        int x = 0;
+        while(result.size() < points){
+            Letter l = randomLetter(r, x, LINE_HEIGHT);
+            addLetterPoints(l, r, result);
+            x += l.width + 1 + r.nextInt(3);
+        }
+        return new ArrayList<>(result.subList(0, points));
+    }
+
+    /**
+     * Returns a random scribble as polyline [x0, y0, x1, y1, ...] with the given bounding box size.
+     *
+     * @param r      - random source
+     * @param width  - width of the page
+     * @param height - height of the page
+     * @param size   - side length of the bounding box of the scribble
+     * @return - the polyline
+     */
+    public static double[] scribble(Random r, int width, int height, int size){
+        int n = Math.max(2, size / 5);
+        double[] polyline = new double[n * 2];
+        double x0 = r.nextDouble() * Math.max(1, width - size);
+        double y0 = r.nextDouble() * Math.max(1, height - size);
+        for(int i = 0; i < n; i++){
+            polyline[2 * i] = x0 + size * (double) i / (n - 1);
+            polyline[2 * i + 1] = y0 + size * (0.5 + 0.5 * Math.sin(i * 0.7));
+        }
+        return polyline;
+    }
+
+    private static List<Letter> layout(long seed, int width, int height){
+        Random r = new Random(seed);
+        List<Letter> letters = new ArrayList<>();
+        for(int y = MARGIN + LINE_HEIGHT; y < height - MARGIN; y += LINE_HEIGHT + r.nextInt(9) - 4){
+            int x = MARGIN + r.nextInt(20);
+            while(x < width - MARGIN - 40){
+                int wordLength = 2 + r.nextInt(9);
+                for(int i = 0; i < wordLength && x < width - MARGIN; i++){
+                    Letter l = randomLetter(r, x, y);
+                    letters.add(l);
+                    x += l.width + r.nextInt(3);
+                }
+                x += 12 + r.nextInt(20);
+            }
+        }
+        return letters;
+    }
+
+    private static Letter randomLetter(Random r, int x, int baseline){
+        int width = 8 + r.nextInt(10);
+        int height = X_HEIGHT;
+        int kind = r.nextInt(10);
+        int y = baseline;
+        if(kind < 2){
+            //ascender
+            height += 14 + r.nextInt(6);
+        } else if(kind < 3){
+            //descender
+            height += 12 + r.nextInt(6);
+            y += 12;
+        }
+        return new Letter(x, y + r.nextInt(3) - 1, width, height);
+    }
+
+    private static void addLetterPoints(Letter l, Random r, List<PointHD2> points){
+        int n = Math.max(4, (l.width + l.height) / 4);
+        double cx = l.x + l.width / 2.0;
+        double cy = l.y - l.height / 2.0;
+        for(int i = 0; i < n; i++){
+            double a = 2 * Math.PI * i / n;
+            points.add(new PointHD2(cx + Math.cos(a) * l.width / 2.0 + r.nextDouble() - 0.5,
+                    cy + Math.sin(a) * l.height / 2.0 + r.nextDouble() - 0.5));
+        }
+    }
+
+    private static final class Letter{
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        Letter(int x, int y, int width, int height){
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
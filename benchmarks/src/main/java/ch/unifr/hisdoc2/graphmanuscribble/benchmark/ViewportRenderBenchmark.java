@@ -0,0 +1,93 @@
+package ch.unifr.hisdoc2.graphmanuscribble.benchmark;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.EdgeRTree;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Viewport;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.ViewportCuller;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.svg.SVGPathPrinter;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work of one frame of the graph layer by the zoom factor: the svg path of all the edges of the page like the
+ * svg renderer builds it, against culling the edges to a 800x600 viewport like the canvas renderer does before
+ * drawing. The drawing itself needs a JavaFX toolkit and is not part of the benchmark, the live frame times of the
+ * canvas are recorded as canvas_frame in the page metrics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ViewportRenderBenchmark{
+
+    private static final int SCREEN_WIDTH = 800;
+    private static final int SCREEN_HEIGHT = 600;
+    private static final int VIEWPORTS = 64;
+
+    @Param({"2400x3200"})
+    public String pageSize;
+
+    @Param({"0.25", "1", "4"})
+    public double zoom;
+
+    private Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst;
+    private ArrayList<GraphEdge> edges;
+    private ViewportCuller culler;
+    private Viewport[] viewports;
+    private int next;
+
+    @Setup
+    public void setup(){
+        String[] size = pageSize.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, width, height);
+        mst = graph.createMSTGraph(PageFixtures.pagePoints(PageFixtures.SEED, width, height));
+        edges = new ArrayList<>(mst.edgeSet());
+        for(GraphEdge e : edges){
+            e.createSegment(mst.getEdgeSource(e), mst.getEdgeTarget(e));
+        }
+        culler = new ViewportCuller(new EdgeRTree(edges));
+
+        //random scroll positions on the page
+        double viewWidth = Math.min(width, SCREEN_WIDTH / zoom);
+        double viewHeight = Math.min(height, SCREEN_HEIGHT / zoom);
+        Random r = new Random(PageFixtures.SEED);
+        viewports = new Viewport[VIEWPORTS];
+        for(int i = 0; i < VIEWPORTS; i++){
+            double x = r.nextDouble() * (width - viewWidth);
+            double y = r.nextDouble() * (height - viewHeight);
+            viewports[i] = new Viewport(x, y, x + viewWidth, y + viewHeight, zoom);
+        }
+    }
+
+    @Benchmark
+    public String fullPagePath(){
+        SVGPathPrinter printer = new SVGPathPrinter();
+        for(GraphEdge e : edges){
+            GraphVertex v1 = mst.getEdgeSource(e);
+            GraphVertex v2 = mst.getEdgeTarget(e);
+            printer.addEdge(v1.getX(), v2.getX(), v1.getY(), v2.getY());
+        }
+        return printer.toString();
+    }
+
+    @Benchmark
+    public void viewportCull(Blackhole bh){
+        next = (next + 1) % VIEWPORTS;
+        culler.cull(viewports[next]);
+        bh.consume(culler.getLineCount());
+        bh.consume(culler.getPixelCount());
+    }
+}
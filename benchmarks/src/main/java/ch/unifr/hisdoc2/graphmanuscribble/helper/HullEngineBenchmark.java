@@ -0,0 +1,50 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.benchmark.PageFixtures;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The concave hull engines alone, without buffer and simplification: the LarsConcaveHull against the array based
+ * FastConcaveHull. It is in the helper package because both engines are package private.
+ * <p>
+ * The components are words of a synthetic page layout, the largest ones are the size of a text block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HullEngineBenchmark{
+
+    @Param({"100", "1000", "10000"})
+    public int componentSize;
+
+    private Geometry points;
+
+    @Setup
+    public void setup(){
+        List<PointHD2> component = PageFixtures.component(PageFixtures.SEED, componentSize);
+        List<Coordinate> coordinates = new ArrayList<>(component.size());
+        component.forEach(p -> coordinates.add(p.toCoordinate()));
+        points = new GeometryFactory().createMultiPoint(coordinates.toArray(new Coordinate[coordinates.size()]));
+    }
+
+    @Benchmark
+    public Geometry larsConcaveHull(){
+        return new LarsConcaveHull(points, Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+    }
+
+    @Benchmark
+    public Geometry fastConcaveHull(){
+        return new FastConcaveHull(points, Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+    }
+}
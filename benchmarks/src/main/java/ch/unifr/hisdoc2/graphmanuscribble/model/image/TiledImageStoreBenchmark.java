@@ -0,0 +1,74 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.image;
+
+import ch.unifr.hisdoc2.graphmanuscribble.benchmark.PageFixtures;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first open of a page: building the tile store of an image file against the ImageIO.read it replaces. It is in
+ * the image package to open the stores in a directory of its own.
+ * <p>
+ * 3000x14000 is the size of a tall folio, where reading the file in strips with source regions decoded it from the top
+ * for each strip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiledImageStoreBenchmark{
+
+    @Param({"4000x6000", "3000x14000"})
+    public String pageSize;
+
+    @Param({"png", "jpg"})
+    public String format;
+
+    private File dir;
+    private File tiles;
+    private File page;
+
+    @Setup
+    public void setup() throws IOException{
+        String[] size = pageSize.split("x");
+        BufferedImage img = PageFixtures.page(PageFixtures.SEED, Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        dir = Files.createTempDirectory("tiles-benchmark").toFile();
+        tiles = new File(dir, "tiles");
+        tiles.mkdir();
+        page = new File(dir, "page." + format);
+        ImageIO.write(img, format, page);
+    }
+
+    /**
+     * Deletes the store, so each open builds it again.
+     */
+    @TearDown(Level.Invocation)
+    public void evict(){
+        TiledImageStore.evict(tiles, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException{
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public BufferedImage imageIoRead() throws IOException{
+        return ImageIO.read(page);
+    }
+
+    @Benchmark
+    public int openCold() throws IOException{
+        TiledImageStore store = TiledImageStore.open(page, tiles, Long.MAX_VALUE);
+        store.close();
+        return store.getLevelCount();
+    }
+}
@@ -1,5 +1,6 @@
 package ch.unifr.hisdoc2.graphmanuscribble;
 
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -48,4 +49,11 @@ public class GraphManuscribble extends Application{
         primaryStage.setScene(new Scene(root));
         primaryStage.show();
     }
+
+    @Override
+    public void stop() throws Exception{
+        //export the metrics of the last opened page
+        PipelineMetrics.getInstance().finishCurrentPage();
+        super.stop();
+    }
 }
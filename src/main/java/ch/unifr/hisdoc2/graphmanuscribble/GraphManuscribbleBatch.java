@@ -0,0 +1,317 @@
+package ch.unifr.hisdoc2.graphmanuscribble;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinarizationAlgos;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinaryPageImageProcessing;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.StreamingSauvola;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Count;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.JsonMetricsExporter;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphCutter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphExporter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import org.apache.commons.io.FilenameUtils;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless entry point to pre-compute the document graphs of whole manuscript folders without the GUI.
+ * <p>
+ * Every page of the input folder is binarized, its interest points are extracted, triangulated into a MST and cut
+ * into the initial forest. The binary image and the graph are written into the output folder with the same names
+ * the GUI uses when saving, so the results can be loaded directly as "image, binary and graph".
+ * <p>
+ * The MST is built directly from the triangulation into a {@link CompactGraph}. With --legacy-mst the old JGraphT
+ * construction is used instead, which allows to compare the timings of both.
+ * <p>
+ * With --gzip the graphs are written as gzip compressed .gxml.gz files.
+ * <p>
+ * With --metrics=folder the timings and counters of each page are written as [page]_metrics.json into the folder.
+ * <p>
+ * Usage: GraphManuscribbleBatch input-folder output-folder [threads] [sauvola|otsu|dog] [--legacy-mst] [--gzip]
+ * [--metrics=folder]
+ */
+public class GraphManuscribbleBatch{
+
+    private static final String LEGACY_MST_OPTION = "--legacy-mst";
+    private static final String GZIP_OPTION = "--gzip";
+    private static final String METRICS_OPTION = "--metrics=";
+    private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "bmp", "tif", "tiff");
+
+    /**
+     * The stages a page passes through. The times are summed up over all pages.
+     */
+    private enum BatchStage{
+        LOAD("load"),
+        BINARIZE("binarize"),
+        POINTS("points"),
+        MST("delaunay/mst"),
+        CUT("cut"),
+        EXPORT("export");
+
+        private final String name;
+        private final LongAdder nanos = new LongAdder();
+
+        BatchStage(String name){
+            this.name = name;
+        }
+    }
+
+    private final File inputDir;
+    private final File outputDir;
+    private final int threads;
+    private final BinarizationAlgos binAlgo;
+    private final boolean legacyMST;
+    private final boolean gzip;
+
+    private final AtomicInteger processedPages = new AtomicInteger();
+    private final AtomicInteger failedPages = new AtomicInteger();
+    private final LongAdder compactGraphBytes = new LongAdder();
+    private final LongAdder jGraphTBytes = new LongAdder();
+
+    private GraphManuscribbleBatch(File inputDir, File outputDir, int threads, BinarizationAlgos binAlgo,
+                                   boolean legacyMST, boolean gzip){
+        this.inputDir = inputDir;
+        this.outputDir = outputDir;
+        this.threads = threads;
+        this.binAlgo = binAlgo;
+        this.legacyMST = legacyMST;
+        this.gzip = gzip;
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean legacyMST = arguments.remove(LEGACY_MST_OPTION);
+        boolean gzip = arguments.remove(GZIP_OPTION);
+        for(String argument : new ArrayList<>(arguments)){
+            if(argument.startsWith(METRICS_OPTION)){
+                arguments.remove(argument);
+                PipelineMetrics.getInstance().addExporter(
+                        new JsonMetricsExporter(new File(argument.substring(METRICS_OPTION.length()))));
+            }
+        }
+        args = arguments.toArray(new String[arguments.size()]);
+        if(args.length < 2){
+            System.err.println("Usage: java -cp GraphManuscribble.jar " + GraphManuscribbleBatch.class.getName()
+                    + " input-folder output-folder [threads] [sauvola|otsu|dog] [" + LEGACY_MST_OPTION + "] [" + GZIP_OPTION + "]"
+                    + " [" + METRICS_OPTION + "folder]");
+            System.exit(1);
+        }
+
+        File inputDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        BinarizationAlgos binAlgo = args.length > 3 ? BinarizationAlgos.valueOf(args[3].toUpperCase(Locale.ROOT))
+                : BinarizationAlgos.DOG;
+
+        if(!inputDir.isDirectory()){
+            System.err.println(inputDir + " is not a directory!");
+            System.exit(1);
+        }
+        if(!outputDir.exists() && !outputDir.mkdirs()){
+            System.err.println("Could not create " + outputDir);
+            System.exit(1);
+        }
+
+        new GraphManuscribbleBatch(inputDir, outputDir, threads, binAlgo, legacyMST, gzip).run();
+    }
+
+    /**
+     * Processes all the images of the input folder on a fixed pool of worker threads and prints the summary.
+     */
+    private void run() throws InterruptedException{
+        File[] files = inputDir.listFiles(f -> f.isFile()
+                && IMAGE_EXTENSIONS.contains(FilenameUtils.getExtension(f.getName()).toLowerCase(Locale.ROOT)));
+        if(files == null || files.length == 0){
+            System.out.println("No images found in " + inputDir);
+            return;
+        }
+        Arrays.sort(files);
+        System.out.println("Processing " + files.length + " pages with " + threads + " threads"
+                + (legacyMST ? " (legacy MST construction)" : ""));
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for(File f : files){
+            pool.execute(() -> processPage(f));
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        long wallNanos = System.nanoTime() - start;
+
+        printSummary(wallNanos);
+    }
+
+    /**
+     * Runs the whole pipeline for one page. Exceptions are reported and do not stop the other pages.
+     *
+     * @param file - the original image of the page
+     */
+    private void processPage(File file){
+        long[] times = new long[BatchStage.values().length];
+        PageMetrics metrics = new PageMetrics(FilenameUtils.getBaseName(file.getName()));
+        try{
+            long t = System.nanoTime();
+            //sauvola reads the page in strips, so the whole page is only decoded if the detector needs it
+            BufferedImage ori = binAlgo == BinarizationAlgos.SAUVOLA ? null : readImage(file);
+            t = stop(BatchStage.LOAD, t, times);
+
+            BufferedImage bin = ori == null
+                    ? StreamingSauvola.binarize(file, BinaryPageImageProcessing.SAUVOLA_WINDOW)
+                    : BinaryPageImageProcessing.binariseImage(ori, false, binAlgo, new float[1]);
+            t = stop(BatchStage.BINARIZE, t, times);
+            metrics.record(Stage.BINARIZE, times[BatchStage.BINARIZE.ordinal()]);
+
+            AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, bin.getWidth(), bin.getHeight());
+            graph.setMetrics(metrics);
+            if(ori == null && graph.needsOriginalImage()){
+                ori = readImage(file);
+            }
+            List<PointHD2> points = graph.extractInterestPoints(bin, ori);
+            t = stop(BatchStage.POINTS, t, times);
+
+            String ext = FilenameUtils.getExtension(file.getName());
+            String baseName = FilenameUtils.getBaseName(file.getName());
+            int nodes;
+            int edges;
+            long compactBytes;
+            if(legacyMST){
+                graph.setStreamingMST(false);
+                Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst =
+                        graph.createMSTGraph(points);
+                t = stop(BatchStage.MST, t, times);
+
+                graph.cutHighCostEdges();
+                t = stop(BatchStage.CUT, t, times);
+
+                writeImage(bin, ext, new File(outputDir, baseName + "_binary." + ext));
+                GraphExporter.export2XML(mst, outputDir.getAbsolutePath(), baseName + "_graph", baseName, gzip);
+                nodes = mst.vertexSet().size();
+                edges = mst.edgeSet().size();
+                compactBytes = CompactGraph.estimateFootprint(nodes, edges);
+            } else {
+                CompactGraph mst = graph.createCompactMSTGraph(points);
+                t = stop(BatchStage.MST, t, times);
+
+                metrics.set(Count.CUT_EDGES, GraphCutter.cutHighCostEdges(mst));
+                countGraphs(mst, metrics);
+                t = stop(BatchStage.CUT, t, times);
+                metrics.record(Stage.CUT, times[BatchStage.CUT.ordinal()]);
+
+                writeImage(bin, ext, new File(outputDir, baseName + "_binary." + ext));
+                GraphExporter.export2XML(mst, outputDir.getAbsolutePath(), baseName + "_graph", baseName, gzip);
+                nodes = mst.getVertexCount();
+                edges = mst.getEdgeCount();
+                compactBytes = mst.memoryFootprint();
+            }
+            stop(BatchStage.EXPORT, t, times);
+
+            compactGraphBytes.add(compactBytes);
+            jGraphTBytes.add(CompactGraph.estimateJGraphTFootprint(nodes, edges));
+            processedPages.incrementAndGet();
+            metrics.set(Count.NODES, nodes);
+            metrics.set(Count.EDGES, edges);
+            PipelineMetrics.getInstance().finishPage(metrics);
+            System.out.println(file.getName() + ": " + formatTimes(times) + ", nodes " + nodes + ", edges " + edges);
+        } catch(Exception e){
+            failedPages.incrementAndGet();
+            System.err.println(file.getName() + " failed: " + e);
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Counts the graphs the cut graph of a page falls apart into and the vertices of the biggest one, like the forest
+     * of the AngieMSTGraph.
+     *
+     * @param mst     - the graph after the cut
+     * @param metrics - the metrics of the page
+     */
+    private static void countGraphs(CompactGraph mst, PageMetrics metrics){
+        int[] labels = new int[mst.getVertexCount()];
+        int[] sizes = new int[mst.connectedComponents(labels)];
+        int biggest = 0;
+        for(int label : labels){
+            biggest = Math.max(biggest, ++sizes[label]);
+        }
+        metrics.set(Count.GRAPHS, sizes.length);
+        metrics.set(Count.BIGGEST_GRAPH, biggest);
+    }
+
+    /**
+     * Decodes the whole image of a page.
+     */
+    private static BufferedImage readImage(File file) throws IOException{
+        BufferedImage img = ImageIO.read(file);
+        if(img == null){
+            throw new IllegalArgumentException("unsupported image format");
+        }
+        return img;
+    }
+
+    /**
+     * Writes the binary image in the format of the original, a format without a writer fails the page.
+     */
+    private static void writeImage(BufferedImage img, String format, File file) throws IOException{
+        if(!ImageIO.write(img, format, file)){
+            throw new IOException("No image writer for " + format);
+        }
+    }
+
+    /**
+     * Adds the time since the given start to the stage and returns the current time as the start of the next stage.
+     */
+    private static long stop(BatchStage stage, long start, long[] times){
+        long now = System.nanoTime();
+        times[stage.ordinal()] = now - start;
+        stage.nanos.add(now - start);
+        return now;
+    }
+
+    private static String formatTimes(long[] times){
+        StringBuilder sb = new StringBuilder();
+        for(BatchStage s : BatchStage.values()){
+            if(sb.length() > 0){
+                sb.append(", ");
+            }
+            sb.append(s.name).append(' ').append(TimeUnit.NANOSECONDS.toMillis(times[s.ordinal()])).append("ms");
+        }
+        return sb.toString();
+    }
+
+    private void printSummary(long wallNanos){
+        int pages = processedPages.get();
+        double seconds = wallNanos / 1e9;
+        System.out.println("----------------------------------------");
+        System.out.println("Pages processed: " + pages + ", failed: " + failedPages.get());
+        for(BatchStage s : BatchStage.values()){
+            long total = s.nanos.sum();
+            System.out.println(String.format(Locale.ROOT, "%-14s total %10.1fs, mean %8.1fms/page",
+                    s.name, total / 1e9, pages == 0 ? 0 : total / 1e6 / pages));
+        }
+        System.out.println(String.format(Locale.ROOT, "Graph memory: %.1fMB as CompactGraph, ~%.1fMB as JGraphT graph",
+                compactGraphBytes.sum() / 1e6, jGraphTBytes.sum() / 1e6));
+        System.out.println(String.format(Locale.ROOT, "Wall time %.1fs, throughput %.2f pages/sec",
+                seconds, pages / seconds));
+    }
+}
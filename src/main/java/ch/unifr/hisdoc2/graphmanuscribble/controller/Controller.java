@@ -2,10 +2,11 @@ package ch.unifr.hisdoc2.graphmanuscribble.controller;
 
 import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.LoadImageStatus;
-import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinarizationAlgos;
-import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinaryPageImageProcessing;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.commands.AnnotateCommand;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.commands.DeleteEdgeCommand;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.JsonMetricsExporter;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.LogMetricsExporter;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.undo.UndoCollector;
 import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
 import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
@@ -14,21 +15,31 @@ import ch.unifr.hisdoc2.graphmanuscribble.io.helper.LoadResult;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygonMap;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygonType;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.ConcaveHullExtractionService;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.HullCalculationScheduler;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.helper.PolygonExporter;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraphCollection;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.BinaryGraphExporter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.BinaryGraphImporter;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphExporter;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphImporter;
 import ch.unifr.hisdoc2.graphmanuscribble.model.image.GraphImage;
+import ch.unifr.hisdoc2.graphmanuscribble.model.image.TiledImageStore;
 import ch.unifr.hisdoc2.graphmanuscribble.model.scribble.UserInput;
+import ch.unifr.hisdoc2.graphmanuscribble.model.session.AnnotationSession;
+import ch.unifr.hisdoc2.graphmanuscribble.model.session.PreparedPage;
+import ch.unifr.hisdoc2.graphmanuscribble.view.AbstractView;
+import ch.unifr.hisdoc2.graphmanuscribble.view.CanvasGraphView;
+import ch.unifr.hisdoc2.graphmanuscribble.view.CanvasPolygonView;
 import ch.unifr.hisdoc2.graphmanuscribble.view.GraphView;
 import ch.unifr.hisdoc2.graphmanuscribble.view.ImageGraphView;
 import ch.unifr.hisdoc2.graphmanuscribble.view.PolygonView;
 import ch.unifr.hisdoc2.graphmanuscribble.view.UserInteractionView;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Viewport;
+import javafx.beans.InvalidationListener;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
@@ -39,7 +50,6 @@ import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
@@ -99,8 +109,8 @@ public class Controller{
     private UserInput userInput;
 
     //Views
-    private GraphView graphView;
-    private PolygonView polygonView;
+    private AbstractView graphView;
+    private AbstractView polygonView;
     private UserInteractionView interactionView;
     private ImageGraphView imageView;
     private Group zoomTarget;
@@ -117,6 +127,7 @@ public class Controller{
 
     //current values
     private long lastTime;
+    private long lastHullPrefetch;
     private ArrayList<Double> deletePoints = new ArrayList<>();
     private ArrayList<Double> annotationPoints = new ArrayList<>();
     private LarsGraph currentAnnotationGraph;
@@ -128,6 +139,14 @@ public class Controller{
     private boolean deleteAnnotation = false;
     private boolean delete = false;
 
+    /**
+     * true if the graph and the polygons are drawn into a canvas of the size of the viewport
+     */
+    private boolean canvasRendering = false;
+    private boolean viewUpdatePending = false;
+    private AnnotationSession session;
+    private final InvalidationListener viewportListener = observable -> requestViewportUpdate();
+
     //concurrency variables
     private List<ConcaveHullExtractionService> currentHullCalculations = new ArrayList<>();
 
@@ -143,24 +162,38 @@ public class Controller{
      * @param bin
      * @param dim
      */
-    private void setupNewImage(BufferedImage ori, BufferedImage bin, Dimension2D dim, LoadedGraph loadedGraph){
-        Image img = SwingFXUtils.toFXImage(bin, null);
-        Image img2 = SwingFXUtils.toFXImage(ori, null);
-
-        this.graphImage = new GraphImage(img2, img);
-
-        originalImage = ori;
-        binarizedImage = bin;
-
-        AngieMSTGraph graph = new AngieMSTGraph(30,
+    private void setupNewImage(TiledImageStore ori, TiledImageStore bin, Dimension2D dim, LoadedGraph loadedGraph){
+        //the graph reads the pixels from the stores
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX,
                 true,
                 dim.getWidth(),
                 dim.getHeight());
         if(loadedGraph != null){
-            graph.createGraph(binarizedImage, originalImage, loadedGraph.getOriginal(), loadedGraph.getForest());
+            graph.createGraph(bin.asBufferedImage(), ori.asBufferedImage(), loadedGraph.getOriginal(),
+                    loadedGraph.getForest());
         } else {
-            graph.createGraph(binarizedImage, originalImage, null, null);
+            graph.createGraph(bin.asBufferedImage(), ori.asBufferedImage(), null, null);
         }
+        setupPreparedImage(ori, bin, dim, graph);
+    }
+
+    /**
+     * Shows a page whose graph is already built.
+     *
+     * @param ori   - store of the original image
+     * @param bin   - store of the binary image
+     * @param dim   - size of the page
+     * @param graph - the graph of the page
+     */
+    private void setupPreparedImage(TiledImageStore ori, TiledImageStore bin, Dimension2D dim, AngieMSTGraph graph){
+        if(graphImage != null){
+            graphImage.close();
+        }
+        this.graphImage = new GraphImage(ori, bin);
+
+        originalImage = ori.asBufferedImage();
+        binarizedImage = bin.asBufferedImage();
+
         SettingReader settingReader = SettingReader.getInstance();
         List<AnnotationType> types = settingReader.getAnnotations();
         UserInput uI = new UserInput(types);
@@ -180,15 +213,21 @@ public class Controller{
         this.polygonMap = model;
         this.userInput = uI;
 
-        graphView = new GraphView(this, SettingReader.getInstance().getGraphColor());
-        polygonView = new PolygonView(polygonMap, this);
-        interactionView = new UserInteractionView(userInput, this);
-        imageView = new ImageGraphView(graphImage, this);
-
         stackPane.getChildren().clear();
         zoomTarget = new Group();
         stackPane.getChildren().add(zoomTarget);
 
+        zoomTarget.scaleXProperty().addListener(viewportListener);
+        if(canvasRendering){
+            graphView = new CanvasGraphView(this, SettingReader.getInstance().getGraphColor());
+            polygonView = new CanvasPolygonView(polygonMap, this);
+        } else {
+            graphView = new GraphView(this, SettingReader.getInstance().getGraphColor());
+            polygonView = new PolygonView(polygonMap, this);
+        }
+        interactionView = new UserInteractionView(userInput, this);
+        imageView = new ImageGraphView(graphImage, this);
+
         imageView.addToGroup(zoomTarget);
         graphView.addToGroup(zoomTarget);
         polygonView.addToGroup(zoomTarget);
@@ -209,6 +248,21 @@ public class Controller{
     private void initialize(){
         List<AnnotationType> types = SettingReader.getInstance().getAnnotations();
 
+        //the image tiles and the canvas views are redrawn when the visible part of the page changes
+        canvasRendering = SettingReader.getInstance().isCanvasRendering();
+        scrollPane.hvalueProperty().addListener(viewportListener);
+        scrollPane.vvalueProperty().addListener(viewportListener);
+        scrollPane.viewportBoundsProperty().addListener(viewportListener);
+
+        //metrics exporters
+        if(SettingReader.getInstance().isMetricsLogEnabled()){
+            PipelineMetrics.getInstance().addExporter(new LogMetricsExporter());
+        }
+        if(SettingReader.getInstance().getMetricsJsonDirectory() != null){
+            PipelineMetrics.getInstance().addExporter(
+                    new JsonMetricsExporter(new File(SettingReader.getInstance().getMetricsJsonDirectory())));
+        }
+
         for(AnnotationType type : types){
             annotationBox.getItems().add(type.getName());
         }
@@ -229,6 +283,17 @@ public class Controller{
      * MOUSEWHEEL = ZOOM
      */
     private void initHandlers(){
+        //lazy hulls: the hulls of the components near the cursor get calculated before they are hit
+        if(SettingReader.getInstance().isLazyHulls()){
+            glassPanel.addEventHandler(MouseEvent.MOUSE_MOVED, event -> {
+                if(System.currentTimeMillis() - lastHullPrefetch >= Constants.REFRESH_TIME){
+                    graph.prefetchHullsNear(event.getX(), event.getY(),
+                            SettingReader.getInstance().getHullCursorRadius());
+                    lastHullPrefetch = System.currentTimeMillis();
+                }
+            });
+        }
+
         //the user starts dragging a lone
         glassPanel.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
                     mouseDragged = false;
@@ -345,6 +410,7 @@ public class Controller{
 
     @FXML
     private void closeApplication(){
+        closeSession();
         Platform.exit();
     }
 
@@ -433,6 +499,7 @@ public class Controller{
         } catch(ParserConfigurationException | TransformerException e){
             e.printStackTrace();
         }
+        BinaryGraphExporter.export2Binary(graph.getGraph(), dir.getAbsolutePath(), baseName+"_graph", baseName);
         //save polygons
         PolygonExporter.exportXML(this, new File(dir, baseName + "_polygons.gxml"));
     }
@@ -484,7 +551,7 @@ public class Controller{
         filePickerGraph.setOnAction(event -> {
             graphPath.clear();
             FileChooser fc = new FileChooser();
-            fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Graph XML", "*.gxml"));
+            fc.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Graph", "*.gxml", "*.gxml.gz", "*.gbin"));
             File f = fc.showOpenDialog(filePickerGraph.getScene().getWindow());
             graphPath.setText(f.getAbsolutePath());
         });
@@ -495,7 +562,7 @@ public class Controller{
         grid.add(new Label("Binary Image (optional)"), 0, 1);
         grid.add(binPath, 1,1);
         grid.add(filePickerBin, 2,1);
-        grid.add(new Label("Graph xml (gxml, optional: require Binary)"), 0, 2);
+        grid.add(new Label("Graph (gxml/gbin, optional: require Binary)"), 0, 2);
         grid.add(graphPath, 1,2);
         grid.add(filePickerGraph, 2,2);
 
@@ -529,6 +596,98 @@ public class Controller{
         result.ifPresent(this::loadImage);
     }
 
+    @FXML
+    public void openSessionDialog(ActionEvent actionEvent){
+        DirectoryChooser dC = new DirectoryChooser();
+        dC.setTitle("Open the page folder of the session");
+        File dir = dC.showDialog(stackPane.getScene().getWindow());
+        if(dir == null){
+            return;
+        }
+        try{
+            startSession(AnnotationSession.fromDirectory(dir));
+        } catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    @FXML
+    public void openPageListDialog(ActionEvent actionEvent){
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Open the page list of the session");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("Page list", "*.txt", "*.lst"));
+        File list = fc.showOpenDialog(stackPane.getScene().getWindow());
+        if(list == null){
+            return;
+        }
+        try{
+            startSession(AnnotationSession.fromPageList(list));
+        } catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    @FXML
+    public void nextPage(ActionEvent actionEvent){
+        if(session != null && session.hasNext()){
+            showSessionPage(session.getCurrentIndex() + 1);
+        }
+    }
+
+    @FXML
+    public void previousPage(ActionEvent actionEvent){
+        if(session != null && session.hasPrevious()){
+            showSessionPage(session.getCurrentIndex() - 1);
+        }
+    }
+
+    /**
+     * Ends the current session and shows the first page of the new one.
+     *
+     * @param newSession - the new session
+     */
+    private void startSession(AnnotationSession newSession){
+        closeSession();
+        session = newSession;
+        showSessionPage(0);
+    }
+
+    /**
+     * Stops the prefetch of the current session and drops its prefetched pages.
+     */
+    private void closeSession(){
+        if(session != null){
+            session.close();
+            session = null;
+        }
+    }
+
+    /**
+     * Shows a page of the session. The page is taken from the prefetch if it is ready.
+     *
+     * @param index - index of the page in the session
+     */
+    private void showSessionPage(int index){
+        try{
+            showPreparedPage(session.open(index));
+            logger.info("Session page " + (index + 1) + "/" + session.size() + ": " + session.getPage(index));
+        } catch(IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Shows a page with its images and graph. Its metrics become the current page of the PipelineMetrics.
+     *
+     * @param page - the prepared page
+     */
+    private void showPreparedPage(PreparedPage page){
+        PipelineMetrics.getInstance().startPage(page.getMetrics());
+        fileNameWithExtension = page.getFileName();
+        setupPreparedImage(page.getOriginal(), page.getBinary(),
+                new Dimension2D(page.getOriginal().getWidth(), page.getOriginal().getHeight()), page.getGraph());
+    }
+
     /*
      * GETTERS
      *
@@ -581,6 +740,11 @@ public class Controller{
         }
 
         deletePoints.clear();//clear the list to start a new polygonMap
+        if(isDelete){
+            //the next part of the delete scribble starts where this one ended, so no edge slips through the gap
+            deletePoints.add(event.getX());
+            deletePoints.add(event.getY());
+        }
 
         return p;
     }
@@ -603,6 +767,44 @@ public class Controller{
         return height;
     }
 
+    /**
+     * Returns the part of the page which is visible in the scroll pane in page coordinates and the zoom factor.
+     * If the page is not shown yet the whole page is returned.
+     *
+     * @return - the viewport
+     */
+    public Viewport getViewport(){
+        Node viewport = scrollPane.lookup(".viewport");
+        if(zoomTarget == null || zoomTarget.getScene() == null || viewport == null){
+            return new Viewport(0, 0, getWidth(), getHeight(), 1);
+        }
+        Bounds visible = zoomTarget.sceneToLocal(viewport.localToScene(viewport.getLayoutBounds()));
+        return new Viewport(Math.max(0, visible.getMinX()),
+                Math.max(0, visible.getMinY()),
+                Math.min(getWidth(), visible.getMaxX()),
+                Math.min(getHeight(), visible.getMaxY()),
+                zoomTarget.getScaleX());
+    }
+
+    /**
+     * Loads the visible image tiles and redraws the canvas views once after the current event, e.g. a zoom changes
+     * the scale and both scroll values.
+     */
+    private void requestViewportUpdate(){
+        if(viewUpdatePending || imageView == null){
+            return;
+        }
+        viewUpdatePending = true;
+        Platform.runLater(() -> {
+            viewUpdatePending = false;
+            imageView.update();
+            if(canvasRendering){
+                graphView.update();
+                polygonView.update();
+            }
+        });
+    }
+
     /**
      * Returns the annotation type that is currently selected by the user
      *
@@ -704,7 +906,8 @@ public class Controller{
         polygonMap.removeAnnotationPolygon(lGC);
         polygonView.update();
 
-        //remove graphs from lgc
+        //remove graphs from lgc and their edges from the edge index
+        lGC.getAnnotationGraphs().forEach(graph::removeEdgesFromIndex);
         LarsGraph[] lgArray = new LarsGraph[lGC.getAnnotationGraphs().size()];
         lGC.removeGraph(lGC.getAnnotationGraphs().toArray(lgArray));
 
@@ -775,6 +978,12 @@ public class Controller{
     }
 
     private void loadImage(LoadResult res){
+        if(res.getStatus() != LoadImageStatus.NOTHING){
+            //a single page ends the session
+            closeSession();
+            //exports the metrics of the previous page
+            PipelineMetrics.getInstance().startPage(FilenameUtils.getBaseName(res.getFileName()));
+        }
         switch(res.getStatus()){
             case NOTHING: Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("You did not match the requirements!");
@@ -785,29 +994,43 @@ public class Controller{
                 alert.showAndWait();
                 break;
             case ONLY_IMAGE:
+                //binary image and graph come from the graph cache if the page was opened before
                 try{
-                    binarizedImage = BinaryPageImageProcessing.binariseImage(res.getOri(),
-                            false,
-                            BinarizationAlgos.DOG,
-                            new float[1]);
+                    showPreparedPage(PreparedPage.prepare(res.getOriFile(), HullCalculationScheduler.PRIORITY_LOAD));
                 } catch(IOException e){
                     e.printStackTrace();
                 }
-
-                fileNameWithExtension = res.getFileName();
-                //create Graph
-                setupNewImage(res.getOri(), binarizedImage, res.getDim(), null);
                 break;
             case IMAGE_BINARY:
                 //just create graph
                 fileNameWithExtension = res.getFileName();
-                setupNewImage(res.getOri(), res.getBin(), res.getDim(), null);
+                try{
+                    setupNewImage(TiledImageStore.open(res.getOriFile()), TiledImageStore.open(res.getBinFile()),
+                            res.getDim(), null);
+                } catch(IOException e){
+                    e.printStackTrace();
+                }
                 break;
             case IMAGE_BINARY_GRAPH:
-                LoadedGraph loadedGraph = GraphImporter.xml2Graph(res.getGraph());
+                LoadedGraph loadedGraph;
+                if(BinaryGraphImporter.isBinaryGraph(res.getGraph())){
+                    try{
+                        loadedGraph = BinaryGraphImporter.binary2Graph(res.getGraph());
+                    } catch(IOException e){
+                        e.printStackTrace();
+                        break;
+                    }
+                } else {
+                    loadedGraph = GraphImporter.xml2Graph(res.getGraph());
+                }
                 //set the information in the angieGraph
                 fileNameWithExtension = res.getFileName();
-                setupNewImage(res.getOri(), res.getBin(), res.getDim(), loadedGraph);
+                try{
+                    setupNewImage(TiledImageStore.open(res.getOriFile()), TiledImageStore.open(res.getBinFile()),
+                            res.getDim(), loadedGraph);
+                } catch(IOException e){
+                    e.printStackTrace();
+                }
                 break;
         }
     }
@@ -7,20 +7,32 @@ public class Constants{
 
     //TODO TEST CONSTANTS INTO GRAPH EXPORT XML
     public static final int CONCAVE_TIGHTNESS = 25; // min is 7
+    public static final boolean FAST_CONCAVE_HULL = true; //array based hull engine instead of the LarsConcaveHull
+    public static final int HULL_REUSE_MIN_VERTICES = 500; //smaller graphs do not keep their hull triangulation
     public static final double EDGE_CUT_PRECENTAGE = 1;
 
+    public static final int NOISE_PX = 30; //min pixels of a CC to not be discarded as noise
+
+    //tiled interest point extraction
+    public static final int BAND_MIN_HEIGHT = 256; //in px
+    public static final int BAND_OVERLAP = 64; //in px
+
     //annoations
     public static final double DELETE_OPACITY = 0.7;
 
     //polygonview
     public static final int STROKE_LINE_WIDTH = 2;
 
+    //graphview
+    public static final int GRAPH_TILE_SIZE = 256; //in px, side length of the tiles the graph is rendered in
+
     //Quadtree
     public static final int MAX_OBJECTS = 10;
     public static final int MAX_LEVELS = 1000;
 
     //input
     public static final int REFRESH_TIME = 50; //in ms
+    public static final double SCRIBBLE_HIT_TOLERANCE = 2; //in px, max distance of a delete scribble to a hit edge
     public static final double SCALE_DELTA = 1.1;
 
 }
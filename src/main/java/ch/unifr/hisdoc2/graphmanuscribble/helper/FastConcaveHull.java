@@ -0,0 +1,896 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.operation.linemerge.LineMerger;
+import com.vividsolutions.jts.triangulate.ConformingDelaunayTriangulationBuilder;
+import com.vividsolutions.jts.triangulate.quadedge.QuadEdge;
+import com.vividsolutions.jts.triangulate.quadedge.QuadEdgeSubdivision;
+import com.vividsolutions.jts.triangulate.quadedge.QuadEdgeTriangle;
+import com.vividsolutions.jts.triangulate.quadedge.TrianglePredicate;
+import com.vividsolutions.jts.triangulate.quadedge.Vertex;
+import com.vividsolutions.jts.util.UniqueCoordinateArrayFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Same concave hull as the LarsConcaveHull (Duckham and al. 2008 on the conforming Delaunay triangulation of JTS),
+ * but the triangles, edges and vertices are kept in int indexed arrays instead of maps of objects:
+ * <ul>
+ * <li>the edges get their id by the weighted length in descending order, like in the LarsConcaveHull</li>
+ * <li>the long border edges are in a binary heap on the id, so the longest one is on top</li>
+ * <li>the border flags of the edges and vertices are bitsets</li>
+ * <li>the two triangles of an edge and the three edges of a triangle are plain int arrays</li>
+ * </ul>
+ * Only edges with exactly the same weight can end up in a different order than in the LarsConcaveHull, which sorts
+ * them by the identity hash of the quad edges. Like the LarsConcaveHull it throws an IndexOutOfBoundsException if
+ * an edge of the triangulation has no triangle or an isolated triangle has a vertex inside the hull, which happens
+ * for almost collinear points.
+ * <p>
+ * The hull of the points of a graph which was split off another graph can take its triangles from the
+ * HullTriangulation of the other graph: the triangles with all their vertices among the points are Delaunay
+ * triangles of the points too. If they cover the convex hull of the points, they are the whole triangulation and
+ * the conforming Delaunay triangulation is skipped. Where the points have several Delaunay triangulations
+ * (cocircular points), the reused one can differ from the one JTS would build, like the edge order above.
+ */
+class FastConcaveHull{
+
+    /**
+     * Relative area of the convex hull the reused triangles may miss. JTS triangulates inside a frame, so it misses
+     * some flat triangles at the convex hull too.
+     */
+    private static final double AREA_TOLERANCE = 0.01;
+    /**
+     * Marks a taken edge with a taken triangle on both sides.
+     */
+    private static final int BOTH_SIDES = Integer.MAX_VALUE;
+
+    private final Geometry geometry;
+    private final GeometryFactory geomFactory;
+    private final double threshold;
+    private final HullTriangulation parent;
+
+    private int siteCount;
+    private Coordinate[] coordinates;
+    private int[] sortedVertices;
+    //edges
+    private int[] edgeOrigin;
+    private int[] edgeDest;
+    private double[] edgeLength;
+    private float[] edgeWeight;
+    private int[] edgeTriangles;
+    private final BitSet borderEdges = new BitSet();
+    private final BitSet borderVertices = new BitSet();
+    //triangles
+    private int[] triangleEdges;
+
+    //border edges which are shorter or longer than the threshold
+    private final BitSet shortEdges = new BitSet();
+    private final BitSet longEdges = new BitSet();
+    private int[] heap;
+    private int heapSize;
+
+    /**
+     * Create a new concave hull construction for the input {@link Geometry}.
+     *
+     * @param geometry  - the points
+     * @param threshold - the maximal length of the border edges
+     */
+    FastConcaveHull(Geometry geometry, double threshold){
+        this(geometry, threshold, null);
+    }
+
+    /**
+     * Create a new concave hull construction for the input {@link Geometry}, which takes the triangles from the
+     * triangulation of a superset of the points if possible.
+     *
+     * @param geometry  - the points
+     * @param threshold - the maximal length of the border edges
+     * @param parent    - triangulation of a superset of the points or null
+     */
+    FastConcaveHull(Geometry geometry, double threshold, HullTriangulation parent){
+        this.geometry = geometry;
+        this.geomFactory = geometry.getFactory();
+        this.threshold = threshold;
+        this.parent = parent;
+    }
+
+    /**
+     * Returns a {@link Geometry} that represents the concave hull of the input geometry according to the threshold.
+     *
+     * @return if the concave hull contains 3 or more points, a {@link Polygon};
+     * 2 points, a {@link LineString};
+     * 1 point, a {@link Point};
+     * 0 points, an empty {@link GeometryCollection}.
+     */
+    Geometry getConcaveHull() throws IndexOutOfBoundsException{
+        UniqueCoordinateArrayFilter filter = new UniqueCoordinateArrayFilter();
+        geometry.apply(filter);
+        Coordinate[] sites = filter.getCoordinates();
+
+        if(sites.length == 0){
+            return geomFactory.createGeometryCollection(null);
+        }
+        if(sites.length == 1){
+            return geomFactory.createPoint(sites[0]);
+        }
+        if(sites.length == 2){
+            return geomFactory.createLineString(sites);
+        }
+
+        siteCount = sites.length;
+        if(parent == null || !restrict(sites)){
+            triangulate(sites);
+        }
+        return erode();
+    }
+
+    /**
+     * Returns the triangulation the last hull was eroded from, so the hulls of graphs split off the graph can reuse
+     * it. Triangulations of less than HULL_REUSE_MIN_VERTICES points are not kept, they are quickly built again.
+     *
+     * @return - the triangulation or null
+     */
+    HullTriangulation getTriangulation(){
+        if(triangleEdges == null || siteCount < Constants.HULL_REUSE_MIN_VERTICES){
+            return null;
+        }
+        return new HullTriangulation(coordinates, sortedVertices, edgeOrigin, edgeDest, edgeLength, edgeWeight,
+                triangleEdges);
+    }
+
+    /**
+     * Takes the triangles of the parent triangulation which have all their vertices among the sites and fills the
+     * edge and triangle arrays with them. The vertex ids stay the ones of the parent.
+     * <p>
+     * The taken triangles are Delaunay triangles of the sites, the missing ones had another point of the parent in
+     * their circumcircle. They fill the gaps between the taken triangles and the convex hull of the sites and all
+     * their vertices are on the border of the gaps. So only the vertices around the gaps get triangulated, the
+     * triangles of it which are not taken yet and have no site in their circumcircle fill the gaps.
+     *
+     * @return - false if the triangles do not cover the sites like a triangulation, nothing is filled then
+     */
+    private boolean restrict(Coordinate[] sites){
+        if(parent.coordinates.length >= 1 << 21){
+            return false;
+        }
+        int[] siteIds = new int[sites.length];
+        BitSet inSites = new BitSet(parent.coordinates.length);
+        for(int i = 0; i < sites.length; i++){
+            siteIds[i] = parent.indexOf(sites[i]);
+            if(siteIds[i] < 0){
+                return false;
+            }
+            inSites.set(siteIds[i]);
+        }
+
+        BitSet taken = new BitSet(parent.getTriangleCount());
+        int[] edgeUse = new int[parent.edgeOrigin.length];
+        double area = 0;
+        for(int t = 0; t < parent.getTriangleCount(); t++){
+            boolean inside = true;
+            for(int k = 0; k < 3 && inside; k++){
+                int e = parent.triangleEdges[t * 3 + k];
+                inside = inSites.get(parent.edgeOrigin[e]) && inSites.get(parent.edgeDest[e]);
+            }
+            if(inside){
+                taken.set(t);
+                area += parent.getTriangleArea(t);
+                for(int k = 0; k < 3; k++){
+                    edgeUse[parent.triangleEdges[t * 3 + k]]++;
+                }
+            }
+        }
+
+        double hullArea = geomFactory.createMultiPoint(sites).convexHull().getArea();
+        List<int[]> gapTriangles = new ArrayList<>();
+        area += fillGaps(sites, siteIds, taken, edgeUse, gapTriangles);
+        if(hullArea - area > AREA_TOLERANCE * hullArea){
+            return false;
+        }
+        return build(sites.length, area, taken, edgeUse, gapTriangles);
+    }
+
+    /**
+     * Triangulates the vertices around the gaps of the taken triangles and adds the Delaunay triangles of the sites
+     * among them to the gap triangles.
+     *
+     * @return - the area of the gap triangles
+     */
+    private double fillGaps(Coordinate[] sites, int[] siteIds, BitSet taken, int[] edgeUse, List<int[]> gapTriangles){
+        //the vertices on the border of the taken triangles and the sites which are in no taken triangle
+        BitSet used = new BitSet(parent.coordinates.length);
+        BitSet around = new BitSet(parent.coordinates.length);
+        for(int e = 0; e < edgeUse.length; e++){
+            if(edgeUse[e] > 0){
+                used.set(parent.edgeOrigin[e]);
+                used.set(parent.edgeDest[e]);
+            }
+            if(edgeUse[e] == 1){
+                around.set(parent.edgeOrigin[e]);
+                around.set(parent.edgeDest[e]);
+            }
+        }
+        for(int v : siteIds){
+            if(!used.get(v)){
+                around.set(v);
+            }
+        }
+        if(around.cardinality() < 3){
+            return 0;
+        }
+        Coordinate[] aroundSites = new Coordinate[around.cardinality()];
+        int i = 0;
+        for(int v = around.nextSetBit(0); v >= 0; v = around.nextSetBit(v + 1)){
+            aroundSites[i++] = parent.coordinates[v];
+        }
+        ConformingDelaunayTriangulationBuilder cdtb = new ConformingDelaunayTriangulationBuilder();
+        cdtb.setSites(geomFactory.createMultiPoint(aroundSites));
+        //the JTS triangulation returns raw collections
+        @SuppressWarnings("unchecked")
+        List<QuadEdgeTriangle> candidates = QuadEdgeTriangle.createOn(cdtb.getSubdivision());
+
+        //the taken triangles and the vertex opposite of each taken edge, BOTH_SIDES for the inner edges
+        Set<Long> takenKeys = new HashSet<>();
+        LongIntMap takenOpposite = new LongIntMap(edgeUse.length);
+        for(int t = taken.nextSetBit(0); t >= 0; t = taken.nextSetBit(t + 1)){
+            int e0 = parent.triangleEdges[t * 3];
+            int[] corners = {parent.edgeOrigin[e0], parent.edgeDest[e0], parent.getThirdVertex(t)};
+            takenKeys.add(triangleKey(corners[0], corners[1], corners[2]));
+            for(int k = 0; k < 3; k++){
+                long edge = key(corners[k], corners[(k + 1) % 3]);
+                takenOpposite.put(edge, takenOpposite.find(edge) == -1 ? corners[(k + 2) % 3] : BOTH_SIDES);
+            }
+        }
+        Coordinate[] sitesByX = sites.clone();
+        Arrays.sort(sitesByX, (a, b) -> Double.compare(a.x, b.x));
+
+        double area = 0;
+        for(QuadEdgeTriangle candidate : candidates){
+            Coordinate a = candidate.getCoordinate(0);
+            Coordinate b = candidate.getCoordinate(1);
+            Coordinate c = candidate.getCoordinate(2);
+            int[] vertices = {parent.indexOf(a), parent.indexOf(b), parent.indexOf(c)};
+            if(takenKeys.contains(triangleKey(vertices[0], vertices[1], vertices[2]))
+                    || overlapsTaken(vertices, takenOpposite) || !isDelaunay(a, b, c, sitesByX)){
+                continue;
+            }
+            gapTriangles.add(vertices);
+            area += Math.abs((b.x - a.x) * (c.y - a.y) - (c.x - a.x) * (b.y - a.y)) / 2;
+        }
+        return area;
+    }
+
+    /**
+     * True if the triangle lies on the same side of a taken edge as a taken triangle. Such a triangle comes from four
+     * points on a circle, which the triangulation of the vertices around the gaps split along the other diagonal than
+     * the parent.
+     */
+    private boolean overlapsTaken(int[] vertices, LongIntMap takenOpposite){
+        for(int k = 0; k < 3; k++){
+            int o = vertices[k];
+            int d = vertices[(k + 1) % 3];
+            int w = takenOpposite.find(key(o, d));
+            if(w == BOTH_SIDES){
+                return true;
+            }
+            if(w != -1){
+                Coordinate co = parent.coordinates[o];
+                Coordinate cd = parent.coordinates[d];
+                if(CGAlgorithms.orientationIndex(co, cd, parent.coordinates[w])
+                        == CGAlgorithms.orientationIndex(co, cd, parent.coordinates[vertices[(k + 2) % 3]])){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if no site lies inside the circumcircle of the triangle.
+     *
+     * @param sitesByX - the sites sorted by x
+     */
+    private static boolean isDelaunay(Coordinate a, Coordinate b, Coordinate c, Coordinate[] sitesByX){
+        if(CGAlgorithms.orientationIndex(a, b, c) < 0){
+            Coordinate tmp = b;
+            b = c;
+            c = tmp;
+        }
+        Coordinate center = Triangle.circumcentre(a, b, c);
+        double radius = center.distance(a) * (1 + 1e-9);
+        int low = 0;
+        int high = sitesByX.length;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(sitesByX[mid].x < center.x - radius){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for(int i = low; i < sitesByX.length && sitesByX[i].x <= center.x + radius; i++){
+            Coordinate p = sitesByX[i];
+            if(Math.abs(p.y - center.y) <= radius && !p.equals2D(a) && !p.equals2D(b) && !p.equals2D(c)
+                    && TrianglePredicate.isInCircleRobust(a, b, c, p)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills the edge and triangle arrays with the taken and the gap triangles. The taken edges keep the order of
+     * the parent, the new edges of the gap triangles are merged in by their weighted length.
+     *
+     * @param area - the summed area of the triangles
+     * @return - false if the triangles are no triangulated disk with all the sites as vertices, nothing is filled then
+     */
+    private boolean build(int siteCount, double area, BitSet taken, int[] edgeUse, List<int[]> gapTriangles){
+        //the gap triangles share the border edges of the taken triangles or have new edges
+        int borderCount = 0;
+        for(int use : edgeUse){
+            if(use == 1){
+                borderCount++;
+            }
+        }
+        LongIntMap borderIds = new LongIntMap(borderCount);
+        for(int e = 0; e < edgeUse.length; e++){
+            if(edgeUse[e] == 1){
+                borderIds.put(key(parent.edgeOrigin[e], parent.edgeDest[e]), e);
+            }
+        }
+        float[][] m = AngieMSTGraph.Distance.FOCUSHORIZONTAL.getDistance();
+        LongIntMap newIds = new LongIntMap(gapTriangles.size() * 3);
+        List<int[]> newEdges = new ArrayList<>();
+        for(int[] triangle : gapTriangles){
+            for(int k = 0; k < 3; k++){
+                long key = key(triangle[k], triangle[(k + 1) % 3]);
+                if(borderIds.find(key) == -1 && newIds.find(key) == -1){
+                    newIds.put(key, newEdges.size());
+                    newEdges.add(normalized(triangle[k], triangle[(k + 1) % 3]));
+                }
+            }
+        }
+        float[] newWeights = new float[newEdges.size()];
+        Integer[] newOrder = new Integer[newEdges.size()];
+        for(int i = 0; i < newWeights.length; i++){
+            Coordinate o = parent.coordinates[newEdges.get(i)[0]];
+            Coordinate d = parent.coordinates[newEdges.get(i)[1]];
+            newWeights[i] = weightedLengthSq(m, o.x, o.y, d.x, d.y);
+            newOrder[i] = i;
+        }
+        Arrays.sort(newOrder, (a, b) -> Float.compare(newWeights[b], newWeights[a]));
+
+        //merge the taken and the new edges by the weighted length, the longest first
+        int takenCount = 0;
+        for(int use : edgeUse){
+            if(use > 0){
+                takenCount++;
+            }
+        }
+        int edgeCount = takenCount + newEdges.size();
+        int[] parentIds = new int[parent.edgeOrigin.length];
+        int[] newEdgeIds = new int[newEdges.size()];
+        int[] origin = new int[edgeCount];
+        int[] dest = new int[edgeCount];
+        double[] length = new double[edgeCount];
+        float[] weight = new float[edgeCount];
+        int pe = nextTaken(edgeUse, 0);
+        int ne = 0;
+        for(int id = 0; id < edgeCount; id++){
+            if(pe < edgeUse.length && (ne == newOrder.length || parent.edgeWeight[pe] >= newWeights[newOrder[ne]])){
+                parentIds[pe] = id;
+                origin[id] = parent.edgeOrigin[pe];
+                dest[id] = parent.edgeDest[pe];
+                length[id] = parent.edgeLength[pe];
+                weight[id] = parent.edgeWeight[pe];
+                pe = nextTaken(edgeUse, pe + 1);
+            } else {
+                int n = newOrder[ne++];
+                newEdgeIds[n] = id;
+                origin[id] = newEdges.get(n)[0];
+                dest[id] = newEdges.get(n)[1];
+                length[id] = parent.coordinates[origin[id]].distance(parent.coordinates[dest[id]]);
+                weight[id] = newWeights[n];
+            }
+        }
+
+        int triangleCount = taken.cardinality() + gapTriangles.size();
+        int[] triangles = new int[triangleCount * 3];
+        int[] edgeTris = new int[edgeCount * 2];
+        Arrays.fill(edgeTris, -1);
+        int t = 0;
+        for(int pt = taken.nextSetBit(0); pt >= 0; pt = taken.nextSetBit(pt + 1)){
+            for(int k = 0; k < 3; k++){
+                triangles[t * 3 + k] = parentIds[parent.triangleEdges[pt * 3 + k]];
+            }
+            t++;
+        }
+        for(int[] triangle : gapTriangles){
+            for(int k = 0; k < 3; k++){
+                long key = key(triangle[k], triangle[(k + 1) % 3]);
+                int border = borderIds.find(key);
+                triangles[t * 3 + k] = border != -1 ? parentIds[border] : newEdgeIds[newIds.find(key)];
+            }
+            t++;
+        }
+        for(t = 0; t < triangleCount; t++){
+            for(int k = 0; k < 3; k++){
+                int e = triangles[t * 3 + k];
+                if(edgeTris[e * 2] == -1){
+                    edgeTris[e * 2] = t;
+                } else if(edgeTris[e * 2 + 1] == -1){
+                    edgeTris[e * 2 + 1] = t;
+                } else {
+                    return false;
+                }
+            }
+        }
+        //every site is a vertex and the triangles are a disk: V - E + F = 1 and the border is a single ring, which
+        //encloses the area of the triangles, otherwise some of them overlap
+        BitSet vertices = new BitSet(parent.coordinates.length);
+        for(int e = 0; e < edgeCount; e++){
+            vertices.set(origin[e]);
+            vertices.set(dest[e]);
+        }
+        if(vertices.cardinality() != siteCount || siteCount - edgeCount + triangleCount != 1
+                || Math.abs(ringArea(origin, dest, edgeTris) - area) > 1e-9 * area){
+            return false;
+        }
+
+        coordinates = parent.coordinates;
+        sortedVertices = parent.getSortedVertices();
+        edgeOrigin = origin;
+        edgeDest = dest;
+        edgeLength = length;
+        edgeWeight = weight;
+        edgeTriangles = edgeTris;
+        triangleEdges = triangles;
+        heap = new int[edgeCount * 2];
+        //the edges of a single triangle are the border of the triangulation
+        for(int e = 0; e < edgeCount; e++){
+            if(edgeTriangles[e * 2 + 1] == -1){
+                borderVertices.set(edgeOrigin[e]);
+                borderVertices.set(edgeDest[e]);
+                borderEdges.set(e);
+                addBorderEdge(e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the area enclosed by the edges with a single triangle if they form one ring, where every vertex has two
+     * of the edges.
+     *
+     * @return - the area of the ring or -1 if the edges are no single ring
+     */
+    private double ringArea(int[] origin, int[] dest, int[] edgeTris){
+        //the two border neighbours of each border vertex
+        int[] neighbours = new int[parent.coordinates.length * 2];
+        Arrays.fill(neighbours, -1);
+        int borderCount = 0;
+        int start = -1;
+        for(int e = 0; e < origin.length; e++){
+            if(edgeTris[e * 2 + 1] != -1){
+                continue;
+            }
+            for(int k = 0; k < 2; k++){
+                int v = k == 0 ? origin[e] : dest[e];
+                int w = k == 0 ? dest[e] : origin[e];
+                if(neighbours[v * 2] == -1){
+                    neighbours[v * 2] = w;
+                } else if(neighbours[v * 2 + 1] == -1){
+                    neighbours[v * 2 + 1] = w;
+                } else {
+                    return -1;
+                }
+            }
+            borderCount++;
+            start = origin[e];
+        }
+        //walk around the ring
+        int previous = -1;
+        int v = start;
+        int steps = 0;
+        double area = 0;
+        do{
+            if(neighbours[v * 2 + 1] == -1){
+                return -1;
+            }
+            int next = neighbours[v * 2] != previous ? neighbours[v * 2] : neighbours[v * 2 + 1];
+            Coordinate p = parent.coordinates[v];
+            Coordinate q = parent.coordinates[next];
+            area += p.x * q.y - q.x * p.y;
+            previous = v;
+            v = next;
+            steps++;
+        } while(v != start && steps <= borderCount);
+        return steps == borderCount ? Math.abs(area) / 2 : -1;
+    }
+
+    private static int nextTaken(int[] edgeUse, int from){
+        int e = from;
+        while(e < edgeUse.length && edgeUse[e] == 0){
+            e++;
+        }
+        return e;
+    }
+
+    /**
+     * @return - the vertices of the edge ordered like the ones of the triangulation, by their coordinates
+     */
+    private int[] normalized(int v1, int v2){
+        return parent.coordinates[v2].compareTo(parent.coordinates[v1]) < 0 ? new int[]{v2, v1} : new int[]{v1, v2};
+    }
+
+    /**
+     * Triangulates the sites and fills the edge and triangle arrays.
+     */
+    private void triangulate(Coordinate[] sites){
+        ConformingDelaunayTriangulationBuilder cdtb = new ConformingDelaunayTriangulationBuilder();
+        cdtb.setSites(geomFactory.createMultiPoint(sites));
+        QuadEdgeSubdivision qes = cdtb.getSubdivision();
+
+        //the JTS triangulation returns raw collections
+        @SuppressWarnings("unchecked")
+        List<QuadEdgeTriangle> qeTriangles = QuadEdgeTriangle.createOn(qes);
+
+        //vertex ids
+        @SuppressWarnings("unchecked")
+        Collection<Vertex> qeVertices = qes.getVertices(false);
+        IdentityHashMap<Vertex, Integer> vertexIds = new IdentityHashMap<>(qeVertices.size() * 2);
+        coordinates = new Coordinate[qeVertices.size()];
+        int v = 0;
+        for(Vertex vertex : qeVertices){
+            vertexIds.put(vertex, v);
+            coordinates[v++] = vertex.getCoordinate();
+        }
+
+        //the edges without the frame, the border of the triangulation is flagged
+        List<QuadEdge> frame = new ArrayList<>();
+        List<QuadEdge> inner = new ArrayList<>();
+        BitSet border = new BitSet();
+        @SuppressWarnings("unchecked")
+        Collection<QuadEdge> quadEdges = qes.getEdges();
+        for(QuadEdge qe : quadEdges){
+            if(qes.isFrameEdge(qe)){
+                frame.add(qe);
+            } else {
+                if(qes.isFrameBorderEdge(qe)){
+                    border.set(inner.size());
+                }
+                inner.add(qe);
+            }
+        }
+        for(QuadEdge qe : frame){
+            qes.delete(qe);
+        }
+
+        //sort the edges by the weighted length, the longest gets id 0
+        int edgeCount = inner.size();
+        float[][] m = AngieMSTGraph.Distance.FOCUSHORIZONTAL.getDistance();
+        float[] weights = new float[edgeCount];
+        Integer[] order = new Integer[edgeCount];
+        for(int i = 0; i < edgeCount; i++){
+            QuadEdge qe = inner.get(i);
+            weights[i] = weightedLengthSq(m, qe.orig().getX(), qe.orig().getY(), qe.dest().getX(), qe.dest().getY());
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(weights[b], weights[a]));
+
+        edgeOrigin = new int[edgeCount];
+        edgeDest = new int[edgeCount];
+        edgeLength = new double[edgeCount];
+        edgeWeight = new float[edgeCount];
+        edgeTriangles = new int[edgeCount * 2];
+        Arrays.fill(edgeTriangles, -1);
+        heap = new int[edgeCount * 2];
+        LongIntMap edgeIds = new LongIntMap(edgeCount);
+
+        for(int id = 0; id < edgeCount; id++){
+            QuadEdge qe = inner.get(order[id]);
+            int o = vertexIds.get(qe.orig());
+            int d = vertexIds.get(qe.dest());
+            //normalized like a LineSegment
+            if(coordinates[d].compareTo(coordinates[o]) < 0){
+                int tmp = o;
+                o = d;
+                d = tmp;
+            }
+            edgeOrigin[id] = o;
+            edgeDest[id] = d;
+            edgeLength[id] = coordinates[o].distance(coordinates[d]);
+            edgeWeight[id] = weights[order[id]];
+            edgeIds.put(key(o, d), id);
+
+            if(border.get(order[id])){
+                borderVertices.set(o);
+                borderVertices.set(d);
+                borderEdges.set(id);
+                addBorderEdge(id);
+            }
+        }
+
+        triangleEdges = new int[qeTriangles.size() * 3];
+        int t = 0;
+        for(QuadEdgeTriangle qet : qeTriangles){
+            for(int k = 0; k < 3; k++){
+                QuadEdge qe = qet.getEdge(k);
+                int e = edgeIds.get(key(vertexIds.get(qe.orig()), vertexIds.get(qe.dest())));
+                triangleEdges[t * 3 + k] = e;
+                if(edgeTriangles[e * 2] == -1){
+                    edgeTriangles[e * 2] = t;
+                } else if(edgeTriangles[e * 2 + 1] == -1){
+                    edgeTriangles[e * 2 + 1] = t;
+                } else {
+                    throw new IndexOutOfBoundsException(geometry.toString());
+                }
+            }
+            t++;
+        }
+        //an edge of frame triangles only, the triangles do not cover the sites. The LarsConcaveHull fails on it too.
+        for(int e = 0; e < edgeCount; e++){
+            if(edgeTriangles[e * 2] == -1){
+                throw new IndexOutOfBoundsException(geometry.toString());
+            }
+        }
+    }
+
+    /**
+     * The concave hull algorithm. Removes the border triangle of the longest border edge until all the border edges
+     * are shorter than the threshold or can not be removed without breaking the polygon.
+     *
+     * @return - the hull
+     */
+    private Geometry erode() throws IndexOutOfBoundsException{
+        int e;
+        while((e = peekLongEdge()) != -1 && edgeLength[e] > threshold){
+            int triangle = edgeTriangles[e * 2];
+            if(triangle == -1){
+                throw new IndexOutOfBoundsException(geometry.toString());
+            }
+            int eA = triangleEdges[triangle * 3];
+            int eB = triangleEdges[triangle * 3 + 1];
+            int eC = triangleEdges[triangle * 3 + 2];
+
+            // irregular triangle test
+            int neighbours = neighbourCount(triangle);
+            if(neighbours == 1){
+                moveToShort(e);
+            } else if(borderVertices.get(edgeOrigin[eA]) && borderVertices.get(edgeDest[eA])
+                    && borderVertices.get(edgeOrigin[eB]) && borderVertices.get(edgeDest[eB])){
+                // all the vertices are on the border
+                moveToShort(e);
+            } else if(neighbours == 0){
+                // an isolated triangle with a vertex inside, the LarsConcaveHull fails on it too
+                throw new IndexOutOfBoundsException(geometry.toString());
+            } else {
+                //remove the triangle over its first border edge, the two others become border edges
+                int removed;
+                int k1;
+                int k2;
+                if(borderEdges.get(eA)){
+                    removed = eA;
+                    k1 = eB;
+                    k2 = eC;
+                } else if(borderEdges.get(eB)){
+                    removed = eB;
+                    k1 = eA;
+                    k2 = eC;
+                } else {
+                    removed = eC;
+                    k1 = eA;
+                    k2 = eB;
+                }
+                for(int k : new int[]{k1, k2}){
+                    borderEdges.set(k);
+                    borderVertices.set(edgeOrigin[k]);
+                    borderVertices.set(edgeDest[k]);
+                    removeTriangle(k, triangle);
+                    addBorderEdge(k);
+                }
+                longEdges.clear(removed);
+            }
+        }
+
+        // concave hull creation
+        List<LineString> lines = new ArrayList<>();
+        for(int i = longEdges.nextSetBit(0); i >= 0; i = longEdges.nextSetBit(i + 1)){
+            lines.add(toLineString(i));
+        }
+        for(int i = shortEdges.nextSetBit(0); i >= 0; i = shortEdges.nextSetBit(i + 1)){
+            lines.add(toLineString(i));
+        }
+
+        LineMerger lineMerger = new LineMerger();
+        lineMerger.add(lines);
+        LineString merge = (LineString) lineMerger.getMergedLineStrings().iterator().next();
+
+        if(merge.isRing()){
+            LinearRing lr = new LinearRing(merge.getCoordinateSequence(), geomFactory);
+            return new Polygon(lr, null, geomFactory);
+        }
+
+        return merge;
+    }
+
+    /**
+     * Number of triangles sharing an edge with the given triangle.
+     */
+    private int neighbourCount(int triangle){
+        int count = 0;
+        for(int k = 0; k < 3; k++){
+            if(edgeTriangles[triangleEdges[triangle * 3 + k] * 2 + 1] != -1){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void removeTriangle(int edge, int triangle){
+        if(edgeTriangles[edge * 2] == triangle){
+            edgeTriangles[edge * 2] = edgeTriangles[edge * 2 + 1];
+            edgeTriangles[edge * 2 + 1] = -1;
+        } else if(edgeTriangles[edge * 2 + 1] == triangle){
+            edgeTriangles[edge * 2 + 1] = -1;
+        }
+    }
+
+    private void moveToShort(int edge){
+        shortEdges.set(edge);
+        longEdges.clear(edge);
+    }
+
+    /**
+     * Adds a border edge to the short or the long edges depending on its length.
+     */
+    private void addBorderEdge(int edge){
+        if(edgeLength[edge] < threshold){
+            shortEdges.set(edge);
+        } else if(!longEdges.get(edge)){
+            longEdges.set(edge);
+            push(edge);
+        }
+    }
+
+    /**
+     * Returns the long border edge with the smallest id (the longest one) or -1. Removed edges are only cleared in
+     * the bitset, so they get dropped from the heap here.
+     */
+    private int peekLongEdge(){
+        while(heapSize > 0 && !longEdges.get(heap[0])){
+            pop();
+        }
+        return heapSize == 0 ? -1 : heap[0];
+    }
+
+    private void push(int edge){
+        if(heapSize == heap.length){
+            heap = Arrays.copyOf(heap, heap.length * 2 + 1);
+        }
+        int i = heapSize++;
+        while(i > 0){
+            int parent = (i - 1) >>> 1;
+            if(heap[parent] <= edge){
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = edge;
+    }
+
+    private void pop(){
+        int last = heap[--heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while(i < half){
+            int child = 2 * i + 1;
+            if(child + 1 < heapSize && heap[child + 1] < heap[child]){
+                child++;
+            }
+            if(last <= heap[child]){
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+    }
+
+    private LineString toLineString(int edge){
+        return geomFactory.createLineString(new Coordinate[]{
+                new Coordinate(coordinates[edgeOrigin[edge]]), new Coordinate(coordinates[edgeDest[edge]])});
+    }
+
+    /**
+     * Squared length of the edge after the transformation with the distance matrix, computed in float like the
+     * PointHD2 methods the LarsConcaveHull uses.
+     */
+    private static float weightedLengthSq(float[][] m, double x1, double y1, double x2, double y2){
+        float ax = (float) x1;
+        float ay = (float) y1;
+        float bx = (float) x2;
+        float by = (float) y2;
+        float dx = (m[0][0] * ax + m[1][0] * ay) - (m[0][0] * bx + m[1][0] * by);
+        float dy = (m[0][1] * ax + m[1][1] * ay) - (m[0][1] * bx + m[1][1] * by);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return - the key of the triangle with the given vertices, the ids have less than 21 bits
+     */
+    private static long triangleKey(int v1, int v2, int v3){
+        int min = Math.min(v1, Math.min(v2, v3));
+        int max = Math.max(v1, Math.max(v2, v3));
+        int mid = v1 + v2 + v3 - min - max;
+        return ((long) min << 42) | ((long) mid << 21) | max;
+    }
+
+    private static long key(int v1, int v2){
+        return v1 < v2 ? ((long) v1 << 32) | v2 : ((long) v2 << 32) | v1;
+    }
+
+    /**
+     * Open addressing hash map from long keys to int values.
+     */
+    private static final class LongIntMap{
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        LongIntMap(int expected){
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            mask = capacity - 1;
+        }
+
+        void put(long key, int value){
+            int i = slot(key);
+            while(values[i] != -1 && keys[i] != key){
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int get(long key){
+            int value = find(key);
+            if(value == -1){
+                throw new IndexOutOfBoundsException("Unknown edge");
+            }
+            return value;
+        }
+
+        /**
+         * @return - the value of the key or -1
+         */
+        int find(long key){
+            int i = slot(key);
+            while(values[i] != -1){
+                if(keys[i] == key){
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int slot(long key){
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import java.util.Arrays;
+
+/**
+ * The Delaunay triangulation a FastConcaveHull was eroded from, before the erosion. The triangles of it whose
+ * vertices all belong to a subset of the points are Delaunay triangles of the subset too, so the hull of a graph
+ * which was split off can be calculated from it without triangulating again.
+ * <p>
+ * The vertex ids index the coordinates, the edge ids are ordered by the weighted length, the longest first.
+ * Triangulations of split off graphs share the coordinates of the triangulation they were taken from.
+ */
+public final class HullTriangulation{
+
+    final Coordinate[] coordinates;
+    final int[] edgeOrigin;
+    final int[] edgeDest;
+    final double[] edgeLength;
+    final float[] edgeWeight;
+    final int[] triangleEdges;
+
+    /**
+     * Vertex ids sorted by their coordinates, built on the first lookup
+     */
+    private int[] sortedVertices;
+
+    HullTriangulation(Coordinate[] coordinates,
+                      int[] sortedVertices,
+                      int[] edgeOrigin,
+                      int[] edgeDest,
+                      double[] edgeLength,
+                      float[] edgeWeight,
+                      int[] triangleEdges){
+        this.coordinates = coordinates;
+        this.sortedVertices = sortedVertices;
+        this.edgeOrigin = edgeOrigin;
+        this.edgeDest = edgeDest;
+        this.edgeLength = edgeLength;
+        this.edgeWeight = edgeWeight;
+        this.triangleEdges = triangleEdges;
+    }
+
+    /**
+     * @return - the number of triangles
+     */
+    public int getTriangleCount(){
+        return triangleEdges.length / 3;
+    }
+
+    /**
+     * Returns the id of the vertex at the given coordinate.
+     *
+     * @param c - the coordinate
+     * @return - the vertex id or -1 if there is no vertex at the coordinate
+     */
+    int indexOf(Coordinate c){
+        int[] sorted = getSortedVertices();
+        int low = 0;
+        int high = sorted.length - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            int cmp = coordinates[sorted[mid]].compareTo(c);
+            if(cmp < 0){
+                low = mid + 1;
+            } else if(cmp > 0){
+                high = mid - 1;
+            } else {
+                return sorted[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return - the vertex ids sorted by their coordinates
+     */
+    synchronized int[] getSortedVertices(){
+        if(sortedVertices == null){
+            Integer[] ids = new Integer[coordinates.length];
+            for(int i = 0; i < ids.length; i++){
+                ids[i] = i;
+            }
+            Arrays.sort(ids, (a, b) -> coordinates[a].compareTo(coordinates[b]));
+            sortedVertices = new int[ids.length];
+            for(int i = 0; i < ids.length; i++){
+                sortedVertices[i] = ids[i];
+            }
+        }
+        return sortedVertices;
+    }
+
+    /**
+     * @return - the vertex of the triangle which is not on its first edge
+     */
+    int getThirdVertex(int triangle){
+        int e0 = triangleEdges[triangle * 3];
+        int e1 = triangleEdges[triangle * 3 + 1];
+        return edgeOrigin[e1] == edgeOrigin[e0] || edgeOrigin[e1] == edgeDest[e0] ? edgeDest[e1] : edgeOrigin[e1];
+    }
+
+    /**
+     * @return - the unsigned area of the triangle
+     */
+    double getTriangleArea(int triangle){
+        int e0 = triangleEdges[triangle * 3];
+        Coordinate a = coordinates[edgeOrigin[e0]];
+        Coordinate b = coordinates[edgeDest[e0]];
+        Coordinate c = coordinates[getThirdVertex(triangle)];
+        return Math.abs((b.x - a.x) * (c.y - a.y) - (c.x - a.x) * (b.y - a.y)) / 2;
+    }
+}
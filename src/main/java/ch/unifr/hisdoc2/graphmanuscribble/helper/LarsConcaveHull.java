@@ -187,7 +187,8 @@ class LarsConcaveHull{
             qes.delete(qe);
         }
 
-        HashMap<QuadEdge, Double> qeDistances = new HashMap<>();
+        //insertion ordered, so edges of the same length are sorted the same way on every run
+        LinkedHashMap<QuadEdge, Double> qeDistances = new LinkedHashMap<>();
         for (QuadEdge qe : quadEdges) {
             //todo do not hardcode!
             float[][] result = AngieMSTGraph.Distance.FOCUSHORIZONTAL.getDistance();
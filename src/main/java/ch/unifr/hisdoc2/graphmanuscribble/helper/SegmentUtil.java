@@ -0,0 +1,103 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper;
+
+/**
+ * Intersection and distance tests of line segments and polylines on plain coordinates.
+ */
+public final class SegmentUtil{
+
+    private SegmentUtil(){
+    }
+
+    /**
+     * Checks if the segment comes closer to the polyline than the tolerance. A polyline with a single point is
+     * treated as point.
+     *
+     * @param x1        - x of the segment start
+     * @param y1        - y of the segment start
+     * @param x2        - x of the segment end
+     * @param y2        - y of the segment end
+     * @param polyline  - the points of the polyline [x0, y0, x1, y1, ...]
+     * @param tolerance - the maximal distance
+     * @return - true if the distance between the segment and the polyline is at most the tolerance
+     */
+    public static boolean intersectsPolyline(double x1, double y1, double x2, double y2,
+                                             double[] polyline, double tolerance){
+        if(polyline.length < 2){
+            return false;
+        }
+        double toleranceSq = tolerance * tolerance;
+        if(polyline.length < 4){
+            return pointSegmentDistanceSq(polyline[0], polyline[1], x1, y1, x2, y2) <= toleranceSq;
+        }
+        for(int i = 0; i + 3 < polyline.length; i += 2){
+            if(segmentDistanceSq(x1, y1, x2, y2, polyline[i], polyline[i + 1], polyline[i + 2], polyline[i + 3])
+                    <= toleranceSq){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the squared distance between the segments a and b. It is 0 if they intersect.
+     */
+    public static double segmentDistanceSq(double ax1, double ay1, double ax2, double ay2,
+                                           double bx1, double by1, double bx2, double by2){
+        if(segmentsIntersect(ax1, ay1, ax2, ay2, bx1, by1, bx2, by2)){
+            return 0;
+        }
+        return Math.min(Math.min(pointSegmentDistanceSq(ax1, ay1, bx1, by1, bx2, by2),
+                pointSegmentDistanceSq(ax2, ay2, bx1, by1, bx2, by2)),
+                Math.min(pointSegmentDistanceSq(bx1, by1, ax1, ay1, ax2, ay2),
+                        pointSegmentDistanceSq(bx2, by2, ax1, ay1, ax2, ay2)));
+    }
+
+    /**
+     * Checks if the segments a and b intersect or touch.
+     */
+    public static boolean segmentsIntersect(double ax1, double ay1, double ax2, double ay2,
+                                            double bx1, double by1, double bx2, double by2){
+        int o1 = orientation(ax1, ay1, ax2, ay2, bx1, by1);
+        int o2 = orientation(ax1, ay1, ax2, ay2, bx2, by2);
+        int o3 = orientation(bx1, by1, bx2, by2, ax1, ay1);
+        int o4 = orientation(bx1, by1, bx2, by2, ax2, ay2);
+
+        if(o1 != o2 && o3 != o4){
+            return true;
+        }
+        //collinear cases
+        return (o1 == 0 && onSegment(ax1, ay1, bx1, by1, ax2, ay2))
+                || (o2 == 0 && onSegment(ax1, ay1, bx2, by2, ax2, ay2))
+                || (o3 == 0 && onSegment(bx1, by1, ax1, ay1, bx2, by2))
+                || (o4 == 0 && onSegment(bx1, by1, ax2, ay2, bx2, by2));
+    }
+
+    /**
+     * Returns the squared distance between the point p and the segment from 1 to 2.
+     */
+    public static double pointSegmentDistanceSq(double px, double py, double x1, double y1, double x2, double y2){
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - x1) * dx + (py - y1) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double cx = x1 + t * dx - px;
+        double cy = y1 + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+
+    /**
+     * Orientation of the triple (1, 2, p): 1 counter clockwise, -1 clockwise, 0 collinear.
+     */
+    private static int orientation(double x1, double y1, double x2, double y2, double px, double py){
+        double cross = (x2 - x1) * (py - y1) - (y2 - y1) * (px - x1);
+        return cross > 0 ? 1 : (cross < 0 ? -1 : 0);
+    }
+
+    /**
+     * Checks if q lies within the bounding box of the segment from p to r. Only valid for collinear points.
+     */
+    private static boolean onSegment(double px, double py, double qx, double qy, double rx, double ry){
+        return qx <= Math.max(px, rx) && qx >= Math.min(px, rx) && qy <= Math.max(py, ry) && qy >= Math.min(py, ry);
+    }
+}
@@ -8,6 +8,7 @@ import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface to the JTS Java Topology Suite - convert data structures to their format and use their algorithms
@@ -42,6 +43,24 @@ public final class TopologyUtil{
      * @return - the concave hull
      */
     public static List<PointHD2> pointListToConcaveHull(List<? extends PointHD2> list, double dst) {
+        return pointListToConcaveHull(list, dst, null, null);
+    }
+
+    /**
+     * Creates the concave hull out of a given point cloud like pointListToConcaveHull. With the fast hull engine the
+     * triangles are taken from the triangulation of a superset of the points if they cover the points, e.g. from
+     * the triangulation of the graph the points were split off.
+     *
+     * @param list          - we want the concave hull from
+     * @param dst           - the tightness of the hull
+     * @param parent        - triangulation of a superset of the points or null
+     * @param triangulation - gets the triangulation of the points or null if it is not kept, can be null
+     * @return - the concave hull
+     */
+    public static List<PointHD2> pointListToConcaveHull(List<? extends PointHD2> list,
+                                                        double dst,
+                                                        HullTriangulation parent,
+                                                        Consumer<HullTriangulation> triangulation) {
 
         Geometry geo = createGeometryFromPointList(list);
 
@@ -49,10 +68,16 @@ public final class TopologyUtil{
             return (List<PointHD2>) list;
         }
 
-        LarsConcaveHull hull = new LarsConcaveHull(geo, dst);
-
         try {
-            geo = hull.getConcaveHull();
+            if(Constants.FAST_CONCAVE_HULL){
+                FastConcaveHull hull = new FastConcaveHull(geo, dst, parent);
+                geo = hull.getConcaveHull();
+                if(triangulation != null){
+                    triangulation.accept(hull.getTriangulation());
+                }
+            } else {
+                geo = new LarsConcaveHull(geo, dst).getConcaveHull();
+            }
         } catch (IndexOutOfBoundsException e) {
             list.clear();
             throw e;
@@ -69,6 +94,23 @@ public final class TopologyUtil{
         return PointHD2.coordinateList2pointList(Arrays.asList(geo.getCoordinates()));
     }
 
+    /**
+     * Creates a cheap placeholder for the hull of pointListToConcaveHull out of the same point cloud: the convex hull
+     * grown by the buffer and the simplification tolerance of the concave hull. It always contains the concave hull.
+     *
+     * @param list - we want the placeholder hull from
+     * @return - the placeholder hull
+     */
+    public static List<PointHD2> pointListToPlaceholderHull(List<? extends PointHD2> list){
+        Coordinate[] cords = new Coordinate[list.size()];
+        for(int i = 0; i < cords.length; i++){
+            cords[i] = list.get(i).toCoordinate();
+        }
+        //buffer 3 and simplification 1 of the concave hull, with a margin for the segments of the round buffer
+        Geometry geo = new GeometryFactory().createMultiPoint(cords).convexHull().buffer(5);
+        return PointHD2.coordinateList2pointList(Arrays.asList(geo.getCoordinates()));
+    }
+
     /**
      * Checks if a given point is in a given concave hull.
      *
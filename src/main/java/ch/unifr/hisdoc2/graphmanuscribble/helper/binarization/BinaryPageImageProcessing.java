@@ -3,7 +3,6 @@ package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
 import org.openimaj.image.FImage;
 import org.openimaj.image.ImageUtilities;
 import org.openimaj.image.analysis.algorithm.SummedAreaTable;
-import org.openimaj.image.processing.algorithm.DifferenceOfGaussian;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -17,6 +16,11 @@ import static ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.Binarizatio
  */
 public class BinaryPageImageProcessing{
 
+    /**
+     * Default window size of Sauvola
+     */
+    public static final int SAUVOLA_WINDOW = 150;
+
 
     public static BufferedImage binariseImage(final BufferedImage fname,
                                               boolean useimagesettings,
@@ -27,14 +31,9 @@ public class BinaryPageImageProcessing{
 
         switch(binAlgo){
             case SAUVOLA:
-                Image img = new Image(fname);
-                img.toYUV();
-                Matrix m = new Matrix(img.getLayer(0));
                 if(!useimagesettings)
-                    binAlgoParams = new float[]{150};
-                m = m.sauvolaBinarization((int) binAlgoParams[0]);
-                bi = m.getImage();
-                return bi;
+                    binAlgoParams = new float[]{SAUVOLA_WINDOW};
+                return FastSauvola.binarize(fname, (int) binAlgoParams[0]);
 
             case OTSU:
                 bi = Otsu.binarize(fname);
@@ -53,10 +52,7 @@ public class BinaryPageImageProcessing{
                     binAlgoParams = new float[]{th, g1, g2};
 
                 }
-                FImage fbi = ImageUtilities.createFImage(fname);
-                FImage img2 = fbi.clone().process(new DifferenceOfGaussian(binAlgoParams[1], binAlgoParams[2]));
-                img2 = img2.threshold(binAlgoParams[0]);
-                return makeRGBImage(ImageUtilities.createBufferedImage(img2));
+                return DoGBinarizer.binarize(fname, binAlgoParams[0], binAlgoParams[1], binAlgoParams[2]);
             default:
                 System.out.println("Usage: java -jar PolyDrawer.jar input-image [sauvola/otsu]");
                 System.exit(1);
@@ -75,7 +71,7 @@ public class BinaryPageImageProcessing{
         computeVPP(image, integralImage, 0, (int) ((image.width - 1) * maxSearchArea));
         computeVPP(image, integralImage, (int) ((image.width - 1) * (1 - maxSearchArea)), (image.width - 1));
 
-        return makeRGBImage(ImageUtilities.createBufferedImage(image));
+        return RasterUtil.toGrayImage(image);
     }
 
     /**
@@ -120,15 +116,4 @@ public class BinaryPageImageProcessing{
             }
         }
     }
-
-    private static BufferedImage makeRGBImage(BufferedImage bin) {
-        BufferedImage bi = new BufferedImage(bin.getWidth(), bin.getHeight(), BufferedImage.TYPE_INT_RGB);
-        for (int x = 0; x < bin.getWidth(); x++) {
-            for (int y = 0; y < bin.getHeight(); y++) {
-                bi.setRGB(x, y, bin.getRGB(x, y));
-            }
-        }
-        return bi;
-
-    }
 }
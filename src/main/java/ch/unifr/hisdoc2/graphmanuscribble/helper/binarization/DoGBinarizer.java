@@ -0,0 +1,184 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Difference of gaussian binarization on flat float buffers.
+ * <p>
+ * It computes the same as the openimaj path (createFImage, DifferenceOfGaussian and threshold): the page is
+ * converted to gray like FImage does, blurred with both gaussian kernels of FGaussianConvolve (truncated at 4 sigma,
+ * border pixels repeated, horizontal pass first) and the difference of the blurs is thresholded. The sums are done
+ * in the same order as openimaj, so the float results are the same.
+ * <p>
+ * Both horizontal passes are done in one pass over the rows of the page, the vertical passes and the threshold are
+ * done row by row and written directly into a 1-bit image. The rows are processed in strips in parallel. The two
+ * page sized buffers of the horizontal passes are allocated per call, so no page sized buffer outlives the
+ * binarization of its page.
+ */
+public final class DoGBinarizer{
+
+    /**
+     * Number of rows of a strip processed by one thread
+     */
+    private static final int ROWS_PER_STRIP = 32;
+    /**
+     * Kernel size in sigmas on each side, like FGaussianConvolve
+     */
+    private static final float GAUSS_TRUNCATE = 4.0f;
+
+    private DoGBinarizer(){
+    }
+
+    /**
+     * Binarizes the image. A pixel is white if the blur with sigma1 minus the blur with sigma2 is bigger than the
+     * threshold.
+     *
+     * @param img       - the image
+     * @param threshold - the threshold of the difference of the blurs
+     * @param sigma1    - sigma of the first gaussian
+     * @param sigma2    - sigma of the second gaussian
+     * @return - TYPE_BYTE_BINARY image, text is white
+     */
+    public static BufferedImage binarize(BufferedImage img, float threshold, float sigma1, float sigma2){
+        int width = img.getWidth();
+        int height = img.getHeight();
+        float[] blur1 = new float[width * height];
+        float[] blur2 = new float[width * height];
+        float[] kernel1 = makeKernel(sigma1);
+        float[] kernel2 = makeKernel(sigma2);
+        int strips = (height + ROWS_PER_STRIP - 1) / ROWS_PER_STRIP;
+
+        //horizontal passes
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            int[] rgb = new int[width];
+            float[] gray = new float[width];
+            float[] buffer = new float[width + Math.max(kernel1.length, kernel2.length)];
+            for(int y = s * ROWS_PER_STRIP; y < Math.min(height, (s + 1) * ROWS_PER_STRIP); y++){
+                RasterUtil.readRGB(img, y, rgb);
+                for(int x = 0; x < width; x++){
+                    gray[x] = toGray(rgb[x]);
+                }
+                convolveRow(gray, width, kernel1, buffer, blur1, y * width);
+                convolveRow(gray, width, kernel2, buffer, blur2, y * width);
+            }
+        });
+
+        //vertical passes and threshold
+        BufferedImage bin = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) bin.getRaster().getSampleModel();
+        byte[] out = ((DataBufferByte) bin.getRaster().getDataBuffer()).getData();
+        int scanline = sm.getScanlineStride();
+        IntStream.range(0, strips).parallel().forEach(s -> {
+            float[] v1 = new float[width];
+            float[] v2 = new float[width];
+            for(int y = s * ROWS_PER_STRIP; y < Math.min(height, (s + 1) * ROWS_PER_STRIP); y++){
+                convolveColumns(blur1, width, height, y, kernel1, v1);
+                convolveColumns(blur2, width, height, y, kernel2, v2);
+                int offset = y * scanline;
+                for(int x = 0; x < width; x++){
+                    //like FImage.threshold: values <= threshold are 0
+                    if(v1[x] - v2[x] > threshold){
+                        out[offset + (x >> 3)] |= 0x80 >> (x & 7);
+                    }
+                }
+            }
+        });
+        return bin;
+    }
+
+    /**
+     * Gray value of a pixel like FImage: (3 * red + 4 * green + blue) / 8 / 255
+     *
+     * @param rgb - the pixel
+     * @return - the gray value between 0 and 1
+     */
+    private static float toGray(int rgb){
+        int red = (rgb >> 16) & 0xFF;
+        int green = (rgb >> 8) & 0xFF;
+        int blue = rgb & 0xFF;
+        return (float) ((red + red + red + blue + green + green + green + green) >> 3) / 255f;
+    }
+
+    /**
+     * Convolves a row with the kernel, the border pixels are repeated.
+     *
+     * @param row    - the row
+     * @param width  - length of the row
+     * @param kernel - the kernel
+     * @param buffer - scratch buffer of at least width + kernel length
+     * @param out    - the array to write the result into
+     * @param offset - where in out the row starts
+     */
+    private static void convolveRow(float[] row, int width, float[] kernel, float[] buffer, float[] out, int offset){
+        int half = kernel.length / 2;
+        for(int i = 0; i < half; i++){
+            buffer[i] = row[0];
+            buffer[half + width + i] = row[width - 1];
+        }
+        System.arraycopy(row, 0, buffer, half, width);
+        int kl = kernel.length;
+        for(int i = 0; i < width; i++){
+            float sum = 0.0f;
+            for(int j = 0, jj = kl - 1; j < kl; j++, jj--){
+                sum += buffer[i + j] * kernel[jj];
+            }
+            out[offset + i] = sum;
+        }
+    }
+
+    /**
+     * Convolves the columns of the page at one row with the kernel, the border rows are repeated. The rows of the
+     * kernel are summed up one after the other over the whole row, which gives the same order of the sum per pixel
+     * as a convolution of the column.
+     *
+     * @param page   - the page
+     * @param width  - width of the page
+     * @param height - height of the page
+     * @param y      - the row to compute
+     * @param kernel - the kernel
+     * @param out    - the convolved row
+     */
+    private static void convolveColumns(float[] page, int width, int height, int y, float[] kernel, float[] out){
+        int half = kernel.length / 2;
+        int kl = kernel.length;
+        Arrays.fill(out, 0, width, 0.0f);
+        for(int j = 0, jj = kl - 1; j < kl; j++, jj--){
+            int row = Math.min(height - 1, Math.max(0, y + j - half)) * width;
+            float k = kernel[jj];
+            for(int x = 0; x < width; x++){
+                out[x] += page[row + x] * k;
+            }
+        }
+    }
+
+    /**
+     * Creates the normalised gaussian kernel like FGaussianConvolve.
+     *
+     * @param sigma - sigma of the gaussian
+     * @return - the kernel
+     */
+    private static float[] makeKernel(float sigma){
+        if(sigma == 0){
+            return new float[]{1f};
+        }
+        int ksize = (int) (2.0f * GAUSS_TRUNCATE * sigma + 1.0f);
+        if(ksize % 2 == 0){
+            ksize++;
+        }
+        float[] kernel = new float[ksize];
+        float sum = 0.0f;
+        for(int i = 0; i < ksize; i++){
+            float x = i - ksize / 2;
+            kernel[i] = (float) Math.exp(-x * x / (2.0 * sigma * sigma));
+            sum += kernel[i];
+        }
+        for(int i = 0; i < ksize; i++){
+            kernel[i] /= sum;
+        }
+        return kernel;
+    }
+}
@@ -0,0 +1,162 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+/**
+ * Sauvola binarization with the same window, border handling and threshold as
+ * {@link Matrix#sauvolaBinarization(int)}, but without the float matrices.
+ * <p>
+ * The luminance of the page is read row by row into a flat int array. It is scaled by 255000
+ * (299 * r + 587 * g + 114 * b), so the sums and the sums of squares of the integral images are exact long values.
+ * Both integral images are built in one pass over the border-extended page. The maximal standard deviation and the
+ * threshold of the pixels are computed row-wise in parallel.
+ * <p>
+ * The result is the same as the one of the Matrix version, the integer sums only remove the rounding errors of the
+ * float cumulative sums: text is white on black.
+ */
+public class FastSauvola{
+
+    /**
+     * Sauvola's k
+     */
+    private static final double K = 0.175;
+
+    private final int width;
+    private final int height;
+    private final int window;
+    /**
+     * Number of rows and columns the page is extended on each side
+     */
+    private final int half;
+    /**
+     * Row length of the integral images
+     */
+    private final int stride;
+    private final int[] luminance;
+    private final long[] sum;
+    private final long[] sumOfSquares;
+
+    private FastSauvola(BufferedImage img, int window){
+        // only positive odd size allowed
+        if(window % 2 == 0){
+            window--;
+        }
+        if(window < 1){
+            window = 1;
+        }
+        this.width = img.getWidth();
+        this.height = img.getHeight();
+        this.window = window;
+        this.half = (window - 1) / 2;
+        this.stride = width + window;
+        this.luminance = readLuminance(img);
+        this.sum = new long[stride * (height + window)];
+        this.sumOfSquares = new long[sum.length];
+        buildIntegralImages();
+    }
+
+    /**
+     * Binarizes the image with Sauvola's method.
+     *
+     * @param img    - the image to binarize
+     * @param window - side length of the window
+     * @return - the binary image (TYPE_BYTE_GRAY), text is white
+     */
+    public static BufferedImage binarize(BufferedImage img, int window){
+        return new FastSauvola(img, window).threshold();
+    }
+
+    /**
+     * Reads the luminance of the image, the rows are read in parallel.
+     *
+     * @param img - the image
+     * @return - the luminance of all the pixels row by row
+     */
+    private int[] readLuminance(BufferedImage img){
+        int[] lum = new int[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int[] row = new int[width];
+            RasterUtil.readRGB(img, y, row);
+            int offset = y * width;
+            for(int x = 0; x < width; x++){
+                int rgb = row[x];
+                lum[offset + x] = 299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF);
+            }
+        });
+        return lum;
+    }
+
+    /**
+     * Builds the integral images of the page extended by half a window on each side with the values of the border
+     * pixels. The first row and column of the integral images are zero.
+     */
+    private void buildIntegralImages(){
+        int paddedWidth = width + window - 1;
+        int paddedHeight = height + window - 1;
+        for(int py = 0; py < paddedHeight; py++){
+            int rowOffset = clamp(py - half, height) * width;
+            int above = py * stride;
+            int current = above + stride;
+            long rowSum = 0;
+            long rowSumOfSquares = 0;
+            for(int px = 0; px < paddedWidth; px++){
+                long v = luminance[rowOffset + clamp(px - half, width)];
+                rowSum += v;
+                rowSumOfSquares += v * v;
+                sum[current + px + 1] = sum[above + px + 1] + rowSum;
+                sumOfSquares[current + px + 1] = sumOfSquares[above + px + 1] + rowSumOfSquares;
+            }
+        }
+    }
+
+    /**
+     * Thresholds the pixels with the mean and the standard deviation of their window.
+     *
+     * @return - the binary image
+     */
+    private BufferedImage threshold(){
+        double maxStd = IntStream.range(0, height).parallel().mapToDouble(y -> {
+            double max = Double.NEGATIVE_INFINITY;
+            for(int x = 0; x < width; x++){
+                max = Math.max(max, standardDeviation(x, y, mean(x, y)));
+            }
+            return max;
+        }).max().orElse(0);
+
+        BufferedImage bi = RasterUtil.createGrayImage(width, height);
+        byte[] out = RasterUtil.getGrayData(bi);
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int offset = y * width;
+            for(int x = 0; x < width; x++){
+                double mean = mean(x, y);
+                // Sauvola, p. 232 : max-1, without parenthesis
+                double t = mean * (1 + K * (standardDeviation(x, y, mean) / maxStd - 1));
+                out[offset + x] = luminance[offset + x] < t ? RasterUtil.WHITE : RasterUtil.BLACK;
+            }
+        });
+        return bi;
+    }
+
+    private double mean(int x, int y){
+        return windowSum(sum, x, y) / ((double) window * window);
+    }
+
+    private double standardDeviation(int x, int y, double mean){
+        double variance = windowSum(sumOfSquares, x, y) / ((double) window * window) - mean * mean;
+        return Math.sqrt(Math.max(0, variance));
+    }
+
+    /**
+     * Returns the sum of the window centered on the pixel. In the extended page the window starts at (x, y).
+     */
+    private long windowSum(long[] table, int x, int y){
+        int top = y * stride;
+        int bottom = (y + window) * stride;
+        return table[bottom + x + window] - table[top + x + window] - table[bottom + x] + table[top + x];
+    }
+
+    private static int clamp(int v, int size){
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+}
@@ -5,8 +5,8 @@
  */
 package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -14,31 +14,33 @@ import java.awt.image.BufferedImage;
  */
 public class Otsu{
 
+    /**
+     * Number of rows of the blocks the histogram is computed of in parallel
+     */
+    private static final int ROWS_PER_BLOCK = 64;
+
+    /**
+     * Binarizes the image with the Otsu threshold of its red channel.
+     *
+     * @param original - the image
+     * @return - TYPE_BYTE_GRAY image, pixels over the threshold are black, the others white
+     */
     public static BufferedImage binarize(BufferedImage original) {
 
-        int red;
-        int newPixel;
-
         int threshold = otsuTreshold(original);
 
-        BufferedImage binarized = new BufferedImage(original.getWidth(), original.getHeight(), original.getType());
-
-        for (int i = 0; i < original.getWidth(); i++) {
-            for (int j = 0; j < original.getHeight(); j++) {
-
-                // Get pixels
-                red = new Color(original.getRGB(i, j)).getRed();
-                int alpha = new Color(original.getRGB(i, j)).getAlpha();
-                if (red > threshold) {
-                    newPixel = 0;
-                } else {
-                    newPixel = 255;
-                }
-                newPixel = colorToRGB(alpha, newPixel, newPixel, newPixel);
-                binarized.setRGB(i, j, newPixel);
+        int width = original.getWidth();
+        BufferedImage binarized = RasterUtil.createGrayImage(width, original.getHeight());
+        byte[] out = RasterUtil.getGrayData(binarized);
 
+        IntStream.range(0, original.getHeight()).parallel().forEach(y -> {
+            int[] red = new int[width];
+            RasterUtil.readRed(original, y, red);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                out[offset + x] = red[x] > threshold ? RasterUtil.BLACK : RasterUtil.WHITE;
             }
-        }
+        });
 
         return binarized;
 
@@ -88,38 +90,34 @@ public class Otsu{
 
     }
 
+    /**
+     * Histogram of the red channel. Blocks of rows are counted in parallel and summed up.
+     *
+     * @param input - the image
+     * @return - the number of pixels per red value
+     */
     public static int[] imageHistogram(BufferedImage input) {
-
-        int[] histogram = new int[256];
-
-        for (int i = 0; i < histogram.length; i++) {
-            histogram[i] = 0;
-        }
-
-        for (int i = 0; i < input.getWidth(); i++) {
-            for (int j = 0; j < input.getHeight(); j++) {
-                int red = new Color(input.getRGB(i, j)).getRed();
-                histogram[red]++;
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int blocks = (height + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+
+        return IntStream.range(0, blocks).parallel().mapToObj(b -> {
+            int[] histogram = new int[256];
+            int[] red = new int[width];
+            for (int y = b * ROWS_PER_BLOCK; y < Math.min(height, (b + 1) * ROWS_PER_BLOCK); y++) {
+                RasterUtil.readRed(input, y, red);
+                for (int x = 0; x < width; x++) {
+                    histogram[red[x]]++;
+                }
             }
-        }
-
-        return histogram;
-
-    }
-
-    // Convert R, G, B, Alpha to standard 8 bit
-    private static int colorToRGB(int alpha, int red, int green, int blue) {
-
-        int newPixel = 0;
-        newPixel += alpha;
-        newPixel = newPixel << 8;
-        newPixel += red;
-        newPixel = newPixel << 8;
-        newPixel += green;
-        newPixel = newPixel << 8;
-        newPixel += blue;
-
-        return newPixel;
+            return histogram;
+        }).reduce(new int[256], (h1, h2) -> {
+            int[] histogram = new int[256];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = h1[i] + h2[i];
+            }
+            return histogram;
+        });
 
     }
 }
@@ -0,0 +1,129 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.image.TiledImageStore;
+import org.openimaj.image.FImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.stream.IntStream;
+
+/**
+ * Row-wise access to the pixel arrays of BufferedImages for the binarizations and the TiledImageStore, instead of
+ * getRGB/setRGB per pixel.
+ * The binary images are TYPE_BYTE_GRAY images with 0 (black) and 255 (white) or TYPE_BYTE_BINARY images.
+ */
+public final class RasterUtil{
+
+    static final byte BLACK = 0;
+    static final byte WHITE = (byte) 0xFF;
+
+    private RasterUtil(){
+    }
+
+    /**
+     * Reads the red channel of a row of the image.
+     *
+     * @param img - the image
+     * @param y   - the row
+     * @param row - the red values of the row, at least as long as the width of the image
+     */
+    static void readRed(BufferedImage img, int y, int[] row){
+        readRGB(img, y, row);
+        for(int x = 0; x < img.getWidth(); x++){
+            row[x] = (row[x] >> 16) & 0xFF;
+        }
+    }
+
+    /**
+     * Reads a row of the image as packed RGB values like getRGB, the alpha byte is undefined. The int and byte
+     * RGB(A) images are read directly from their data buffer, the images of a TiledImageStore from the store, all the
+     * other types with getRGB for the whole row.
+     *
+     * @param img - the image
+     * @param y   - the row
+     * @param row - the RGB values of the row, at least as long as the width of the image
+     */
+    public static void readRGB(BufferedImage img, int y, int[] row){
+        Raster raster = img.getRaster();
+        int width = img.getWidth();
+        int ty = y - raster.getSampleModelTranslateY();
+        int tx = -raster.getSampleModelTranslateX();
+        switch(img.getType()){
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:{
+                SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                DataBufferInt db = (DataBufferInt) raster.getDataBuffer();
+                System.arraycopy(db.getData(), db.getOffset() + sm.getOffset(tx, ty), row, 0, width);
+                break;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:{
+                //the bands are red, green, blue (and alpha)
+                ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+                DataBufferByte db = (DataBufferByte) raster.getDataBuffer();
+                byte[] data = db.getData();
+                int pixelStride = sm.getPixelStride();
+                int red = db.getOffset() + sm.getOffset(tx, ty, 0);
+                int green = db.getOffset() + sm.getOffset(tx, ty, 1);
+                int blue = db.getOffset() + sm.getOffset(tx, ty, 2);
+                for(int x = 0, i = 0; x < width; x++, i += pixelStride){
+                    row[x] = (data[red + i] & 0xFF) << 16 | (data[green + i] & 0xFF) << 8 | (data[blue + i] & 0xFF);
+                }
+                break;
+            }
+            default:
+                TiledImageStore store = TiledImageStore.of(img);
+                if(store != null){
+                    store.readRegion(0, 0, y, width, 1, row);
+                } else {
+                    img.getRGB(0, y, width, 1, row, 0, width);
+                }
+        }
+    }
+
+    /**
+     * Creates an empty gray image.
+     *
+     * @param width  - width of the image
+     * @param height - height of the image
+     * @return - the TYPE_BYTE_GRAY image
+     */
+    static BufferedImage createGrayImage(int width, int height){
+        return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+    }
+
+    /**
+     * Returns the pixels of an image created by {@link #createGrayImage(int, int)}, row by row.
+     *
+     * @param img - the gray image
+     * @return - the pixel array of the image
+     */
+    static byte[] getGrayData(BufferedImage img){
+        return ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Converts an FImage with values between 0 and 1 into a gray image, the same values as with
+     * ImageUtilities.createBufferedImage, but written row by row in parallel directly into the pixel array.
+     *
+     * @param image - the image
+     * @return - the TYPE_BYTE_GRAY image
+     */
+    static BufferedImage toGrayImage(FImage image){
+        int width = image.width;
+        BufferedImage bi = createGrayImage(width, image.height);
+        byte[] out = getGrayData(bi);
+        IntStream.range(0, image.height).parallel().forEach(y -> {
+            float[] row = image.pixels[y];
+            int offset = y * width;
+            for(int x = 0; x < width; x++){
+                out[offset + x] = (byte) (int) (row[x] * 255);
+            }
+        });
+        return bi;
+    }
+}
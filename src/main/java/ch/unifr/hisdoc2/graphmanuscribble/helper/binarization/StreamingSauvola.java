@@ -0,0 +1,265 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import ch.unifr.hisdoc2.graphmanuscribble.io.ImageStripReader;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Sauvola binarization of an image file without the integral images of the whole page, with the same result as
+ * {@link FastSauvola}.
+ * <p>
+ * Only the rows of the current window are kept in a ring buffer together with the sums and the sums of squares of
+ * the window per column. The window sums of the pixels of a row are computed by sliding the window along the column
+ * sums. Sauvola needs the maximal standard deviation of the page, so the rows are passed twice: once for the maximum
+ * and once for the threshold, which is written row by row into a 1-bit image. The page is decoded only once, with an
+ * ImageStripReader, during the first pass the luminance of the rows is written to a temporary file and the second
+ * pass reads it from there. The temporary file takes 4 bytes per pixel.
+ * <p>
+ * The memory needed is about window * width * 4 bytes for the rows and one bit per pixel for the result. During the
+ * first pass the decoded page is held as well: the PNG and JPEG readers decode the whole image at once (reading them
+ * in strips decodes the image from the top for each strip, which took 18 s instead of 5 s on a 3000x14000 PNG with
+ * the 512-row strips), only the formats with random access like TIFF are read one strip at a time.
+ */
+public class StreamingSauvola{
+
+    /**
+     * Sauvola's k
+     */
+    private static final double K = 0.175;
+    private static final int DEFAULT_STRIP_HEIGHT = 512;
+
+    private final ImageStripReader reader;
+    private final File spillFile;
+    private final int width;
+    private final int height;
+    private final int window;
+    private final int half;
+
+    /**
+     * The rows of the window, row r is at r % rows.length
+     */
+    private final int[][] rows;
+    private final long[] columnSum;
+    private final long[] columnSumOfSquares;
+    /**
+     * Next source row to load into the ring buffer
+     */
+    private int nextRow;
+    private BufferedImage strip;
+    private int stripStart;
+    private final int[] rgb;
+    /**
+     * The luminance of the rows, written in the first pass and read in the second
+     */
+    private final FileChannel spill;
+    private boolean spilled;
+    private final ByteBuffer spillRow;
+
+    private StreamingSauvola(ImageStripReader reader, File spillFile, FileChannel spill, int window){
+        // only positive odd size allowed
+        if(window % 2 == 0){
+            window--;
+        }
+        if(window < 1){
+            window = 1;
+        }
+        this.reader = reader;
+        this.spillFile = spillFile;
+        this.spill = spill;
+        this.width = reader.getWidth();
+        this.height = reader.getHeight();
+        this.window = window;
+        this.half = (window - 1) / 2;
+        this.rows = new int[Math.min(window + 1, height)][width];
+        this.columnSum = new long[width];
+        this.columnSumOfSquares = new long[width];
+        this.rgb = new int[width];
+        this.spillRow = ByteBuffer.allocate(width * 4).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Binarizes an image file with Sauvola's method.
+     *
+     * @param file   - the image file
+     * @param window - side length of the window
+     * @return - the binary image (TYPE_BYTE_BINARY), text is white
+     * @throws IOException - if the file can not be read
+     */
+    public static BufferedImage binarize(File file, int window) throws IOException{
+        return binarize(file, window, DEFAULT_STRIP_HEIGHT);
+    }
+
+    /**
+     * Binarizes an image file with Sauvola's method.
+     *
+     * @param file        - the image file
+     * @param window      - side length of the window
+     * @param stripHeight - number of rows which are read at once from the formats with random access
+     * @return - the binary image (TYPE_BYTE_BINARY), text is white
+     * @throws IOException - if the file can not be read
+     */
+    public static BufferedImage binarize(File file, int window, int stripHeight) throws IOException{
+        File spillFile = File.createTempFile("sauvola-", ".lum");
+        try(ImageStripReader reader = ImageStripReader.open(file, stripHeight);
+            RandomAccessFile raf = new RandomAccessFile(spillFile, "rw")){
+            return new StreamingSauvola(reader, spillFile, raf.getChannel(), window).binarize();
+        } finally{
+            if(!spillFile.delete()){
+                spillFile.deleteOnExit();
+            }
+        }
+    }
+
+    private BufferedImage binarize() throws IOException{
+        //first pass: maximal standard deviation
+        double maxStd = Double.NEGATIVE_INFINITY;
+        startPass();
+        for(int y = 0; y < height; y++){
+            moveWindow(y);
+            long s = windowSum(columnSum, 0);
+            long s2 = windowSum(columnSumOfSquares, 0);
+            for(int x = 0; x < width; x++){
+                maxStd = Math.max(maxStd, standardDeviation(s, s2));
+                s += columnSum[clamp(x + half + 1, width)] - columnSum[clamp(x - half, width)];
+                s2 += columnSumOfSquares[clamp(x + half + 1, width)] - columnSumOfSquares[clamp(x - half, width)];
+            }
+        }
+
+        //second pass: threshold, the page is not needed anymore
+        strip = null;
+        reader.close();
+        spilled = true;
+        BufferedImage bin = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) bin.getRaster().getSampleModel();
+        byte[] out = ((DataBufferByte) bin.getRaster().getDataBuffer()).getData();
+        int scanline = sm.getScanlineStride();
+        startPass();
+        spill.position(0);
+        for(int y = 0; y < height; y++){
+            moveWindow(y);
+            int[] row = rows[y % rows.length];
+            int offset = y * scanline;
+            long s = windowSum(columnSum, 0);
+            long s2 = windowSum(columnSumOfSquares, 0);
+            for(int x = 0; x < width; x++){
+                double mean = s / ((double) window * window);
+                // Sauvola, p. 232 : max-1, without parenthesis
+                double t = mean * (1 + K * (standardDeviation(s, s2) / maxStd - 1));
+                if(row[x] < t){
+                    out[offset + (x >> 3)] |= 0x80 >> (x & 7);
+                }
+                s += columnSum[clamp(x + half + 1, width)] - columnSum[clamp(x - half, width)];
+                s2 += columnSumOfSquares[clamp(x + half + 1, width)] - columnSumOfSquares[clamp(x - half, width)];
+            }
+        }
+        return bin;
+    }
+
+    /**
+     * Resets the window to the top of the page.
+     */
+    private void startPass(){
+        nextRow = 0;
+        Arrays.fill(columnSum, 0);
+        Arrays.fill(columnSumOfSquares, 0);
+    }
+
+    /**
+     * Moves the window to the row. For the first row the window is filled, afterwards it has to be moved by one row.
+     * The rows outside of the page are the repeated border rows.
+     *
+     * @param y - the row in the center of the window
+     */
+    private void moveWindow(int y) throws IOException{
+        if(y == 0){
+            for(int py = -half; py <= half; py++){
+                addRow(clamp(py, height), 1);
+            }
+        } else {
+            addRow(clamp(y - half - 1, height), -1);
+            addRow(clamp(y + half, height), 1);
+        }
+    }
+
+    /**
+     * Adds a row to or removes it from the column sums, the row is loaded if needed.
+     *
+     * @param r    - the source row
+     * @param sign - 1 to add, -1 to remove
+     */
+    private void addRow(int r, int sign) throws IOException{
+        while(nextRow <= r){
+            loadRow(nextRow++);
+        }
+        int[] row = rows[r % rows.length];
+        for(int x = 0; x < width; x++){
+            long v = row[x];
+            columnSum[x] += sign * v;
+            columnSumOfSquares[x] += sign * v * v;
+        }
+    }
+
+    /**
+     * Reads the luminance of a row into the ring buffer. In the first pass it is computed from the strip containing
+     * the row, which is read if needed, and written to the spill file, in the second pass it is read from there.
+     *
+     * @param r - the source row
+     */
+    private void loadRow(int r) throws IOException{
+        int[] row = rows[r % rows.length];
+        spillRow.clear();
+        if(spilled){
+            while(spillRow.hasRemaining()){
+                if(spill.read(spillRow) < 0){
+                    throw new IOException("The luminance file " + spillFile + " is too short");
+                }
+            }
+            spillRow.flip();
+            spillRow.asIntBuffer().get(row);
+            return;
+        }
+        if(strip == null || r >= stripStart + strip.getHeight()){
+            stripStart = r;
+            strip = reader.readStrip(r);
+        }
+        RasterUtil.readRGB(strip, r - stripStart, rgb);
+        for(int x = 0; x < width; x++){
+            int p = rgb[x];
+            row[x] = 299 * ((p >> 16) & 0xFF) + 587 * ((p >> 8) & 0xFF) + 114 * (p & 0xFF);
+        }
+        spillRow.asIntBuffer().put(row);
+        while(spillRow.hasRemaining()){
+            spill.write(spillRow);
+        }
+    }
+
+    /**
+     * Sum of the window centered on the column of the current row.
+     */
+    private long windowSum(long[] columns, int x){
+        long s = 0;
+        for(int px = x - half; px <= x + half; px++){
+            s += columns[clamp(px, width)];
+        }
+        return s;
+    }
+
+    private double standardDeviation(long s, long s2){
+        double n = (double) window * window;
+        double mean = s / n;
+        return Math.sqrt(Math.max(0, s2 / n - mean * mean));
+    }
+
+    private static int clamp(int v, int size){
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+}
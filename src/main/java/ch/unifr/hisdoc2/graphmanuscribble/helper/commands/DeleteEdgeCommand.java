@@ -6,16 +6,16 @@ import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygon;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygonMap;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.ConcaveHullExtractionService;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.HullCalculationScheduler;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.*;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
-import javafx.concurrent.Worker;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.scene.shape.Polygon;
 import org.apache.logging.log4j.Level;
-import org.jgrapht.Graphs;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Creates and starts the services to first cut the graph and then calculate the concave hull of the two
@@ -55,6 +55,7 @@ public class DeleteEdgeCommand implements Command, Undoable{
     private LarsGraphCollection oldLarsGraphCollection;
     private LarsGraphCollection newLarsGraphCollection;
     private List<PointHD2> oldHull;
+    private boolean oldHullPlaceholder;
     //redo
     private boolean redo = false;
     private boolean executed = false;
@@ -85,6 +86,7 @@ public class DeleteEdgeCommand implements Command, Undoable{
 
         //saving hull for undo
         oldHull = new ArrayList<>(currentLarsGraphCollection.getConcaveHull());
+        oldHullPlaceholder = currentLarsGraphCollection.hasPlaceholderHull();
 
         //remove the edge
         currentLarsGraphCollection.removeEdge(edge);
@@ -119,7 +121,14 @@ public class DeleteEdgeCommand implements Command, Undoable{
         reenterEdgeAndMergeGraphs();
 
         //set old hull
-        oldLarsGraphCollection.getLarsGraphByVertex(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)).setConcaveHull(oldHull);
+        LarsGraph lG = oldLarsGraphCollection.getLarsGraphByVertex(graph.getEdgeSource(edge), graph.getEdgeTarget(edge));
+        if(oldHullPlaceholder){
+            //the old hull is the placeholder of the lazy hull mode, the concave hull still has to be calculated
+            lG.markHullDirty();
+            lG.setPlaceholderHull(oldHull);
+        } else {
+            lG.setConcaveHull(oldHull);
+        }
         oldLarsGraphCollection.update();
 
         //undo scribble
@@ -167,9 +176,11 @@ public class DeleteEdgeCommand implements Command, Undoable{
             currentLg = oldLarsGraphCollection.getLarsGraphByVertex(source, target);
         }
 
-        Graphs.addGraph(lG.getGraph(), currentLg.getGraph());
+        lG.addGraph(currentLg.getGraph());
         lG.addEdge(edge, source, target);
         graph.addEdge(edge);
+        //the edges of the merged graph are part of lG now
+        graph.updateGraphIndex(lG);
 
         //transfer all graphs of the new one to the olf one and delete the new one in the subGraphList
         LarsGraph[] lgArray = new LarsGraph[newLarsGraphCollection.getGraphs().size()];
@@ -204,71 +215,36 @@ public class DeleteEdgeCommand implements Command, Undoable{
 
         graph.addNewSubgraph(larsGraphCollection, false);
 
-        //if there is a thread running we stop it because we start a new one
-        currentHullCalculations.forEach(concaveHullExtractionService -> {
-            if(concaveHullExtractionService.containsEdge(edge)){
-                concaveHullExtractionService.cancel();
-                currentHullCalculations.remove(concaveHullExtractionService);
-            }
-        });
-
         //undo reference
         oldLarsGraphCollection = currentLarsGraphCollection;
         newLarsGraphCollection = larsGraphCollection;
 
-        //creating two concaveHullExtractionServices
-        ConcaveHullExtractionService cHES1 = new ConcaveHullExtractionService();
-        ConcaveHullExtractionService cHES2 = new ConcaveHullExtractionService();
-
-        //setting the corresponding larsgraphs
-        cHES1.setLarsGraphCollection(currentLarsGraphCollection);
-        cHES2.setLarsGraphCollection(larsGraphCollection);
-
-        final boolean[] stateRefreshed = {false};
-        //update the polygonMap view if both threads are finished
-        //and check in which hull the sourceGraphs are
-        cHES1.stateProperty().isEqualTo(Worker.State.SUCCEEDED)
-                .and(cHES2.stateProperty().isEqualTo(Worker.State.SUCCEEDED))
-                .addListener((observable, oldValue, newValue) -> {
-                    if(!stateRefreshed[0]){
-                        doLGCGroupingByHull(currentLarsGraphCollection, larsGraphCollection);
-                        cnt.updatePolygonView();
-                        stateRefreshed[0] = true;
-                    }
-                });
-        cHES1.stateProperty().isEqualTo(Worker.State.SUCCEEDED)
-                .and(cHES2.stateProperty().isEqualTo(Worker.State.FAILED))
-                .addListener((observable, oldValue, newValue) -> {
-                    undo();
-                    cnt.updatePolygonView();
-                });
-        cHES2.stateProperty().isEqualTo(Worker.State.SUCCEEDED)
-                .and(cHES1.stateProperty().isEqualTo(Worker.State.SUCCEEDED))
-                .addListener((observable, oldValue, newValue) -> {
-                    if(!stateRefreshed[0]){
-                        doLGCGroupingByHull(currentLarsGraphCollection, larsGraphCollection);
-                        cnt.updatePolygonView();
-                        stateRefreshed[0] = true;
-                    }
-                });
-        cHES2.stateProperty().isEqualTo(Worker.State.SUCCEEDED)
-                .and(cHES1.stateProperty().isEqualTo(Worker.State.FAILED))
-                .addListener((observable, oldValue, newValue) -> {
-                    undo();
-                    cnt.updatePolygonView();
-                });
-
-        cHES1.setOnFailed(event1 -> {
-            cHES1.getException().printStackTrace(System.err);
-            undo();
-        });
-        cHES2.setOnFailed(event1 ->{
-            cHES2.getException().printStackTrace(System.err);
-            undo();
-        });
+        //queue the hulls of both graphs in front of the others. A calculation which is still running for the old
+        //collection is outdated and gets cancelled by the scheduler.
+        //update the polygonMap view if both are finished and check in which hull the sourceGraphs are
+        final int[] remaining = {2};
+        final boolean[] failed = {false};
+        Runnable onSucceeded = () -> {
+            remaining[0]--;
+            if(remaining[0] == 0 && !failed[0]){
+                doLGCGroupingByHull(currentLarsGraphCollection, larsGraphCollection);
+                cnt.updatePolygonView();
+            }
+        };
+        Consumer<Throwable> onFailed = exception -> {
+            exception.printStackTrace(System.err);
+            if(!failed[0]){
+                failed[0] = true;
+                undo();
+                cnt.updatePolygonView();
+            }
+        };
 
-        cHES1.start();
-        cHES2.start();
+        HullCalculationScheduler scheduler = HullCalculationScheduler.getInstance();
+        scheduler.submit(currentLarsGraphCollection, HullCalculationScheduler.PRIORITY_INTERACTIVE,
+                onSucceeded, onFailed);
+        scheduler.submit(larsGraphCollection, HullCalculationScheduler.PRIORITY_INTERACTIVE,
+                onSucceeded, onFailed);
     }
 
     /**
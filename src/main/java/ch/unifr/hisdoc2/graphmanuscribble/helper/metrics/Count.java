@@ -0,0 +1,28 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+/**
+ * The counters of the graph pipeline. The key is the name of the counter in the exported metrics. The components
+ * are the connected components of the binary page, the graphs the ones of the initial forest.
+ */
+public enum Count{
+    CONTOUR_POINTS("contour_points"),
+    NODES("nodes"),
+    EDGES("edges"),
+    COMPONENTS("components"),
+    GRAPHS("graphs"),
+    BIGGEST_GRAPH("biggest_graph"),
+    CUT_EDGES("cut_edges"),
+    HULLS("hulls"),
+    SPLITS("splits"),
+    EDGE_CANDIDATES("edge_candidates");
+
+    private final String key;
+
+    Count(String key){
+        this.key = key;
+    }
+
+    public String getKey(){
+        return key;
+    }
+}
@@ -0,0 +1,83 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+/**
+ * Histogram of durations in nanoseconds. The buckets grow by powers of two, so a few hundred bytes cover everything
+ * from a quadtree query to the binarization of a page. The percentiles are the upper bound of their bucket, clamped
+ * to the largest recorded value.
+ */
+public class Histogram{
+
+    private final long[] buckets = new long[64];
+    private long count = 0;
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Adds a duration to the histogram.
+     *
+     * @param nanos - the duration in nanoseconds
+     */
+    public synchronized void record(long nanos){
+        nanos = Math.max(nanos, 0);
+        buckets[63 - Long.numberOfLeadingZeros(nanos | 1)]++;
+        count++;
+        total += nanos;
+        min = Math.min(min, nanos);
+        max = Math.max(max, nanos);
+    }
+
+    public synchronized long getCount(){
+        return count;
+    }
+
+    /**
+     * @return - the sum of all durations in nanoseconds
+     */
+    public synchronized long getTotal(){
+        return total;
+    }
+
+    /**
+     * @return - the shortest duration in nanoseconds, 0 if nothing is recorded
+     */
+    public synchronized long getMin(){
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return - the longest duration in nanoseconds
+     */
+    public synchronized long getMax(){
+        return max;
+    }
+
+    /**
+     * @return - the mean duration in nanoseconds
+     */
+    public synchronized double getMean(){
+        return count == 0 ? 0 : total / (double) count;
+    }
+
+    /**
+     * Approximates a percentile of the durations.
+     *
+     * @param p - the percentile between 0 and 100
+     * @return - the duration in nanoseconds not exceeded by p percent of the recorded durations
+     */
+    public synchronized long getPercentile(double p){
+        if(count == 0){
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * p / 100.0));
+        long seen = 0;
+        for(int i = 0; i < buckets.length; i++){
+            seen += buckets[i];
+            if(seen >= rank){
+                long upper = i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                return Math.max(min, Math.min(upper, max));
+            }
+        }
+        return max;
+    }
+}
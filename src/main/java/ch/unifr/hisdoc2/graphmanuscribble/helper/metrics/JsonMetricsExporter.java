@@ -0,0 +1,117 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Writes the metrics of each page into an own JSON file "[page]_metrics.json" in the given folder. The durations are
+ * in milliseconds. Only the stages which ran on the page are written, e.g.
+ * <pre>
+ * {
+ *   "page": "page_001",
+ *   "started": "2017-03-01T10:15:30Z",
+ *   "stages": {
+ *     "binarize": {"count": 1, "total_ms": 812.4, "mean_ms": 812.4, "min_ms": 812.4, "p50_ms": 812.4, ...},
+ *     ...
+ *   },
+ *   "counters": {"nodes": 15234, "edges": 15233, ...}
+ * }
+ * </pre>
+ */
+public class JsonMetricsExporter implements MetricsExporter{
+
+    private final File directory;
+
+    /**
+     * @param directory - folder to write the files to, gets created if it does not exist
+     */
+    public JsonMetricsExporter(File directory){
+        this.directory = directory;
+    }
+
+    @Override
+    public void export(PageMetrics metrics) throws IOException{
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Could not create " + directory);
+        }
+        File file = new File(directory, fileName(metrics.getPage()) + "_metrics.json");
+        try(Writer w = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)){
+            w.write(toJson(metrics));
+        }
+    }
+
+    /**
+     * Creates the JSON representation of the metrics.
+     *
+     * @param metrics - the metrics of a page
+     * @return - the JSON string
+     */
+    static String toJson(PageMetrics metrics){
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"page\": ").append(quote(metrics.getPage())).append(",\n");
+        sb.append("  \"started\": ").append(quote(Instant.ofEpochMilli(metrics.getStarted()).toString())).append(",\n");
+
+        sb.append("  \"stages\": {");
+        boolean first = true;
+        for(Stage s : Stage.values()){
+            Histogram h = metrics.getHistogram(s);
+            if(h.getCount() == 0){
+                continue;
+            }
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append("    ").append(quote(s.getKey())).append(": {")
+                    .append("\"count\": ").append(h.getCount())
+                    .append(", \"total_ms\": ").append(ms(h.getTotal()))
+                    .append(", \"mean_ms\": ").append(ms(h.getMean()))
+                    .append(", \"min_ms\": ").append(ms(h.getMin()))
+                    .append(", \"p50_ms\": ").append(ms(h.getPercentile(50)))
+                    .append(", \"p95_ms\": ").append(ms(h.getPercentile(95)))
+                    .append(", \"p99_ms\": ").append(ms(h.getPercentile(99)))
+                    .append(", \"max_ms\": ").append(ms(h.getMax()))
+                    .append('}');
+        }
+        sb.append(first ? "},\n" : "\n  },\n");
+
+        sb.append("  \"counters\": {");
+        first = true;
+        for(Count c : Count.values()){
+            sb.append(first ? "" : ", ").append(quote(c.getKey())).append(": ").append(metrics.get(c));
+            first = false;
+        }
+        sb.append("}\n}\n");
+        return sb.toString();
+    }
+
+    private static String ms(double nanos){
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String s){
+        StringBuilder sb = new StringBuilder("\"");
+        for(char c : s.toCharArray()){
+            if(c == '"' || c == '\\'){
+                sb.append('\\').append(c);
+            } else if(c < 0x20){
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Replaces the characters which are not allowed in file names.
+     */
+    private static String fileName(String page){
+        String name = page.replaceAll("[^\\w.-]", "_");
+        return name.isEmpty() ? "page" : name;
+    }
+}
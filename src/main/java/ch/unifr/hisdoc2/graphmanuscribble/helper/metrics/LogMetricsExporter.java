@@ -0,0 +1,44 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Locale;
+
+/**
+ * Writes one line per page to the log4j2 logger "GraphManuscribbleMetrics" on level info, so the metrics can be
+ * routed to an own appender in the log4j2 configuration.
+ */
+public class LogMetricsExporter implements MetricsExporter{
+
+    public static final String LOGGER_NAME = "GraphManuscribbleMetrics";
+
+    private final Logger logger = LogManager.getLogger(LOGGER_NAME);
+
+    @Override
+    public void export(PageMetrics metrics){
+        if(!logger.isInfoEnabled()){
+            return;
+        }
+        StringBuilder sb = new StringBuilder("page ").append(metrics.getPage()).append(':');
+        for(Stage s : Stage.values()){
+            Histogram h = metrics.getHistogram(s);
+            if(h.getCount() == 0){
+                continue;
+            }
+            sb.append(' ').append(s.getKey()).append('=');
+            if(h.getCount() == 1){
+                sb.append(String.format(Locale.ROOT, "%.1fms", h.getTotal() / 1e6));
+            } else {
+                sb.append(String.format(Locale.ROOT, "%dx[mean %.2fms, p95 %.2fms, max %.2fms]",
+                        h.getCount(), h.getMean() / 1e6, h.getPercentile(95) / 1e6, h.getMax() / 1e6));
+            }
+        }
+        for(Count c : Count.values()){
+            if(metrics.get(c) != 0){
+                sb.append(' ').append(c.getKey()).append('=').append(metrics.get(c));
+            }
+        }
+        logger.info(sb.toString());
+    }
+}
@@ -0,0 +1,17 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+import java.io.IOException;
+
+/**
+ * Writes the metrics of a finished page somewhere. Registered at the PipelineMetrics.
+ */
+public interface MetricsExporter{
+
+    /**
+     * Exports the metrics of a page.
+     *
+     * @param metrics - the metrics of the finished page
+     * @throws IOException - if the metrics can not be written
+     */
+    void export(PageMetrics metrics) throws IOException;
+}
@@ -0,0 +1,123 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The timings and counters of one page. The stages are recorded into a histogram each, so stages which run more
+ * than once per page (e.g. the hulls or the edge index queries) show their distribution and not only the sum.
+ * <p>
+ * The metrics are thread safe, the hulls are recorded from the threads of the HullCalculationScheduler.
+ */
+public class PageMetrics{
+
+    private final String page;
+    private final long started = System.currentTimeMillis();
+    private final Map<Stage, Histogram> stages = new EnumMap<>(Stage.class);
+    private final Map<Count, AtomicLong> counters = new EnumMap<>(Count.class);
+
+    /**
+     * @param page - name of the page, used as name of the exported file
+     */
+    public PageMetrics(String page){
+        this.page = page;
+        for(Stage s : Stage.values()){
+            stages.put(s, new Histogram());
+        }
+        for(Count c : Count.values()){
+            counters.put(c, new AtomicLong());
+        }
+    }
+
+    /**
+     * Starts a timer for the stage. The duration gets recorded when the timer is stopped.
+     *
+     * @param stage - the stage to time
+     * @return - the running timer
+     */
+    public Timer start(Stage stage){
+        return new Timer(stage);
+    }
+
+    /**
+     * Records a duration of the stage.
+     *
+     * @param stage - the stage
+     * @param nanos - the duration in nanoseconds
+     */
+    public void record(Stage stage, long nanos){
+        stages.get(stage).record(nanos);
+    }
+
+    /**
+     * Adds a value to a counter.
+     *
+     * @param count - the counter
+     * @param value - the value to add
+     */
+    public void add(Count count, long value){
+        counters.get(count).addAndGet(value);
+    }
+
+    /**
+     * Sets the value of a counter.
+     *
+     * @param count - the counter
+     * @param value - the new value
+     */
+    public void set(Count count, long value){
+        counters.get(count).set(value);
+    }
+
+    public long get(Count count){
+        return counters.get(count).get();
+    }
+
+    public Histogram getHistogram(Stage stage){
+        return stages.get(stage);
+    }
+
+    public String getPage(){
+        return page;
+    }
+
+    /**
+     * @return - the time the metrics of the page were created in ms since the epoch
+     */
+    public long getStarted(){
+        return started;
+    }
+
+    /**
+     * A running timer of a stage. Can be used in a try-with-resources block.
+     */
+    public class Timer implements AutoCloseable{
+        private final Stage stage;
+        private final long start = System.nanoTime();
+        private boolean stopped = false;
+
+        private Timer(Stage stage){
+            this.stage = stage;
+        }
+
+        /**
+         * Records the time since the start. Only the first call has an effect.
+         *
+         * @return - the duration in nanoseconds
+         */
+        public long stop(){
+            long nanos = System.nanoTime() - start;
+            if(!stopped){
+                stopped = true;
+                record(stage, nanos);
+            }
+            return nanos;
+        }
+
+        @Override
+        public void close(){
+            stop();
+        }
+    }
+}
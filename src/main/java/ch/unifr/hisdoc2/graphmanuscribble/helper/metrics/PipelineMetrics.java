@@ -0,0 +1,109 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Entry point of the metrics of the graph pipeline. It holds the registered exporters and the metrics of the page
+ * which is currently open in the GUI. The stages which do not know their page (the hulls, the svg paths) are recorded
+ * into the current page.
+ * <p>
+ * The batch processes several pages at once, so it creates the metrics of each page itself and hands them to the
+ * AngieMSTGraph of the page.
+ */
+public class PipelineMetrics{
+
+    private static PipelineMetrics instance;
+
+    private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+    private volatile PageMetrics currentPage = new PageMetrics("unnamed");
+
+    private PipelineMetrics(){
+    }
+
+    public static synchronized PipelineMetrics getInstance(){
+        if(instance == null){
+            instance = new PipelineMetrics();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers an exporter. All pages finished afterwards get exported with it.
+     *
+     * @param exporter - the exporter
+     */
+    public void addExporter(MetricsExporter exporter){
+        exporters.add(exporter);
+    }
+
+    public void removeExporter(MetricsExporter exporter){
+        exporters.remove(exporter);
+    }
+
+    /**
+     * Finishes the current page and sets a new page as current page.
+     *
+     * @param page - name of the new page
+     * @return - the metrics of the new page
+     */
+    public synchronized PageMetrics startPage(String page){
+        finishPage(currentPage);
+        currentPage = new PageMetrics(page);
+        return currentPage;
+    }
+
+    /**
+     * Finishes the current page and sets the metrics of a page which got prepared in advance as current page.
+     *
+     * @param metrics - the metrics of the new page
+     */
+    public synchronized void startPage(PageMetrics metrics){
+        finishPage(currentPage);
+        currentPage = metrics;
+    }
+
+    /**
+     * @return - the metrics of the page which is currently open
+     */
+    public PageMetrics getCurrentPage(){
+        return currentPage;
+    }
+
+    /**
+     * Finishes the current page. Called when the application gets closed.
+     */
+    public synchronized void finishCurrentPage(){
+        finishPage(currentPage);
+        currentPage = new PageMetrics("unnamed");
+    }
+
+    /**
+     * Exports the metrics of a page with all the registered exporters. Pages without any recorded stage are skipped.
+     * An exporter which fails does not stop the others.
+     *
+     * @param metrics - the metrics of the finished page
+     */
+    public void finishPage(PageMetrics metrics){
+        if(!hasRecords(metrics)){
+            return;
+        }
+        for(MetricsExporter exporter : exporters){
+            try{
+                exporter.export(metrics);
+            } catch(IOException e){
+                System.err.println("Could not export the metrics of " + metrics.getPage() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean hasRecords(PageMetrics metrics){
+        for(Stage s : Stage.values()){
+            if(metrics.getHistogram(s).getCount() > 0){
+                return true;
+            }
+        }
+        return false;
+    }
+}
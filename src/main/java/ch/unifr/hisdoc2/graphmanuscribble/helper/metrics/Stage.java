@@ -0,0 +1,29 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.metrics;
+
+/**
+ * The timed stages of the graph pipeline. The key is the name of the stage in the exported metrics.
+ */
+public enum Stage{
+    BINARIZE("binarize"),
+    EXTRACT_POINTS("extract_points"),
+    TRIANGULATE("triangulate"),
+    MST("mst"),
+    CUT("cut"),
+    FOREST("forest"),
+    HULL("hull"),
+    HULL_NOW("hull_now"),
+    SPLIT("split"),
+    EDGE_QUERY("edge_query"),
+    SVG_REBUILD("svg_rebuild"),
+    CANVAS_FRAME("canvas_frame");
+
+    private final String key;
+
+    Stage(String key){
+        this.key = key;
+    }
+
+    public String getKey(){
+        return key;
+    }
+}
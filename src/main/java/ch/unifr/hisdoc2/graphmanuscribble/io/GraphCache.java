@@ -0,0 +1,279 @@
+package ch.unifr.hisdoc2.graphmanuscribble.io;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinarizationAlgos;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.BinaryGraphExporter;
+import org.apache.commons.io.FileUtils;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Singleton on-disk cache of the binary images and graphs computed for the opened pages.
+ * <p>
+ * An entry is keyed by the SHA-256 hash of the bytes of the original image together with the binarization and graph
+ * parameters, so a changed image or a changed parameter never hits an old entry. Each entry is a directory with the
+ * binary image as png and the cut MST as gbin. The least recently used entries get evicted as soon as the cache grows
+ * over the size set in the settings. The last access of an entry is stored as modification time of its directory, so
+ * the order survives a restart.
+ */
+public class GraphCache{
+
+    private static final String BINARY_FILE = "binary.png";
+    private static final String GRAPH_NAME = "page";
+    private static final String GRAPH_FILE = GRAPH_NAME + "_graph.gbin";
+    private static final String TMP_PREFIX = "tmp-";
+    /**
+     * Part of every key. Has to be increased if the content of the entries changes.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Singleton instance.
+     */
+    private static GraphCache graphCache;
+
+    private final boolean enabled;
+    private final File directory;
+    private final long maxSize;
+    /**
+     * bytes of each entry in access order, the first one is the least recently used
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private GraphCache(){
+        SettingReader settings = SettingReader.getInstance();
+        directory = new File(settings.getGraphCacheDirectory());
+        maxSize = settings.getGraphCacheMaxSize();
+        enabled = settings.isGraphCacheEnabled() && (directory.isDirectory() || directory.mkdirs());
+        if(enabled){
+            readEntries();
+        }
+    }
+
+    /**
+     * Gets the only instance of the class
+     *
+     * @return - GraphCache instance
+     */
+    public static synchronized GraphCache getInstance(){
+        if(graphCache == null){
+            graphCache = new GraphCache();
+        }
+
+        return graphCache;
+    }
+
+    /**
+     * Reads the entries of the cache directory in the order of their last access and removes the leftovers of
+     * interrupted writes.
+     */
+    private void readEntries(){
+        File[] dirs = directory.listFiles(File::isDirectory);
+        if(dirs == null){
+            return;
+        }
+        Arrays.sort(dirs, Comparator.comparingLong(File::lastModified));
+        for(File dir : dirs){
+            if(dir.getName().startsWith(TMP_PREFIX) || !isComplete(dir)){
+                FileUtils.deleteQuietly(dir);
+                continue;
+            }
+            long bytes = FileUtils.sizeOfDirectory(dir);
+            entries.put(dir.getName(), bytes);
+            size += bytes;
+        }
+        evict();
+    }
+
+    /**
+     * Creates the key of a page. It hashes the content of the original image and all the parameters which change
+     * the binary image or the graph.
+     *
+     * @param original         - the original image file
+     * @param binAlgo          - the binarization algorithm
+     * @param useImageSettings - the useimagesettings flag of the binarization
+     * @param binAlgoParams    - the parameters of the binarization
+     * @param noisePx          - the noise parameter of the AngieMSTGraph
+     * @return - the key as hex string
+     * @throws IOException - if the image can not be read
+     */
+    public String createKey(File original,
+                            BinarizationAlgos binAlgo,
+                            boolean useImageSettings,
+                            float[] binAlgoParams,
+                            int noisePx) throws IOException{
+        MessageDigest digest;
+        try{
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+
+        try(InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(original)), digest)){
+            byte[] buffer = new byte[64 * 1024];
+            while(in.read(buffer) != -1){
+                //the stream updates the digest
+            }
+        }
+
+        String params = VERSION + ";" + binAlgo + ";" + useImageSettings + ";" + Arrays.toString(binAlgoParams)
+                + ";" + AngieMSTGraph.DEFAULT_IPD + ";" + AngieMSTGraph.DEFAULT_DISTANCE + ";" + noisePx
+                + ";" + Constants.EDGE_CUT_PRECENTAGE;
+        digest.update(params.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder key = new StringBuilder();
+        for(byte b : digest.digest()){
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Looks up a page and marks it as recently used.
+     *
+     * @param key - the key of the page
+     * @return - the entry or null if the page is not cached
+     */
+    public synchronized CacheEntry get(String key){
+        if(!enabled){
+            return null;
+        }
+        File dir = new File(directory, key);
+        Long bytes = entries.get(key);
+        if(bytes != null && !isComplete(dir)){
+            //removed from outside
+            entries.remove(key);
+            size -= bytes;
+            bytes = null;
+        }
+        if(bytes == null){
+            misses.incrementAndGet();
+            return null;
+        }
+
+        dir.setLastModified(System.currentTimeMillis());
+        hits.incrementAndGet();
+        return new CacheEntry(new File(dir, BINARY_FILE), new File(dir, GRAPH_FILE));
+    }
+
+    /**
+     * Stores the binary image and the graph of a page. The files are written into a temporary directory first, so
+     * a crash never leaves a half written entry. Evicts the least recently used pages if the cache gets too big.
+     *
+     * @param key   - the key of the page
+     * @param bin   - the binary image
+     * @param graph - the graph with the cut edges labeled as deleted
+     * @throws IOException - if the entry can not be written
+     */
+    public void put(String key,
+                    BufferedImage bin,
+                    Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> graph) throws IOException{
+        if(!enabled){
+            return;
+        }
+        File tmp = Files.createTempDirectory(directory.toPath(), TMP_PREFIX).toFile();
+        try{
+            ImageIO.write(bin, "png", new File(tmp, BINARY_FILE));
+            BinaryGraphExporter.export2Binary(graph, tmp.getAbsolutePath(), GRAPH_NAME, "graph");
+        } catch(IOException e){
+            FileUtils.deleteQuietly(tmp);
+            throw new IOException("Could not write the cache entry " + key, e);
+        }
+
+        long bytes = FileUtils.sizeOfDirectory(tmp);
+        synchronized(this){
+            if(entries.containsKey(key)){
+                FileUtils.deleteQuietly(tmp);
+                return;
+            }
+            Files.move(tmp.toPath(), new File(directory, key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            entries.put(key, bytes);
+            size += bytes;
+            evict();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is not bigger than the max size.
+     */
+    private synchronized void evict(){
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while(size > maxSize && it.hasNext()){
+            Map.Entry<String, Long> eldest = it.next();
+            FileUtils.deleteQuietly(new File(directory, eldest.getKey()));
+            size -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    private static boolean isComplete(File dir){
+        return new File(dir, BINARY_FILE).isFile() && new File(dir, GRAPH_FILE).isFile();
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    public long getHits(){
+        return hits.get();
+    }
+
+    public long getMisses(){
+        return misses.get();
+    }
+
+    /**
+     * @return - the bytes the entries of the cache use
+     */
+    public synchronized long getSize(){
+        return size;
+    }
+
+    /**
+     * The files of a cached page.
+     */
+    public static class CacheEntry{
+        private final File binaryImage;
+        private final File graph;
+
+        private CacheEntry(File binaryImage, File graph){
+            this.binaryImage = binaryImage;
+            this.graph = graph;
+        }
+
+        public File getBinaryImage(){
+            return binaryImage;
+        }
+
+        public File getGraph(){
+            return graph;
+        }
+    }
+}
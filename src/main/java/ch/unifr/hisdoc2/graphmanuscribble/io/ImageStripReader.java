@@ -0,0 +1,127 @@
+package ch.unifr.hisdoc2.graphmanuscribble.io;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Reads an image file from the top to the bottom in strips of rows and decodes the file only once.
+ * <p>
+ * The PNG, JPEG and GIF readers can not start in the middle of an image: a read of a source region decodes the image
+ * from the top again, so reading a page strip by strip with source regions takes time quadratic in the height of the
+ * page. These images are decoded once as a whole and the strips are views of the decoded image. Only the images which
+ * are stored in independent strips or tiles (e.g. TIFF) or which the reader can access randomly (e.g. uncompressed
+ * BMP) are read strip by strip with source regions, so only one strip is on the heap.
+ */
+public class ImageStripReader implements Closeable{
+
+    private final ImageInputStream iis;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final int stripHeight;
+    /**
+     * True if the strips are read as source regions
+     */
+    private final boolean regions;
+    /**
+     * The decoded image if the strips are not read as source regions
+     */
+    private BufferedImage image;
+    private boolean closed = false;
+
+    private ImageStripReader(ImageInputStream iis, ImageReader reader, int stripHeight) throws IOException{
+        this.iis = iis;
+        this.reader = reader;
+        this.width = reader.getWidth(0);
+        this.height = reader.getHeight(0);
+        this.stripHeight = Math.max(1, stripHeight);
+        this.regions = reader.isRandomAccessEasy(0) || reader.getTileWidth(0) < width
+                || reader.getTileHeight(0) < height;
+    }
+
+    /**
+     * Opens an image file.
+     *
+     * @param file        - the image file
+     * @param stripHeight - number of rows of a strip
+     * @return - the reader
+     * @throws IOException - if the file can not be read or there is no reader for it
+     */
+    public static ImageStripReader open(File file, int stripHeight) throws IOException{
+        ImageInputStream iis = ImageIO.createImageInputStream(file);
+        if(iis == null){
+            throw new IOException("Can not read " + file);
+        }
+        ImageReader reader = null;
+        try{
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if(!readers.hasNext()){
+                throw new IOException("No image reader for " + file);
+            }
+            reader = readers.next();
+            reader.setInput(iis, false, true);
+            return new ImageStripReader(iis, reader, stripHeight);
+        } catch(IOException | RuntimeException e){
+            if(reader != null){
+                reader.dispose();
+            }
+            iis.close();
+            throw e;
+        }
+    }
+
+    public int getWidth(){
+        return width;
+    }
+
+    public int getHeight(){
+        return height;
+    }
+
+    public int getStripHeight(){
+        return stripHeight;
+    }
+
+    /**
+     * Reads the strip starting at a row. The strips have to be read from the top to the bottom, a strip is only valid
+     * until the next one is read.
+     *
+     * @param y - first row of the strip
+     * @return - the rows y to y + stripHeight, or to the bottom of the image
+     * @throws IOException - if the image can not be decoded
+     */
+    public BufferedImage readStrip(int y) throws IOException{
+        int rows = Math.min(stripHeight, height - y);
+        if(regions){
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, y, width, rows));
+            return reader.read(0, param);
+        }
+        if(image == null){
+            image = reader.read(0);
+        }
+        return image.getSubimage(0, y, width, rows);
+    }
+
+    /**
+     * Releases the decoded image and the file. Closing a closed reader does nothing.
+     */
+    @Override
+    public void close() throws IOException{
+        if(closed){
+            return;
+        }
+        closed = true;
+        image = null;
+        reader.dispose();
+        iis.close();
+    }
+}
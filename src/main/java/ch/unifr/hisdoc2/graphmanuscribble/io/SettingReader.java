@@ -20,6 +20,18 @@ public class SettingReader {
     private static AnnotationType deletionType;
     private static ArrayList<AnnotationType> annotationTypes = new ArrayList<>();
     private static ArrayList<AnnotationType> deleteAnnotationTypes = new ArrayList<>();
+    private static boolean graphCacheEnabled = true;
+    private static String graphCacheDirectory = "cache";
+    private static long graphCacheMaxSize = 512L * 1024 * 1024;
+    private static String tileStoreDirectory = "cache/tiles";
+    private static long tileStoreMaxSize = 4096L * 1024 * 1024;
+    private static int sessionPrefetchDepth = 2;
+    private static boolean lazyHulls = false;
+    private static double hullCursorRadius = 100;
+    private static long sessionMemoryBudget = 1024L * 1024 * 1024;
+    private static boolean metricsLogEnabled = true;
+    private static boolean canvasRendering = false;
+    private static String metricsJsonDirectory = null;
 
 
     /**
@@ -78,6 +90,64 @@ public class SettingReader {
                     createColorFromString(e.getAttributeValue("rgb"), e.getAttributeValue("alpha")),
                     false, true));
         }
+        //graph cache
+        Element graphCache = root.getChild("graph-cache");
+        if(graphCache != null){
+            if(graphCache.getAttributeValue("enabled") != null){
+                graphCacheEnabled = Boolean.parseBoolean(graphCache.getAttributeValue("enabled"));
+            }
+            if(graphCache.getAttributeValue("directory") != null){
+                graphCacheDirectory = graphCache.getAttributeValue("directory");
+            }
+            if(graphCache.getAttributeValue("max-size-mb") != null){
+                graphCacheMaxSize = Long.parseLong(graphCache.getAttributeValue("max-size-mb")) * 1024 * 1024;
+            }
+        }
+        //memory-mapped image pyramids of the pages
+        Element tileStore = root.getChild("tile-store");
+        if(tileStore != null){
+            if(tileStore.getAttributeValue("directory") != null){
+                tileStoreDirectory = tileStore.getAttributeValue("directory");
+            }
+            if(tileStore.getAttributeValue("max-size-mb") != null){
+                tileStoreMaxSize = Long.parseLong(tileStore.getAttributeValue("max-size-mb")) * 1024 * 1024;
+            }
+        }
+        //prefetch of the next pages of an annotation session
+        Element session = root.getChild("session");
+        if(session != null){
+            if(session.getAttributeValue("prefetch-depth") != null){
+                sessionPrefetchDepth = Math.max(0, Integer.parseInt(session.getAttributeValue("prefetch-depth")));
+            }
+            if(session.getAttributeValue("memory-budget-mb") != null){
+                sessionMemoryBudget = Long.parseLong(session.getAttributeValue("memory-budget-mb")) * 1024 * 1024;
+            }
+        }
+        //concave hulls of the forest
+        Element hulls = root.getChild("hulls");
+        if(hulls != null){
+            if(hulls.getAttributeValue("mode") != null){
+                lazyHulls = "lazy".equalsIgnoreCase(hulls.getAttributeValue("mode"));
+            }
+            if(hulls.getAttributeValue("cursor-radius") != null){
+                hullCursorRadius = Double.parseDouble(hulls.getAttributeValue("cursor-radius"));
+            }
+        }
+        //renderer of the graph and the polygons
+        Element rendering = root.getChild("rendering");
+        if(rendering != null && rendering.getAttributeValue("mode") != null){
+            canvasRendering = "canvas".equalsIgnoreCase(rendering.getAttributeValue("mode"));
+        }
+        //pipeline metrics
+        Element metrics = root.getChild("metrics");
+        if(metrics != null){
+            if(metrics.getAttributeValue("log") != null){
+                metricsLogEnabled = Boolean.parseBoolean(metrics.getAttributeValue("log"));
+            }
+            if(metrics.getAttributeValue("json-directory") != null && !metrics.getAttributeValue("json-directory").isEmpty()){
+                metricsJsonDirectory = metrics.getAttributeValue("json-directory");
+            }
+        }
     }
 
     /**
@@ -121,6 +191,80 @@ public class SettingReader {
         return annotationTypes;
     }
 
+    public boolean isGraphCacheEnabled(){
+        return graphCacheEnabled;
+    }
+
+    public String getGraphCacheDirectory(){
+        return graphCacheDirectory;
+    }
+
+    /**
+     * @return - the maximal size of the graph cache in bytes
+     */
+    public long getGraphCacheMaxSize(){
+        return graphCacheMaxSize;
+    }
+
+    public String getTileStoreDirectory(){
+        return tileStoreDirectory;
+    }
+
+    /**
+     * @return - the maximal size of the stored image pyramids in bytes
+     */
+    public long getTileStoreMaxSize(){
+        return tileStoreMaxSize;
+    }
+
+    /**
+     * @return - number of pages after the current one which get prepared in the background during a session
+     */
+    public int getSessionPrefetchDepth(){
+        return sessionPrefetchDepth;
+    }
+
+    /**
+     * @return - the maximal estimated heap of the prefetched pages in bytes
+     */
+    public long getSessionMemoryBudget(){
+        return sessionMemoryBudget;
+    }
+
+    /**
+     * @return - true if the hulls of the forest are calculated when a component gets hit, false to calculate them
+     * all while the page gets loaded
+     */
+    public boolean isLazyHulls(){
+        return lazyHulls;
+    }
+
+    /**
+     * @return - distance in px to the cursor of the components whose hulls are calculated in advance in lazy mode
+     */
+    public double getHullCursorRadius(){
+        return hullCursorRadius;
+    }
+
+    /**
+     * @return - true if the graph and the polygons are drawn into a canvas of the size of the viewport, false for the
+     * svg paths over the whole page
+     */
+    public boolean isCanvasRendering(){
+        return canvasRendering;
+    }
+
+    public boolean isMetricsLogEnabled(){
+        return metricsLogEnabled;
+    }
+
+    /**
+     * @return - the folder the metrics of each page get written to as JSON or null if they are not written
+     */
+    public String getMetricsJsonDirectory(){
+        return metricsJsonDirectory;
+    }
+
     public ArrayList<AnnotationType> getAllAnnotations(){
         ArrayList<AnnotationType> res = new ArrayList<>(annotationTypes);
         res.add(deletionType);
@@ -5,16 +5,23 @@ import ch.unifr.hisdoc2.graphmanuscribble.helper.LoadImageStatus;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 
 import javafx.geometry.Dimension2D;
 import org.apache.commons.io.FilenameUtils;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
+/**
+ * The files chosen in the load dialog. The images are not decoded here, the size of the page is read from the
+ * header of the original image.
+ */
 public class LoadResult{
     private LoadImageStatus statu;
-    private BufferedImage ori;
-    private BufferedImage bin;
+    private File oriFile;
+    private File binFile;
     private File graph;
     private Dimension2D dim;
     private String fileName;
@@ -24,21 +31,46 @@ public class LoadResult{
         try{
             if(!ori.isEmpty()){
                 fileName = FilenameUtils.getName(ori);
-                this.ori = ImageIO.read(new File(ori));
+                this.oriFile = new File(ori);
+                dim = readDimension(oriFile);
             }
             if(!bin.isEmpty()){
-                this.bin = ImageIO.read(new File(bin));
+                this.binFile = new File(bin);
             }
             if(!graph.isEmpty()){
                 this.graph = new File(graph);
             }
-
-            dim = new Dimension2D(this.ori.getWidth(), this.ori.getHeight());
         } catch(IOException e){
             e.printStackTrace();
         }
     }
 
+    /**
+     * Reads the size of an image without decoding its pixels.
+     *
+     * @param file - the image file
+     * @return - the size of the image
+     * @throws IOException - if the file is not a readable image
+     */
+    private static Dimension2D readDimension(File file) throws IOException{
+        try(ImageInputStream iis = ImageIO.createImageInputStream(file)){
+            if(iis == null){
+                throw new IOException("Can not read " + file);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if(!readers.hasNext()){
+                throw new IOException("No image reader for " + file);
+            }
+            ImageReader reader = readers.next();
+            try{
+                reader.setInput(iis, true, true);
+                return new Dimension2D(reader.getWidth(0), reader.getHeight(0));
+            } finally{
+                reader.dispose();
+            }
+        }
+    }
+
     public LoadImageStatus getStatus(){
         return statu;
     }
@@ -47,12 +79,30 @@ public class LoadResult{
         return fileName;
     }
 
+    /**
+     * Decodes the original image.
+     *
+     * @return - the original image or null if it can not be read
+     */
     public BufferedImage getOri(){
-        return ori;
+        return read(oriFile);
+    }
+
+    public File getOriFile(){
+        return oriFile;
     }
 
+    /**
+     * Decodes the binary image.
+     *
+     * @return - the binary image or null if it can not be read
+     */
     public BufferedImage getBin(){
-        return bin;
+        return read(binFile);
+    }
+
+    public File getBinFile(){
+        return binFile;
     }
 
     public File getGraph(){
@@ -62,4 +112,16 @@ public class LoadResult{
     public Dimension2D getDim(){
         return dim;
     }
+
+    private static BufferedImage read(File file){
+        if(file == null){
+            return null;
+        }
+        try{
+            return ImageIO.read(file);
+        } catch(IOException e){
+            e.printStackTrace();
+            return null;
+        }
+    }
 }
@@ -2,8 +2,11 @@ package ch.unifr.hisdoc2.graphmanuscribble.model.annotation;
 
 import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.TopologyUtil;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Count;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
-import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraphCollection;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
 import javafx.concurrent.Service;
@@ -11,7 +14,7 @@ import javafx.concurrent.Task;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 /**
  * Calculates for a given larsGraphCollection in the LarsGraphCollection object the concave hull.
@@ -26,10 +29,7 @@ public class ConcaveHullExtractionService extends Service<Void>{
             @Override
             protected Void call() throws Exception{
                 final LarsGraphCollection _larsGraphCollection = getLarsGraphCollection();
-                _larsGraphCollection.getGraphs().forEach(larsGraph ->
-                        larsGraph.setConcaveHull(calculateConcaveHull(larsGraph.getGraph().vertexSet()))
-                );
-                _larsGraphCollection.updateHull();
+                calculateHulls(_larsGraphCollection, this::isCancelled);
                 return null;
             }
         };
@@ -56,13 +56,40 @@ public class ConcaveHullExtractionService extends Service<Void>{
     }
 
     /**
-     * Calculates the concave hull of a given points cloud (vertices of the larsGraphCollection).
+     * Calculates the concave hulls of the graphs of the collection and updates the hull of the collection. Only the
+     * graphs which changed since their last hull calculation are recalculated, the hulls of the others are reused.
+     * After a split or a merge this are just the edited graphs and not all the graphs of an annotated collection,
+     * and the parts of a split take their triangles from the triangulation of the graph before the split. A hull is
+     * only set if the graph did not change while it was calculated. Each hull calculation is recorded in the metrics
+     * of the page of the collection, which is not the current page for a prefetched page.
      *
-     * @param vertices - points cloud
-     * @return - concave hull of the point cloud
+     * @param larsGraphCollection - the collection
+     * @param cancelled           - checked before and after each graph, the calculation stops if it returns true
      */
-    private List<PointHD2> calculateConcaveHull(Set<GraphVertex> vertices){
-        return TopologyUtil.pointListToConcaveHull(new ArrayList<>(vertices), Constants.CONCAVE_TIGHTNESS);
+    static void calculateHulls(LarsGraphCollection larsGraphCollection, BooleanSupplier cancelled){
+        PageMetrics metrics = larsGraphCollection.getMetrics();
+        for(LarsGraph larsGraph : new ArrayList<>(larsGraphCollection.getGraphs())){
+            if(cancelled.getAsBoolean()){
+                return;
+            }
+            if(larsGraph.isHullDirty()){
+                PageMetrics.Timer timer = metrics.start(Stage.HULL);
+                long modCount = larsGraph.getModCount();
+                List<PointHD2> hull = TopologyUtil.pointListToConcaveHull(larsGraph.getVertexSnapshot(),
+                        Constants.CONCAVE_TIGHTNESS,
+                        larsGraph.getHullTriangulation(),
+                        larsGraph::setHullTriangulation);
+                timer.stop();
+                metrics.add(Count.HULLS, 1);
+                if(cancelled.getAsBoolean()){
+                    return;
+                }
+                larsGraph.setConcaveHull(hull, modCount);
+            }
+        }
+        if(!cancelled.getAsBoolean()){
+            larsGraphCollection.updateHull();
+        }
     }
 
     private final LarsGraphCollection getLarsGraphCollection(){
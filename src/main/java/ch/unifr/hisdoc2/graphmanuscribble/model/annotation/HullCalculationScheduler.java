@@ -0,0 +1,419 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.annotation;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
+import ch.unifr.hisdoc2.graphmanuscribble.io.SettingReader;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraphCollection;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Calculates the concave hulls of LarsGraphCollections on a bounded pool with one thread per core. The jobs are
+ * queued by priority, so the hulls of components the user interacts with are calculated before the ones of the page
+ * load. A second request for a collection which is still queued is merged into the queued job. A request for a
+ * collection whose hull is currently calculated cancels the running job, because its result is outdated. The
+ * callbacks of the cancelled job are called when the new job is done.
+ * <p>
+ * The callbacks are called on the JavaFX application thread, like the ones of the ConcaveHullExtractionService.
+ */
+public class HullCalculationScheduler{
+
+    /**
+     * Priority of the hulls of the pages prefetched in an annotation session
+     */
+    public static final int PRIORITY_PREFETCH = -5;
+    /**
+     * Priority of the hulls calculated while a page gets loaded
+     */
+    public static final int PRIORITY_LOAD = 0;
+    /**
+     * Priority of the components near the cursor in the lazy hull mode
+     */
+    public static final int PRIORITY_CURSOR = 2;
+    /**
+     * Priority of the components hit by a scribble
+     */
+    public static final int PRIORITY_HIT = 5;
+    /**
+     * Priority of the hulls changed by a command of the user
+     */
+    public static final int PRIORITY_INTERACTIVE = 10;
+
+    private static HullCalculationScheduler instance;
+
+    private final ThreadPoolExecutor executor;
+    /**
+     * the queued and running job of each collection
+     */
+    private final Map<LarsGraphCollection, HullJob> jobs = new ConcurrentHashMap<>();
+    /**
+     * order of submission to keep the jobs with the same priority FIFO
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    //metrics
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    private HullCalculationScheduler(){
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "hull-calculation-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized HullCalculationScheduler getInstance(){
+        if(instance == null){
+            instance = new HullCalculationScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues the hull calculation of the collection.
+     *
+     * @param lgc         - the collection to calculate the hull of
+     * @param priority    - the higher the earlier the hull gets calculated
+     * @param onSucceeded - called after the hull is set, can be null
+     * @param onFailed    - called with the exception if the calculation failed, can be null
+     */
+    public void submit(LarsGraphCollection lgc, int priority, Runnable onSucceeded, Consumer<Throwable> onFailed){
+        HullJob job;
+        synchronized(jobs){
+            HullJob existing = jobs.get(lgc);
+            if(existing != null && !existing.started){
+                //merge the request into the queued job
+                existing.addCallbacks(onSucceeded, onFailed);
+                coalesced.incrementAndGet();
+                if(priority > existing.priority){
+                    requeue(existing, priority);
+                }
+                return;
+            }
+            job = new HullJob(lgc, priority);
+            if(existing != null){
+                //the running job calculates an outdated hull, its callbacks wait for the new one
+                existing.cancelled = true;
+                cancelled.incrementAndGet();
+                job.onSucceeded.addAll(existing.onSucceeded);
+                job.onFailed.addAll(existing.onFailed);
+            }
+            job.addCallbacks(onSucceeded, onFailed);
+            jobs.put(lgc, job);
+        }
+        executor.execute(job);
+    }
+
+    /**
+     * Starts the hull calculation of a component of a new forest. In the lazy hull mode of the settings the component
+     * only gets a placeholder hull, the concave hull is calculated when it is requested with {@link #request}.
+     *
+     * @param lgc      - the new component
+     * @param priority - the priority of the calculation in the eager mode
+     */
+    public void submitForest(LarsGraphCollection lgc, int priority){
+        if(SettingReader.getInstance().isLazyHulls()){
+            lgc.setPlaceholderHulls();
+        } else {
+            submit(lgc, priority, null, null);
+        }
+    }
+
+    /**
+     * Queues the hull calculation of a collection with a placeholder hull, a queued calculation gets the priority if
+     * it is higher. Nothing happens if the hull of the collection is no placeholder.
+     *
+     * @param lgc      - the collection
+     * @param priority - the priority of the calculation
+     */
+    public void request(LarsGraphCollection lgc, int priority){
+        if(!lgc.hasPlaceholderHull()){
+            return;
+        }
+        synchronized(jobs){
+            if(jobs.containsKey(lgc)){
+                prioritize(lgc, priority);
+                return;
+            }
+        }
+        submit(lgc, priority, null, null);
+    }
+
+    /**
+     * Calculates the hulls of a collection on the calling thread because the hull is needed right now. A calculation
+     * of the collection which is already running on the pool is awaited instead of calculated a second time. A queued
+     * calculation is replaced, its callbacks are called after this calculation. The time the calling thread is
+     * blocked, mostly the JavaFX thread, is recorded as hull_now in the metrics of the page.
+     *
+     * @param lgc - the collection
+     */
+    public void calculateNow(LarsGraphCollection lgc){
+        PageMetrics.Timer timer = lgc.getMetrics().start(Stage.HULL_NOW);
+        HullJob running = null;
+        HullJob existing;
+        synchronized(jobs){
+            existing = jobs.get(lgc);
+            if(existing != null && existing.started){
+                running = existing;
+                existing = null;
+            } else if(existing != null){
+                jobs.remove(lgc);
+                existing.cancelled = true;
+                executor.remove(existing);
+            }
+        }
+        if(running != null){
+            try{
+                running.done.await();
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            if(!lgc.hasPlaceholderHull()){
+                timer.stop();
+                return;
+            }
+            //the running calculation got cancelled or failed
+        }
+        Throwable error = null;
+        try{
+            ConcaveHullExtractionService.calculateHulls(lgc, () -> false);
+            completed.incrementAndGet();
+        } catch(Exception e){
+            error = e;
+        }
+        timer.stop();
+        if(existing != null){
+            final Throwable e = error;
+            final HullJob replaced = existing;
+            runOnFxThread(() -> {
+                if(e == null){
+                    replaced.onSucceeded.forEach(Runnable::run);
+                } else {
+                    replaced.onFailed.forEach(c -> c.accept(e));
+                }
+            });
+        }
+        if(error != null && (existing == null || existing.onFailed.isEmpty())){
+            error.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Moves a queued hull calculation to the front of the queue, e.g. because the user hit the component.
+     *
+     * @param lgc      - the collection
+     * @param priority - the new priority, nothing happens if it is lower than the current one
+     */
+    public void prioritize(LarsGraphCollection lgc, int priority){
+        synchronized(jobs){
+            HullJob job = jobs.get(lgc);
+            if(job != null && !job.started && priority > job.priority){
+                requeue(job, priority);
+            }
+        }
+    }
+
+    /**
+     * Cancels the queued or running hull calculation of the collection. Its callbacks are not called anymore.
+     *
+     * @param lgc - the collection
+     */
+    public void cancel(LarsGraphCollection lgc){
+        synchronized(jobs){
+            HullJob job = jobs.remove(lgc);
+            if(job != null){
+                job.cancelled = true;
+                executor.remove(job);
+                cancelled.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @param lgc - the collection
+     * @return - true if the hull of the collection is queued or calculated at the moment
+     */
+    public boolean isPending(LarsGraphCollection lgc){
+        return jobs.containsKey(lgc);
+    }
+
+    /**
+     * @return - number of hull calculations waiting in the queue
+     */
+    public int getQueueDepth(){
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return - number of hull calculations running at the moment
+     */
+    public int getActiveCount(){
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return - number of finished hull calculations
+     */
+    public long getCompletedCount(){
+        return completed.get();
+    }
+
+    /**
+     * @return - number of cancelled hull calculations
+     */
+    public long getCancelledCount(){
+        return cancelled.get();
+    }
+
+    /**
+     * @return - number of requests which got merged into a queued calculation
+     */
+    public long getCoalescedCount(){
+        return coalesced.get();
+    }
+
+    /**
+     * @return - average time in ms from the submission to the end of a hull calculation
+     */
+    public double getAverageLatency(){
+        long count = completed.get();
+        return count == 0 ? 0 : totalLatency.get() / 1e6 / count;
+    }
+
+    /**
+     * @return - longest time in ms from the submission to the end of a hull calculation
+     */
+    public double getMaxLatency(){
+        return maxLatency.get() / 1e6;
+    }
+
+    /**
+     * Replaces a queued job by a job with a higher priority. Has to be called while holding the jobs lock.
+     */
+    private void requeue(HullJob job, int priority){
+        if(executor.remove(job)){
+            HullJob raised = new HullJob(job.lgc, priority);
+            raised.submitted = job.submitted;
+            raised.onSucceeded.addAll(job.onSucceeded);
+            raised.onFailed.addAll(job.onFailed);
+            jobs.put(job.lgc, raised);
+            executor.execute(raised);
+        }
+    }
+
+    private void finish(HullJob job, Throwable error){
+        synchronized(jobs){
+            jobs.remove(job.lgc, job);
+        }
+        if(job.cancelled){
+            return;
+        }
+
+        long latency = System.nanoTime() - job.submitted;
+        completed.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+
+        runOnFxThread(() -> {
+            if(job.cancelled){
+                return;
+            }
+            if(error == null){
+                job.onSucceeded.forEach(Runnable::run);
+            } else if(job.onFailed.isEmpty()){
+                error.printStackTrace(System.err);
+            } else {
+                job.onFailed.forEach(c -> c.accept(error));
+            }
+        });
+    }
+
+    /**
+     * Runs the callback on the JavaFX application thread or directly if there is no JavaFX toolkit (batch mode).
+     */
+    private static void runOnFxThread(Runnable runnable){
+        try{
+            Platform.runLater(runnable);
+        } catch(IllegalStateException e){
+            runnable.run();
+        }
+    }
+
+    /**
+     * A queued hull calculation.
+     */
+    private class HullJob implements Runnable, Comparable<HullJob>{
+        private final LarsGraphCollection lgc;
+        private final int priority;
+        private final long order = sequence.incrementAndGet();
+        private long submitted = System.nanoTime();
+        private final List<Runnable> onSucceeded = new ArrayList<>(1);
+        private final List<Consumer<Throwable>> onFailed = new ArrayList<>(1);
+        private volatile boolean started = false;
+        private volatile boolean cancelled = false;
+        /**
+         * released when a started job is finished or cancelled
+         */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        HullJob(LarsGraphCollection lgc, int priority){
+            this.lgc = lgc;
+            this.priority = priority;
+        }
+
+        void addCallbacks(Runnable succeeded, Consumer<Throwable> failed){
+            if(succeeded != null){
+                onSucceeded.add(succeeded);
+            }
+            if(failed != null){
+                onFailed.add(failed);
+            }
+        }
+
+        @Override
+        public void run(){
+            synchronized(jobs){
+                if(cancelled){
+                    return;
+                }
+                started = true;
+            }
+            try{
+                ConcaveHullExtractionService.calculateHulls(lgc, () -> cancelled);
+                finish(this, null);
+            } catch(Exception e){
+                finish(this, e);
+            } finally{
+                done.countDown();
+            }
+        }
+
+        @Override
+        public int compareTo(HullJob o){
+            if(priority != o.priority){
+                return Integer.compare(o.priority, priority);
+            }
+            return Long.compare(order, o.order);
+        }
+    }
+}
@@ -6,10 +6,20 @@ import boofcv.abst.feature.detect.interest.WrapSiftDetector;
 import boofcv.core.image.ConvertBufferedImage;
 import boofcv.factory.feature.detect.interest.FactoryInterestPoint;
 import boofcv.struct.image.ImageFloat32;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.TopologyUtil;
-import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.ConcaveHullExtractionService;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Count;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.HullCalculationScheduler;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.DelaunayMSTBuilder;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphCutter;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.TiledContourExtractor;
+import ch.unifr.hisdoc2.graphmanuscribble.model.image.TiledImageStore;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.EdgeIndex;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.EdgeRTree;
 import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Quadtree;
 import com.vividsolutions.jts.algorithm.Angle;
 import com.vividsolutions.jts.geom.Coordinate;
@@ -17,11 +27,10 @@ import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.triangulate.DelaunayTriangulationBuilder;
 import georegression.struct.point.Point2D_F64;
-import javafx.geometry.Bounds;
 import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Rectangle;
-import org.apache.commons.lang.time.StopWatch;
 import org.apache.commons.math3.stat.StatUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jgrapht.Graph;
 import org.jgrapht.alg.ConnectivityInspector;
 import org.jgrapht.alg.KruskalMinimumSpanningTree;
@@ -41,12 +50,22 @@ import org.openimaj.image.pixel.ConnectedComponent;
 
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * class to make automatic suggestions to a user based on a graph on interest points extracted from the page
  */
 public class AngieMSTGraph{
+    /**
+     * interest point detector and distance of every new graph
+     */
+    public static final InterestPointDetector DEFAULT_IPD = InterestPointDetector.SCP;
+    public static final Distance DEFAULT_DISTANCE = Distance.FOCUSHORIZONTAL;
+
+    private static final Logger logger = LogManager.getLogger(AngieMSTGraph.class);
     /**
      * number of min pixels for a CC to not be discarded as noise
      */
@@ -76,7 +95,24 @@ public class AngieMSTGraph{
      */
     private int[] orientationHistogram = new int[(int) (Math.PI / binsOrientationHistogram)];
 
-    private Quadtree quadtree;
+    /**
+     * Spatial index of the edges for the collision detection with the scribbles
+     */
+    private EdgeIndex edgeIndex;
+    private final double imgWidth;
+    private final double imgHeight;
+
+    /**
+     * true if the edges are indexed in a bulk loaded R-tree, false to use the Quadtree
+     */
+    private boolean rTreeIndex = true;
+
+    /**
+     * number of candidate edges returned by the last query of the edge index and over all queries
+     */
+    private volatile int lastCandidateCount;
+    private final AtomicLong totalCandidateCount = new AtomicLong();
+    private final AtomicLong queryCount = new AtomicLong();
 
     /**
      * Neighbour index of the graph
@@ -90,9 +126,39 @@ public class AngieMSTGraph{
      * Subgraphs of the original MST.
      */
     private List<LarsGraphCollection> subGraphs;
+    /**
+     * Reverse index from the edges and vertices to the subgraphs
+     */
+    private final GraphMembershipIndex membershipIndex = new GraphMembershipIndex();
 
     private GraphCutter graphCutter;
 
+    /**
+     * true if the MST is built directly from the quad edge subdivision of the triangulation, false to use the old
+     * path over the JTS edge geometry and the KruskalMinimumSpanningTree of JGraphT.
+     */
+    private boolean streamingMST = true;
+
+    /**
+     * true if the contours for the sparse contour points are extracted in parallel on horizontal bands of the page
+     */
+    private boolean tiledExtraction = true;
+
+    /**
+     * edges which got deleted or restored since the last call of pollChangedEdges
+     */
+    private final Queue<GraphEdge> changedEdges = new ConcurrentLinkedQueue<>();
+
+    /**
+     * timings and counters of this page
+     */
+    private PageMetrics metrics;
+
+    /**
+     * priority of the hull calculations of the forest
+     */
+    private int hullPriority = HullCalculationScheduler.PRIORITY_LOAD;
+
     /**
      * create a new MST graph for the automatic suggestion of text lines
      *
@@ -103,13 +169,15 @@ public class AngieMSTGraph{
                          double imgWidth,
                          double imgHeight){
         this.noisePx = noisePx;
-        ipdSelector = InterestPointDetector.SCP;
-        graphDistance = Distance.FOCUSHORIZONTAL;
+        ipdSelector = DEFAULT_IPD;
+        graphDistance = DEFAULT_DISTANCE;
         useRelevantEdgesOnly = ipdSelector.isBinary() && relevantEdgesOnly;
-        this.quadtree = new Quadtree(0, new Rectangle(0, 0, imgWidth, imgHeight));
+        this.imgWidth = imgWidth;
+        this.imgHeight = imgHeight;
 
         //init the subgraphslist and add the mst
-        this.subGraphs = new ArrayList<>();
+        this.subGraphs = new CopyOnWriteArrayList<>();
+        this.metrics = PipelineMetrics.getInstance().getCurrentPage();
     }
 
     private void findRelevantEdges(Set<GraphEdge> edges,
@@ -143,15 +211,14 @@ public class AngieMSTGraph{
      * @return mstGraph   mst graph to be created
      */
     private Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> createAttributedGraphsFromPage(List<PointHD2> points){
-        StopWatch sw = new StopWatch();
-        sw.start();
+        PageMetrics.Timer timer = metrics.start(Stage.TRIANGULATE);
         Geometry edges = triangulatePointsJTS(points);
-        sw.split();
-
         SimpleWeightedGraph<GraphVertex, GraphEdge> triangulatedGraph = createGraphFromTriangledEdges(edges, points);
-        sw.split();
+        timer.stop();
+
+        timer = metrics.start(Stage.MST);
         KruskalMinimumSpanningTree<GraphVertex, GraphEdge> mst = new KruskalMinimumSpanningTree<>(triangulatedGraph);
-        sw.split();
+        timer.stop();
 
         return new Subgraph<>(triangulatedGraph, triangulatedGraph.vertexSet(), mst.getEdgeSet());
     }
@@ -340,7 +407,8 @@ public class AngieMSTGraph{
             //toDraw.addAll(next.children);
             ccID++;
         }
-        System.out.println("Number of CC: " + ccID + ", number of nodes: " + pointToArea.size());
+        metrics.set(Count.COMPONENTS, ccID);
+        metrics.set(Count.CONTOUR_POINTS, pts.size());
         return pts;
     }
 
@@ -351,6 +419,9 @@ public class AngieMSTGraph{
      * @return contour points
      */
     private List<PointHD2> getSparseContourTopologySimplifiedPoints(final FImage img){
+        if(tiledExtraction){
+            return getTiledSparseContourTopologySimplifiedPoints(img);
+        }
         Contour contours = SuzukiContourProcessor.findContours(img);
         List<PointHD2> pts = new ArrayList<>(contours.size());
 
@@ -391,11 +462,46 @@ public class AngieMSTGraph{
             //toDraw.addAll(next.children);
             ccID++;
         }
-        System.out.println("Number of CC: " + ccID);
-        System.out.println("Number of Nodes reduced from " + numremoved[0] + " to " + numremoved[1] + ", ratio: " + ((float) numremoved[1]) / ((float) numremoved[0]));
+        metrics.set(Count.COMPONENTS, ccID);
+        metrics.set(Count.CONTOUR_POINTS, numremoved[0]);
+        return pts;
+    }
+
+    /**
+     * Same as getSparseContourTopologySimplifiedPoints, but the contours are extracted and simplified in parallel on
+     * horizontal bands of the page. The result is identical to the serial extraction.
+     *
+     * @param img image to extract them from
+     * @return contour points
+     */
+    private List<PointHD2> getTiledSparseContourTopologySimplifiedPoints(final FImage img){
+        TiledContourExtractor extractor = new TiledContourExtractor(noisePx / 4, InterestPointDetector.SCP.getParam());
+        List<List<PointHD2>> contours = extractor.extract(img);
+        List<PointHD2> pts = new ArrayList<>();
+
+        int ccID = 0;
+        for(List<PointHD2> contour : contours){
+            for(PointHD2 p : contour){
+                p.setccID(ccID);
+                pointToArea.put(p, ccID);
+            }
+            pts.addAll(contour);
+            ccID++;
+        }
+        metrics.set(Count.COMPONENTS, ccID);
+        metrics.set(Count.CONTOUR_POINTS, extractor.getContourPointCount());
         return pts;
     }
 
+    /**
+     * Selects if the sparse contour points are extracted serially or in parallel on horizontal bands.
+     *
+     * @param tiledExtraction - true for the parallel extraction (default)
+     */
+    public void setTiledExtraction(boolean tiledExtraction){
+        this.tiledExtraction = tiledExtraction;
+    }
+
     /**
      * get centroids of the CC as Interest points
      *
@@ -512,7 +618,8 @@ public class AngieMSTGraph{
 
     /**
      * Gets the edge of a given graph the scribble is intersecting with. edges can be null so it will take the graph edges
-     * from the quadtree.
+     * from the quadtree. The points of the scribble are handled as polyline, an edge is hit if its segment comes
+     * closer to the polyline than Constants.SCRIBBLE_HIT_TOLERANCE.
      * If it does not intersect with a edge or the edge is already deleted it returns null.
      *
      * @param p - the scribble
@@ -520,20 +627,17 @@ public class AngieMSTGraph{
      * @return - the hit edge or null
      */
     public GraphEdge getIntersectionFromScribble(Polygon p, List<GraphEdge> edges){
-        Bounds b = p.getLayoutBounds();
-        GraphEdge scribble = new GraphEdge();
-        scribble.createPolygonRepresentation(new GraphVertex(b.getMinX(), b.getMinY()),
-                new GraphVertex(b.getMaxX(), b.getMaxY()));
+        double[] polyline = toPolyline(p);
 
         if(edges == null){
-            edges = getEdgesFromQuadTree(p);
+            edges = getEdgesFromQuadTree(polyline);
         }
 
         for(GraphEdge e : edges){
             if(e.isDeleted()){
                 continue;
             }
-            if(e.getPolygonRepresentation().intersects(p.getLayoutBounds())){
+            if(e.intersects(polyline, Constants.SCRIBBLE_HIT_TOLERANCE)){
                 return e;
             }
         }
@@ -615,20 +719,74 @@ public class AngieMSTGraph{
 
 
     /**
-     * Returns the Edges from the quadtree the polygon most likely has a collision with.
+     * Returns the points of the polygon as array [x0, y0, x1, y1, ...].
+     *
+     * @param p - the polygon
+     * @return - the coordinates
+     */
+    private static double[] toPolyline(Polygon p){
+        double[] polyline = new double[p.getPoints().size()];
+        for(int i = 0; i < polyline.length; i++){
+            polyline[i] = p.getPoints().get(i);
+        }
+        return polyline;
+    }
+
+    /**
+     * Returns the Edges from the edge index the polyline most likely has a collision with. These are the edges whose
+     * bounding box intersects the bounding box of the polyline grown by the hit tolerance.
      *
-     * @param polygon - input polygon
-     * @return - ArrayList<GraphEdges> edges the polygon could collide with
+     * @param polyline - input polyline [x0, y0, x1, y1, ...]
+     * @return - ArrayList<GraphEdges> edges the polyline could collide with
      */
-    private ArrayList<GraphEdge> getEdgesFromQuadTree(Polygon polygon){
-        //transform the polygon into a edge
-        Bounds b = polygon.getLayoutBounds();
-        GraphEdge scribble = new GraphEdge();
-        scribble.createPolygonRepresentation(new GraphVertex(b.getMinX(), b.getMinY()),
-                new GraphVertex(b.getMaxX(), b.getMaxY()));
+    private ArrayList<GraphEdge> getEdgesFromQuadTree(double[] polyline){
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i + 1 < polyline.length; i += 2){
+            minX = Math.min(minX, polyline[i]);
+            maxX = Math.max(maxX, polyline[i]);
+            minY = Math.min(minY, polyline[i + 1]);
+            maxY = Math.max(maxY, polyline[i + 1]);
+        }
 
         ArrayList<GraphEdge> edges = new ArrayList<>();
-        return quadtree.retrieve(edges, scribble);
+        if(minX > maxX){
+            return edges;
+        }
+        double t = Constants.SCRIBBLE_HIT_TOLERANCE;
+        PageMetrics.Timer timer = metrics.start(Stage.EDGE_QUERY);
+        edgeIndex.retrieve(edges, minX - t, minY - t, maxX + t, maxY + t);
+        timer.stop();
+
+        lastCandidateCount = edges.size();
+        totalCandidateCount.addAndGet(edges.size());
+        queryCount.incrementAndGet();
+        metrics.add(Count.EDGE_CANDIDATES, edges.size());
+        logger.debug("Edge index query: " + edges.size() + " candidates");
+        return edges;
+    }
+
+    /**
+     * @return - number of candidate edges the last query of the edge index returned
+     */
+    public int getLastCandidateCount(){
+        return lastCandidateCount;
+    }
+
+    /**
+     * @return - number of candidate edges all queries of the edge index returned
+     */
+    public long getTotalCandidateCount(){
+        return totalCandidateCount.get();
+    }
+
+    /**
+     * @return - number of queries of the edge index
+     */
+    public long getQueryCount(){
+        return queryCount.get();
     }
 
 
@@ -679,32 +837,83 @@ public class AngieMSTGraph{
     }
 
     /**
-     * Returns a LarsGraphCollection out of the subGraphs list that contains the given edge.
+     * Returns a LarsGraphCollection out of the subGraphs list that contains the given edge. The collection is taken
+     * from the reverse index. If the index is outdated for this edge the subGraphs list is scanned and the index is
+     * repaired. In the lazy hull mode the hull calculation of a collection with a placeholder hull gets queued.
      *
      * @param edge - We want to find in a graph
      * @param allGraphs - true if we want all graphs else just the nonannotation graphs
      * @return - The LarsGraphCollection that contains the edge
      */
-    public synchronized LarsGraphCollection getLarsGraphFromEdge(GraphEdge edge, boolean allGraphs){
-        for(LarsGraphCollection lG : subGraphs){
-            if(lG.containsEdge(edge, allGraphs)){
-                return lG;
+    public LarsGraphCollection getLarsGraphFromEdge(GraphEdge edge, boolean allGraphs){
+        LarsGraph lG = membershipIndex.getGraph(edge);
+        if(lG != null && lG.containsEdge(edge) && (allGraphs || !lG.isAnnotationGraph())){
+            LarsGraphCollection lGC = membershipIndex.getCollection(lG);
+            if(lGC != null && lGC.getGraphs().contains(lG)){
+                HullCalculationScheduler.getInstance().request(lGC, HullCalculationScheduler.PRIORITY_HIT);
+                return lGC;
+            }
+        }
+
+        for(LarsGraphCollection lGC : subGraphs){
+            if(lGC.containsEdge(edge, allGraphs)){
+                for(LarsGraph graph : lGC.getGraphs()){
+                    if(graph.containsEdge(edge)){
+                        membershipIndex.addGraph(graph, lGC);
+                    }
+                }
+                HullCalculationScheduler.getInstance().request(lGC, HullCalculationScheduler.PRIORITY_HIT);
+                return lGC;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the LarsGraph of the subgraphs that contains the given vertex.
+     *
+     * @param v - the vertex
+     * @return - the graph containing the vertex or null
+     */
+    public LarsGraph getLarsGraphFromVertex(GraphVertex v){
+        LarsGraph lG = membershipIndex.getGraph(v);
+        if(lG != null && lG.getGraph().containsVertex(v) && membershipIndex.getCollection(lG) != null){
+            return lG;
+        }
+
+        for(LarsGraphCollection lGC : subGraphs){
+            for(LarsGraph graph : lGC.getGraphs()){
+                if(graph.getGraph().containsVertex(v)){
+                    membershipIndex.addGraph(graph, lGC);
+                    return graph;
+                }
             }
         }
 
         return null;
     }
 
+    /**
+     * Updates the reverse index after edges have been moved into the given graph, e.g. by merging two graphs.
+     *
+     * @param lG - the graph that got new edges
+     */
+    public void updateGraphIndex(LarsGraph lG){
+        membershipIndex.indexGraph(lG);
+    }
+
     /**
      * Checks if the given polygon is inside of a graphs concave hull or not. If its inside it returns the
-     * LarsGraphCollection else it returns null.
+     * LarsGraphCollection else it returns null. A placeholder hull contains the concave hull, so the concave hull
+     * only gets calculated right away if the polygon is inside of the placeholder.
      *
      * @param p - polygon
      * @return - The nearest LarsGraphCollection
      */
     public LarsGraphCollection getLarsGraphPolygonIsInHull(Polygon p){
         //get the edges that are near the polygon
-        ArrayList<GraphEdge> edges = getEdgesFromQuadTree(p);
+        ArrayList<GraphEdge> edges = getEdgesFromQuadTree(toPolyline(p));
         //get the graphs that contains the edges
         //check if the polygon is in one of the graphs
         for(GraphEdge e : edges){
@@ -712,18 +921,47 @@ public class AngieMSTGraph{
             if(graph == null){
                 return null;
             }
+            //the hull of a component the user hits is needed next
+            HullCalculationScheduler.getInstance().prioritize(graph, HullCalculationScheduler.PRIORITY_HIT);
             //deleted the || graph.isAnnotated() to solve the problem, that a annotation can have multiple sources
             if(graph.getConcaveHull() == null){
                 continue;
             }
             if(TopologyUtil.isPolygonInPolygon(graph.getConcaveHull(), p)){
-                return graph;
+                if(!graph.hasPlaceholderHull()){
+                    return graph;
+                }
+                HullCalculationScheduler.getInstance().calculateNow(graph);
+                if(TopologyUtil.isPolygonInPolygon(graph.getConcaveHull(), p)){
+                    return graph;
+                }
             }
         }
 
         return null;
     }
 
+    /**
+     * Queues the hull calculations of the components with a placeholder hull near a point, e.g. the cursor, so their
+     * concave hull is ready before they get hit. The query is not recorded in the metrics of the edge index.
+     *
+     * @param x      - x of the point
+     * @param y      - y of the point
+     * @param radius - max distance of the components
+     */
+    public void prefetchHullsNear(double x, double y, double radius){
+        ArrayList<GraphEdge> edges = new ArrayList<>();
+        edgeIndex.retrieve(edges, x - radius, y - radius, x + radius, y + radius);
+        Set<LarsGraphCollection> collections = new HashSet<>();
+        for(GraphEdge e : edges){
+            LarsGraph lG = membershipIndex.getGraph(e);
+            LarsGraphCollection lGC = lG == null ? null : membershipIndex.getCollection(lG);
+            if(lGC != null && collections.add(lGC)){
+                HullCalculationScheduler.getInstance().request(lGC, HullCalculationScheduler.PRIORITY_CURSOR);
+            }
+        }
+    }
+
     /**
      * Returns all subgraphs that are annotated. So all returned LarsGraphs are at least
      * for one annotationPolygon the source.
@@ -760,6 +998,7 @@ public class AngieMSTGraph{
     public void addEdge(GraphEdge edge){
         if(edge != null){
             edge.setDeleted(false);
+            changedEdges.add(edge);
         }
     }
 
@@ -771,7 +1010,23 @@ public class AngieMSTGraph{
     public void removeEdge(GraphEdge edge){
         if(edge != null){
             edge.setDeleted(true);
+            changedEdges.add(edge);
+        }
+    }
+
+    /**
+     * Returns the edges which got deleted or restored since the last call, so the views only need to redraw the
+     * regions of these edges.
+     *
+     * @return - the changed edges, can contain an edge more than once
+     */
+    public List<GraphEdge> pollChangedEdges(){
+        List<GraphEdge> edges = new ArrayList<>();
+        GraphEdge e;
+        while((e = changedEdges.poll()) != null){
+            edges.add(e);
         }
+        return edges;
     }
 
     /**
@@ -781,7 +1036,9 @@ public class AngieMSTGraph{
      * @param toQuadTree - true if you also want to add the graph to the quad tree
      */
     public void addNewSubgraph(LarsGraphCollection graph, boolean toQuadTree){
+        graph.setMetrics(metrics);
         subGraphs.add(graph);
+        membershipIndex.addCollection(graph);
         if(toQuadTree){
             for(LarsGraph lG : graph.getAnnotationGraphs()){
                 insertEdgesToQuadTree(lG.getGraph().edgeSet(), lG.getGraph());
@@ -793,6 +1050,17 @@ public class AngieMSTGraph{
         }
     }
 
+    /**
+     * Removes the edges of a graph from the edge index, e.g. of a deleted annotation.
+     *
+     * @param graph - the graph whose edges get removed
+     */
+    public void removeEdgesFromIndex(LarsGraph graph){
+        for(GraphEdge e : graph.getGraph().edgeSet()){
+            edgeIndex.remove(e);
+        }
+    }
+
     /**
      * removes a subgraph from the list of subgraphs.
      *
@@ -800,6 +1068,7 @@ public class AngieMSTGraph{
      */
     public void removeSubgraph(LarsGraphCollection graph){
         subGraphs.remove(graph);
+        membershipIndex.removeCollection(graph);
     }
 
     /**
@@ -809,6 +1078,7 @@ public class AngieMSTGraph{
      */
     public void removeSubgraphs(List<LarsGraphCollection> graphs){
         subGraphs.removeAll(graphs);
+        graphs.forEach(membershipIndex::removeCollection);
     }
 
     /**
@@ -821,11 +1091,8 @@ public class AngieMSTGraph{
                             BufferedImage img,
                             Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> graph,
                             List<LarsGraphCollection> forest){
-        FImage image = ipdSelector.isBinary() ? ImageUtilities.createFImage(bimg) : ImageUtilities.createFImage(img);
-
         if(graph == null){
-            List<PointHD2> points = getInterestPoints(image);
-            mstGraph = createAttributedGraphsFromPage(points);
+            createMSTGraph(extractInterestPoints(bimg, img));
         } else {
             mstGraph = graph;
         }
@@ -839,37 +1106,188 @@ public class AngieMSTGraph{
         if(forest == null){
             forceForest();
         } else {
+            PageMetrics.Timer timer = metrics.start(Stage.FOREST);
             for(LarsGraphCollection lGC : forest){
                 addNewSubgraph(lGC, false);
             }
+            timer.stop();
+        }
+
+        metrics.set(Count.NODES, mstGraph.vertexSet().size());
+        metrics.set(Count.EDGES, mstGraph.edgeSet().size());
+        metrics.set(Count.GRAPHS, subGraphs.size());
+    }
+
+    /**
+     * Extracts the interest points of the page with the selected interest point detector. Depending on the detector
+     * the binary or the original picture is used.
+     *
+     * @param bimg - the binary picture
+     * @param img  - the original picture
+     * @return - the interest points of the page
+     */
+    public List<PointHD2> extractInterestPoints(BufferedImage bimg, BufferedImage img){
+        PageMetrics.Timer timer = metrics.start(Stage.EXTRACT_POINTS);
+        BufferedImage source = ipdSelector.isBinary() ? bimg : img;
+        //a page of a TiledImageStore is read row by row from the store instead of pixel by pixel
+        TiledImageStore store = TiledImageStore.of(source);
+        FImage image = store != null ? store.toFImage() : ImageUtilities.createFImage(source);
+        List<PointHD2> points = getInterestPoints(image);
+        timer.stop();
+        return points;
+    }
+
+    /**
+     * Triangulates the given points and sets the minimum spanning tree of the triangulation as the graph of this page.
+     *
+     * @param points - the interest points of the page
+     * @return - the MST graph
+     */
+    public Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> createMSTGraph(List<PointHD2> points){
+        if(streamingMST){
+            mstGraph = createCompactMSTGraph(points).toSubgraph();
+        } else {
+            mstGraph = createAttributedGraphsFromPage(points);
         }
+        return mstGraph;
+    }
+
+    /**
+     * Triangulates the given points and returns the minimum spanning tree of the triangulation as compact graph.
+     * The MST graph of this page is not changed.
+     *
+     * @param points - the interest points of the page
+     * @return - the MST as compact graph
+     */
+    public CompactGraph createCompactMSTGraph(List<PointHD2> points){
+        return DelaunayMSTBuilder.build(points, getGraphDistance(), metrics);
+    }
 
-        System.out.println("Amount of graphs: " + subGraphs.size());
+    /**
+     * Selects how the MST gets built in createMSTGraph.
+     *
+     * @param streamingMST - true to build it directly from the triangulation (default), false to use the JTS edge
+     *                     geometry and the KruskalMinimumSpanningTree of JGraphT
+     */
+    public void setStreamingMST(boolean streamingMST){
+        this.streamingMST = streamingMST;
     }
 
     /**
-     * Initializes the clipping grid and the quadtree with the MST graph as source.
+     * Selects the interest point detector used by extractInterestPoints.
+     *
+     * @param ipd - the detector
+     */
+    public void setInterestPointDetector(InterestPointDetector ipd){
+        this.ipdSelector = ipd;
+    }
+
+    /**
+     * @return - true if the selected interest point detector works on the original picture instead of the binary one
+     */
+    public boolean needsOriginalImage(){
+        return !ipdSelector.isBinary();
+    }
+
+    /**
+     * @return - the timings and counters of this page
+     */
+    public PageMetrics getMetrics(){
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics the stages of this page get recorded into. Per default this is the current page of the
+     * PipelineMetrics.
+     *
+     * @param metrics - the metrics of the page
+     */
+    public void setMetrics(PageMetrics metrics){
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the priority of the hull calculations of the forest. The hulls of the forest which are still queued get
+     * moved up if the priority is higher, e.g. when a prefetched page gets shown.
+     *
+     * @param hullPriority - the priority of the HullCalculationScheduler
+     */
+    public void setHullPriority(int hullPriority){
+        this.hullPriority = hullPriority;
+        for(LarsGraphCollection lgc : subGraphs){
+            HullCalculationScheduler.getInstance().prioritize(lgc, hullPriority);
+        }
+    }
+
+    /**
+     * Cancels the queued and running hull calculations of the forest, e.g. because the page gets dropped.
+     */
+    public void cancelHullCalculations(){
+        for(LarsGraphCollection lgc : subGraphs){
+            HullCalculationScheduler.getInstance().cancel(lgc);
+        }
+    }
+
+    /**
+     * Selects the spatial index of the edges which gets built in createGraph.
+     *
+     * @param rTreeIndex - true to use the bulk loaded R-tree (default), false to use the Quadtree
+     */
+    public void setRTreeIndex(boolean rTreeIndex){
+        this.rTreeIndex = rTreeIndex;
+    }
+
+    /**
+     * Labels the high cost edges of the MST as deleted. The MST itself keeps all its edges, the returned copy
+     * does not contain the cut edges anymore. Nothing is added to the quadtree and no hull is calculated, so this
+     * can also be used without the GUI.
+     *
+     * @return - a copy of the MST without the cut edges
+     */
+    public Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> cutHighCostEdges(){
+        if(graphCutter == null){
+            graphCutter = new GraphCutter(mstGraph);
+        }
+        PageMetrics.Timer timer = metrics.start(Stage.CUT);
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> clone =
+                new Subgraph<>(mstGraph.getBase(), mstGraph.vertexSet(), mstGraph.edgeSet());
+        metrics.set(Count.CUT_EDGES, graphCutter.cutHighCostEdges(clone));
+        timer.stop();
+        return clone;
+    }
+
+    /**
+     * Initializes the clipping grid and the edge index with the MST graph as source. The R-tree is bulk loaded with
+     * all the edges at once.
      */
     private void initQuadTree(){
-        insertEdgesToQuadTree(mstGraph.edgeSet(), mstGraph);
+        if(rTreeIndex){
+            for(GraphEdge e : mstGraph.edgeSet()){
+                e.createSegment(mstGraph.getEdgeSource(e), mstGraph.getEdgeTarget(e));
+            }
+            edgeIndex = new EdgeRTree(mstGraph.edgeSet());
+        } else {
+            edgeIndex = new Quadtree(0, 0, 0, imgWidth, imgHeight);
+            insertEdgesToQuadTree(mstGraph.edgeSet(), mstGraph);
+        }
 
         neighborIndexGraph = new NeighborIndex<>(mstGraph);
     }
 
     /**
-     * Inserts a single edge into the quadtree
+     * Inserts a single edge into the edge index
      *
      * @param e - edge to add
      * @param source - source vertex of the edge
      * @param target - target vertex of the edge
      */
     private void insertEdgeToQuadTree(GraphEdge e, GraphVertex source, GraphVertex target){
-        e.createPolygonRepresentation(source, target);
-        quadtree.insert(e);
+        e.createSegment(source, target);
+        edgeIndex.insert(e);
     }
 
     /**
-     * Inserts a list of edges into the quadtree
+     * Inserts a list of edges into the edge index
      *
      * @param edges - edges to add
      * @param graph - graph the edges are part of to the the source and target vertex
@@ -885,12 +1303,9 @@ public class AngieMSTGraph{
      * It also starts all the threads to create the graphs and the concave hulls.
      */
     private void forceForest(){
-        //create a copy
-        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> clone =
-                new Subgraph<>(mstGraph.getBase(), mstGraph.vertexSet(), mstGraph.edgeSet());
-
-        //cuts the edges in the original (labels) and in the clone
-        graphCutter.cutHighCostEdges(clone);
+        //cuts the edges in the original (labels) and in a copy
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> clone = cutHighCostEdges();
+        PageMetrics.Timer timer = metrics.start(Stage.FOREST);
         //create the undirected graph to use the connectivity inspector
         UndirectedSubgraph<GraphVertex, GraphEdge> undirectedClone = new UndirectedSubgraph<>(clone.getBase(), clone.vertexSet(), clone.edgeSet());
         //get all graphs
@@ -912,14 +1327,10 @@ public class AngieMSTGraph{
             //creates new LarsGraphCollection and starts the concave hull service
             LarsGraphCollection newLarsGraphCollection = new LarsGraphCollection(new LarsGraph(newGraph));
             addNewSubgraph(newLarsGraphCollection, false);
-            ConcaveHullExtractionService cHES = new ConcaveHullExtractionService();
-            cHES.setOnFailed(event ->
-                cHES.getException().printStackTrace(System.err)
-            );
-            cHES.setLarsGraphCollection(newLarsGraphCollection);
-            cHES.start();
+            HullCalculationScheduler.getInstance().submitForest(newLarsGraphCollection, hullPriority);
         }
 
-        System.out.println("biggest subtree has " + biggestSubtree + " vertices");
+        timer.stop();
+        metrics.set(Count.BIGGEST_GRAPH, biggestSubtree);
     }
 }
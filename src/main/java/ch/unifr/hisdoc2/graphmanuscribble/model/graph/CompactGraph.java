@@ -0,0 +1,334 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, array backed representation of a page graph.
+ * <p>
+ * Vertices are int ids into a float coordinate array, edges are int ids into the endpoint and weight arrays. The
+ * adjacency is stored in the compressed sparse row (CSR) format and the deleted and userAdded flags of the edges as
+ * bit sets. The structure of the graph is fixed after the construction, only the flags can change.
+ * <p>
+ * Memory comparison on a 64 bit JVM with compressed oops:
+ * <ul>
+ * <li>CompactGraph: 12 bytes per vertex (coordinates, CSR offset) and 20 bytes per edge (endpoints, weight, two CSR
+ * entries) plus two bits for the flags.</li>
+ * <li>Subgraph of a SimpleWeightedGraph: about 140 bytes per vertex (GraphVertex object, entries in the vertex maps
+ * of the base graph and the subgraph) and about 370 bytes per edge (GraphEdge object, entries in the edge maps, the
+ * edge containers of both endpoints). The old Kruskal path keeps the whole triangulation as base graph, which more
+ * than doubles that.</li>
+ * </ul>
+ * The JGraphT numbers are measured with JOL on the MST of the benchmark pages, see GraphFootprint in the benchmark
+ * module (2400x3200 page: 28MB as JGraphT graph, 1.8MB as CompactGraph).
+ * <p>
+ * {@link #memoryFootprint()}, {@link #estimateFootprint(int, int)} and {@link #estimateJGraphTFootprint(int, int)}
+ * return these numbers for a given graph.
+ * <p>
+ * The GraphCutter, the exporters and the headless batch work directly on the compact graph.
+ * {@link #fromGraph(Graph)} and {@link #toSubgraph()} convert between the two representations, so the parts of the
+ * system that still work on JGraphT ({@link LarsGraph}, the views) can run on a materialized copy.
+ */
+public class CompactGraph{
+
+    /**
+     * Measured bytes a vertex needs in a Subgraph of a SimpleWeightedGraph.
+     */
+    private static final int JGRAPHT_BYTES_PER_VERTEX = 140;
+    /**
+     * Measured bytes an edge needs in a Subgraph of a SimpleWeightedGraph.
+     */
+    private static final int JGRAPHT_BYTES_PER_EDGE = 370;
+
+    private final int vertexCount;
+    private final int edgeCount;
+    /**
+     * x and y of each vertex: [x0, y0, x1, y1, ...]
+     */
+    private final float[] coordinates;
+    /**
+     * source and target of each edge: [s0, t0, s1, t1, ...]
+     */
+    private final int[] edgeEndpoints;
+    private final float[] weights;
+    private final BitSet deleted;
+    private final BitSet userAdded;
+    /**
+     * CSR adjacency: the incident edges of vertex v are adjacencyEdges[adjacencyOffsets[v] .. adjacencyOffsets[v+1])
+     */
+    private final int[] adjacencyOffsets;
+    private final int[] adjacencyEdges;
+
+    /**
+     * Creates a new graph. The arrays are used as they are and not copied.
+     *
+     * @param coordinates   - x and y of each vertex
+     * @param edgeEndpoints - source and target id of each edge
+     * @param weights       - the weight of each edge
+     * @param deleted       - the deleted edges, can be null
+     */
+    public CompactGraph(float[] coordinates, int[] edgeEndpoints, float[] weights, BitSet deleted){
+        if(coordinates.length % 2 != 0 || edgeEndpoints.length % 2 != 0
+                || weights.length != edgeEndpoints.length / 2){
+            throw new IllegalArgumentException("The array lengths of the graph do not match");
+        }
+        this.vertexCount = coordinates.length / 2;
+        this.edgeCount = weights.length;
+        this.coordinates = coordinates;
+        this.edgeEndpoints = edgeEndpoints;
+        this.weights = weights;
+        this.deleted = deleted == null ? new BitSet(edgeCount) : deleted;
+        this.userAdded = new BitSet(edgeCount);
+
+        //build the CSR adjacency with a counting sort over the endpoints
+        adjacencyOffsets = new int[vertexCount + 1];
+        for(int endpoint : edgeEndpoints){
+            adjacencyOffsets[endpoint + 1]++;
+        }
+        for(int v = 0; v < vertexCount; v++){
+            adjacencyOffsets[v + 1] += adjacencyOffsets[v];
+        }
+        adjacencyEdges = new int[edgeEndpoints.length];
+        int[] fill = Arrays.copyOf(adjacencyOffsets, vertexCount);
+        for(int e = 0; e < edgeCount; e++){
+            adjacencyEdges[fill[edgeEndpoints[2 * e]]++] = e;
+            adjacencyEdges[fill[edgeEndpoints[2 * e + 1]]++] = e;
+        }
+    }
+
+    /**
+     * Creates a compact copy of a JGraphT graph. The vertex ids follow the iteration order of the vertex set and the
+     * edge ids the one of the edge set.
+     *
+     * @param graph - the graph to copy
+     * @return - the compact graph
+     */
+    public static CompactGraph fromGraph(Graph<GraphVertex, GraphEdge> graph){
+        Map<GraphVertex, Integer> ids = new HashMap<>(graph.vertexSet().size() * 2);
+        float[] coordinates = new float[graph.vertexSet().size() * 2];
+        int id = 0;
+        for(GraphVertex v : graph.vertexSet()){
+            coordinates[2 * id] = v.getX();
+            coordinates[2 * id + 1] = v.getY();
+            ids.put(v, id++);
+        }
+
+        int edges = graph.edgeSet().size();
+        int[] endpoints = new int[edges * 2];
+        float[] weights = new float[edges];
+        BitSet deleted = new BitSet(edges);
+        BitSet userAdded = new BitSet(edges);
+        int e = 0;
+        for(GraphEdge edge : graph.edgeSet()){
+            endpoints[2 * e] = ids.get(graph.getEdgeSource(edge));
+            endpoints[2 * e + 1] = ids.get(graph.getEdgeTarget(edge));
+            weights[e] = (float) graph.getEdgeWeight(edge);
+            deleted.set(e, edge.isDeleted());
+            userAdded.set(e, edge.isUserAdded());
+            e++;
+        }
+
+        CompactGraph compactGraph = new CompactGraph(coordinates, endpoints, weights, deleted);
+        compactGraph.userAdded.or(userAdded);
+        return compactGraph;
+    }
+
+    /**
+     * Materializes the graph as JGraphT graph with GraphVertex and GraphEdge objects. The flags of the edges are
+     * copied. Changes on the returned graph are not written back.
+     *
+     * @return - the graph as subgraph of a SimpleWeightedGraph (the same form AngieMSTGraph uses)
+     */
+    public Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> toSubgraph(){
+        SimpleWeightedGraph<GraphVertex, GraphEdge> graph = new SimpleWeightedGraph<>(GraphEdge.class);
+        GraphVertex[] vertices = new GraphVertex[vertexCount];
+        for(int v = 0; v < vertexCount; v++){
+            vertices[v] = new GraphVertex(coordinates[2 * v], coordinates[2 * v + 1]);
+            graph.addVertex(vertices[v]);
+        }
+        for(int e = 0; e < edgeCount; e++){
+            GraphEdge edge = new GraphEdge();
+            edge.setDeleted(deleted.get(e));
+            edge.setUserAdded(userAdded.get(e));
+            if(graph.addEdge(vertices[getEdgeSource(e)], vertices[getEdgeTarget(e)], edge)){
+                graph.setEdgeWeight(edge, weights[e]);
+            }
+        }
+        return new Subgraph<>(graph, graph.vertexSet(), graph.edgeSet());
+    }
+
+    /**
+     * Labels the connected components of the graph without the deleted edges.
+     *
+     * @param labels - array of the size of the vertex count which gets the component id of each vertex
+     * @return - the number of components
+     */
+    public int connectedComponents(int[] labels){
+        Arrays.fill(labels, -1);
+        int[] stack = new int[vertexCount];
+        int components = 0;
+        for(int start = 0; start < vertexCount; start++){
+            if(labels[start] != -1){
+                continue;
+            }
+            int top = 0;
+            stack[top++] = start;
+            labels[start] = components;
+            while(top > 0){
+                int v = stack[--top];
+                for(int i = adjacencyOffsets[v]; i < adjacencyOffsets[v + 1]; i++){
+                    int e = adjacencyEdges[i];
+                    if(deleted.get(e)){
+                        continue;
+                    }
+                    int w = getOpposite(e, v);
+                    if(labels[w] == -1){
+                        labels[w] = components;
+                        stack[top++] = w;
+                    }
+                }
+            }
+            components++;
+        }
+        return components;
+    }
+
+    public int getVertexCount(){
+        return vertexCount;
+    }
+
+    public int getEdgeCount(){
+        return edgeCount;
+    }
+
+    public float getX(int v){
+        return coordinates[2 * v];
+    }
+
+    public float getY(int v){
+        return coordinates[2 * v + 1];
+    }
+
+    public int getEdgeSource(int e){
+        return edgeEndpoints[2 * e];
+    }
+
+    public int getEdgeTarget(int e){
+        return edgeEndpoints[2 * e + 1];
+    }
+
+    /**
+     * Returns the other endpoint of the edge.
+     *
+     * @param e - the edge
+     * @param v - one endpoint of the edge
+     * @return - the other endpoint
+     */
+    public int getOpposite(int e, int v){
+        int source = edgeEndpoints[2 * e];
+        return source == v ? edgeEndpoints[2 * e + 1] : source;
+    }
+
+    public float getEdgeWeight(int e){
+        return weights[e];
+    }
+
+    public int degreeOf(int v){
+        return adjacencyOffsets[v + 1] - adjacencyOffsets[v];
+    }
+
+    /**
+     * Returns the i-th incident edge of a vertex.
+     *
+     * @param v - the vertex
+     * @param i - index between 0 and degreeOf(v)
+     * @return - the edge id
+     */
+    public int getIncidentEdge(int v, int i){
+        return adjacencyEdges[adjacencyOffsets[v] + i];
+    }
+
+    public boolean isDeleted(int e){
+        return deleted.get(e);
+    }
+
+    public void setDeleted(int e, boolean value){
+        deleted.set(e, value);
+    }
+
+    public boolean isUserAdded(int e){
+        return userAdded.get(e);
+    }
+
+    public void setUserAdded(int e, boolean value){
+        userAdded.set(e, value);
+    }
+
+    /**
+     * @return - the backing coordinate array [x0, y0, x1, y1, ...]
+     */
+    public float[] getCoordinates(){
+        return coordinates;
+    }
+
+    /**
+     * @return - the backing endpoint array [s0, t0, s1, t1, ...]
+     */
+    public int[] getEdgeEndpoints(){
+        return edgeEndpoints;
+    }
+
+    /**
+     * @return - the backing weight array
+     */
+    public float[] getWeights(){
+        return weights;
+    }
+
+    /**
+     * @return - the backing bit set of the deleted edges
+     */
+    public BitSet getDeleted(){
+        return deleted;
+    }
+
+    /**
+     * Returns the number of bytes the arrays of this graph use.
+     *
+     * @return - bytes
+     */
+    public long memoryFootprint(){
+        return 4L * (coordinates.length + edgeEndpoints.length + weights.length
+                + adjacencyOffsets.length + adjacencyEdges.length)
+                + deleted.size() / 8 + userAdded.size() / 8;
+    }
+
+    /**
+     * Returns the number of bytes the arrays of a compact graph of the given size use.
+     *
+     * @param vertices - number of vertices
+     * @param edges    - number of edges
+     * @return - bytes
+     */
+    public static long estimateFootprint(int vertices, int edges){
+        return 12L * vertices + 4 + 20L * edges + edges / 4;
+    }
+
+    /**
+     * Estimates the number of bytes a graph of the given size needs as Subgraph of a SimpleWeightedGraph, with the
+     * bytes per vertex and edge measured by GraphFootprint.
+     *
+     * @param vertices - number of vertices
+     * @param edges    - number of edges
+     * @return - estimated bytes
+     */
+    public static long estimateJGraphTFootprint(int vertices, int edges){
+        return (long) vertices * JGRAPHT_BYTES_PER_VERTEX + (long) edges * JGRAPHT_BYTES_PER_EDGE;
+    }
+}
@@ -1,10 +1,10 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph;
 
+import ch.unifr.hisdoc2.graphmanuscribble.helper.SegmentUtil;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
 import com.vividsolutions.jts.algorithm.Angle;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.LineSegment;
-import javafx.scene.shape.Polygon;
 import org.jgrapht.graph.DefaultWeightedEdge;
 
 
@@ -30,14 +30,17 @@ public class GraphEdge extends DefaultWeightedEdge{
     private boolean annotating = false;
 
     /**
-     * The Edge as a polygon
+     * The Edge as segment. Used for the collision detection with the scribbles.
      */
-    private Polygon polygonRepresentation;
+    private float x1;
+    private float y1;
+    private float x2;
+    private float y2;
 
     /**
-     * checks if the polygon representation is already done.
+     * checks if the segment is already set.
      */
-    private boolean polyRepCreated = false;
+    private boolean segmentCreated = false;
 
     private double angle = -1;
 
@@ -54,15 +57,6 @@ public class GraphEdge extends DefaultWeightedEdge{
         return this.angle;
     }
 
-    /**
-     * Returns the polygon representation of the edge
-     *
-     * @return - Polygon
-     */
-    public Polygon getPolygonRepresentation(){
-        return polygonRepresentation;
-    }
-
     /**
      * Tells if the user deleted this edge or not.
      *
@@ -119,19 +113,64 @@ public class GraphEdge extends DefaultWeightedEdge{
     }
 
     /**
-     * creates a Polygon representation of the edge. If the representation is already done
-     * this method wont do anything.
+     * Sets the segment of the edge. If the segment is already set this method wont do anything.
      *
      * @param v1 - GraphVertex source
      * @param v2 - GraphVertex target
      */
-    public void createPolygonRepresentation(GraphVertex v1, GraphVertex v2){
-        if(!polyRepCreated){
-            polyRepCreated = true;
-            polygonRepresentation = new Polygon(v1.getX(), v1.getY(), v2.getX(), v2.getY());
+    public void createSegment(GraphVertex v1, GraphVertex v2){
+        if(!segmentCreated){
+            segmentCreated = true;
+            x1 = v1.getX();
+            y1 = v1.getY();
+            x2 = v2.getX();
+            y2 = v2.getY();
         }
     }
 
+    /**
+     * Checks if the segment of the edge comes closer to the polyline than the tolerance.
+     *
+     * @param polyline  - the points of the polyline [x0, y0, x1, y1, ...]
+     * @param tolerance - the maximal distance
+     * @return - true if the edge is hit by the polyline
+     */
+    public boolean intersects(double[] polyline, double tolerance){
+        return SegmentUtil.intersectsPolyline(x1, y1, x2, y2, polyline, tolerance);
+    }
+
+    public float getX1(){
+        return x1;
+    }
+
+    public float getY1(){
+        return y1;
+    }
+
+    public float getX2(){
+        return x2;
+    }
+
+    public float getY2(){
+        return y2;
+    }
+
+    public float getMinX(){
+        return Math.min(x1, x2);
+    }
+
+    public float getMaxX(){
+        return Math.max(x1, x2);
+    }
+
+    public float getMinY(){
+        return Math.min(y1, y2);
+    }
+
+    public float getMaxY(){
+        return Math.max(y1, y2);
+    }
+
     private static double computeAngle(PointHD2 p1, PointHD2 p2){
         if(p2.y < p1.y){
             return new LineSegment(new Coordinate(p2.x, p2.y), new Coordinate(p1.x, p1.y)).angle();
@@ -1,5 +1,8 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph;
 
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Count;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 import org.jgrapht.alg.ConnectivityInspector;
@@ -36,6 +39,8 @@ public class GraphExtractionService extends Service<LarsGraphCollection>{
                     return null;
                 }
 
+                PageMetrics metrics = _currentLarsGraphCollection.getMetrics();
+                PageMetrics.Timer timer = metrics.start(Stage.SPLIT);
                 subgraphGraph = (UndirectedSubgraph<GraphVertex, GraphEdge>) _currentLarsGraphCollection.getEditedGraph().getGraph();
 
                 ConnectivityInspector<GraphVertex, GraphEdge> cI = new ConnectivityInspector<>(subgraphGraph);
@@ -52,15 +57,19 @@ public class GraphExtractionService extends Service<LarsGraphCollection>{
                 smallGraph = createGraphFromVertices(subgraphGraph, smallGraphVertices);
 
                 //delete the small graph from the big one
-                subgraphGraph.removeAllVertices(smallGraphVertices);
+                LarsGraph editedGraph = _currentLarsGraphCollection.getEditedGraph();
+                editedGraph.removeVertices(smallGraphVertices);
 
-                newLarsGraphCollection = new LarsGraphCollection(new LarsGraph(smallGraph));
+                //both parts can take their triangles from the triangulation of the graph before the split
+                LarsGraph smallLarsGraph = new LarsGraph(smallGraph);
+                smallLarsGraph.setHullTriangulation(editedGraph.getHullTriangulation());
+                newLarsGraphCollection = new LarsGraphCollection(smallLarsGraph);
 
                 _currentLarsGraphCollection.update();
                 newLarsGraphCollection.update();
 
-                System.out.println("number of nodes small graph: " + smallGraph.vertexSet().size());
-                System.out.println("number of nodes big graph: " + subgraphGraph.vertexSet().size());
+                timer.stop();
+                metrics.add(Count.SPLITS, 1);
 
                 return newLarsGraphCollection;
             }
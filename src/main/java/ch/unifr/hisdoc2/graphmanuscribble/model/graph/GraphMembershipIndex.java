@@ -0,0 +1,116 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from the edges and vertices to the LarsGraph they are part of and from the LarsGraphs to the
+ * LarsGraphCollection holding them. It is kept up to date by the AngieMSTGraph and the registered collections, so the
+ * graph of an edge is found without scanning all the subgraphs.
+ * <p>
+ * The maps are concurrent and lookups need no lock. An entry can be outdated for a short time (e.g. while a graph is
+ * split in the GraphExtractionService), so the callers have to verify the result and fall back to a scan.
+ */
+final class GraphMembershipIndex{
+
+    private final ConcurrentHashMap<GraphEdge, LarsGraph> edgeGraphs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<GraphVertex, LarsGraph> vertexGraphs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<LarsGraph, LarsGraphCollection> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Adds all the graphs of the collection with their edges and vertices to the index and registers the index in the
+     * collection.
+     *
+     * @param lgc - the collection to add
+     */
+    void addCollection(LarsGraphCollection lgc){
+        lgc.setMembershipIndex(this);
+        for(LarsGraph lG : lgc.getGraphs()){
+            addGraph(lG, lgc);
+        }
+    }
+
+    /**
+     * Removes the graphs of the collection from the index, if they are not already owned by an other collection.
+     *
+     * @param lgc - the collection to remove
+     */
+    void removeCollection(LarsGraphCollection lgc){
+        lgc.setMembershipIndex(null);
+        for(LarsGraph lG : lgc.getGraphs()){
+            owners.remove(lG, lgc);
+        }
+    }
+
+    /**
+     * Sets the collection as owner of the graph and indexes the edges and vertices of the graph.
+     *
+     * @param lG  - the graph
+     * @param lgc - the owner of the graph
+     */
+    void addGraph(LarsGraph lG, LarsGraphCollection lgc){
+        owners.put(lG, lgc);
+        indexGraph(lG);
+    }
+
+    /**
+     * Removes the graph from the collection, if it is the owner.
+     *
+     * @param lG  - the graph
+     * @param lgc - the former owner of the graph
+     */
+    void removeGraph(LarsGraph lG, LarsGraphCollection lgc){
+        owners.remove(lG, lgc);
+    }
+
+    /**
+     * Points all the edges and vertices of the graph to the graph. Has to be called if edges are moved into the graph.
+     *
+     * @param lG - the graph
+     */
+    void indexGraph(LarsGraph lG){
+        for(GraphEdge e : lG.getGraph().edgeSet()){
+            edgeGraphs.put(e, lG);
+        }
+        for(GraphVertex v : lG.getGraph().vertexSet()){
+            vertexGraphs.put(v, lG);
+        }
+    }
+
+    /**
+     * Points the edge and its vertices to the graph.
+     *
+     * @param e      - the edge
+     * @param source - source vertex of the edge
+     * @param target - target vertex of the edge
+     * @param lG     - the graph the edge is part of
+     */
+    void indexEdge(GraphEdge e, GraphVertex source, GraphVertex target, LarsGraph lG){
+        edgeGraphs.put(e, lG);
+        vertexGraphs.put(source, lG);
+        vertexGraphs.put(target, lG);
+    }
+
+    /**
+     * @param e - the edge
+     * @return - the graph the edge was indexed with or null
+     */
+    LarsGraph getGraph(GraphEdge e){
+        return edgeGraphs.get(e);
+    }
+
+    /**
+     * @param v - the vertex
+     * @return - the graph the vertex was indexed with or null
+     */
+    LarsGraph getGraph(GraphVertex v){
+        return vertexGraphs.get(v);
+    }
+
+    /**
+     * @param lG - the graph
+     * @return - the collection holding the graph or null
+     */
+    LarsGraphCollection getCollection(LarsGraph lG){
+        return owners.get(lG);
+    }
+}
@@ -1,14 +1,17 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph;
 
+import ch.unifr.hisdoc2.graphmanuscribble.helper.HullTriangulation;
 import ch.unifr.hisdoc2.graphmanuscribble.helper.TopologyUtil;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
 import javafx.scene.shape.Polygon;
+import org.jgrapht.Graphs;
 import org.jgrapht.UndirectedGraph;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 
 /**
  * This object holds a graph and the related concave hull of the graph. This saves time while annotating the graph.
@@ -29,6 +32,24 @@ public class LarsGraph implements Serializable{
      */
     private boolean annotation = false;
 
+    /**
+     * Counts the changes of the graph. The hull is up to date if it was calculated from the graph at the current
+     * count, only the hulls of changed graphs get recalculated.
+     */
+    private long modCount;
+    private long hullModCount = -1;
+
+    /**
+     * Triangulation of the last hull calculation or of the graph this graph was split off, the next hull
+     * calculation can take the triangles from it instead of triangulating again.
+     */
+    private transient volatile HullTriangulation hullTriangulation;
+
+    /**
+     * true if the hull is just the placeholder of the lazy hull mode
+     */
+    private volatile boolean placeholderHull = false;
+
     public LarsGraph(UndirectedGraph<GraphVertex, GraphEdge> graph){
         this(graph, new ArrayList<>());
     }
@@ -59,6 +80,7 @@ public class LarsGraph implements Serializable{
      */
     public synchronized void setGraph(UndirectedGraph<GraphVertex, GraphEdge> graph){
         this.graph = graph;
+        this.modCount++;
     }
 
     /**
@@ -77,6 +99,80 @@ public class LarsGraph implements Serializable{
      */
     public synchronized void setConcaveHull(List<PointHD2> concaveHull){
         this.concaveHull = concaveHull;
+        this.hullModCount = modCount;
+        this.placeholderHull = false;
+    }
+
+    /**
+     * Sets the concave hull calculated from the graph at the given modification count. The hull is dropped if the
+     * graph changed since, the graph stays dirty then.
+     *
+     * @param concaveHull - the new hull
+     * @param modCount    - modification count of the graph the hull was calculated from
+     * @return - true if the hull was set
+     */
+    public synchronized boolean setConcaveHull(List<PointHD2> concaveHull, long modCount){
+        if(modCount != this.modCount){
+            return false;
+        }
+        setConcaveHull(concaveHull);
+        return true;
+    }
+
+    /**
+     * @return - the modification count of the graph, to be passed to setConcaveHull with the calculated hull
+     */
+    public synchronized long getModCount(){
+        return modCount;
+    }
+
+    /**
+     * @return - a copy of the vertices of the graph
+     */
+    public synchronized List<GraphVertex> getVertexSnapshot(){
+        return new ArrayList<>(graph.vertexSet());
+    }
+
+    public HullTriangulation getHullTriangulation(){
+        return hullTriangulation;
+    }
+
+    public void setHullTriangulation(HullTriangulation hullTriangulation){
+        this.hullTriangulation = hullTriangulation;
+    }
+
+    /**
+     * Sets a placeholder which contains the concave hull. The hull stays dirty, so the concave hull gets calculated
+     * by the next hull calculation of the graph.
+     *
+     * @param placeholder - the placeholder hull
+     */
+    public synchronized void setPlaceholderHull(List<PointHD2> placeholder){
+        this.concaveHull = placeholder;
+        this.placeholderHull = true;
+    }
+
+    /**
+     * @return - true if the hull is a placeholder and not the concave hull of the graph
+     */
+    public boolean isPlaceholderHull(){
+        return placeholderHull;
+    }
+
+    /**
+     * Marks the hull as outdated. Has to be called if the graph gets changed without the methods of this class.
+     */
+    public synchronized void markHullDirty(){
+        modCount++;
+    }
+
+    /**
+     * Tells if the hull has to be recalculated, because the graph changed or there is no hull yet.
+     *
+     * @return - true if the hull is outdated
+     */
+    public synchronized boolean isHullDirty(){
+        return hullModCount != modCount || concaveHull == null || concaveHull.isEmpty();
     }
 
     /**
@@ -103,10 +199,11 @@ public class LarsGraph implements Serializable{
      * @param e - the edge to add
      * @return - if it was successful
      */
-    public void addEdge(GraphEdge e, GraphVertex source, GraphVertex target){
+    public synchronized void addEdge(GraphEdge e, GraphVertex source, GraphVertex target){
         graph.addVertex(source);
         graph.addVertex(target);
         graph.addEdge(source, target, e);
+        modCount++;
     }
 
     /**
@@ -115,12 +212,33 @@ public class LarsGraph implements Serializable{
      * @param e - the edge to remove
      * @return - if it was successful
      */
-    public void removeEdge(GraphEdge e){
+    public synchronized void removeEdge(GraphEdge e){
         if(graph.containsEdge(e)){
             graph.removeEdge(e);
+            modCount++;
         }
     }
 
+    /**
+     * Removes the given vertices and their edges from the graph
+     *
+     * @param vertices - the vertices to remove
+     */
+    public synchronized void removeVertices(Set<GraphVertex> vertices){
+        graph.removeAllVertices(vertices);
+        modCount++;
+    }
+
+    /**
+     * Adds the vertices and edges of the given graph to the graph
+     *
+     * @param other - the graph to add
+     */
+    public synchronized void addGraph(UndirectedGraph<GraphVertex, GraphEdge> other){
+        Graphs.addGraph(graph, other);
+        modCount++;
+    }
+
     /**
      * Checks if the graph contains the given edge e
      *
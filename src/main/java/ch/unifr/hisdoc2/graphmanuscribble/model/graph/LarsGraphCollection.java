@@ -1,8 +1,9 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph;
 
 import ch.unifr.hisdoc2.graphmanuscribble.helper.TopologyUtil;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
-import org.jgrapht.UndirectedGraph;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -41,6 +42,16 @@ public class LarsGraphCollection implements Serializable{
      */
     private List<LarsGraph> nonAnnotationGraphs;
 
+    /**
+     * The reverse index of the AngieMSTGraph this collection is part of, null if it is not part of the subgraphs
+     */
+    private transient GraphMembershipIndex membershipIndex;
+
+    /**
+     * The metrics of the page this collection is part of, null if it is not part of the subgraphs
+     */
+    private transient volatile PageMetrics metrics;
+
     public LarsGraphCollection(LarsGraph graph){
         this(graph, new ArrayList<>());
     }
@@ -80,6 +91,11 @@ public class LarsGraphCollection implements Serializable{
      * @param graphs - the new graphs
      */
     public synchronized void setGraphs(List<LarsGraph> graphs){
+        if(membershipIndex != null){
+            for(LarsGraph lG : this.graphs){
+                membershipIndex.removeGraph(lG, this);
+            }
+        }
         this.graphs = new ArrayList<>();
         this.nonAnnotationGraphs = new ArrayList<>();
         this.annotationGraphs = new ArrayList<>();
@@ -104,6 +120,33 @@ public class LarsGraphCollection implements Serializable{
         return concaveHull;
     }
 
+    /**
+     * Gives the graphs without a hull a placeholder hull instead of calculating their concave hull.
+     */
+    public synchronized void setPlaceholderHulls(){
+        for(LarsGraph larsGraph : graphs){
+            if(larsGraph.isHullDirty()){
+                larsGraph.setPlaceholderHull(TopologyUtil.pointListToPlaceholderHull(
+                        new ArrayList<>(larsGraph.getGraph().vertexSet())));
+            }
+        }
+        updateHull();
+    }
+
+    /**
+     * Tells if the hull of one of the graphs is still a placeholder
+     *
+     * @return - true if the hull of the collection contains a placeholder
+     */
+    public synchronized boolean hasPlaceholderHull(){
+        for(LarsGraph larsGraph : graphs){
+            if(larsGraph.isPlaceholderHull()){
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Is the graph already annotated
      *
@@ -139,6 +182,15 @@ public class LarsGraphCollection implements Serializable{
      * @return - the graph where v is member of or null
      */
     public LarsGraph getLarsGraphByVertex(GraphVertex v1, GraphVertex v2){
+        if(membershipIndex != null){
+            for(GraphVertex v : new GraphVertex[]{v1, v2}){
+                LarsGraph lG = membershipIndex.getGraph(v);
+                if(lG != null && lG.getGraph().containsVertex(v) && nonAnnotationGraphs.contains(lG)){
+                    return lG;
+                }
+            }
+        }
+
         for(LarsGraph lG : nonAnnotationGraphs){
             if(lG.getGraph().containsVertex(v1) || lG.getGraph().containsVertex(v2)){
                 return lG;
@@ -154,10 +206,10 @@ public class LarsGraphCollection implements Serializable{
      * @param e - the edge to add
      */
     public void addEdge(GraphEdge e, GraphVertex source, GraphVertex target){
-        UndirectedGraph<GraphVertex, GraphEdge> g = editedGraph.getGraph();
-        g.addVertex(source);
-        g.addVertex(target);
-        g.addEdge(source, target, e);
+        editedGraph.addEdge(e, source, target);
+        if(membershipIndex != null){
+            membershipIndex.indexEdge(e, source, target, editedGraph);
+        }
     }
 
     /**
@@ -195,6 +247,9 @@ public class LarsGraphCollection implements Serializable{
 
                 editedGraph = graph;
             }
+            if(membershipIndex != null){
+                membershipIndex.addGraph(graph, this);
+            }
 
             annotationCheck();
         }
@@ -214,9 +269,41 @@ public class LarsGraphCollection implements Serializable{
             } else {
                 nonAnnotationGraphs.remove(graph);
             }
+            if(membershipIndex != null){
+                membershipIndex.removeGraph(graph, this);
+            }
         }
     }
 
+    /**
+     * Sets the reverse index the graphs of this collection are registered in.
+     *
+     * @param membershipIndex - the index or null
+     */
+    void setMembershipIndex(GraphMembershipIndex membershipIndex){
+        this.membershipIndex = membershipIndex;
+    }
+
+    /**
+     * Returns the metrics the hull calculations and splits of this collection are recorded into.
+     *
+     * @return - the metrics of the page of this collection or the current page of the PipelineMetrics if it is not
+     * part of the subgraphs of a page
+     */
+    public PageMetrics getMetrics(){
+        PageMetrics pageMetrics = metrics;
+        return pageMetrics != null ? pageMetrics : PipelineMetrics.getInstance().getCurrentPage();
+    }
+
+    /**
+     * Sets the metrics of the page this collection is part of.
+     *
+     * @param metrics - the metrics of the page
+     */
+    void setMetrics(PageMetrics metrics){
+        this.metrics = metrics;
+    }
+
     /**
      * Updates the hull and the vertices
      */
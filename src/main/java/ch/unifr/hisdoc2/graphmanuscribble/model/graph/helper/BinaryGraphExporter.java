@@ -0,0 +1,117 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exports graphs into the binary graph format (see {@link BinaryGraphFormat}). The files contain the same graph as
+ * the gxml files of the {@link GraphExporter} plus the edge weights, but are a fraction of the size and get written
+ * without building a DOM.
+ */
+public class BinaryGraphExporter{
+
+    private BinaryGraphExporter(){
+    }
+
+    /**
+     * Exports a given graph into a gbin file.
+     *
+     * @param mstGraph  - the graph
+     * @param path      - the path to the output file
+     * @param fileName  - the name of the output file
+     * @param graphName - the name of the graph
+     * @return - the written file
+     * @throws IOException - if the file can not be written
+     */
+    public static File export2Binary(Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mstGraph,
+                                     String path,
+                                     String fileName,
+                                     String graphName) throws IOException{
+        return export2Binary(CompactGraph.fromGraph(mstGraph), path, fileName, graphName);
+    }
+
+    /**
+     * Exports a given compact graph into a gbin file. The vertex and edge ids of the graph are kept.
+     *
+     * @param graph     - the graph
+     * @param path      - the path to the output file
+     * @param fileName  - the name of the output file
+     * @param graphName - the name of the graph
+     * @return - the written file
+     * @throws IOException - if the file can not be written
+     */
+    public static File export2Binary(CompactGraph graph,
+                                     String path,
+                                     String fileName,
+                                     String graphName) throws IOException{
+        File file;
+        if(path.isEmpty()){
+            file = new File(fileName + "_" + graphName + "." + BinaryGraphFormat.EXTENSION);
+        } else {
+            File dir = new File(path);
+            if(!dir.exists()){
+                dir.mkdir();
+            }
+            file = new File(dir, fileName + "_" + graphName + "." + BinaryGraphFormat.EXTENSION);
+        }
+        write(graph, graphName, file);
+        return file;
+    }
+
+    /**
+     * Writes the graph into the given file.
+     *
+     * @param graph     - the graph
+     * @param graphName - the name of the graph
+     * @param file      - the output file, gets overwritten
+     * @throws IOException - if the file can not be written
+     */
+    public static void write(CompactGraph graph, String graphName, File file) throws IOException{
+        byte[] name = graphName.getBytes(StandardCharsets.UTF_8);
+        int vertices = graph.getVertexCount();
+        int edges = graph.getEdgeCount();
+        long size = BinaryGraphFormat.fileSize(name.length, vertices, edges);
+        if(size > Integer.MAX_VALUE){
+            throw new IOException("Graph too big for the binary format: " + size + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(BinaryGraphFormat.BYTE_ORDER);
+        buffer.putInt(BinaryGraphFormat.MAGIC);
+        buffer.putInt(BinaryGraphFormat.VERSION);
+        buffer.putInt(0);
+        buffer.putInt(vertices);
+        buffer.putInt(edges);
+        buffer.putInt(name.length);
+        buffer.put(name);
+
+        //the bulk puts of the views do not move the position of the buffer
+        buffer.asFloatBuffer().put(graph.getCoordinates(), 0, 2 * vertices);
+        buffer.position(buffer.position() + 8 * vertices);
+        buffer.asIntBuffer().put(graph.getEdgeEndpoints(), 0, 2 * edges);
+        buffer.position(buffer.position() + 8 * edges);
+        buffer.asFloatBuffer().put(graph.getWeights(), 0, edges);
+        buffer.position(buffer.position() + 4 * edges);
+        //toLongArray drops the trailing empty words
+        long[] deleted = graph.getDeleted().toLongArray();
+        buffer.asLongBuffer().put(deleted, 0, Math.min(deleted.length, BinaryGraphFormat.bitSetWords(edges)));
+        buffer.position(buffer.capacity());
+        buffer.flip();
+
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+    }
+}
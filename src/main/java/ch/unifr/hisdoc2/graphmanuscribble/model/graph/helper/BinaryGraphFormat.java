@@ -0,0 +1,52 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary graph files (.gbin) written by {@link BinaryGraphExporter} and read by
+ * {@link BinaryGraphImporter}. All the values are little endian.
+ * <pre>
+ * int      magic "GMSB"
+ * int      version
+ * int      flags (reserved, 0)
+ * int      vertex count v
+ * int      edge count e
+ * int      length n of the graph name
+ * byte[n]  graph name in UTF-8
+ * float[2v] x and y of each vertex
+ * int[2e]   source and target id of each edge
+ * float[e]  weight of each edge
+ * long[(e + 63) / 64] deleted edges as bit set (bit e % 64 of word e / 64)
+ * </pre>
+ */
+final class BinaryGraphFormat{
+
+    static final int MAGIC = 'G' | 'M' << 8 | 'S' << 16 | 'B' << 24;
+    static final int VERSION = 1;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final String EXTENSION = "gbin";
+
+    /**
+     * bytes of the header without the graph name
+     */
+    static final int HEADER_SIZE = 6 * 4;
+
+    private BinaryGraphFormat(){
+    }
+
+    /**
+     * Returns the size of a file with the given content.
+     *
+     * @param nameLength - length of the UTF-8 encoded graph name
+     * @param vertices   - number of vertices
+     * @param edges      - number of edges
+     * @return - bytes
+     */
+    static long fileSize(int nameLength, int vertices, int edges){
+        return HEADER_SIZE + nameLength + 8L * vertices + 12L * edges + 8L * bitSetWords(edges);
+    }
+
+    static int bitSetWords(int edges){
+        return (edges + 63) / 64;
+    }
+}
@@ -0,0 +1,118 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.jgrapht.graph.SimpleWeightedGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Makes it possible to import a gbin graph (see {@link BinaryGraphFormat}) into the graphmanuscribble system. The
+ * file is read into a heap buffer in one go and the arrays are copied out of it in bulk. The file is not mapped, so
+ * it is closed after the read and the GraphCache can delete it at any time.
+ */
+public class BinaryGraphImporter{
+
+    private BinaryGraphImporter(){
+    }
+
+    /**
+     * Reads in a given gbin file and returns a LoadedGraph object, the same way as GraphImporter.xml2Graph does for
+     * a gxml file.
+     *
+     * @param binaryFile - gbin file
+     * @return - the loadedGraph object
+     * @throws IOException - if the file can not be read or is no valid gbin file
+     */
+    public static LoadedGraph binary2Graph(File binaryFile) throws IOException{
+        SimpleWeightedGraph<GraphVertex, GraphEdge> graph = read(binaryFile).toSubgraph().getBase();
+        List<GraphEdge> deletedEdges = new ArrayList<>();
+        for(GraphEdge e : graph.edgeSet()){
+            if(e.isDeleted()){
+                deletedEdges.add(e);
+            }
+        }
+        return GraphImporter.createLoadedGraph(graph, deletedEdges);
+    }
+
+    /**
+     * Reads in a given gbin file as compact graph.
+     *
+     * @param binaryFile - gbin file
+     * @return - the graph
+     * @throws IOException - if the file can not be read or is no valid gbin file
+     */
+    public static CompactGraph read(File binaryFile) throws IOException{
+        ByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.READ)){
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException(binaryFile + " is too big for a gbin file");
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while(buffer.hasRemaining()){
+                if(channel.read(buffer) < 0){
+                    throw new IOException(binaryFile + " is truncated or corrupt");
+                }
+            }
+        }
+        buffer.flip();
+        buffer.order(BinaryGraphFormat.BYTE_ORDER);
+
+        if(buffer.remaining() < BinaryGraphFormat.HEADER_SIZE || buffer.getInt() != BinaryGraphFormat.MAGIC){
+            throw new IOException(binaryFile + " is no gbin file");
+        }
+        int version = buffer.getInt();
+        if(version != BinaryGraphFormat.VERSION){
+            throw new IOException(binaryFile + " has the unsupported gbin version " + version);
+        }
+        buffer.getInt(); //flags
+        int vertices = buffer.getInt();
+        int edges = buffer.getInt();
+        int nameLength = buffer.getInt();
+        if(vertices < 0 || edges < 0 || nameLength < 0
+                || buffer.capacity() != BinaryGraphFormat.fileSize(nameLength, vertices, edges)){
+            throw new IOException(binaryFile + " is truncated or corrupt");
+        }
+        buffer.position(buffer.position() + nameLength);
+
+        float[] coordinates = new float[2 * vertices];
+        buffer.asFloatBuffer().get(coordinates);
+        buffer.position(buffer.position() + 8 * vertices);
+        int[] endpoints = new int[2 * edges];
+        buffer.asIntBuffer().get(endpoints);
+        buffer.position(buffer.position() + 8 * edges);
+        float[] weights = new float[edges];
+        buffer.asFloatBuffer().get(weights);
+        buffer.position(buffer.position() + 4 * edges);
+        long[] words = new long[BinaryGraphFormat.bitSetWords(edges)];
+        buffer.asLongBuffer().get(words);
+
+        for(int endpoint : endpoints){
+            if(endpoint < 0 || endpoint >= vertices){
+                throw new IOException(binaryFile + " contains an edge to the unknown vertex " + endpoint);
+            }
+        }
+
+        return new CompactGraph(coordinates, endpoints, weights, BitSet.valueOf(words));
+    }
+
+    /**
+     * Checks if the given file is a gbin file by its extension.
+     *
+     * @param file - the file
+     * @return - true for gbin files
+     */
+    public static boolean isBinaryGraph(File file){
+        return file.getName().endsWith("." + BinaryGraphFormat.EXTENSION);
+    }
+}
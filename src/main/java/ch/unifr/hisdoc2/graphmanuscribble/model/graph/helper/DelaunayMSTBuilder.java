@@ -0,0 +1,160 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import com.vividsolutions.jts.triangulate.DelaunayTriangulationBuilder;
+import com.vividsolutions.jts.triangulate.quadedge.QuadEdge;
+import com.vividsolutions.jts.triangulate.quadedge.QuadEdgeSubdivision;
+import com.vividsolutions.jts.triangulate.quadedge.Vertex;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the minimum spanning tree of the Delaunay triangulation of a point set without the intermediate JTS
+ * geometry and without any vertex or edge objects.
+ * <p>
+ * The edges are read directly from the QuadEdgeSubdivision of the triangulation. Each site gets an integer id the
+ * first time it is seen, the weights go into a primitive array which is sorted once and Kruskal runs over a
+ * union-find on int arrays. The weights are the same as in AngieMSTGraph (square root of the distance of the points
+ * transformed with the distance matrix).
+ */
+public final class DelaunayMSTBuilder{
+
+    private DelaunayMSTBuilder(){
+    }
+
+    /**
+     * Triangulates the points and returns the minimum spanning tree of the triangulation.
+     *
+     * @param points   - the interest points of the page
+     * @param distance - the 2x2 matrix the points get transformed with before measuring the edge length
+     * @return - the MST as compact graph
+     */
+    public static CompactGraph build(List<PointHD2> points, float[][] distance){
+        return build(points, distance, null);
+    }
+
+    /**
+     * Triangulates the points and returns the minimum spanning tree of the triangulation. The triangulation and the
+     * MST are timed separately.
+     *
+     * @param points   - the interest points of the page
+     * @param distance - the 2x2 matrix the points get transformed with before measuring the edge length
+     * @param metrics  - the metrics of the page, can be null
+     * @return - the MST as compact graph
+     */
+    public static CompactGraph build(List<PointHD2> points, float[][] distance, PageMetrics metrics){
+        long start = System.nanoTime();
+        DelaunayTriangulationBuilder delaunay = new DelaunayTriangulationBuilder();
+        delaunay.setSites(PointHD2.pointList2coordinateList(points));
+        delaunay.setTolerance(0);
+        QuadEdgeSubdivision subdivision = delaunay.getSubdivision();
+        @SuppressWarnings("unchecked")
+        List<QuadEdge> primaryEdges = subdivision.getPrimaryEdges(false);
+
+        //assign the site ids and read the edges
+        Map<Vertex, Integer> ids = new IdentityHashMap<>(points.size());
+        float[] coordinates = new float[points.size() * 2];
+        int edgeCount = primaryEdges.size();
+        int[] endpoints = new int[edgeCount * 2];
+        float[] weights = new float[edgeCount];
+        for(int e = 0; e < edgeCount; e++){
+            QuadEdge qe = primaryEdges.get(e);
+            endpoints[2 * e] = getId(qe.orig(), ids, coordinates);
+            endpoints[2 * e + 1] = getId(qe.dest(), ids, coordinates);
+            weights[e] = (float) weight(coordinates, endpoints[2 * e], endpoints[2 * e + 1], distance);
+        }
+        int vertexCount = ids.size();
+        long triangulated = System.nanoTime();
+
+        //sort the edges by weight. The weights are positive, so the bits of the floats have the same order.
+        long[] sorted = new long[edgeCount];
+        for(int e = 0; e < edgeCount; e++){
+            sorted[e] = ((long) Float.floatToIntBits(weights[e]) << 32) | e;
+        }
+        Arrays.sort(sorted);
+
+        //kruskal
+        int[] parent = new int[vertexCount];
+        int[] size = new int[vertexCount];
+        for(int v = 0; v < vertexCount; v++){
+            parent[v] = v;
+            size[v] = 1;
+        }
+        int treeEdges = Math.max(vertexCount - 1, 0);
+        int[] mstEndpoints = new int[treeEdges * 2];
+        float[] mstWeights = new float[treeEdges];
+        int added = 0;
+        for(int i = 0; i < edgeCount && added < treeEdges; i++){
+            int e = (int) sorted[i];
+            int source = endpoints[2 * e];
+            int target = endpoints[2 * e + 1];
+            int rootSource = find(parent, source);
+            int rootTarget = find(parent, target);
+            if(rootSource == rootTarget){
+                continue;
+            }
+            if(size[rootSource] < size[rootTarget]){
+                parent[rootSource] = rootTarget;
+                size[rootTarget] += size[rootSource];
+            } else {
+                parent[rootTarget] = rootSource;
+                size[rootSource] += size[rootTarget];
+            }
+            mstEndpoints[2 * added] = source;
+            mstEndpoints[2 * added + 1] = target;
+            mstWeights[added] = weights[e];
+            added++;
+        }
+
+        if(metrics != null){
+            metrics.record(Stage.TRIANGULATE, triangulated - start);
+            metrics.record(Stage.MST, System.nanoTime() - triangulated);
+        }
+
+        return new CompactGraph(Arrays.copyOf(coordinates, vertexCount * 2),
+                Arrays.copyOf(mstEndpoints, added * 2), Arrays.copyOf(mstWeights, added), null);
+    }
+
+    /**
+     * Returns the id of a site. A new id is assigned and its coordinates stored if the site was not seen yet.
+     */
+    private static int getId(Vertex v, Map<Vertex, Integer> ids, float[] coordinates){
+        Integer id = ids.get(v);
+        if(id == null){
+            id = ids.size();
+            ids.put(v, id);
+            coordinates[2 * id] = (float) v.getX();
+            coordinates[2 * id + 1] = (float) v.getY();
+        }
+        return id;
+    }
+
+    /**
+     * The same weight as AngieMSTGraph.addEdge, calculated in the same float precision.
+     */
+    private static double weight(float[] coordinates, int v1, int v2, float[][] m){
+        float x1 = coordinates[2 * v1];
+        float y1 = coordinates[2 * v1 + 1];
+        float x2 = coordinates[2 * v2];
+        float y2 = coordinates[2 * v2 + 1];
+        float dx = (m[0][0] * x1 + m[1][0] * y1) - (m[0][0] * x2 + m[1][0] * y2);
+        float dy = (m[0][1] * x1 + m[1][1] * y1) - (m[0][1] * x2 + m[1][1] * y2);
+        return Math.sqrt(Math.sqrt(dx * dx + dy * dy));
+    }
+
+    /**
+     * Find with path halving.
+     */
+    private static int find(int[] parent, int v){
+        while(parent[v] != v){
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+}
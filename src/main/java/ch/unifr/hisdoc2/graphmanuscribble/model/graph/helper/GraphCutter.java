@@ -1,10 +1,10 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
 
 import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraph;
-import org.apache.commons.lang.time.StopWatch;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.SimpleWeightedGraph;
 import org.jgrapht.graph.Subgraph;
@@ -19,12 +19,22 @@ import java.util.*;
  */
 public class GraphCutter{
 
-    private BinClass[] currentHistorgram;
-    private Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> graph;
+    /**
+     * The edges of the heaviest classes of the histogram, they get cut
+     */
+    private List<GraphEdge> heavyEdges;
 
     public GraphCutter(Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mstGraph){
-        this.graph = mstGraph;
-        this.currentHistorgram = createHistogram();
+        List<GraphEdge> edges = new ArrayList<>(mstGraph.edgeSet());
+        double[] weights = new double[edges.size()];
+        for(int i = 0; i < weights.length; i++){
+            weights[i] = mstGraph.getEdgeWeight(edges.get(i));
+        }
+        BitSet heavy = selectHeavyEdges(weights);
+        this.heavyEdges = new ArrayList<>(heavy.cardinality());
+        for(int i = heavy.nextSetBit(0); i >= 0; i = heavy.nextSetBit(i + 1)){
+            heavyEdges.add(edges.get(i));
+        }
     }
 
     /**
@@ -40,121 +50,95 @@ public class GraphCutter{
 
     /**
      * cut those edge classes which summed up are less the the threshold.
+     *
+     * @param g - the graph to remove the edges from
+     * @return - number of cut edges
      */
-    public void cutHighCostEdges(Graph g){
-        StopWatch sw = new StopWatch();
-        sw.start();
+    public int cutHighCostEdges(Graph g){
         int nb = 0;
-        double sum = 0;
-        double threshold = Constants.EDGE_CUT_PRECENTAGE;
-
-        //The classes with the heaviest edges are at the end of the array
-        for(BinClass c : currentHistorgram){
-            if(c.procent > threshold){
-                break;
-            }
-
-            for(GraphEdge e : c.edges){
-                if(g.containsEdge(e)){
-                    e.setDeleted(true);
-                    g.removeEdge(e);
-                    nb++;
-                    sum += Math.abs(graph.getEdgeWeight(e));
-                }
+        for(GraphEdge e : heavyEdges){
+            if(g.containsEdge(e)){
+                e.setDeleted(true);
+                g.removeEdge(e);
+                nb++;
             }
         }
 
-        sw.stop();
-
-        System.out.println(nb + " edges were cut due to their high cost, their sum was " + sum);
+        return nb;
     }
 
     /**
-     * get the list of edges of the graph sorted by their weight
+     * Labels the edges of the heaviest classes of a compact graph as deleted. It uses the same histogram and
+     * threshold as for the JGraphT graphs, but works directly on the weight array of the graph.
      *
-     * @param graph
-     * @param edges
-     * @return
-     */
-    private ArrayList<GraphEdge> getSortedEdges(final Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> graph, Set<GraphEdge> edges){
-        ArrayList<GraphEdge> edgelist = new ArrayList<>(edges);
-        edgelist.sort((GraphEdge o1, GraphEdge o2) -> GraphUtil.compareEdgeWeights(graph, o1, o2));
-        return edgelist;
-    }
-
-    /**
-     * Creates a histogram, which will be used to delete a certain class, that is smaller then the given threshold.
+     * @param g - the compact graph
+     * @return - number of cut edges
      */
-    private BinClass[] createHistogram(){
-        List<GraphEdge> sortedEdges = getSortedEdges(graph, graph.edgeSet());
-        double min = graph.getEdgeWeight(sortedEdges.get(sortedEdges.size() - 1));
-        double max = graph.getEdgeWeight(sortedEdges.get(0));
-        //getting the number of classes
-        int numberOfClasses = (int) Math.ceil(1 + 3.3 * Math.log10(sortedEdges.size() - 1));
-        System.out.println(numberOfClasses + " classes were build to classify the edges");
-        double classRanges = (max - min) / numberOfClasses;
-
-        BinClass[] classes = new BinClass[numberOfClasses + 1];
-        for(int i = 0; i < classes.length; i++){
-            classes[i] = new BinClass(sortedEdges.size());
+    public static int cutHighCostEdges(CompactGraph g){
+        float[] weights = g.getWeights();
+        double[] w = new double[weights.length];
+        for(int e = 0; e < weights.length; e++){
+            w[e] = weights[e];
         }
 
-        //classify the edges
-        for(GraphEdge e : sortedEdges){
-            int binNumber = (int) ((graph.getEdgeWeight(e) - min) / classRanges);
-            //just checks
-            assert binNumber > 0 : "Edge weight is smaller then the min";
-            assert binNumber < numberOfClasses : "Edge weight is bigger then the max";
-
-            classes[binNumber].addEdge(e);
+        int nb = 0;
+        BitSet heavy = selectHeavyEdges(w);
+        for(int e = heavy.nextSetBit(0); e >= 0; e = heavy.nextSetBit(e + 1)){
+            if(!g.isDeleted(e)){
+                g.setDeleted(e, true);
+                nb++;
+            }
         }
 
-        Collections.reverse(Arrays.asList(classes));
-
-        return classes;
+        return nb;
     }
 
     /**
-     * Represents a class in the histogram. It holds information about the relative amount of edges it holds and the edges itself.
+     * Creates a histogram of the edge weights and selects the edges of the heaviest classes. The weight range is
+     * divided into 1 + 3.3 * log10(n - 1) classes. Starting with the heaviest class, the classes are selected until
+     * the first class which holds more than EDGE_CUT_PRECENTAGE percent of the edges.
+     *
+     * @param weights - the weight of each edge
+     * @return - the indices of the selected edges
      */
-    private class BinClass{
-        private List<GraphEdge> edges;
-        private int totalEdges;
-        private double procent;
-
-        BinClass(int totalEdges){
-            this.edges = new ArrayList<>();
-            this.totalEdges = totalEdges;
+    private static BitSet selectHeavyEdges(double[] weights){
+        int edges = weights.length;
+        BitSet heavy = new BitSet(edges);
+        if(edges < 2){
+            return heavy;
         }
-
-        /**
-         * Adds an edge to the edge list of this bucket class
-         *
-         * @param e - the edge to add
-         */
-        void addEdge(GraphEdge e){
-            edges.add(e);
-            procent = (edges.size() / (double) totalEdges) * 100;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for(double w : weights){
+            min = Math.min(min, w);
+            max = Math.max(max, w);
         }
+        //getting the number of classes
+        int numberOfClasses = (int) Math.ceil(1 + 3.3 * Math.log10(edges - 1));
+        double classRanges = (max - min) / numberOfClasses;
 
-        /**
-         * returns the number of edges this class i holding
-         *
-         * @return - number of edges
-         */
-        int nbOfEdges(){
-            return edges.size();
+        //classify the edges
+        int[] bins = new int[edges];
+        int[] classSizes = new int[numberOfClasses + 1];
+        for(int e = 0; e < edges; e++){
+            bins[e] = (int) ((weights[e] - min) / classRanges);
+            classSizes[bins[e]]++;
         }
 
-        @Override
-        public String toString(){
-            ArrayList<Double> l = new ArrayList<>();
-            for(GraphEdge e : edges){
-                l.add(Math.abs(graph.getEdgeWeight(e)));
+        //the heaviest classes first, stop at the first class over the threshold
+        BitSet cutClasses = new BitSet(classSizes.length);
+        for(int c = numberOfClasses; c >= 0; c--){
+            if((classSizes[c] / (double) edges) * 100 > Constants.EDGE_CUT_PRECENTAGE){
+                break;
             }
+            cutClasses.set(c);
+        }
 
-            return "Number of edges: "+ edges.size()+"; procent: " + procent + "; Edges: " + l +"\n";
+        for(int e = 0; e < edges; e++){
+            if(cutClasses.get(bins[e])){
+                heavy.set(e);
+            }
         }
+        return heavy;
     }
-
 }
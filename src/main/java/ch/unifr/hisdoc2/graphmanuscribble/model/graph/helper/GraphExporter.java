@@ -1,7 +1,10 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
 
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jgrapht.graph.SimpleWeightedGraph;
 import org.jgrapht.graph.Subgraph;
 import org.w3c.dom.Document;
@@ -15,13 +18,23 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.util.HashMap;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 public class GraphExporter {
 
+    private static final Logger logger = LogManager.getLogger(GraphExporter.class);
+
+    public static final String EXTENSION = ".gxml";
+    public static final String GZIP_EXTENSION = ".gxml.gz";
+
     /**
      * Exports a given give into a gxml file.
      *
@@ -37,28 +50,93 @@ public class GraphExporter {
                                   String xmlName,
                                   String graphName)
             throws ParserConfigurationException, TransformerException {
+        export2XML(mstGraph, path, xmlName, graphName, false);
+    }
+
+    /**
+     * Exports a given give into a gxml file. The graph is exported as CompactGraph, the node ids follow the
+     * iteration order of the vertex set.
+     *
+     * @param mstGraph - the graph
+     * @param path - the path to the output file
+     * @param xmlName - the name of the output file
+     * @param graphName - the name of the graph
+     * @param gzip - true to write a gzip compressed .gxml.gz file
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     */
+    public static void export2XML(Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mstGraph,
+                                  String path,
+                                  String xmlName,
+                                  String graphName,
+                                  boolean gzip)
+            throws ParserConfigurationException, TransformerException {
+        export2XML(CompactGraph.fromGraph(mstGraph), path, xmlName, graphName, gzip);
+    }
+
+    /**
+     * Exports a given compact graph into a gxml file. The vertex ids of the graph are used as node ids.
+     *
+     * @param graph - the graph
+     * @param path - the path to the output file
+     * @param xmlName - the name of the output file
+     * @param graphName - the name of the graph
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     */
+    public static void export2XML(CompactGraph graph,
+                                  String path,
+                                  String xmlName,
+                                  String graphName)
+            throws ParserConfigurationException, TransformerException {
+        export2XML(graph, path, xmlName, graphName, false);
+    }
+
+    /**
+     * Exports a given compact graph into a gxml file. The vertex ids of the graph are used as node ids. The file is
+     * written with the StreamingGraphExporter, the DOM is only built if the streaming export fails.
+     *
+     * @param graph - the graph
+     * @param path - the path to the output file
+     * @param xmlName - the name of the output file
+     * @param graphName - the name of the graph
+     * @param gzip - true to write a gzip compressed .gxml.gz file
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     */
+    public static void export2XML(CompactGraph graph,
+                                  String path,
+                                  String xmlName,
+                                  String graphName,
+                                  boolean gzip)
+            throws ParserConfigurationException, TransformerException {
+        File file = getOutputFile(path, xmlName, graphName, gzip);
+        try {
+            StreamingGraphExporter.write(graph, file, graphName, gzip);
+            return;
+        } catch (IOException | XMLStreamException e) {
+            logger.warn("Streaming export of " + file + " failed, using the DOM export", e);
+        }
 
         Document doc = createXMLFile();
         Element rootElement = createRootElement(doc, graphName);
 
-        int i = 0;
-        HashMap<PointHD2, Integer> nodeMap = new HashMap<>(mstGraph.vertexSet().size());
-        // all the nodes
-        for (PointHD2 n : mstGraph.vertexSet()) {
-            rootElement.appendChild(createNode(doc, n, i));
-            nodeMap.put(n, i);
-            i++;
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            Element node = doc.createElement("node");
+            node.setAttribute("id", String.valueOf(v));
+            node.setAttribute("x", String.valueOf(graph.getX(v)));
+            node.setAttribute("y", String.valueOf(graph.getY(v)));
+            rootElement.appendChild(node);
         }
 
-        // all the edges
-        for (GraphEdge e : mstGraph.edgeSet()) {
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
             Element edge = doc.createElement("edge");
-            edge.setAttribute("source", String.valueOf(nodeMap.get(mstGraph.getEdgeSource(e))));
-            edge.setAttribute("target", String.valueOf(nodeMap.get(mstGraph.getEdgeTarget(e))));
-            edge.setAttribute("deleted", String.valueOf(e.isDeleted()));
+            edge.setAttribute("source", String.valueOf(graph.getEdgeSource(e)));
+            edge.setAttribute("target", String.valueOf(graph.getEdgeTarget(e)));
+            edge.setAttribute("deleted", String.valueOf(graph.isDeleted(e)));
             rootElement.appendChild(edge);
         }
-        writeXMLFile(doc, path, xmlName, graphName);
+        writeXMLFile(doc, file, gzip);
     }
 
     public static void exportNodeList(List<PointHD2> nodes,
@@ -75,7 +153,7 @@ public class GraphExporter {
             rootElement.appendChild(createNode(doc, n, i));
             i++;
         }
-        writeXMLFile(doc, path, imageName, graphName);
+        writeXMLFile(doc, getOutputFile(path, imageName, graphName, false), false);
     }
 
     private static Document createXMLFile() throws ParserConfigurationException {
@@ -96,10 +174,34 @@ public class GraphExporter {
         return rootElement;
     }
 
+    /**
+     * Returns the file a graph gets exported to. Creates the directory if it does not exist.
+     *
+     * @param path - the path to the output file
+     * @param imageName - the name of the output file
+     * @param graphName - the name of the graph
+     * @param gzip - true for a gzip compressed file
+     * @return - path/imageName_graphName.gxml(.gz)
+     */
+    private static File getOutputFile(String path,
+                                      String imageName,
+                                      String graphName,
+                                      boolean gzip) {
+        String fileName = imageName + "_" + graphName + (gzip ? GZIP_EXTENSION : EXTENSION);
+        if (path.isEmpty()) {
+            return new File(fileName);
+        }
+        // if the directory does not exist, create it
+        File theDir = new File(path);
+        if (!theDir.exists()) {
+            theDir.mkdir();
+        }
+        return new File(path + File.separator + fileName);
+    }
+
     private static void writeXMLFile(Document doc,
-                                     String path,
-                                     String imageName,
-                                     String graphName) throws TransformerException {
+                                     File file,
+                                     boolean gzip) throws TransformerException {
 
 
         // write the content into xml file
@@ -109,22 +211,12 @@ public class GraphExporter {
         transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
         DOMSource source = new DOMSource(doc);
 
-
-        // if the directory does not exist, create it
-        File theDir = new File(path);
-        if (!theDir.exists()) {
-            theDir.mkdir();
+        try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(file))
+                : new BufferedOutputStream(new FileOutputStream(file))) {
+            transformer.transform(source, new StreamResult(out));
+        } catch (IOException e) {
+            throw new TransformerException(e);
         }
-        StreamResult result;
-        if(path.isEmpty()){
-            result = new StreamResult(new File(imageName + "_" + graphName + ".gxml"));
-        } else {
-            result = new StreamResult(new File(path + File.separator + imageName + "_" + graphName + ".gxml"));
-        }
-        // Output to console for testing
-        //   StreamResult result = new StreamResult(System.out);
-
-        transformer.transform(source, result);
     }
 
 
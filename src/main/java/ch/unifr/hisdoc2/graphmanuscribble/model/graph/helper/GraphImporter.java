@@ -1,11 +1,13 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
 
 import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
-import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.ConcaveHullExtractionService;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.HullCalculationScheduler;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraphCollection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
@@ -16,8 +18,10 @@ import org.jgrapht.graph.SimpleWeightedGraph;
 import org.jgrapht.graph.Subgraph;
 import org.jgrapht.graph.UndirectedSubgraph;
 
+import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 /**
@@ -25,6 +29,8 @@ import java.util.*;
  */
 public class GraphImporter{
 
+    private static final Logger logger = LogManager.getLogger(GraphImporter.class);
+
     private static List<GraphEdge> deletedEdges = new ArrayList<>();
     private static SimpleWeightedGraph<GraphVertex, GraphEdge> graph;
     private static UndirectedSubgraph<GraphVertex, GraphEdge> undirectedGraph;
@@ -32,20 +38,42 @@ public class GraphImporter{
     /**
      * Reads in a given gxml file and returns a LoadedGraph object.
      * This object contains all information needed for the system to use this graph.
+     * The file is read with the StreamingGraphImporter, the JDOM tree is only built if that fails.
      *
-     * @param xmlFile - gxml file
+     * @param xmlFile - gxml file, can be gzip compressed
      * @return - the loadedGraph object
      */
     public static LoadedGraph xml2Graph(File xmlFile){
-        //read the graph from xml
-        Element root = getRootFromFile(xmlFile);
-        //create subgraph
-        graph = createSubgraph(root);
+        deletedEdges.clear();
+        SimpleWeightedGraph<GraphVertex, GraphEdge> importedGraph;
+        try{
+            importedGraph = StreamingGraphImporter.read(xmlFile, deletedEdges);
+        } catch(IOException | XMLStreamException e){
+            logger.warn("Streaming import of " + xmlFile + " failed, using the DOM import", e);
+            deletedEdges.clear();
+            //read the graph from xml
+            Element root = getRootFromFile(xmlFile);
+            //create subgraph
+            importedGraph = createSubgraph(root);
+        }
+        return createLoadedGraph(importedGraph, deletedEdges);
+    }
+
+    /**
+     * Creates the forest of an imported graph and returns everything as LoadedGraph object.
+     *
+     * @param importedGraph - the imported graph
+     * @param deleted       - the edges of the graph which are labeled as deleted
+     * @return - the loadedGraph object
+     */
+    static LoadedGraph createLoadedGraph(SimpleWeightedGraph<GraphVertex, GraphEdge> importedGraph,
+                                         Collection<GraphEdge> deleted){
+        graph = importedGraph;
         //make copy of graph
         Subgraph<GraphVertex, GraphEdge, SimpleGraph<GraphVertex, GraphEdge>> clone =
                 new Subgraph<>(graph, graph.vertexSet(), graph.edgeSet());
         //delete deledable edges
-        clone.removeAllEdges(deletedEdges);
+        clone.removeAllEdges(deleted);
         //check connectivity
         undirectedGraph = new UndirectedSubgraph<>(clone.getBase(), clone.vertexSet(), clone.edgeSet());
         ConnectivityInspector<GraphVertex, GraphEdge> cI = new ConnectivityInspector<>(undirectedGraph);
@@ -68,13 +96,8 @@ public class GraphImporter{
             LarsGraphCollection lGC = new LarsGraphCollection(
                     new LarsGraph(GraphUtil.createGraphFromVertices(undirectedGraph, graphVertices), false)
             );
-            //start hull calc
-            ConcaveHullExtractionService cHES = new ConcaveHullExtractionService();
-            cHES.setOnFailed(event ->
-                    cHES.getException().printStackTrace(System.err)
-            );
-            cHES.setLarsGraphCollection(lGC);
-            cHES.start();
+            //queue hull calc
+            HullCalculationScheduler.getInstance().submitForest(lGC, HullCalculationScheduler.PRIORITY_LOAD);
             //add to list
             forest.add(lGC);
         }
@@ -91,10 +114,10 @@ public class GraphImporter{
     private static Element getRootFromFile(File xmlFile){
         SAXBuilder builder = new SAXBuilder();
         Document xml = null;
-        try {
-            xml = builder.build(xmlFile);
+        try (InputStream in = StreamingGraphImporter.openInputStream(xmlFile)) {
+            xml = builder.build(in);
         } catch (JDOMException | IOException e) {
-            e.printStackTrace();
+            logger.error("Could not read " + xmlFile, e);
         }
 
         return Objects.requireNonNull(xml).getRootElement();
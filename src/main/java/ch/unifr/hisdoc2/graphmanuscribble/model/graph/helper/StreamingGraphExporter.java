@@ -0,0 +1,113 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes graphs as gxml with a StAX XMLStreamWriter. The elements go directly into the file, so no memory is needed
+ * beyond the graph itself. The output has the same schema and indentation as the DOM export of the GraphExporter.
+ */
+public class StreamingGraphExporter{
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private StreamingGraphExporter(){
+    }
+
+    /**
+     * Writes a given graph into a gxml file. The graph is written as CompactGraph, the node ids follow the iteration
+     * order of the vertex set.
+     *
+     * @param mstGraph  - the graph
+     * @param file      - the output file
+     * @param graphName - the name of the graph
+     * @param gzip      - true to compress the file with gzip
+     * @throws IOException        - if the file can not be written
+     * @throws XMLStreamException - if the xml can not be written
+     */
+    public static void write(Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mstGraph,
+                             File file,
+                             String graphName,
+                             boolean gzip) throws IOException, XMLStreamException{
+        write(CompactGraph.fromGraph(mstGraph), file, graphName, gzip);
+    }
+
+    /**
+     * Writes a given compact graph into a gxml file. The vertex ids of the graph are used as node ids.
+     *
+     * @param graph     - the graph
+     * @param file      - the output file
+     * @param graphName - the name of the graph
+     * @param gzip      - true to compress the file with gzip
+     * @throws IOException        - if the file can not be written
+     * @throws XMLStreamException - if the xml can not be written
+     */
+    public static void write(CompactGraph graph,
+                             File file,
+                             String graphName,
+                             boolean gzip) throws IOException, XMLStreamException{
+        try(OutputStream out = openOutputStream(file, gzip)){
+            XMLStreamWriter writer = startDocument(out, graphName);
+            for(int v = 0; v < graph.getVertexCount(); v++){
+                writeNode(writer, v, graph.getX(v), graph.getY(v));
+            }
+            for(int e = 0; e < graph.getEdgeCount(); e++){
+                writeEdge(writer, graph.getEdgeSource(e), graph.getEdgeTarget(e), graph.isDeleted(e));
+            }
+            endDocument(writer);
+        }
+    }
+
+    private static OutputStream openOutputStream(File file, boolean gzip) throws IOException{
+        OutputStream out = new FileOutputStream(file);
+        return gzip ? new GZIPOutputStream(out, 64 * 1024) : new BufferedOutputStream(out, 64 * 1024);
+    }
+
+    private static XMLStreamWriter startDocument(OutputStream out, String graphName) throws XMLStreamException{
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeCharacters("\n");
+        writer.writeStartElement("graph");
+        writer.writeAttribute("class", graphName);
+        return writer;
+    }
+
+    private static void endDocument(XMLStreamWriter writer) throws XMLStreamException{
+        writer.writeCharacters("\n");
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private static void writeNode(XMLStreamWriter writer, int id, float x, float y) throws XMLStreamException{
+        writer.writeCharacters("\n    ");
+        writer.writeEmptyElement("node");
+        writer.writeAttribute("id", String.valueOf(id));
+        writer.writeAttribute("x", String.valueOf(x));
+        writer.writeAttribute("y", String.valueOf(y));
+    }
+
+    private static void writeEdge(XMLStreamWriter writer, int source, int target, boolean deleted)
+            throws XMLStreamException{
+        writer.writeCharacters("\n    ");
+        writer.writeEmptyElement("edge");
+        writer.writeAttribute("source", String.valueOf(source));
+        writer.writeAttribute("target", String.valueOf(target));
+        writer.writeAttribute("deleted", String.valueOf(deleted));
+    }
+}
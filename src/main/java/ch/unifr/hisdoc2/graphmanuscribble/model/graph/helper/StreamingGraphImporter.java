@@ -0,0 +1,125 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.jgrapht.graph.SimpleWeightedGraph;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads gxml graphs with a StAX XMLStreamReader. The nodes and edges are added to the graph while the file is parsed,
+ * so no document tree is built. Gzip compressed files are detected by their magic bytes.
+ */
+public class StreamingGraphImporter{
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private StreamingGraphImporter(){
+    }
+
+    private static XMLInputFactory createInputFactory(){
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Reads in a given gxml file.
+     *
+     * @param xmlFile      - gxml file, can be gzip compressed
+     * @param deletedEdges - gets the edges which are labeled as deleted
+     * @return - the graph
+     * @throws IOException        - if the file can not be read
+     * @throws XMLStreamException - if the file is no well formed gxml
+     */
+    public static SimpleWeightedGraph<GraphVertex, GraphEdge> read(File xmlFile, List<GraphEdge> deletedEdges)
+            throws IOException, XMLStreamException{
+        //to get the node with the right id for the edge
+        Map<Integer, GraphVertex> nodeMap = new HashMap<>();
+        SimpleWeightedGraph<GraphVertex, GraphEdge> graph = new SimpleWeightedGraph<>(GraphEdge.class);
+
+        try(InputStream in = openInputStream(xmlFile)){
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            try{
+                while(reader.hasNext()){
+                    if(reader.next() != XMLStreamConstants.START_ELEMENT){
+                        continue;
+                    }
+                    switch(reader.getLocalName()){
+                        case "node":
+                            int id = Integer.parseInt(getAttribute(reader, "id"));
+                            double x = Double.parseDouble(getAttribute(reader, "x"));
+                            double y = Double.parseDouble(getAttribute(reader, "y"));
+                            GraphVertex v = new GraphVertex(x, y);
+                            graph.addVertex(v);
+                            nodeMap.put(id, v);
+                            break;
+                        case "edge":
+                            boolean deleted = Boolean.valueOf(reader.getAttributeValue(null, "deleted"));
+                            GraphVertex source = nodeMap.get(Integer.parseInt(getAttribute(reader, "source")));
+                            GraphVertex target = nodeMap.get(Integer.parseInt(getAttribute(reader, "target")));
+                            if(source == null || target == null){
+                                throw new XMLStreamException("Edge to an unknown node", reader.getLocation());
+                            }
+                            GraphEdge e = new GraphEdge();
+                            e.setDeleted(deleted);
+                            if(deleted){
+                                deletedEdges.add(e);
+                            }
+                            graph.addEdge(source, target, e);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } catch(NumberFormatException e){
+                throw new XMLStreamException("Invalid number: " + e.getMessage(), reader.getLocation());
+            } finally{
+                reader.close();
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Opens a file for reading. Gzip compressed files get decompressed.
+     *
+     * @param file - the file
+     * @return - the stream of the uncompressed content
+     * @throws IOException - if the file can not be opened
+     */
+    public static InputStream openInputStream(File file) throws IOException{
+        InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if(b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)){
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String name) throws XMLStreamException{
+        String value = reader.getAttributeValue(null, name);
+        if(value == null){
+            throw new XMLStreamException("Missing attribute " + name + " of " + reader.getLocalName(),
+                    reader.getLocation());
+        }
+        return value;
+    }
+}
@@ -0,0 +1,283 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.TopologyUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openimaj.image.FImage;
+import org.openimaj.image.contour.Contour;
+import org.openimaj.image.contour.SuzukiContourProcessor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Extracts and simplifies the outer contours of a binary page in parallel.
+ * <p>
+ * The page is split into overlapping horizontal bands, the contours of each band are found on the fork-join pool.
+ * A contour which does not come close to the cut rows of its band is the whole border of its component and is kept
+ * by the band whose core contains its first row. Contours which cross a seam are stitched: the rows they cover are
+ * merged into regions, which get extracted again and grown until none of their contours touches a region border.
+ * Every band contour overlapping such a region is dropped in favour of the region result, because it could be
+ * enclosed by a component which is only complete in the region.
+ * <p>
+ * The result is the same list of contours in the same order as the serial extraction over the whole page: the top
+ * level outer borders, in reverse raster order of their first pixel.
+ */
+public class TiledContourExtractor{
+
+    /**
+     * Rows a contour has to keep away from the cut rows of its band to count as complete.
+     */
+    private static final int SEAM_MARGIN = 2;
+
+    private static final Logger logger = LogManager.getLogger(TiledContourExtractor.class);
+
+    private final int minContourSize;
+    private final double simplifyDistance;
+
+    private int contourPointCount;
+
+    /**
+     * @param minContourSize   - contours with less points are discarded as noise
+     * @param simplifyDistance - distance parameter for TopologyUtil.simplifyPointList
+     */
+    public TiledContourExtractor(int minContourSize, double simplifyDistance){
+        this.minContourSize = minContourSize;
+        this.simplifyDistance = simplifyDistance;
+    }
+
+    /**
+     * Extracts the outer contours of the image and simplifies them. Points on the image border are skipped.
+     *
+     * @param img - the binary image
+     * @return - the simplified point list of each contour, in the order of the serial extraction
+     */
+    public List<List<PointHD2>> extract(FImage img){
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        int bandCount = Math.max(1, Math.min(img.height / Constants.BAND_MIN_HEIGHT, 4 * parallelism));
+        int coreHeight = (img.height + bandCount - 1) / bandCount;
+
+        //find the contours of each band
+        List<BandResult> bands = IntStream.range(0, bandCount).parallel()
+                .mapToObj(i -> extractBand(img, i * coreHeight, Math.min(img.height, (i + 1) * coreHeight)))
+                .collect(Collectors.toList());
+
+        //stitch the contours crossing a seam
+        List<int[]> regions = new ArrayList<>();
+        for(BandResult band : bands){
+            regions.addAll(band.seamIntervals);
+        }
+        regions = mergeIntervals(regions);
+        List<RegionResult> stitched = new ArrayList<>();
+        while(!regions.isEmpty()){
+            stitched = regions.parallelStream()
+                    .map(r -> extractRegion(img, r[0], r[1], coreHeight))
+                    .collect(Collectors.toList());
+            List<int[]> grown = new ArrayList<>(stitched.size());
+            for(RegionResult r : stitched){
+                grown.add(new int[]{r.start, r.end});
+            }
+            List<int[]> merged = mergeIntervals(grown);
+            if(merged.size() == grown.size()){
+                regions = grown;
+                break;
+            }
+            //grown regions overlap now, extract the merged ones again
+            regions = merged;
+        }
+
+        //collect the contours and bring them into the serial order
+        List<ContourPart> contours = new ArrayList<>();
+        for(BandResult band : bands){
+            for(ContourPart c : band.complete){
+                if(!intersects(c, regions)){
+                    contours.add(c);
+                }
+            }
+        }
+        for(RegionResult r : stitched){
+            contours.addAll(r.contours);
+        }
+        contours.sort(Comparator.comparingLong((ContourPart c) -> c.rasterIndex).reversed());
+
+        List<ContourPart> kept = contours.stream()
+                .filter(c -> c.contour.size() >= minContourSize && !c.contour.isHole())
+                .collect(Collectors.toList());
+        contourPointCount = 0;
+        for(ContourPart c : kept){
+            contourPointCount += c.contour.size();
+        }
+
+        return kept.parallelStream()
+                .map(c -> simplify(c, img.width, img.height))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return - the number of contour points before the simplification of the last extraction
+     */
+    public int getContourPointCount(){
+        return contourPointCount;
+    }
+
+    /**
+     * Extracts the contours of the band with the core rows [coreStart, coreEnd).
+     */
+    private static BandResult extractBand(FImage img, int coreStart, int coreEnd){
+        int start = Math.max(0, coreStart - Constants.BAND_OVERLAP);
+        int end = Math.min(img.height, coreEnd + Constants.BAND_OVERLAP);
+        BandResult result = new BandResult();
+
+        for(ContourPart c : findTopLevelContours(img, start, end)){
+            if(touchesCut(c, start, end, img.height)){
+                result.seamIntervals.add(new int[]{c.minY, c.maxY + 1});
+            } else if(c.minY >= coreStart && c.minY < coreEnd){
+                result.complete.add(c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the contours of the rows [start, end) and grows the region until no contour touches its cut rows.
+     */
+    private static RegionResult extractRegion(FImage img, int start, int end, int growStep){
+        while(true){
+            List<ContourPart> contours = findTopLevelContours(img, start, end);
+            boolean complete = true;
+            for(ContourPart c : contours){
+                if(touchesCut(c, start, end, img.height)){
+                    complete = false;
+                    break;
+                }
+            }
+            if(complete){
+                RegionResult result = new RegionResult();
+                result.start = start;
+                result.end = end;
+                result.contours = contours;
+                return result;
+            }
+            start = Math.max(0, start - growStep);
+            end = Math.min(img.height, end + growStep);
+        }
+    }
+
+    /**
+     * Runs the contour processor on a copy of the rows [start, end) and returns the top level contours. The contour
+     * processor labels the image it runs on, so it never gets the page itself, which is shared by all the bands.
+     */
+    private static List<ContourPart> findTopLevelContours(FImage img, int start, int end){
+        FImage band = img.extractROI(0, start, img.width, end - start);
+        Contour root = SuzukiContourProcessor.findContours(band);
+        List<ContourPart> contours = new ArrayList<>(root.children.size());
+        for(Contour c : root.children){
+            contours.add(new ContourPart(c, start, img.width));
+        }
+        return contours;
+    }
+
+    /**
+     * True if the contour comes close to a row the band was cut at. The top and the bottom of the image are no cuts.
+     */
+    private static boolean touchesCut(ContourPart c, int start, int end, int height){
+        return (start > 0 && c.minY - start < SEAM_MARGIN) || (end < height && end - 1 - c.maxY < SEAM_MARGIN);
+    }
+
+    private static boolean intersects(ContourPart c, List<int[]> regions){
+        for(int[] r : regions){
+            if(c.minY < r[1] && c.maxY >= r[0]){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merges overlapping row intervals [start, end).
+     */
+    private static List<int[]> mergeIntervals(List<int[]> intervals){
+        List<int[]> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparingInt(i -> i[0]));
+        List<int[]> merged = new ArrayList<>();
+        for(int[] i : sorted){
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if(last != null && i[0] < last[1]){
+                last[1] = Math.max(last[1], i[1]);
+            } else {
+                merged.add(new int[]{i[0], i[1]});
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Converts the contour into page coordinates and simplifies it the same way as the serial extraction. If the
+     * simplification fails, the contour is kept with all its points like in the serial extraction.
+     */
+    private List<PointHD2> simplify(ContourPart c, int width, int height){
+        List<PointHD2> points = new ArrayList<>(c.contour.size());
+        for(int i = 0; i < c.contour.size(); i++){
+            float x = c.contour.get(i).getX();
+            float y = c.contour.get(i).getY() + c.offsetY;
+            if(x > 0 && x < width - 1 && y > 0 && y < height - 1){
+                points.add(new PointHD2(x, y));
+            }
+        }
+        try{
+            points = TopologyUtil.simplifyPointList(points, simplifyDistance);
+        } catch(Exception e){
+            logger.warn("Simplification of the contour at y=" + c.minY + " failed, keeping its "
+                    + points.size() + " points", e);
+        }
+        return points;
+    }
+
+    /**
+     * A contour of a band with its vertical extent and the position of its first pixel in page coordinates.
+     */
+    private static class ContourPart{
+        private final Contour contour;
+        private final int offsetY;
+        private int minY = Integer.MAX_VALUE;
+        private int maxY = Integer.MIN_VALUE;
+        /**
+         * y * width + x of the first pixel in raster order, where the contour processor found the contour
+         */
+        private final long rasterIndex;
+
+        ContourPart(Contour contour, int offsetY, int width){
+            this.contour = contour;
+            this.offsetY = offsetY;
+            int minX = Integer.MAX_VALUE;
+            for(int i = 0; i < contour.size(); i++){
+                int x = (int) contour.get(i).getX();
+                int y = (int) contour.get(i).getY() + offsetY;
+                if(y < minY){
+                    minY = y;
+                    minX = x;
+                } else if(y == minY && x < minX){
+                    minX = x;
+                }
+                maxY = Math.max(maxY, y);
+            }
+            rasterIndex = (long) minY * width + minX;
+        }
+    }
+
+    private static class BandResult{
+        private final List<ContourPart> complete = new ArrayList<>();
+        private final List<int[]> seamIntervals = new ArrayList<>();
+    }
+
+    private static class RegionResult{
+        private int start;
+        private int end;
+        private List<ContourPart> contours;
+    }
+}
@@ -1,19 +1,17 @@
 package ch.unifr.hisdoc2.graphmanuscribble.model.image;
 
-import javafx.scene.image.Image;
-
 /**
  * Created by larsvoegtlin on 02.03.17.
  */
 public class GraphImage{
 
-    private Image binImage;
-    private Image orgImage;
+    private TiledImageStore binImage;
+    private TiledImageStore orgImage;
     private boolean seeOrgImg;
     private double width;
     private double height;
 
-    public GraphImage(Image original, Image binary){
+    public GraphImage(TiledImageStore original, TiledImageStore binary){
         this.orgImage = original;
         this.binImage = binary;
         this.seeOrgImg = true;
@@ -21,7 +19,7 @@ public class GraphImage{
         this.height = original.getHeight();
     }
 
-    public Image getCurrentImage(){
+    public TiledImageStore getCurrentImage(){
         if(seeOrgImg){
             return orgImage;
         } else {
@@ -29,11 +27,11 @@ public class GraphImage{
         }
     }
 
-    public void setBinImage(Image binImage) {
+    public void setBinImage(TiledImageStore binImage) {
         this.binImage = binImage;
     }
 
-    public void setOrgImage(Image orgImage) {
+    public void setOrgImage(TiledImageStore orgImage) {
         this.orgImage = orgImage;
     }
 
@@ -52,4 +50,12 @@ public class GraphImage{
     public double getHeight() {
         return height;
     }
+
+    /**
+     * Releases the image stores of the page.
+     */
+    public void close(){
+        orgImage.close();
+        binImage.close();
+    }
 }
@@ -0,0 +1,706 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.image;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.RasterUtil;
+import ch.unifr.hisdoc2.graphmanuscribble.io.ImageStripReader;
+import ch.unifr.hisdoc2.graphmanuscribble.io.SettingReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openimaj.image.FImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An image pyramid of a page in a memory-mapped file, so the pixels of big pages are not held on the heap.
+ * <p>
+ * Level 0 is the page itself, every further level has half the width and height of the level before, until the
+ * level fits into one tile of {@link #TILE_SIZE}. The pixels of a level are stored row by row, as ARGB ints or, for
+ * black and white images, as one bit per pixel on level 0 and one gray byte per pixel on the other levels. The
+ * levels are mapped in chunks of rows, so a level can be bigger than the 2GB a single mapping allows.
+ * <p>
+ * The store of an image file is kept in the tile store directory of the settings and reused as long as the file
+ * does not change, the least recently used stores are deleted above the size of the settings. Stores which are open
+ * are never deleted. Stores created from images in memory (e.g. binary images) are temporary and deleted on
+ * {@link #close()}, which also unmaps the file. A store must not be used after it is closed.
+ * <p>
+ * {@link #asBufferedImage()} returns level 0 as a BufferedImage backed by the mapped file, so the binarizations and
+ * the graph read the pixels from the store as well. Reading such an image pixel by pixel is slow, the pixels are
+ * read row by row with {@link #readRegion} and {@link #toFImage()} of the store of the image ({@link #of}).
+ */
+public class TiledImageStore{
+
+    /**
+     * Side length of the tiles the views load
+     */
+    public static final int TILE_SIZE = 256;
+
+    private static final int MAGIC = 0x474D5453; //GMTS
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final String EXTENSION = ".tiles";
+    private static final String TEMPORARY_PREFIX = "image-";
+    /**
+     * Pixel formats of the levels
+     */
+    private static final int FORMAT_ARGB = 0;
+    private static final int FORMAT_BINARY = 1;
+    /**
+     * Maximal bytes of one mapping
+     */
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+    /**
+     * Rows read at once from the image file and converted at once by toFImage
+     */
+    private static final int STRIP_HEIGHT = 512;
+
+    private static final Logger logger = LogManager.getLogger(TiledImageStore.class);
+
+    /**
+     * The files of the open stores with the number of stores which have them open
+     */
+    private static final Map<File, Integer> openFiles = new HashMap<>();
+    /**
+     * One lock per store file, so a store is only built once when two threads open the same image
+     */
+    private static final Map<File, Object> buildLocks = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final boolean temporary;
+    private final int format;
+    private final int width;
+    private final int height;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+    private final int[] rowBytes;
+    private final int[] rowsPerChunk;
+    /**
+     * The mapped chunks of the rows of every level, the ARGB levels are read through int views of them
+     */
+    private final MappedByteBuffer[][] chunks;
+    private final IntBuffer[][] intChunks;
+    private BufferedImage image;
+    private boolean closed = false;
+
+    private TiledImageStore(File file, boolean temporary, int format, int width, int height, boolean create)
+            throws IOException{
+        this.file = file;
+        this.temporary = temporary;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+
+        int levels = 1;
+        while(Math.max(width >> (levels - 1), height >> (levels - 1)) > TILE_SIZE){
+            levels++;
+        }
+        levelWidths = new int[levels];
+        levelHeights = new int[levels];
+        rowBytes = new int[levels];
+        rowsPerChunk = new int[levels];
+        long size = HEADER_BYTES;
+        for(int l = 0; l < levels; l++){
+            levelWidths[l] = Math.max(1, (width + (1 << l) - 1) >> l);
+            levelHeights[l] = Math.max(1, (height + (1 << l) - 1) >> l);
+            if(format == FORMAT_ARGB){
+                rowBytes[l] = levelWidths[l] * 4;
+            } else {
+                rowBytes[l] = l == 0 ? (levelWidths[l] + 7) / 8 : levelWidths[l];
+            }
+            rowsPerChunk[l] = (int) Math.max(1, Math.min(levelHeights[l], MAX_CHUNK_BYTES / rowBytes[l]));
+            size += (long) rowBytes[l] * levelHeights[l];
+        }
+
+        chunks = new MappedByteBuffer[levels][];
+        intChunks = new IntBuffer[levels][];
+        long offset = HEADER_BYTES;
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()){
+            if(create){
+                //an old store of the same image may be bigger
+                raf.setLength(size);
+            }
+            for(int l = 0; l < levels; l++){
+                int nbOfChunks = (levelHeights[l] + rowsPerChunk[l] - 1) / rowsPerChunk[l];
+                chunks[l] = new MappedByteBuffer[nbOfChunks];
+                intChunks[l] = new IntBuffer[nbOfChunks];
+                for(int c = 0; c < nbOfChunks; c++){
+                    int rows = Math.min(rowsPerChunk[l], levelHeights[l] - c * rowsPerChunk[l]);
+                    long bytes = (long) rows * rowBytes[l];
+                    chunks[l][c] = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+                    if(format == FORMAT_ARGB){
+                        intChunks[l][c] = chunks[l][c].order(ByteOrder.nativeOrder()).asIntBuffer();
+                    }
+                    offset += bytes;
+                }
+            }
+        } catch(IOException | RuntimeException e){
+            unmapAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the store of an image file. The store is created if the file has none or the file changed.
+     *
+     * @param imageFile - the image file
+     * @return - the store
+     * @throws IOException - if the image can not be read or the store not be written
+     */
+    public static TiledImageStore open(File imageFile) throws IOException{
+        return open(imageFile, getDirectory(), SettingReader.getInstance().getTileStoreMaxSize());
+    }
+
+    /**
+     * Opens the store of an image file in a directory, the least recently used stores of the directory are deleted
+     * above the maximal size before a new store is created.
+     */
+    static TiledImageStore open(File imageFile, File dir, long maxSize) throws IOException{
+        File file = new File(dir, createKey(imageFile) + EXTENSION);
+        synchronized(buildLocks.computeIfAbsent(file, f -> new Object())){
+            //registered before it is read, so another thread does not evict it meanwhile
+            retain(file);
+            try{
+                if(file.isFile()){
+                    int[] header = readHeader(file);
+                    if(header != null){
+                        TiledImageStore store = new TiledImageStore(file, false, header[2], header[0], header[1],
+                                false);
+                        file.setLastModified(System.currentTimeMillis());
+                        return store;
+                    }
+                }
+                evict(dir, maxSize);
+                return build(imageFile, file);
+            } catch(IOException | RuntimeException e){
+                release(file);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Reads the image file in strips into a new store. Black and white images are stored with one bit per pixel. The
+     * file is decoded only once (see ImageStripReader), for most formats as a whole.
+     */
+    private static TiledImageStore build(File imageFile, File file) throws IOException{
+        try(ImageStripReader reader = ImageStripReader.open(imageFile, STRIP_HEIGHT)){
+            int w = reader.getWidth();
+            int h = reader.getHeight();
+            BufferedImage strip = reader.readStrip(0);
+            boolean binary = isBlackAndWhite(strip.getColorModel(), strip.getSampleModel());
+            //the header is written last, an interrupted store is never opened
+            TiledImageStore store = new TiledImageStore(file, false, binary ? FORMAT_BINARY : FORMAT_ARGB, w, h, true);
+            try{
+                int[] row = new int[w];
+                for(int y = 0; y < h; y += reader.getStripHeight()){
+                    if(y > 0){
+                        strip = reader.readStrip(y);
+                    }
+                    if(binary){
+                        if(!isBlackAndWhite(strip.getColorModel(), strip.getSampleModel())){
+                            throw new IOException("The strips of " + imageFile + " change their type");
+                        }
+                        store.writeBinaryRows(strip, y);
+                    } else {
+                        for(int sy = 0; sy < strip.getHeight(); sy++){
+                            RasterUtil.readRGB(strip, sy, row);
+                            store.writeRow(y + sy, row);
+                        }
+                    }
+                }
+                store.buildPyramid();
+                store.writeHeader();
+                return store;
+            } catch(IOException | RuntimeException e){
+                store.unmapAll();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Creates a temporary store of an image in memory. Black and white images are stored with one bit per pixel.
+     *
+     * @param img - the image
+     * @return - the store
+     * @throws IOException - if the store can not be written
+     */
+    public static TiledImageStore create(BufferedImage img) throws IOException{
+        return create(img, getDirectory());
+    }
+
+    static TiledImageStore create(BufferedImage img, File dir) throws IOException{
+        File file = File.createTempFile(TEMPORARY_PREFIX, EXTENSION, dir);
+        file.deleteOnExit();
+        boolean binary = isBlackAndWhite(img.getColorModel(), img.getSampleModel());
+        retain(file);
+        TiledImageStore store = null;
+        try{
+            store = new TiledImageStore(file, true, binary ? FORMAT_BINARY : FORMAT_ARGB, img.getWidth(),
+                    img.getHeight(), true);
+            if(binary){
+                store.writeBinaryRows(img, 0);
+            } else {
+                int[] row = new int[img.getWidth()];
+                for(int y = 0; y < img.getHeight(); y++){
+                    RasterUtil.readRGB(img, y, row);
+                    store.writeRow(y, row);
+                }
+            }
+            store.buildPyramid();
+            return store;
+        } catch(IOException | RuntimeException e){
+            if(store != null){
+                store.close();
+            } else {
+                release(file);
+                file.delete();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the store an image of {@link #asBufferedImage()} reads its pixels from.
+     *
+     * @param img - the image
+     * @return - the store or null if the image is not backed by a store
+     */
+    public static TiledImageStore of(BufferedImage img){
+        DataBuffer db = img.getRaster().getDataBuffer();
+        return db instanceof MappedDataBuffer ? ((MappedDataBuffer) db).getStore() : null;
+    }
+
+    public int getWidth(){
+        return width;
+    }
+
+    public int getHeight(){
+        return height;
+    }
+
+    public int getLevelCount(){
+        return levelWidths.length;
+    }
+
+    public int getLevelWidth(int level){
+        return levelWidths[level];
+    }
+
+    public int getLevelHeight(int level){
+        return levelHeights[level];
+    }
+
+    /**
+     * @return - true if the pixels are stored as black and white instead of ARGB
+     */
+    public boolean isBinary(){
+        return format == FORMAT_BINARY;
+    }
+
+    /**
+     * Returns the level to show at the zoom factor: the smallest level which has at least one pixel per screen pixel.
+     *
+     * @param zoom - the zoom factor of the page
+     * @return - the level
+     */
+    public int getLevel(double zoom){
+        int level = 0;
+        while(level < getLevelCount() - 1 && zoom * (1 << (level + 1)) <= 1){
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Reads a region of a level as ARGB ints, row by row.
+     *
+     * @param level - the level
+     * @param x     - left of the region in pixels of the level
+     * @param y     - top of the region in pixels of the level
+     * @param w     - width of the region
+     * @param h     - height of the region
+     * @param dst   - array of at least w * h
+     */
+    public void readRegion(int level, int x, int y, int w, int h, int[] dst){
+        if(format == FORMAT_ARGB){
+            for(int r = 0; r < h; r++){
+                IntBuffer row = intRow(level, y + r);
+                row.position(row.position() + x);
+                row.get(dst, r * w, w);
+            }
+        } else if(level == 0){
+            byte[] bits = new byte[(x + w + 7) / 8 - x / 8];
+            for(int r = 0; r < h; r++){
+                ByteBuffer row = row(0, y + r);
+                row.position(row.position() + x / 8);
+                row.get(bits);
+                int offset = r * w;
+                for(int i = 0; i < w; i++){
+                    int bit = x % 8 + i;
+                    dst[offset + i] = ((bits[bit >> 3] >> (7 - (bit & 7))) & 1) == 0 ? 0xFF000000 : 0xFFFFFFFF;
+                }
+            }
+        } else {
+            byte[] gray = new byte[w];
+            for(int r = 0; r < h; r++){
+                ByteBuffer row = row(level, y + r);
+                row.position(row.position() + x);
+                row.get(gray);
+                int offset = r * w;
+                for(int i = 0; i < w; i++){
+                    dst[offset + i] = 0xFF000000 | (gray[i] & 0xFF) * 0x010101;
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts level 0 into an FImage, the same as ImageUtilities.createFImage of {@link #asBufferedImage()}, but
+     * read in strips of rows instead of pixel by pixel and without a copy of the whole page.
+     *
+     * @return - the page as FImage
+     */
+    public FImage toFImage(){
+        float[][] pixels = new float[height][];
+        int[] strip = new int[width * Math.min(STRIP_HEIGHT, height)];
+        for(int y = 0; y < height; y += STRIP_HEIGHT){
+            int rows = Math.min(STRIP_HEIGHT, height - y);
+            readRegion(0, 0, y, width, rows, strip);
+            System.arraycopy(new FImage(strip, width, rows).pixels, 0, pixels, y, rows);
+        }
+        return new FImage(pixels);
+    }
+
+    /**
+     * Returns level 0 as image. The pixels are read from the mapped file, so the image needs no heap for its pixels.
+     *
+     * @return - the page as TYPE_CUSTOM RGB image, or as black and white image if the store is binary
+     */
+    public synchronized BufferedImage asBufferedImage(){
+        if(image == null){
+            ColorModel cm;
+            SampleModel sm;
+            if(format == FORMAT_ARGB){
+                DirectColorModel dcm = new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+                cm = dcm;
+                sm = new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, width, height, dcm.getMasks());
+            } else {
+                byte[] bw = {0, (byte) 0xFF};
+                cm = new IndexColorModel(1, 2, bw, bw, bw);
+                sm = new MultiPixelPackedSampleModel(DataBuffer.TYPE_BYTE, width, height, 1);
+            }
+            WritableRaster raster = Raster.createWritableRaster(sm, new MappedDataBuffer(), null);
+            image = new BufferedImage(cm, raster, false, null);
+        }
+        return image;
+    }
+
+    /**
+     * Releases the store: the file is unmapped, the file of a temporary store is deleted and the store may be
+     * evicted from the directory again.
+     */
+    public void close(){
+        synchronized(this){
+            if(closed){
+                return;
+            }
+            closed = true;
+            image = null;
+        }
+        unmapAll();
+        release(file);
+        if(temporary && !file.delete()){
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Returns a view of a row of a level, positioned at the start of the row.
+     */
+    private ByteBuffer row(int level, int y){
+        ByteBuffer chunk = chunks[level][y / rowsPerChunk[level]].duplicate();
+        chunk.position((y % rowsPerChunk[level]) * rowBytes[level]);
+        return chunk;
+    }
+
+    private IntBuffer intRow(int level, int y){
+        IntBuffer chunk = intChunks[level][y / rowsPerChunk[level]].duplicate();
+        chunk.position((y % rowsPerChunk[level]) * levelWidths[level]);
+        return chunk;
+    }
+
+    /**
+     * Writes a row of level 0 of an ARGB store.
+     */
+    private void writeRow(int y, int[] argb){
+        IntBuffer row = intRow(0, y);
+        for(int x = 0; x < argb.length; x++){
+            argb[x] |= 0xFF000000;
+        }
+        row.put(argb, 0, width);
+    }
+
+    /**
+     * Copies the rows of a black and white image (see isBlackAndWhite) into level 0 of a binary store, starting at a
+     * row of the store.
+     */
+    private void writeBinaryRows(BufferedImage img, int y){
+        Raster raster = img.getRaster();
+        MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) raster.getSampleModel();
+        DataBufferByte db = (DataBufferByte) raster.getDataBuffer();
+        byte[] data = db.getData();
+        int tx = -raster.getSampleModelTranslateX();
+        int ty = -raster.getSampleModelTranslateY();
+        for(int r = 0; r < img.getHeight(); r++){
+            ByteBuffer row = row(0, y + r);
+            row.put(data, db.getOffset() + sm.getOffset(tx, ty + r), rowBytes[0]);
+        }
+    }
+
+    /**
+     * True if the pixels are stored like in a TYPE_BYTE_BINARY image with 0 as black and 1 as white, aligned to the
+     * bytes, so the rows can be copied into a binary store.
+     */
+    private static boolean isBlackAndWhite(ColorModel cm, SampleModel sm){
+        if(!(cm instanceof IndexColorModel) || !(sm instanceof MultiPixelPackedSampleModel)
+                || sm.getDataType() != DataBuffer.TYPE_BYTE){
+            return false;
+        }
+        IndexColorModel icm = (IndexColorModel) cm;
+        MultiPixelPackedSampleModel mpp = (MultiPixelPackedSampleModel) sm;
+        return mpp.getPixelBitStride() == 1 && mpp.getDataBitOffset() == 0 && icm.getMapSize() == 2
+                && !icm.hasAlpha() && (icm.getRGB(0) & 0xFFFFFF) == 0 && (icm.getRGB(1) & 0xFFFFFF) == 0xFFFFFF;
+    }
+
+    /**
+     * Computes each level from the level before, a pixel is the mean of the 2x2 pixels below.
+     */
+    private void buildPyramid(){
+        for(int l = 1; l < getLevelCount(); l++){
+            int lw = levelWidths[l];
+            int pw = levelWidths[l - 1];
+            int ph = levelHeights[l - 1];
+            int[] top = new int[pw];
+            int[] bottom = new int[pw];
+            int[] out = new int[lw];
+            byte[] gray = new byte[lw];
+            for(int y = 0; y < levelHeights[l]; y++){
+                readRegion(l - 1, 0, 2 * y, pw, 1, top);
+                readRegion(l - 1, 0, Math.min(ph - 1, 2 * y + 1), pw, 1, bottom);
+                for(int x = 0; x < lw; x++){
+                    int x1 = 2 * x;
+                    int x2 = Math.min(pw - 1, x1 + 1);
+                    out[x] = 0xFF000000
+                            | mean(top[x1], top[x2], bottom[x1], bottom[x2], 16) << 16
+                            | mean(top[x1], top[x2], bottom[x1], bottom[x2], 8) << 8
+                            | mean(top[x1], top[x2], bottom[x1], bottom[x2], 0);
+                }
+                if(format == FORMAT_ARGB){
+                    intRow(l, y).put(out);
+                } else {
+                    //black and white have the same value in all the channels, so does their mean
+                    for(int x = 0; x < lw; x++){
+                        gray[x] = (byte) out[x];
+                    }
+                    row(l, y).put(gray);
+                }
+            }
+        }
+    }
+
+    private static int mean(int a, int b, int c, int d, int shift){
+        int sum = ((a >> shift) & 0xFF) + ((b >> shift) & 0xFF) + ((c >> shift) & 0xFF) + ((d >> shift) & 0xFF);
+        return (sum + 2) >> 2;
+    }
+
+    private void writeHeader() throws IOException{
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(width);
+            raf.writeInt(height);
+            raf.writeInt(format);
+        }
+    }
+
+    /**
+     * Reads width, height and format of a complete store.
+     *
+     * @return - width, height and format or null if the file is no complete store
+     */
+    private static int[] readHeader(File file){
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r")){
+            if(raf.length() < HEADER_BYTES || raf.readInt() != MAGIC || raf.readInt() != VERSION){
+                return null;
+            }
+            return new int[]{raf.readInt(), raf.readInt(), raf.readInt()};
+        } catch(IOException e){
+            return null;
+        }
+    }
+
+    /**
+     * The key of an image file: the hash of its path, size and modification time.
+     */
+    private static String createKey(File imageFile) throws IOException{
+        try{
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String id = imageFile.getCanonicalPath() + "|" + imageFile.length() + "|" + imageFile.lastModified();
+            StringBuilder sb = new StringBuilder();
+            for(byte b : digest.digest(id.getBytes(StandardCharsets.UTF_8))){
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch(NoSuchAlgorithmException e){
+            throw new IOException(e);
+        }
+    }
+
+    private static File getDirectory() throws IOException{
+        File dir = new File(SettingReader.getInstance().getTileStoreDirectory());
+        if(!dir.isDirectory() && !dir.mkdirs()){
+            throw new IOException("Can not create the tile store directory " + dir);
+        }
+        return dir;
+    }
+
+    private static synchronized void retain(File file){
+        openFiles.merge(file, 1, Integer::sum);
+    }
+
+    private static synchronized void release(File file){
+        openFiles.computeIfPresent(file, (f, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Deletes the least recently used stores of image files while the directory is bigger than the maximal size.
+     * Stores which are open, e.g. the ones of the pages prefetched by another thread, are kept.
+     */
+    static synchronized void evict(File dir, long maxSize){
+        File[] files = dir.listFiles(f -> f.isFile() && f.getName().endsWith(EXTENSION)
+                && !f.getName().startsWith(TEMPORARY_PREFIX));
+        if(files == null){
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        long size = 0;
+        for(File f : files){
+            size += f.length();
+        }
+        for(int i = 0; i < files.length && size > maxSize; i++){
+            long length = files[i].length();
+            if(!openFiles.containsKey(files[i]) && files[i].delete()){
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Unmaps the chunks right away instead of waiting for the garbage collector, which keeps big files mapped and
+     * on Windows can not delete them meanwhile. The chunks are dropped first, so a later access fails instead of
+     * reading unmapped memory.
+     */
+    private void unmapAll(){
+        for(int l = 0; l < chunks.length; l++){
+            MappedByteBuffer[] level = chunks[l];
+            if(level == null){
+                continue;
+            }
+            chunks[l] = null;
+            intChunks[l] = null;
+            for(MappedByteBuffer buffer : level){
+                if(buffer != null){
+                    unmap(buffer);
+                }
+            }
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer){
+        try{
+            try{
+                //Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch(NoSuchMethodException e){
+                //Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if(cleaner != null){
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch(ReflectiveOperationException | RuntimeException e){
+            logger.debug("Could not unmap a chunk, it is released by the garbage collector", e);
+        }
+    }
+
+    /**
+     * Level 0 as data buffer of a BufferedImage: the ARGB ints or the bytes of the black and white rows.
+     */
+    private class MappedDataBuffer extends DataBuffer{
+
+        MappedDataBuffer(){
+            super(format == FORMAT_ARGB ? DataBuffer.TYPE_INT : DataBuffer.TYPE_BYTE,
+                    format == FORMAT_ARGB ? width * height : rowBytes[0] * height);
+        }
+
+        TiledImageStore getStore(){
+            return TiledImageStore.this;
+        }
+
+        @Override
+        public int getElem(int bank, int i){
+            if(format == FORMAT_ARGB){
+                int y = i / width;
+                return intChunks[0][y / rowsPerChunk[0]].get(i - (y / rowsPerChunk[0]) * rowsPerChunk[0] * width);
+            }
+            int y = i / rowBytes[0];
+            return chunks[0][y / rowsPerChunk[0]].get(i - (y / rowsPerChunk[0]) * rowsPerChunk[0] * rowBytes[0])
+                    & 0xFF;
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val){
+            if(format == FORMAT_ARGB){
+                int y = i / width;
+                intChunks[0][y / rowsPerChunk[0]].put(i - (y / rowsPerChunk[0]) * rowsPerChunk[0] * width, val);
+                return;
+            }
+            int y = i / rowBytes[0];
+            chunks[0][y / rowsPerChunk[0]].put(i - (y / rowsPerChunk[0]) * rowsPerChunk[0] * rowBytes[0],
+                    (byte) val);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.session;
+
+import ch.unifr.hisdoc2.graphmanuscribble.io.SettingReader;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.HullCalculationScheduler;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * An annotation session over the pages of a folder or a page list. While the user annotates a page, the next pages
+ * (prefetch depth of the settings) get prepared one after the other on a background thread with a low priority, so
+ * switching to the next page only has to build the views.
+ * <p>
+ * The prefetched pages are dropped as soon as they are not among the next pages of the current page anymore. A page
+ * is only prefetched if the estimated heap of the prefetched pages stays below the memory budget of the settings, the
+ * page right after the current one is always prefetched.
+ */
+public class AnnotationSession{
+
+    private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "bmp", "tif", "tiff");
+
+    private static final Logger logger = LogManager.getLogger(AnnotationSession.class);
+
+    private final List<File> pages;
+    private final int prefetchDepth;
+    private final long memoryBudget;
+    private final ExecutorService executor;
+
+    /**
+     * The queued, running and finished prefetches by page index
+     */
+    private final Map<Integer, Future<PreparedPage>> prefetched = new HashMap<>();
+    /**
+     * The prefetch the current page waits for, it is not in prefetched anymore
+     */
+    private Future<PreparedPage> awaited;
+    private int current = -1;
+
+    //the estimated bytes of all the prefetched pages, for the mean size of a page
+    private long preparedBytes;
+    private int preparedPages;
+
+    public AnnotationSession(List<File> pages){
+        this.pages = Collections.unmodifiableList(new ArrayList<>(pages));
+        SettingReader settings = SettingReader.getInstance();
+        this.prefetchDepth = settings.getSessionPrefetchDepth();
+        this.memoryBudget = settings.getSessionMemoryBudget();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "page-prefetch");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Creates a session over the images of a folder, ordered by their name.
+     *
+     * @param dir - the folder
+     * @return - the session
+     * @throws IOException - if the folder contains no images
+     */
+    public static AnnotationSession fromDirectory(File dir) throws IOException{
+        File[] files = dir.listFiles(f -> f.isFile()
+                && IMAGE_EXTENSIONS.contains(FilenameUtils.getExtension(f.getName()).toLowerCase(Locale.ROOT)));
+        if(files == null || files.length == 0){
+            throw new IOException("No images found in " + dir);
+        }
+        Arrays.sort(files);
+        return new AnnotationSession(Arrays.asList(files));
+    }
+
+    /**
+     * Creates a session over the images of a page list. The list has one image per line, relative paths are relative
+     * to the folder of the list. Empty lines and lines starting with # are skipped.
+     *
+     * @param list - the page list
+     * @return - the session
+     * @throws IOException - if the list can not be read or contains no images
+     */
+    public static AnnotationSession fromPageList(File list) throws IOException{
+        List<File> files = new ArrayList<>();
+        for(String line : Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)){
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")){
+                continue;
+            }
+            File f = new File(line);
+            files.add(f.isAbsolute() ? f : new File(list.getAbsoluteFile().getParentFile(), line));
+        }
+        if(files.isEmpty()){
+            throw new IOException("No pages in " + list);
+        }
+        return new AnnotationSession(files);
+    }
+
+    public int size(){
+        return pages.size();
+    }
+
+    public synchronized int getCurrentIndex(){
+        return current;
+    }
+
+    public File getPage(int index){
+        return pages.get(index);
+    }
+
+    public synchronized boolean hasNext(){
+        return current + 1 < pages.size();
+    }
+
+    public synchronized boolean hasPrevious(){
+        return current > 0;
+    }
+
+    /**
+     * Makes a page the current page and returns it prepared. A prefetched page is returned directly, the prefetch of
+     * a page which is still running is awaited, any other page gets prepared on the calling thread. Afterwards the
+     * prefetch of the next pages is started. The caller owns the returned page.
+     *
+     * @param index - index of the page
+     * @return - the prepared page
+     * @throws IOException - if the page can not be prepared
+     */
+    public PreparedPage open(int index) throws IOException{
+        Future<PreparedPage> future;
+        synchronized(this){
+            current = index;
+            future = prefetched.remove(index);
+            awaited = future;
+            dropOutsideWindow();
+        }
+        PreparedPage page = null;
+        if(future != null){
+            try{
+                page = future.get();
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            } catch(ExecutionException e){
+                //the prefetch failed, the page gets prepared again and reports the error
+                logger.error("Prefetch of " + pages.get(index) + " failed", e.getCause());
+            }
+        }
+        synchronized(this){
+            awaited = null;
+        }
+        if(page == null){
+            page = PreparedPage.prepare(pages.get(index), HullCalculationScheduler.PRIORITY_LOAD);
+        } else {
+            page.getGraph().setHullPriority(HullCalculationScheduler.PRIORITY_LOAD);
+        }
+        prefetch();
+        return page;
+    }
+
+    /**
+     * Stops the prefetch and drops all the prefetched pages.
+     */
+    public synchronized void close(){
+        current = -1;
+        for(Future<PreparedPage> future : prefetched.values()){
+            drop(future);
+        }
+        prefetched.clear();
+        executor.shutdown();
+    }
+
+    /**
+     * Queues the prefetch of the next pages which are not prefetched yet. Pages which were skipped because of the
+     * memory budget or whose prefetch failed are queued again.
+     */
+    private synchronized void prefetch(){
+        for(int i = current + 1; i <= current + prefetchDepth && i < pages.size(); i++){
+            Future<PreparedPage> future = prefetched.get(i);
+            if(future == null || (future.isDone() && getDone(future) == null)){
+                PrefetchJob job = new PrefetchJob(i);
+                job.future = new FutureTask<PreparedPage>(job){
+                    @Override
+                    protected void done(){
+                        if(isCancelled()){
+                            job.closeResult();
+                        }
+                    }
+                };
+                prefetched.put(i, job.future);
+                executor.execute(job.future);
+            }
+        }
+    }
+
+    /**
+     * Drops the prefetches of the pages which are not among the next pages of the current page.
+     */
+    private void dropOutsideWindow(){
+        Iterator<Map.Entry<Integer, Future<PreparedPage>>> it = prefetched.entrySet().iterator();
+        while(it.hasNext()){
+            Map.Entry<Integer, Future<PreparedPage>> entry = it.next();
+            if(entry.getKey() <= current || entry.getKey() > current + prefetchDepth){
+                drop(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Cancels a prefetch. A finished page is closed, a running prefetch closes its page itself when it sees that it
+     * is not needed anymore. A prefetch cancelled after it decided to return its page closes the page when the
+     * cancellation completes its task.
+     */
+    private void drop(Future<PreparedPage> future){
+        if(!future.cancel(false)){
+            PreparedPage page = getDone(future);
+            if(page != null){
+                page.close();
+            }
+        }
+    }
+
+    /**
+     * @return - the page of a finished prefetch or null if it is not finished, was skipped or failed
+     */
+    private static PreparedPage getDone(Future<PreparedPage> future){
+        if(!future.isDone() || future.isCancelled()){
+            return null;
+        }
+        try{
+            return future.get();
+        } catch(InterruptedException | ExecutionException e){
+            return null;
+        }
+    }
+
+    /**
+     * @return - the estimated heap of the finished prefetches
+     */
+    private long getUsedBytes(){
+        long bytes = 0;
+        for(Future<PreparedPage> future : prefetched.values()){
+            PreparedPage page = getDone(future);
+            if(page != null){
+                bytes += page.getEstimatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The prefetch of one page.
+     */
+    private class PrefetchJob implements Callable<PreparedPage>{
+        private final int index;
+        private FutureTask<PreparedPage> future;
+        /**
+         * The page call returns, it is set under the session lock, so a drop sees it once the page is kept
+         */
+        private PreparedPage result;
+
+        PrefetchJob(int index){
+            this.index = index;
+        }
+
+        @Override
+        public PreparedPage call() throws Exception{
+            synchronized(AnnotationSession.this){
+                if(!isNeeded()){
+                    return null;
+                }
+                long meanBytes = preparedPages == 0 ? 0 : preparedBytes / preparedPages;
+                if(!isNext() && getUsedBytes() + meanBytes > memoryBudget){
+                    return null;
+                }
+            }
+            PreparedPage page = PreparedPage.prepare(pages.get(index), HullCalculationScheduler.PRIORITY_PREFETCH);
+            synchronized(AnnotationSession.this){
+                preparedBytes += page.getEstimatedBytes();
+                preparedPages++;
+                if(isNeeded() && (isNext() || getUsedBytes() + page.getEstimatedBytes() <= memoryBudget)){
+                    result = page;
+                    return page;
+                }
+            }
+            page.close();
+            return null;
+        }
+
+        /**
+         * Closes the page of a prefetch which got cancelled between returning its page and the end of its task, the
+         * task drops the page then instead of setting it as its result.
+         */
+        private void closeResult(){
+            PreparedPage page;
+            synchronized(AnnotationSession.this){
+                page = result;
+                result = null;
+            }
+            if(page != null){
+                page.close();
+            }
+        }
+
+        /**
+         * @return - true if the page is still among the next pages or the current page waits for it
+         */
+        private boolean isNeeded(){
+            return prefetched.get(index) == future || awaited == future;
+        }
+
+        /**
+         * @return - true if this is the page right after the current one or the current page
+         */
+        private boolean isNext(){
+            return index <= current + 1;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.session;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinarizationAlgos;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.binarization.BinaryPageImageProcessing;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
+import ch.unifr.hisdoc2.graphmanuscribble.io.GraphCache;
+import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.BinaryGraphImporter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.image.TiledImageStore;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A page which is ready to be shown: the image stores of the original and the binary image and the graph with its
+ * forest. The hulls of the forest are queued in the HullCalculationScheduler.
+ * <p>
+ * A page gets prepared without the JavaFX thread, so the pages of a session can be prepared in the background. The
+ * stages are recorded into the own metrics of the page, they become the current page of the PipelineMetrics when the
+ * page is shown.
+ */
+public class PreparedPage{
+
+    /**
+     * Rough heap per vertex and per edge of the graph, including the forest and the spatial index
+     */
+    private static final long BYTES_PER_VERTEX = 256;
+    private static final long BYTES_PER_EDGE = 192;
+
+    private static final Logger logger = LogManager.getLogger(PreparedPage.class);
+
+    private final File file;
+    private final TiledImageStore original;
+    private final TiledImageStore binary;
+    private final AngieMSTGraph graph;
+    private final PageMetrics metrics;
+
+    private PreparedPage(File file,
+                         TiledImageStore original,
+                         TiledImageStore binary,
+                         AngieMSTGraph graph,
+                         PageMetrics metrics){
+        this.file = file;
+        this.original = original;
+        this.binary = binary;
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Prepares a page from its original image. The binary image and the graph are taken from the GraphCache if
+     * possible, otherwise the page gets binarized with DoG and the computed binary image and graph are put into the
+     * cache.
+     *
+     * @param file         - the original image
+     * @param hullPriority - priority of the hull calculations of the forest
+     * @return - the prepared page
+     * @throws IOException - if the image can not be read or the stores not be written
+     */
+    public static PreparedPage prepare(File file, int hullPriority) throws IOException{
+        PageMetrics metrics = new PageMetrics(FilenameUtils.getBaseName(file.getName()));
+        TiledImageStore original = TiledImageStore.open(file);
+        TiledImageStore binary = null;
+        try{
+            float[] binAlgoParams = new float[1];
+            GraphCache cache = GraphCache.getInstance();
+            String key = null;
+            LoadedGraph loadedGraph = null;
+            if(cache.isEnabled()){
+                key = cache.createKey(file, BinarizationAlgos.DOG, false, binAlgoParams, Constants.NOISE_PX);
+                GraphCache.CacheEntry entry = cache.get(key);
+                if(entry != null){
+                    //binary image and graph of this page are already computed
+                    binary = TiledImageStore.open(entry.getBinaryImage());
+                    loadedGraph = BinaryGraphImporter.binary2Graph(entry.getGraph());
+                    logger.info("Graph cache hit (hits: " + cache.getHits() + ", misses: "
+                            + cache.getMisses() + ")");
+                }
+            }
+            BufferedImage bin = null;
+            if(binary == null){
+                PageMetrics.Timer timer = metrics.start(Stage.BINARIZE);
+                bin = BinaryPageImageProcessing.binariseImage(original.asBufferedImage(),
+                        false,
+                        BinarizationAlgos.DOG,
+                        binAlgoParams);
+                timer.stop();
+                binary = TiledImageStore.create(bin);
+            }
+
+            AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX,
+                    true,
+                    original.getWidth(),
+                    original.getHeight());
+            graph.setMetrics(metrics);
+            graph.setHullPriority(hullPriority);
+            if(loadedGraph != null){
+                graph.createGraph(binary.asBufferedImage(), original.asBufferedImage(), loadedGraph.getOriginal(),
+                        loadedGraph.getForest());
+            } else {
+                graph.createGraph(binary.asBufferedImage(), original.asBufferedImage(), null, null);
+                if(key != null){
+                    try{
+                        cache.put(key, bin, graph.getGraph());
+                    } catch(IOException e){
+                        logger.warn("Could not put " + file + " into the graph cache", e);
+                    }
+                    logger.info("Graph cache miss (hits: " + cache.getHits() + ", misses: "
+                            + cache.getMisses() + ")");
+                }
+            }
+            return new PreparedPage(file, original, binary, graph, metrics);
+        } catch(IOException | RuntimeException e){
+            original.close();
+            if(binary != null){
+                binary.close();
+            }
+            throw e;
+        }
+    }
+
+    public File getFile(){
+        return file;
+    }
+
+    public String getFileName(){
+        return file.getName();
+    }
+
+    public TiledImageStore getOriginal(){
+        return original;
+    }
+
+    public TiledImageStore getBinary(){
+        return binary;
+    }
+
+    public AngieMSTGraph getGraph(){
+        return graph;
+    }
+
+    public PageMetrics getMetrics(){
+        return metrics;
+    }
+
+    /**
+     * Estimates the heap used by the page. The images are memory-mapped and not counted.
+     *
+     * @return - the estimated bytes of the graph and its forest
+     */
+    public long getEstimatedBytes(){
+        return graph.getGraph().vertexSet().size() * BYTES_PER_VERTEX
+                + graph.getGraph().edgeSet().size() * BYTES_PER_EDGE;
+    }
+
+    /**
+     * Drops a page which does not get shown: its hull calculations are cancelled and the stores released.
+     */
+    public void close(){
+        graph.cancelHullCalculations();
+        original.close();
+        binary.close();
+    }
+}
@@ -0,0 +1,71 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view;
+
+import ch.unifr.hisdoc2.graphmanuscribble.controller.Controller;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
+import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Viewport;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.transform.Scale;
+
+import java.util.ArrayList;
+
+/**
+ * Base of the views which draw into a canvas instead of svg paths. The canvas has the size of the visible part of the
+ * page in screen pixels and is placed over this part, so its resolution always matches the screen. It gets redrawn
+ * on every update, the controller updates the canvas views when the page is scrolled or zoomed.
+ */
+abstract class AbstractCanvasView extends AbstractView{
+
+    /**
+     * upper bound of the canvas size, bigger canvases are not supported by all graphic cards
+     */
+    private static final int MAX_CANVAS_SIZE = 8192;
+
+    private final Canvas canvas = new Canvas();
+    private final Scale scale = new Scale(1, 1, 0, 0);
+
+    AbstractCanvasView(Controller cnt, ArrayList<AnnotationType> layerColors, boolean polygon){
+        super(cnt, layerColors, polygon);
+        canvas.getTransforms().add(scale);
+        addToLayer(canvas);
+    }
+
+    /**
+     * Moves the canvas over the visible part of the page and redraws it.
+     */
+    @Override
+    public void update(){
+        if(!isShown()){
+            return;
+        }
+        PageMetrics.Timer timer = PipelineMetrics.getInstance().getCurrentPage().start(Stage.CANVAS_FRAME);
+        Viewport viewport = controller.getViewport();
+        double zoom = viewport.getZoom();
+
+        canvas.setWidth(Math.min(viewport.getScreenWidth(), MAX_CANVAS_SIZE));
+        canvas.setHeight(Math.min(viewport.getScreenHeight(), MAX_CANVAS_SIZE));
+        canvas.setLayoutX(viewport.getMinX());
+        canvas.setLayoutY(viewport.getMinY());
+        scale.setX(1 / zoom);
+        scale.setY(1 / zoom);
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        //draw in page coordinates
+        gc.setTransform(zoom, 0, 0, zoom, -viewport.getMinX() * zoom, -viewport.getMinY() * zoom);
+        draw(gc, viewport);
+        timer.stop();
+    }
+
+    /**
+     * Draws the visible part of the view. The transformation of the graphics context is set to page coordinates.
+     *
+     * @param gc       - the graphics context of the canvas
+     * @param viewport - the visible part of the page
+     */
+    abstract void draw(GraphicsContext gc, Viewport viewport);
+}
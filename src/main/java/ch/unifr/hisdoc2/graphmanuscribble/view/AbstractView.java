@@ -5,6 +5,7 @@ import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
 import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
 import ch.unifr.hisdoc2.graphmanuscribble.view.helper.svg.SVGPathPrinter;
 import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.SVGPath;
@@ -117,10 +118,24 @@ public abstract class AbstractView{
             return;
         }
 
-        svgPaths.get(c).setContent(svgPathPrinters.get(c).toString());
+        //the printer returns the same string until the path changes, an unchanged path is not parsed again
+        SVGPath path = svgPaths.get(c);
+        String content = svgPathPrinters.get(c).toString();
+        if(path.getContent() != content){
+            path.setContent(content);
+        }
     }
 
 
+    /**
+     * Adds a node on top of the layer of this view, e.g. the svg paths of the tiles of the GraphView.
+     *
+     * @param node - the node to add
+     */
+    void addToLayer(Node node){
+        group.getChildren().add(node);
+    }
+
     /**
      * The View adds itself to a given stack pane
      * @param group
@@ -132,7 +147,7 @@ public abstract class AbstractView{
     /**
      * updates the view
      */
-    protected abstract void update();
+    public abstract void update();
 
     /**
      * hides the View
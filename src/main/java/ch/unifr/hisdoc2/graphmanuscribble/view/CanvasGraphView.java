@@ -0,0 +1,77 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view;
+
+import ch.unifr.hisdoc2.graphmanuscribble.controller.Controller;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.EdgeRTree;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Viewport;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.ViewportCuller;
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.ArrayList;
+
+
+/**
+ * Displays a given AngieMSTGraph in a canvas of the size of the visible part of the page. The graph is an
+ * alternative to the GraphView, selected in the settings.
+ * <p>
+ * The edges of the MST are indexed in an own R-tree, so only the visible edges are drawn. Edges shorter than one
+ * screen pixel are drawn as a single pixel.
+ */
+public class CanvasGraphView extends AbstractCanvasView{
+
+    private AngieMSTGraph graph;
+    private AnnotationType color;
+    private ViewportCuller culler;
+
+    /**
+     * Creates a new CanvasGraphView which shows the graph of the controller.
+     *
+     * @param controller - the controller
+     * @param cls        - the color of the graph
+     */
+    public CanvasGraphView(Controller controller, ArrayList<AnnotationType> cls){
+        super(controller, cls, false);
+        this.graph = controller.getGraph();
+        if(cls.size() != 1){
+            throw new IllegalArgumentException("Graph can just have one color");
+        }
+
+        this.color = cls.get(0);
+
+        ArrayList<GraphEdge> edges = graph.getEdges();
+        for(GraphEdge e : edges){
+            e.createSegment(graph.getEdgeSource(e), graph.getEdgeTarget(e));
+        }
+        this.culler = new ViewportCuller(new EdgeRTree(edges));
+
+        show();
+    }
+
+    @Override
+    void draw(GraphicsContext gc, Viewport viewport){
+        //the deleted edges are skipped by the index
+        graph.pollChangedEdges();
+        culler.cull(viewport);
+
+        gc.setStroke(color.getColor());
+        gc.setLineWidth(Constants.STROKE_LINE_WIDTH);
+        gc.beginPath();
+        double[] lines = culler.getLines();
+        for(int i = 0; i < culler.getLineCount() * 4; i += 4){
+            gc.moveTo(lines[i], lines[i + 1]);
+            gc.lineTo(lines[i + 2], lines[i + 3]);
+        }
+        gc.stroke();
+
+        //merged sub pixel edges, one screen pixel each
+        gc.setFill(color.getColor());
+        double size = 1 / viewport.getZoom();
+        double[] pixels = culler.getPixels();
+        for(int i = 0; i < culler.getPixelCount() * 2; i += 2){
+            gc.fillRect(pixels[i], pixels[i + 1], size, size);
+        }
+    }
+}
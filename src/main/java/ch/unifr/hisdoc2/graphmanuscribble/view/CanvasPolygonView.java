@@ -0,0 +1,108 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view;
+
+import ch.unifr.hisdoc2.graphmanuscribble.controller.Controller;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygon;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygonMap;
+import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygonType;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Viewport;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the annotation polygons in a canvas of the size of the visible part of the page. Alternative to the
+ * PolygonView, selected in the settings.
+ * <p>
+ * Hulls outside of the viewport are skipped and hulls smaller than a screen pixel are not drawn. Points of a hull
+ * which are closer than one screen pixel to the previous drawn point are left out.
+ */
+public class CanvasPolygonView extends AbstractCanvasView{
+
+    private AnnotationPolygonMap graphPolygon;
+    /**
+     * bounding boxes of the hulls [minX, minY, maxX, maxY]. A recalculated hull is a new list, so the boxes are
+     * cached by the identity of the list.
+     */
+    private Map<List<PointHD2>, double[]> bounds = new IdentityHashMap<>();
+
+    public CanvasPolygonView(AnnotationPolygonMap graphPolygon, Controller controller){
+        super(controller, graphPolygon.getAllColors(), true);
+        this.graphPolygon = graphPolygon;
+
+        show();
+    }
+
+    @Override
+    void draw(GraphicsContext gc, Viewport viewport){
+        Map<List<PointHD2>, double[]> visibleBounds = new IdentityHashMap<>();
+        gc.setLineWidth(Constants.STROKE_LINE_WIDTH);
+
+        for(AnnotationPolygonType polygonType : graphPolygon.getPolygonMap().values()){
+            Color c = polygonType.getAnnotationType().getColor();
+            gc.setFill(Color.color(c.getRed(), c.getGreen(), c.getBlue(), 0.4f));
+            gc.setStroke(Color.color(c.getRed(), c.getGreen(), c.getBlue(), 0.8f));
+
+            for(AnnotationPolygon polygon : polygonType.getAnnotationPolygons()){
+                List<PointHD2> hull = polygon.getHull();
+                if(hull == null || hull.size() < 3){
+                    continue;
+                }
+                double[] box = bounds.get(hull);
+                if(box == null){
+                    box = getBounds(hull);
+                }
+                visibleBounds.put(hull, box);
+
+                if(!viewport.intersects(box[0], box[1], box[2], box[3])
+                        || viewport.isSubPixel(box[0], box[1], box[2], box[3])){
+                    continue;
+                }
+                drawHull(gc, hull, viewport.getZoom());
+            }
+        }
+        //forget the boxes of the hulls which do not exist anymore
+        bounds = visibleBounds;
+    }
+
+    /**
+     * Fills and strokes the hull. Points closer than a screen pixel to the last drawn point are skipped.
+     */
+    private static void drawHull(GraphicsContext gc, List<PointHD2> hull, double zoom){
+        double minDistance = 1 / zoom;
+        gc.beginPath();
+        PointHD2 first = hull.get(0);
+        double lastX = first.getX();
+        double lastY = first.getY();
+        gc.moveTo(lastX, lastY);
+        for(int i = 1; i < hull.size(); i++){
+            PointHD2 p = hull.get(i);
+            if(Math.abs(p.getX() - lastX) < minDistance && Math.abs(p.getY() - lastY) < minDistance){
+                continue;
+            }
+            lastX = p.getX();
+            lastY = p.getY();
+            gc.lineTo(lastX, lastY);
+        }
+        gc.closePath();
+        gc.fill();
+        gc.stroke();
+    }
+
+    private static double[] getBounds(List<PointHD2> hull){
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for(PointHD2 p : hull){
+            box[0] = Math.min(box[0], p.getX());
+            box[1] = Math.min(box[1], p.getY());
+            box[2] = Math.max(box[2], p.getX());
+            box[3] = Math.max(box[3], p.getY());
+        }
+        return box;
+    }
+}
@@ -1,10 +1,15 @@
 package ch.unifr.hisdoc2.graphmanuscribble.view;
 
 import ch.unifr.hisdoc2.graphmanuscribble.controller.Controller;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
 import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.svg.SVGPathPrinter;
+import javafx.scene.shape.SVGPath;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,12 +17,23 @@ import java.util.List;
 
 /**
  * Displays a given AngieMSTGraph in a canvas.
+ * <p>
+ * The page is divided into square tiles with an own svg path each. Every edge belongs to the tile of its midpoint.
+ * If edges get deleted or restored only the tiles of these edges are redrawn, so the costs of an update do not depend
+ * on the size of the page.
  */
 public class GraphView extends AbstractView{
 
     private AngieMSTGraph graph;
     private AnnotationType color;
 
+    private final int columns;
+    private final int rows;
+    /**
+     * the tiles row by row, null for tiles without edges
+     */
+    private final GraphTile[] tiles;
+
     /**
      * Creates a new GraphView which shows the graph AngieMSTGraph {@param mstGraph}.
      *
@@ -31,38 +47,113 @@ public class GraphView extends AbstractView{
 
         this.color = cls.get(0);
 
+        this.columns = Math.max(1, (int) Math.ceil(controller.getWidth() / Constants.GRAPH_TILE_SIZE));
+        this.rows = Math.max(1, (int) Math.ceil(controller.getHeight() / Constants.GRAPH_TILE_SIZE));
+        this.tiles = new GraphTile[columns * rows];
+
         drawGraph();
         show();
     }
 
     /**
-     * Creates a svg path representation of the graph
+     * Sorts all the edges into their tiles and draws every tile
      */
     private void drawGraph(){
-        //draw the edges
-        drawEdges(graph.getEdges());
+        PageMetrics.Timer timer = graph.getMetrics().start(Stage.SVG_REBUILD);
+        for(GraphEdge e : graph.getEdges()){
+            int i = getTileIndex(e);
+            if(tiles[i] == null){
+                tiles[i] = new GraphTile();
+                addToLayer(tiles[i].path);
+            }
+            tiles[i].edges.add(e);
+        }
+        //changes before the first draw are already part of it
+        graph.pollChangedEdges();
 
-        setSVGPath(color);
+        for(GraphTile tile : tiles){
+            if(tile != null){
+                drawTile(tile);
+            }
+        }
+        timer.stop();
+    }
+
+    /**
+     * Redraws a tile with all its edges which are not deleted.
+     *
+     * @param tile - the tile to draw
+     */
+    private void drawTile(GraphTile tile){
+        tile.printer.clear();
+        drawEdges(tile.edges, tile.printer);
+        tile.path.setContent(tile.printer.toString());
+        tile.dirty = false;
     }
 
     /**
      * Draws the given edges.
      *
-     * @param edges - List<GraphEdge>
+     * @param edges   - List<GraphEdge>
+     * @param printer - the svg path of the tile
      */
-    private void drawEdges(List<GraphEdge> edges){
+    private void drawEdges(List<GraphEdge> edges, SVGPathPrinter printer){
         for(GraphEdge e : edges){
             if(!e.isDeleted()){
                 GraphVertex v1 = graph.getEdgeSource(e);
                 GraphVertex v2 = graph.getEdgeTarget(e);
-                svgPathPrinters.get(color).addEdge(v1.getX(), v2.getX(), v1.getY(), v2.getY());
+                printer.addEdge(v1.getX(), v2.getX(), v1.getY(), v2.getY());
             }
         }
     }
 
+    /**
+     * Returns the index of the tile the midpoint of the edge is in.
+     *
+     * @param e - the edge
+     * @return - index into the tiles array
+     */
+    private int getTileIndex(GraphEdge e){
+        GraphVertex v1 = graph.getEdgeSource(e);
+        GraphVertex v2 = graph.getEdgeTarget(e);
+        int column = (int) ((v1.getX() + v2.getX()) / 2 / Constants.GRAPH_TILE_SIZE);
+        int row = (int) ((v1.getY() + v2.getY()) / 2 / Constants.GRAPH_TILE_SIZE);
+        column = Math.min(Math.max(column, 0), columns - 1);
+        row = Math.min(Math.max(row, 0), rows - 1);
+        return row * columns + column;
+    }
+
+    /**
+     * Redraws the tiles of the edges which got deleted or restored since the last update.
+     */
     @Override
     public void update(){
-        svgPathPrinters.get(color).clear();
-        drawGraph();
+        PageMetrics.Timer timer = graph.getMetrics().start(Stage.SVG_REBUILD);
+        List<GraphTile> dirtyTiles = new ArrayList<>();
+        for(GraphEdge e : graph.pollChangedEdges()){
+            GraphTile tile = tiles[getTileIndex(e)];
+            if(tile != null && !tile.dirty){
+                tile.dirty = true;
+                dirtyTiles.add(tile);
+            }
+        }
+        dirtyTiles.forEach(this::drawTile);
+        timer.stop();
+    }
+
+    /**
+     * A tile of the page with its own svg path and the edges whose midpoint is inside of it.
+     */
+    private class GraphTile{
+        private final SVGPath path = new SVGPath();
+        private final SVGPathPrinter printer = new SVGPathPrinter();
+        private final List<GraphEdge> edges = new ArrayList<>();
+        private boolean dirty = false;
+
+        GraphTile(){
+            path.setFill(null);
+            path.setStroke(color.getColor());
+            path.setStrokeWidth(Constants.STROKE_LINE_WIDTH);
+        }
     }
 }
@@ -2,26 +2,51 @@ package ch.unifr.hisdoc2.graphmanuscribble.view;
 
 import ch.unifr.hisdoc2.graphmanuscribble.controller.Controller;
 import ch.unifr.hisdoc2.graphmanuscribble.model.image.GraphImage;
+import ch.unifr.hisdoc2.graphmanuscribble.model.image.TiledImageStore;
+import ch.unifr.hisdoc2.graphmanuscribble.view.helper.Viewport;
 import javafx.scene.Group;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Created by larsvoegtlin on 16.01.17.
+ * <p>
+ * Shows the current image of the page as tiles of its image pyramid. Only the tiles of the level matching the zoom
+ * which are visible in the viewport are loaded from the store, the least recently shown tiles are dropped.
  */
 public class ImageGraphView extends AbstractView{
 
     /**
-     * The Imageview (scene) we add the image to.
+     * Maximal number of loaded tiles, about 64MB
      */
-    private ImageView view;
+    private static final int MAX_TILES = 256;
+
+    /**
+     * The group (scene) we add the tiles to.
+     */
+    private Group view;
     private GraphImage imageModel;
+    private TiledImageStore shownStore;
+    private int[] buffer = new int[TiledImageStore.TILE_SIZE * TiledImageStore.TILE_SIZE];
+    /**
+     * The loaded tiles by level and position, in the order they were last shown
+     */
+    private final Map<Long, ImageView> tiles = new LinkedHashMap<Long, ImageView>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ImageView> eldest){
+            return size() > MAX_TILES;
+        }
+    };
 
     public ImageGraphView(GraphImage model, Controller controller){
         super(controller, new ArrayList<>());
         this.imageModel = model;
-        this.view = new ImageView();
+        this.view = new Group();
 
         show();
     }
@@ -37,8 +62,61 @@ public class ImageGraphView extends AbstractView{
 
     @Override
     public void update(){
-        view.setImage(imageModel.getCurrentImage());
+        TiledImageStore store = imageModel.getCurrentImage();
+        if(store != shownStore){
+            tiles.clear();
+            shownStore = store;
+        }
+        Viewport viewport = controller.getViewport();
+        int level = store.getLevel(viewport.getZoom());
+        int scale = 1 << level;
+        int pageTileSize = TiledImageStore.TILE_SIZE * scale;
+
+        int minCol = (int) (viewport.getMinX() / pageTileSize);
+        int minRow = (int) (viewport.getMinY() / pageTileSize);
+        int maxCol = Math.min((int) (viewport.getMaxX() / pageTileSize),
+                (store.getLevelWidth(level) - 1) / TiledImageStore.TILE_SIZE);
+        int maxRow = Math.min((int) (viewport.getMaxY() / pageTileSize),
+                (store.getLevelHeight(level) - 1) / TiledImageStore.TILE_SIZE);
+
+        view.getChildren().clear();
+        for(int row = minRow; row <= maxRow; row++){
+            for(int col = minCol; col <= maxCol; col++){
+                long key = ((long) level << 48) | ((long) row << 24) | col;
+                ImageView tile = tiles.get(key);
+                if(tile == null){
+                    tile = loadTile(store, level, col, row);
+                    tiles.put(key, tile);
+                }
+                view.getChildren().add(tile);
+            }
+        }
     }
 
+    /**
+     * Loads a tile of a level from the store and places it on the page.
+     *
+     * @param store - the image store
+     * @param level - the level of the pyramid
+     * @param col   - column of the tile
+     * @param row   - row of the tile
+     * @return - the view of the tile
+     */
+    private ImageView loadTile(TiledImageStore store, int level, int col, int row){
+        int x = col * TiledImageStore.TILE_SIZE;
+        int y = row * TiledImageStore.TILE_SIZE;
+        int w = Math.min(TiledImageStore.TILE_SIZE, store.getLevelWidth(level) - x);
+        int h = Math.min(TiledImageStore.TILE_SIZE, store.getLevelHeight(level) - y);
+        store.readRegion(level, x, y, w, h, buffer);
+        WritableImage img = new WritableImage(w, h);
+        img.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), buffer, 0, w);
 
+        int scale = 1 << level;
+        ImageView tile = new ImageView(img);
+        tile.setX(x * scale);
+        tile.setY(y * scale);
+        tile.setFitWidth(Math.min(w * scale, store.getWidth() - x * scale));
+        tile.setFitHeight(Math.min(h * scale, store.getHeight() - y * scale));
+        return tile;
+    }
 }
@@ -1,6 +1,9 @@
 package ch.unifr.hisdoc2.graphmanuscribble.view;
 
 import ch.unifr.hisdoc2.graphmanuscribble.controller.Controller;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Stage;
 import ch.unifr.hisdoc2.graphmanuscribble.io.AnnotationType;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygon;
 import ch.unifr.hisdoc2.graphmanuscribble.model.annotation.AnnotationPolygonMap;
@@ -48,6 +51,7 @@ public class PolygonView extends AbstractView{
 
     @Override
     public void update(){
+        PageMetrics.Timer timer = PipelineMetrics.getInstance().getCurrentPage().start(Stage.SVG_REBUILD);
         for(AnnotationPolygonType polygonType : graphPolygon.getPolygonMap().values()){
             //clear the string of these annotationType
             svgPathPrinters.get(polygonType.getAnnotationType()).clear();
@@ -60,5 +64,6 @@ public class PolygonView extends AbstractView{
             //set the newly created string
             setSVGPath(polygonType.getAnnotationType());
         }
+        timer.stop();
     }
 }
@@ -0,0 +1,38 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+
+import java.util.ArrayList;
+
+/**
+ * Spatial index over the bounding boxes of the graph edges for the collision detection with the scribbles.
+ * The segment of an edge has to be set (GraphEdge.createSegment) before it gets inserted.
+ */
+public interface EdgeIndex{
+
+    /**
+     * Inserts an edge into the index. Edges which are already in the index are ignored.
+     *
+     * @param edge - edge to add
+     */
+    void insert(GraphEdge edge);
+
+    /**
+     * Removes an edge from the index.
+     *
+     * @param edge - edge to remove
+     */
+    void remove(GraphEdge edge);
+
+    /**
+     * Returns all the not deleted edges whose bounding box intersects with the given rectangle.
+     *
+     * @param edgeList - the list the edges get added to
+     * @param minX     - left of the rectangle
+     * @param minY     - top of the rectangle
+     * @param maxX     - right of the rectangle
+     * @param maxY     - bottom of the rectangle
+     * @return - the edgeList
+     */
+    ArrayList<GraphEdge> retrieve(ArrayList<GraphEdge> edgeList, double minX, double minY, double maxX, double maxY);
+}
@@ -0,0 +1,300 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * R-tree over the bounding boxes of the graph edges.
+ * <p>
+ * The tree is bulk loaded with the Sort-Tile-Recursive algorithm: the entries are sorted by the x of their center,
+ * cut into vertical slices, each slice is sorted by y and packed into full nodes. The same is repeated on the nodes
+ * until a single root is left. This gives a balanced tree with almost no overlap between the nodes, independent of
+ * the insertion order and of long edges.
+ * <p>
+ * Edges of the user annotations get inserted one by one: the leaf with the least enlargement is chosen and full
+ * nodes are split in the middle of their longer side. Removed edges shrink the bounds of their nodes, empty nodes
+ * are removed and a root with a single child is replaced by the child.
+ */
+public class EdgeRTree implements EdgeIndex{
+
+    /**
+     * Maximal number of entries of a node
+     */
+    private static final int NODE_CAPACITY = 16;
+
+    private Node root;
+    /**
+     * the leaf of each edge in the tree
+     */
+    private final Map<GraphEdge, Node> leafOf = new IdentityHashMap<>();
+
+    /**
+     * Creates a new tree with the given edges.
+     *
+     * @param edges - the edges, their segments have to be set
+     */
+    public EdgeRTree(Collection<GraphEdge> edges){
+        List<Node> level = new ArrayList<>();
+        for(List<GraphEdge> tile : tile(new ArrayList<>(edges), e -> (e.getMinX() + e.getMaxX()) / 2.0,
+                e -> (e.getMinY() + e.getMaxY()) / 2.0)){
+            Node leaf = new Node(true);
+            for(GraphEdge e : tile){
+                leaf.edges.add(e);
+                leafOf.put(e, leaf);
+            }
+            leaf.updateBounds();
+            level.add(leaf);
+        }
+
+        while(level.size() > 1){
+            List<Node> parents = new ArrayList<>();
+            for(List<Node> tile : tile(level, n -> (n.minX + n.maxX) / 2.0, n -> (n.minY + n.maxY) / 2.0)){
+                Node parent = new Node(false);
+                for(Node child : tile){
+                    parent.addChild(child);
+                }
+                parent.updateBounds();
+                parents.add(parent);
+            }
+            level = parents;
+        }
+
+        root = level.isEmpty() ? new Node(true) : level.get(0);
+    }
+
+    /**
+     * Sort-Tile-Recursive packing of one level: sorts the items into vertical slices and each slice into tiles of
+     * NODE_CAPACITY items.
+     */
+    private static <T> List<List<T>> tile(List<T> items, ToDoubleFunction<T> centerX, ToDoubleFunction<T> centerY){
+        List<List<T>> tiles = new ArrayList<>();
+        if(items.isEmpty()){
+            return tiles;
+        }
+        int leafCount = (items.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+
+        items.sort(Comparator.comparingDouble(centerX));
+        for(int s = 0; s < items.size(); s += sliceSize){
+            List<T> slice = new ArrayList<>(items.subList(s, Math.min(items.size(), s + sliceSize)));
+            slice.sort(Comparator.comparingDouble(centerY));
+            for(int t = 0; t < slice.size(); t += NODE_CAPACITY){
+                tiles.add(new ArrayList<>(slice.subList(t, Math.min(slice.size(), t + NODE_CAPACITY))));
+            }
+        }
+        return tiles;
+    }
+
+    @Override
+    public synchronized void insert(GraphEdge edge){
+        if(leafOf.containsKey(edge)){
+            return;
+        }
+        Node node = root;
+        while(!node.leaf){
+            node = chooseChild(node, edge);
+        }
+        node.edges.add(edge);
+        leafOf.put(edge, node);
+
+        //extend the bounds up to the root
+        for(Node n = node; n != null; n = n.parent){
+            n.extend(edge.getMinX(), edge.getMinY(), edge.getMaxX(), edge.getMaxY());
+        }
+
+        if(node.edges.size() > NODE_CAPACITY){
+            split(node);
+        }
+    }
+
+    /**
+     * Returns the child which needs the least enlargement to include the edge. Ties are broken by the smaller area.
+     */
+    private static Node chooseChild(Node node, GraphEdge edge){
+        Node best = null;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for(Node child : node.children){
+            double area = child.area();
+            double enlarged = (Math.max(child.maxX, edge.getMaxX()) - Math.min(child.minX, edge.getMinX()))
+                    * (Math.max(child.maxY, edge.getMaxY()) - Math.min(child.minY, edge.getMinY()));
+            double enlargement = enlarged - area;
+            if(enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)){
+                best = child;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Splits an overflowing node in the middle of its longer side and splits the parents if they overflow too.
+     */
+    private void split(Node node){
+        boolean alongX = node.maxX - node.minX >= node.maxY - node.minY;
+        Node sibling = new Node(node.leaf);
+        if(node.leaf){
+            node.edges.sort(Comparator.comparingDouble(e -> alongX ? e.getMinX() + e.getMaxX()
+                    : e.getMinY() + e.getMaxY()));
+            List<GraphEdge> moved = node.edges.subList(node.edges.size() / 2, node.edges.size());
+            for(GraphEdge e : moved){
+                sibling.edges.add(e);
+                leafOf.put(e, sibling);
+            }
+            moved.clear();
+        } else {
+            node.children.sort(Comparator.comparingDouble(n -> alongX ? n.minX + n.maxX : n.minY + n.maxY));
+            List<Node> moved = node.children.subList(node.children.size() / 2, node.children.size());
+            for(Node child : moved){
+                sibling.addChild(child);
+            }
+            moved.clear();
+        }
+        node.updateBounds();
+        sibling.updateBounds();
+
+        Node parent = node.parent;
+        if(parent == null){
+            root = new Node(false);
+            root.addChild(node);
+            root.addChild(sibling);
+            root.updateBounds();
+        } else {
+            parent.addChild(sibling);
+            if(parent.children.size() > NODE_CAPACITY){
+                split(parent);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(GraphEdge edge){
+        Node node = leafOf.remove(edge);
+        if(node == null){
+            return;
+        }
+        node.edges.remove(edge);
+
+        //remove the empty nodes and shrink the bounds of the others
+        while(node != null){
+            Node parent = node.parent;
+            if(parent != null && node.isEmpty()){
+                parent.children.remove(node);
+                node.parent = null;
+            } else {
+                node.updateBounds();
+            }
+            node = parent;
+        }
+
+        //an inner root with a single child is replaced by the child, an empty one by an empty leaf
+        while(!root.leaf && root.children.size() == 1){
+            root = root.children.get(0);
+            root.parent = null;
+        }
+        if(root.isEmpty() && !root.leaf){
+            root = new Node(true);
+        }
+    }
+
+    @Override
+    public synchronized ArrayList<GraphEdge> retrieve(ArrayList<GraphEdge> edgeList,
+                                                      double minX, double minY, double maxX, double maxY){
+        ArrayList<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while(!stack.isEmpty()){
+            Node node = stack.remove(stack.size() - 1);
+            if(!node.intersects(minX, minY, maxX, maxY)){
+                continue;
+            }
+            if(node.leaf){
+                for(GraphEdge e : node.edges){
+                    if(!e.isDeleted() && e.getMinX() <= maxX && e.getMaxX() >= minX
+                            && e.getMinY() <= maxY && e.getMaxY() >= minY){
+                        edgeList.add(e);
+                    }
+                }
+            } else {
+                stack.addAll(node.children);
+            }
+        }
+        return edgeList;
+    }
+
+    /**
+     * @return - the number of edges in the tree
+     */
+    public synchronized int size(){
+        return leafOf.size();
+    }
+
+    /**
+     * A node of the tree. Leaves hold edges, inner nodes hold other nodes.
+     */
+    private static class Node{
+        private final boolean leaf;
+        private final List<GraphEdge> edges;
+        private final List<Node> children;
+        private Node parent;
+        private double minX = Double.POSITIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+
+        Node(boolean leaf){
+            this.leaf = leaf;
+            this.edges = leaf ? new ArrayList<>(NODE_CAPACITY + 1) : null;
+            this.children = leaf ? null : new ArrayList<>(NODE_CAPACITY + 1);
+        }
+
+        void addChild(Node child){
+            children.add(child);
+            child.parent = this;
+            extend(child.minX, child.minY, child.maxX, child.maxY);
+        }
+
+        boolean isEmpty(){
+            return leaf ? edges.isEmpty() : children.isEmpty();
+        }
+
+        void extend(double x1, double y1, double x2, double y2){
+            minX = Math.min(minX, x1);
+            minY = Math.min(minY, y1);
+            maxX = Math.max(maxX, x2);
+            maxY = Math.max(maxY, y2);
+        }
+
+        void updateBounds(){
+            minX = Double.POSITIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+            if(leaf){
+                for(GraphEdge e : edges){
+                    extend(e.getMinX(), e.getMinY(), e.getMaxX(), e.getMaxY());
+                }
+            } else {
+                for(Node child : children){
+                    extend(child.minX, child.minY, child.maxX, child.maxY);
+                }
+            }
+        }
+
+        double area(){
+            return isEmpty() ? 0 : (maxX - minX) * (maxY - minY);
+        }
+
+        boolean intersects(double x1, double y1, double x2, double y2){
+            return minX <= x2 && maxX >= x1 && minY <= y2 && maxY >= y1;
+        }
+    }
+}
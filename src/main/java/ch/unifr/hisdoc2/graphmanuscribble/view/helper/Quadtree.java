@@ -2,8 +2,6 @@ package ch.unifr.hisdoc2.graphmanuscribble.view.helper;
 
 import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
 import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
-import javafx.geometry.Bounds;
-import javafx.scene.shape.Rectangle;
 
 import java.util.ArrayList;
 
@@ -11,7 +9,7 @@ import java.util.ArrayList;
  * Quadtree for the collision detection of scribbles with graph edges.
  * This is build after this tutorial (https://gamedevelopment.tutsplus.com/tutorials/quick-tip-use-quadtrees-to-detect-likely-collisions-in-2d-space--gamedev-374)
  */
-public class Quadtree{
+public class Quadtree implements EdgeIndex{
 
     /**
      * Current node level
@@ -26,17 +24,23 @@ public class Quadtree{
     /**
      * Space the tree occupies
      */
-    private Rectangle bounds;
+    private final double x;
+    private final double y;
+    private final double width;
+    private final double height;
 
     /**
      * Subnodes of this node
      */
     private Quadtree[] nodes;
 
-    public Quadtree(int level, Rectangle bounds){
+    public Quadtree(int level, double x, double y, double width, double height){
         this.level = level;
         this.edges = new ArrayList<>();
-        this.bounds = bounds;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
         this.nodes = new Quadtree[4];
     }
 
@@ -49,24 +53,22 @@ public class Quadtree{
      */
     private int getIndex(GraphEdge edge){
         int i = -1;
-        double verMidpoint = bounds.getX() + (bounds.getWidth() / 2);
-        double horMidpoint = bounds.getY() + (bounds.getHeight() / 2);
-
-        Bounds edgeB = edge.getPolygonRepresentation().getLayoutBounds();
+        double verMidpoint = x + (width / 2);
+        double horMidpoint = y + (height / 2);
 
         //edge completely fits into the top quadrants
-        boolean topQ = (edgeB.getMinY() < horMidpoint && edgeB.getMaxY() < horMidpoint);
+        boolean topQ = (edge.getMinY() < horMidpoint && edge.getMaxY() < horMidpoint);
         //edge completely fits into the bottom quadrants
-        boolean botQ = (edgeB.getMinY() > horMidpoint && edgeB.getMaxY() > horMidpoint);
+        boolean botQ = (edge.getMinY() > horMidpoint && edge.getMaxY() > horMidpoint);
 
         //edge fits into left quadrants
-        if(edgeB.getMinX() < verMidpoint && edgeB.getMaxX() < verMidpoint){
+        if(edge.getMinX() < verMidpoint && edge.getMaxX() < verMidpoint){
             if(topQ){
                 i = 1;
             } else if(botQ){
                 i = 2;
             }
-        } else if(edgeB.getMinX() > verMidpoint && edgeB.getMaxX() > verMidpoint){ //fits into right quadrants
+        } else if(edge.getMinX() > verMidpoint && edge.getMaxX() > verMidpoint){ //fits into right quadrants
             if(topQ){
                 i = 0;
             } else if(botQ){
@@ -81,15 +83,13 @@ public class Quadtree{
      * Splits the current Quad tree into 4 subnodes.
      */
     private void split(){
-        int subWidth = (int) (bounds.getWidth() / 2);
-        int subHeight = (int) (bounds.getHeight() / 2);
-        int x = (int) bounds.getX();
-        int y = (int) bounds.getY();
-
-        nodes[0] = new Quadtree(level + 1, new Rectangle(x + subWidth, y, subWidth, subHeight));
-        nodes[1] = new Quadtree(level + 1, new Rectangle(x, y, subWidth, subHeight));
-        nodes[2] = new Quadtree(level + 1, new Rectangle(x, y + subHeight, subWidth, subHeight));
-        nodes[3] = new Quadtree(level + 1, new Rectangle(x + subWidth, y + subHeight, subWidth, subHeight));
+        double subWidth = width / 2;
+        double subHeight = height / 2;
+
+        nodes[0] = new Quadtree(level + 1, x + subWidth, y, subWidth, subHeight);
+        nodes[1] = new Quadtree(level + 1, x, y, subWidth, subHeight);
+        nodes[2] = new Quadtree(level + 1, x, y + subHeight, subWidth, subHeight);
+        nodes[3] = new Quadtree(level + 1, x + subWidth, y + subHeight, subWidth, subHeight);
     }
 
     /**
@@ -98,7 +98,11 @@ public class Quadtree{
      *
      * @param edge - edge to add to the quadtree
      */
+    @Override
     public void insert(GraphEdge edge){
+        if(level == 0 && contains(edge)){
+            return;
+        }
         if(nodes[0] != null){
             int index = getIndex(edge);
 
@@ -128,24 +132,62 @@ public class Quadtree{
     }
 
     /**
-     * Returns all the edges the input could collide with.
+     * Removes an edge from the node it was inserted into.
+     *
+     * @param edge - edge to remove
+     */
+    @Override
+    public void remove(GraphEdge edge){
+        if(nodes[0] != null){
+            int index = getIndex(edge);
+            if(index != -1){
+                nodes[index].remove(edge);
+                return;
+            }
+        }
+        edges.remove(edge);
+    }
+
+    /**
+     * Checks if the edge is in the node it would be inserted into.
+     */
+    private boolean contains(GraphEdge edge){
+        if(nodes[0] != null){
+            int index = getIndex(edge);
+            if(index != -1){
+                return nodes[index].contains(edge);
+            }
+        }
+        return edges.contains(edge);
+    }
+
+    /**
+     * Returns all the not deleted edges whose bounding box intersects with the given rectangle.
      *
      * @param edgeList - the list with the potential collision objects
-     * @param scribble - the input
+     * @param minX     - left of the rectangle
+     * @param minY     - top of the rectangle
+     * @param maxX     - right of the rectangle
+     * @param maxY     - bottom of the rectangle
      * @return object the input could collide with
      */
-    public ArrayList<GraphEdge> retrieve(ArrayList<GraphEdge> edgeList, GraphEdge scribble){
-        int i = getIndex(scribble);
-
-        if(i != -1 && nodes[0] != null){
-            nodes[i].retrieve(edgeList, scribble);
+    @Override
+    public ArrayList<GraphEdge> retrieve(ArrayList<GraphEdge> edgeList,
+                                         double minX, double minY, double maxX, double maxY){
+        if(nodes[0] != null){
+            for(Quadtree node : nodes){
+                if(node.x <= maxX && node.x + node.width >= minX && node.y <= maxY && node.y + node.height >= minY){
+                    node.retrieve(edgeList, minX, minY, maxX, maxY);
+                }
+            }
         }
 
-        edges.forEach(graphEdge -> {
-            if(!graphEdge.isDeleted()){
+        for(GraphEdge graphEdge : edges){
+            if(!graphEdge.isDeleted() && graphEdge.getMinX() <= maxX && graphEdge.getMaxX() >= minX
+                    && graphEdge.getMinY() <= maxY && graphEdge.getMaxY() >= minY){
                 edgeList.add(graphEdge);
             }
-        });
+        }
 
         return edgeList;
     }
@@ -0,0 +1,76 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view.helper;
+
+/**
+ * The part of the page which is visible in the scroll pane, in page coordinates, and the zoom factor of the page.
+ */
+public class Viewport{
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final double zoom;
+
+    /**
+     * @param minX - left of the visible part
+     * @param minY - top of the visible part
+     * @param maxX - right of the visible part
+     * @param maxY - bottom of the visible part
+     * @param zoom - screen pixels per page pixel
+     */
+    public Viewport(double minX, double minY, double maxX, double maxY, double zoom){
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+        this.zoom = zoom;
+    }
+
+    public double getMinX(){
+        return minX;
+    }
+
+    public double getMinY(){
+        return minY;
+    }
+
+    public double getMaxX(){
+        return maxX;
+    }
+
+    public double getMaxY(){
+        return maxY;
+    }
+
+    public double getZoom(){
+        return zoom;
+    }
+
+    /**
+     * @return - width of the visible part in screen pixels
+     */
+    public int getScreenWidth(){
+        return (int) Math.ceil((maxX - minX) * zoom);
+    }
+
+    /**
+     * @return - height of the visible part in screen pixels
+     */
+    public int getScreenHeight(){
+        return (int) Math.ceil((maxY - minY) * zoom);
+    }
+
+    /**
+     * @return - true if the rectangle (in page coordinates) is at least partly visible
+     */
+    public boolean intersects(double minX, double minY, double maxX, double maxY){
+        return minX <= this.maxX && maxX >= this.minX && minY <= this.maxY && maxY >= this.minY;
+    }
+
+    /**
+     * @return - true if the rectangle (in page coordinates) is smaller than one screen pixel in both directions
+     */
+    public boolean isSubPixel(double minX, double minY, double maxX, double maxY){
+        return (maxX - minX) * zoom < 1 && (maxY - minY) * zoom < 1;
+    }
+}
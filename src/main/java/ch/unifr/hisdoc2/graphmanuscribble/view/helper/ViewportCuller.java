@@ -0,0 +1,113 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Prepares the edges of one frame of the canvas renderer. Only the edges whose bounding box intersects the viewport
+ * are taken from the edge index. Edges which are shorter than one screen pixel are not stroked, they are merged into
+ * the screen pixel of their midpoint and each covered pixel is filled once.
+ * <p>
+ * The culler does not depend on JavaFX, the result are plain coordinate arrays in page coordinates. It is reused
+ * from frame to frame to avoid garbage.
+ */
+public class ViewportCuller{
+
+    private final EdgeIndex index;
+    private final ArrayList<GraphEdge> candidates = new ArrayList<>();
+    private final BitSet coveredPixels = new BitSet();
+
+    private double[] lines = new double[1024];
+    private int lineCount = 0;
+    private double[] pixels = new double[256];
+    private int pixelCount = 0;
+
+    /**
+     * @param index - the index of the edges to draw
+     */
+    public ViewportCuller(EdgeIndex index){
+        this.index = index;
+    }
+
+    /**
+     * Collects the visible edges of the viewport.
+     *
+     * @param viewport - the visible part of the page
+     */
+    public void cull(Viewport viewport){
+        lineCount = 0;
+        pixelCount = 0;
+        coveredPixels.clear();
+        candidates.clear();
+
+        double zoom = viewport.getZoom();
+        int width = Math.max(1, viewport.getScreenWidth());
+        index.retrieve(candidates, viewport.getMinX(), viewport.getMinY(), viewport.getMaxX(), viewport.getMaxY());
+
+        for(GraphEdge e : candidates){
+            if(viewport.isSubPixel(e.getMinX(), e.getMinY(), e.getMaxX(), e.getMaxY())){
+                double mx = (e.getX1() + e.getX2()) / 2;
+                double my = (e.getY1() + e.getY2()) / 2;
+                int px = (int) ((mx - viewport.getMinX()) * zoom);
+                int py = (int) ((my - viewport.getMinY()) * zoom);
+                if(px < 0 || py < 0 || px >= width || py >= viewport.getScreenHeight()){
+                    continue;
+                }
+                int bit = py * width + px;
+                if(!coveredPixels.get(bit)){
+                    coveredPixels.set(bit);
+                    addPixel(viewport.getMinX() + px / zoom, viewport.getMinY() + py / zoom);
+                }
+            } else {
+                addLine(e.getX1(), e.getY1(), e.getX2(), e.getY2());
+            }
+        }
+    }
+
+    private void addLine(double x1, double y1, double x2, double y2){
+        if(lineCount * 4 + 4 > lines.length){
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        int i = lineCount * 4;
+        lines[i] = x1;
+        lines[i + 1] = y1;
+        lines[i + 2] = x2;
+        lines[i + 3] = y2;
+        lineCount++;
+    }
+
+    private void addPixel(double x, double y){
+        if(pixelCount * 2 + 2 > pixels.length){
+            pixels = Arrays.copyOf(pixels, pixels.length * 2);
+        }
+        pixels[pixelCount * 2] = x;
+        pixels[pixelCount * 2 + 1] = y;
+        pixelCount++;
+    }
+
+    /**
+     * @return - the lines to stroke [x1, y1, x2, y2, ...], only the first getLineCount() lines are valid
+     */
+    public double[] getLines(){
+        return lines;
+    }
+
+    public int getLineCount(){
+        return lineCount;
+    }
+
+    /**
+     * @return - the top left corners of the screen pixels covered by sub pixel edges [x, y, ...], only the first
+     * getPixelCount() pixels are valid
+     */
+    public double[] getPixels(){
+        return pixels;
+    }
+
+    public int getPixelCount(){
+        return pixelCount;
+    }
+}
@@ -1,18 +1,37 @@
 package ch.unifr.hisdoc2.graphmanuscribble.view.helper.svg;
 
 
+import java.util.Arrays;
+
 /**
  * creates the svg path string.
+ * <p>
+ * The path is written into a growable char array which is reused after {@link #clear()}, the coordinates are
+ * formatted with one decimal without creating any objects. The string for JavaFX is only created once per change
+ * of the path, so setting an unchanged path again does not copy the buffer.
+ * <p>
+ * The printer is not thread safe.
  */
-public class SVGPathPrinter{
+public class SVGPathPrinter implements CharSequence{
+
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * Values bigger than this are not formatted by hand (the tenths have to fit into a long)
+     */
+    private static final double MAX_FAST_VALUE = 1e15;
 
     /**
      * Contains the actual svg path
      */
-    private StringBuffer sB;
+    private char[] buffer;
+    private int length;
+    /**
+     * The path as string, null if the path has changed since the last call of toString
+     */
+    private String content;
 
     public SVGPathPrinter(){
-        this.sB = new StringBuffer();
+        this.buffer = new char[INITIAL_CAPACITY];
     }
 
     /**
@@ -24,21 +43,10 @@ public class SVGPathPrinter{
      * @param y2 - y coordinate of the target of the edge
      */
     public void addEdge(double x1, double x2, double y1, double y2){
-        sB.append("M ")
-                .append(x1)
-                .append(",")
-                .append(y1)
-                .append(" L")
-                .append(x2)
-                .append(",")
-                .append(y2);
-    }
-
-    private void addPointToLine(double x1, double y1){
-        sB.append(" L")
-                .append(x1)
-                .append(" ,")
-                .append(y1);
+        append("M ");
+        appendPoint(x1, y1);
+        append(" L");
+        appendPoint(x2, y2);
     }
 
     /**
@@ -49,12 +57,11 @@ public class SVGPathPrinter{
      * @param nbOfPoints - number of points
      */
     public void addPolyLine(double[] x, double[] y, int nbOfPoints){
-        sB.append("M ")
-                .append(x[0])
-                .append(" ,")
-                .append(y[0]);
+        append("M ");
+        appendPoint(x[0], y[0]);
         for(int i = 1; i < nbOfPoints - 1; i++){
-            addPointToLine(x[i], y[i]);
+            append(" L");
+            appendPoint(x[i], y[i]);
         }
     }
 
@@ -66,29 +73,121 @@ public class SVGPathPrinter{
      */
     public void addPolygon(double[] x, double[] y){
         //fill area
-        sB.append("M ")
-                .append(x[0])
-                .append(" ,")
-                .append(y[0]);
+        append("M ");
+        appendPoint(x[0], y[0]);
         for(int i = 1; i < x.length - 1; i++){
-            sB.append("L")
-                    .append(x[i])
-                    .append(" ,")
-                    .append(y[i]);
+            append(" L");
+            appendPoint(x[i], y[i]);
         }
-        sB.append(" Z");
+        append(" Z");
     }
 
     /**
-     * Clears the svg path string
+     * Clears the svg path string. The buffer is kept for the next path.
      */
     public void clear(){
-        sB.delete(0, sB.length());
+        length = 0;
+        content = null;
+    }
+
+    @Override
+    public int length(){
+        return length;
     }
 
+    @Override
+    public char charAt(int index){
+        if(index < 0 || index >= length){
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end){
+        if(start < 0 || end > length || start > end){
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new String(buffer, start, end - start);
+    }
+
+    /**
+     * Returns the svg path. The string is cached until the path changes, so an unchanged path returns the same
+     * instance and a view can skip setting it again.
+     *
+     * @return - the svg path
+     */
     @Override
     public String toString(){
-        return sB.toString();
+        if(content == null){
+            content = new String(buffer, 0, length);
+        }
+        return content;
     }
 
+    private void appendPoint(double x, double y){
+        appendNumber(x);
+        append(',');
+        appendNumber(y);
+    }
+
+    private void append(String s){
+        ensureCapacity(length + s.length());
+        s.getChars(0, s.length(), buffer, length);
+        length += s.length();
+        content = null;
+    }
+
+    private void append(char c){
+        ensureCapacity(length + 1);
+        buffer[length++] = c;
+        content = null;
+    }
+
+    /**
+     * Appends the number rounded to one decimal. Whole numbers are written without decimal.
+     *
+     * @param v - the number
+     */
+    private void appendNumber(double v){
+        if(Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= MAX_FAST_VALUE){
+            append(Double.toString(v));
+            return;
+        }
+        long tenths = Math.round(Math.abs(v) * 10);
+        if(v < 0 && tenths != 0){
+            append('-');
+        }
+        appendLong(tenths / 10);
+        int decimal = (int) (tenths % 10);
+        if(decimal != 0){
+            append('.');
+            append((char) ('0' + decimal));
+        }
+    }
+
+    /**
+     * Appends the digits of a non negative number.
+     *
+     * @param n - the number
+     */
+    private void appendLong(long n){
+        int digits = 1;
+        for(long r = n / 10; r != 0; r /= 10){
+            digits++;
+        }
+        ensureCapacity(length + digits);
+        for(int i = length + digits - 1; i >= length; i--){
+            buffer[i] = (char) ('0' + n % 10);
+            n /= 10;
+        }
+        length += digits;
+        content = null;
+    }
+
+    private void ensureCapacity(int capacity){
+        if(capacity > buffer.length){
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
 }
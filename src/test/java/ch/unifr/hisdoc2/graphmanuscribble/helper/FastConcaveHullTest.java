@@ -0,0 +1,177 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphCutter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.TestPages;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.jgrapht.alg.ConnectivityInspector;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The fast hull engine has to give the same hulls as the LarsConcaveHull and fail on the same point sets.
+ * <p>
+ * The hull of a part of a graph has to be the same whether its triangles are taken from the triangulation of the
+ * whole graph or it gets triangulated again. The coordinates are random doubles, so there are no cocircular points
+ * and the Delaunay triangulation is unique. The contour points of a page have many cocircular points, there the hull
+ * only has to cover the part like a fresh one.
+ */
+class FastConcaveHullTest{
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    @Test
+    void splitPartsReuseTheTriangulation(){
+        Random r = new Random(3);
+        //two words of a line, split between them
+        List<Coordinate> left = word(r, 0, 0, 400, 60, 1500);
+        List<Coordinate> right = word(r, 460, 5, 300, 60, 1200);
+        List<Coordinate> all = new ArrayList<>(left);
+        all.addAll(right);
+
+        FastConcaveHull whole = new FastConcaveHull(multiPoint(all), Constants.CONCAVE_TIGHTNESS);
+        whole.getConcaveHull();
+        HullTriangulation parent = whole.getTriangulation();
+        assertNotNull(parent);
+
+        for(List<Coordinate> part : new List[]{left, right}){
+            FastConcaveHull reused = new FastConcaveHull(multiPoint(part), Constants.CONCAVE_TIGHTNESS, parent);
+            Geometry reusedHull = reused.getConcaveHull();
+            //the triangles were taken from the parent, it shares its vertices
+            assertSame(parent.coordinates, reused.getTriangulation().coordinates);
+
+            Geometry freshHull = new FastConcaveHull(multiPoint(part), Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+            assertTrue(freshHull.equalsExact(reusedHull), freshHull + " != " + reusedHull);
+        }
+    }
+
+    @Test
+    void holesOfInterleavedPartAreFilled(){
+        Random r = new Random(4);
+        List<Coordinate> all = word(r, 0, 0, 500, 80, 2000);
+        List<Coordinate> part = new ArrayList<>();
+        for(int i = 0; i < all.size(); i += 2){
+            part.add(all.get(i));
+        }
+
+        FastConcaveHull whole = new FastConcaveHull(multiPoint(all), Constants.CONCAVE_TIGHTNESS);
+        whole.getConcaveHull();
+        HullTriangulation parent = whole.getTriangulation();
+
+        FastConcaveHull reused = new FastConcaveHull(multiPoint(part), Constants.CONCAVE_TIGHTNESS, parent);
+        Geometry reusedHull = reused.getConcaveHull();
+        //every other triangle of the parent has a vertex of the other part, the holes get triangulated again
+        assertSame(parent.coordinates, reused.getTriangulation().coordinates);
+
+        Geometry freshHull = new FastConcaveHull(multiPoint(part), Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+        assertTrue(freshHull.equalsExact(reusedHull), freshHull + " != " + reusedHull);
+    }
+
+    @Test
+    void pagePartsAreCovered(){
+        BufferedImage page = TestPages.page(2, 600, 1100);
+        List<Coordinate> line = new ArrayList<>();
+        for(PointHD2 p : new AngieMSTGraph(Constants.NOISE_PX, true, 600, 1100).extractInterestPoints(page, page)){
+            if(p.getY() < 200){
+                line.add(p.toCoordinate());
+            }
+        }
+        FastConcaveHull whole = new FastConcaveHull(multiPoint(line), Constants.CONCAVE_TIGHTNESS);
+        whole.getConcaveHull();
+        HullTriangulation parent = whole.getTriangulation();
+
+        for(double split = 60; split <= 480; split += 60){
+            List<Coordinate> part = new ArrayList<>();
+            for(Coordinate c : line){
+                if(c.x >= split){
+                    part.add(c);
+                }
+            }
+            Geometry points = multiPoint(part);
+            Geometry reusedHull = new FastConcaveHull(points, Constants.CONCAVE_TIGHTNESS, parent).getConcaveHull();
+            Geometry freshHull = new FastConcaveHull(points, Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+            assertTrue(reusedHull.covers(points), "split " + split);
+            assertEquals(freshHull.getArea(), reusedHull.getArea(), 0.01 * freshHull.getArea(), "split " + split);
+        }
+    }
+
+    @Test
+    void sameHullsAsLarsOnPageComponents(){
+        BufferedImage page = TestPages.page(1, 600, 1100);
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, 600, 1100);
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst =
+                graph.createMSTGraph(graph.extractInterestPoints(page, page));
+        new GraphCutter(mst).cutHighCostEdges(new Subgraph<>(mst.getBase(), mst.vertexSet(), mst.edgeSet()));
+        Set<GraphEdge> kept = new HashSet<>();
+        for(GraphEdge e : mst.edgeSet()){
+            if(!e.isDeleted()){
+                kept.add(e);
+            }
+        }
+
+        int compared = 0;
+        for(Set<GraphVertex> component
+                : new ConnectivityInspector<>(new Subgraph<>(mst.getBase(), mst.vertexSet(), kept)).connectedSets()){
+            if(component.size() < 4){
+                continue;
+            }
+            List<Coordinate> points = new ArrayList<>();
+            for(GraphVertex v : component){
+                points.add(v.toCoordinate());
+            }
+            Geometry lars = new LarsConcaveHull(multiPoint(points), Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+            Geometry fast = new FastConcaveHull(multiPoint(points), Constants.CONCAVE_TIGHTNESS).getConcaveHull();
+            assertTrue(lars.equalsExact(fast), lars + " != " + fast);
+            compared++;
+        }
+        assertTrue(compared > 20);
+    }
+
+    @Test
+    void failsLikeLarsOnFlatPoints(){
+        //JTS leaves edges of these almost collinear points without a triangle
+        Geometry points = FACTORY.createMultiPoint(new Coordinate[]{new Coordinate(123, 61.5),
+                new Coordinate(18, 11), new Coordinate(26, 15), new Coordinate(73, 38.5), new Coordinate(0, 2),
+                new Coordinate(106, 54), new Coordinate(91, 46.5), new Coordinate(194, 99)});
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new LarsConcaveHull(points, Constants.CONCAVE_TIGHTNESS).getConcaveHull());
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new FastConcaveHull(points, Constants.CONCAVE_TIGHTNESS).getConcaveHull());
+    }
+
+    /**
+     * Random points along some strokes in the given box.
+     */
+    private static List<Coordinate> word(Random r, double x, double y, double width, double height, int count){
+        List<Coordinate> points = new ArrayList<>(count);
+        int strokes = (int) (width / 25);
+        for(int i = 0; i < count; i++){
+            double sx = x + (i % strokes) * width / strokes;
+            points.add(new Coordinate(sx + r.nextDouble() * 12, y + r.nextDouble() * height));
+        }
+        return points;
+    }
+
+    private static Geometry multiPoint(List<Coordinate> points){
+        return FACTORY.createMultiPoint(points.toArray(new Coordinate[0]));
+    }
+}
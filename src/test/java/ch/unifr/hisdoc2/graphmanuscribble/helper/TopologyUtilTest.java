@@ -0,0 +1,67 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.GraphCutter;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.PointHD2;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.TestPages;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.jgrapht.alg.ConnectivityInspector;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The placeholder hull of the lazy hull mode rejects a scribble without the concave hull, so it has to contain the
+ * concave hull of the same points.
+ */
+class TopologyUtilTest{
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    @Test
+    void placeholderContainsConcaveHullOnPageComponents(){
+        BufferedImage page = TestPages.page(5, 600, 1100);
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, 600, 1100);
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst =
+                graph.createMSTGraph(graph.extractInterestPoints(page, page));
+        new GraphCutter(mst).cutHighCostEdges(new Subgraph<>(mst.getBase(), mst.vertexSet(), mst.edgeSet()));
+        Set<GraphEdge> kept = new HashSet<>();
+        for(GraphEdge e : mst.edgeSet()){
+            if(!e.isDeleted()){
+                kept.add(e);
+            }
+        }
+
+        int compared = 0;
+        for(Set<GraphVertex> component
+                : new ConnectivityInspector<>(new Subgraph<>(mst.getBase(), mst.vertexSet(), kept)).connectedSets()){
+            if(component.size() < 4){
+                continue;
+            }
+            List<PointHD2> hull = TopologyUtil.pointListToConcaveHull(new ArrayList<>(component),
+                    Constants.CONCAVE_TIGHTNESS);
+            List<PointHD2> placeholder = TopologyUtil.pointListToPlaceholderHull(new ArrayList<>(component));
+
+            //the placeholder is convex, it contains the hull if it contains all its points
+            Geometry hullPoints = FACTORY.createMultiPoint(
+                    PointHD2.pointList2coordinateList(hull).toArray(new Coordinate[0]));
+            Geometry placeholderPolygon = FACTORY.createPolygon(
+                    PointHD2.pointList2coordinateList(placeholder).toArray(new Coordinate[0]));
+            assertTrue(placeholderPolygon.covers(hullPoints), "component of " + component.size() + " points");
+            compared++;
+        }
+        assertTrue(compared > 20);
+    }
+}
@@ -0,0 +1,27 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import org.junit.jupiter.api.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.processing.algorithm.DifferenceOfGaussian;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The DoG binarization on flat buffers has to give the same pixels as the openimaj path it replaces.
+ */
+class DoGBinarizerTest{
+
+    @Test
+    void samePixelsAsOpenImaj(){
+        for(long seed = 1; seed <= 2; seed++){
+            BufferedImage page = ScannedPages.page(seed, 350 + (int) seed * 40, 260);
+
+            BufferedImage flat = DoGBinarizer.binarize(page, 0.1f, 15f, 1.5f);
+            FImage dog = ImageUtilities.createFImage(page).clone().process(new DifferenceOfGaussian(15f, 1.5f));
+            BufferedImage openImaj = ImageUtilities.createBufferedImage(dog.threshold(0.1f));
+
+            ScannedPages.assertSamePixels(openImaj, flat);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * The Sauvola binarization on integral images has to give the same pixels as Matrix.sauvolaBinarization, the former
+ * SAUVOLA path of BinaryPageImageProcessing.
+ */
+class FastSauvolaTest{
+
+    @Test
+    void samePixelsAsMatrix() throws IOException{
+        for(long seed = 1; seed <= 2; seed++){
+            BufferedImage page = ScannedPages.page(seed, 380 + (int) seed * 50, 310);
+            for(int window : new int[]{31, BinaryPageImageProcessing.SAUVOLA_WINDOW}){
+                Image img = new Image(page);
+                img.toYUV();
+                BufferedImage matrix = new Matrix(img.getLayer(0)).sauvolaBinarization(window).getImage();
+
+                ScannedPages.assertSamePixels(matrix, FastSauvola.binarize(page, window));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Otsu on the raster arrays has to give the same pixels as the former per-pixel version, for the image types read
+ * from the data buffers, the ones read with getRGB and sub-images.
+ */
+class OtsuTest{
+
+    @Test
+    void samePixelsAsPerPixelOtsu(){
+        BufferedImage page = ScannedPages.page(4, 430, 290);
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY};
+        for(int type : types){
+            BufferedImage img = new BufferedImage(page.getWidth(), page.getHeight(), type);
+            img.createGraphics().drawImage(page, 0, 0, null);
+            ScannedPages.assertSamePixels(perPixelOtsu(img), Otsu.binarize(img));
+
+            BufferedImage sub = img.getSubimage(17, 23, 300, 200);
+            ScannedPages.assertSamePixels(perPixelOtsu(sub), Otsu.binarize(sub));
+        }
+    }
+
+    /**
+     * The former Otsu: the histogram of the red channel and the threshold with getRGB per pixel, the pixels above
+     * the threshold are black.
+     */
+    private static BufferedImage perPixelOtsu(BufferedImage img){
+        int[] histogram = new int[256];
+        for(int x = 0; x < img.getWidth(); x++){
+            for(int y = 0; y < img.getHeight(); y++){
+                histogram[(img.getRGB(x, y) >> 16) & 0xFF]++;
+            }
+        }
+        int total = img.getWidth() * img.getHeight();
+        float sum = 0;
+        for(int i = 0; i < 256; i++){
+            sum += i * histogram[i];
+        }
+        float sumB = 0;
+        int wB = 0;
+        float varMax = 0;
+        int threshold = 0;
+        for(int i = 0; i < 256; i++){
+            wB += histogram[i];
+            if(wB == 0){
+                continue;
+            }
+            int wF = total - wB;
+            if(wF == 0){
+                break;
+            }
+            sumB += (float) (i * histogram[i]);
+            float mB = sumB / wB;
+            float mF = (sum - sumB) / wF;
+            float varBetween = (float) wB * (float) wF * (mB - mF) * (mB - mF);
+            if(varBetween > varMax){
+                varMax = varBetween;
+                threshold = i;
+            }
+        }
+
+        BufferedImage bin = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for(int x = 0; x < img.getWidth(); x++){
+            for(int y = 0; y < img.getHeight(); y++){
+                bin.setRGB(x, y, ((img.getRGB(x, y) >> 16) & 0xFF) > threshold ? 0 : 0xFFFFFF);
+            }
+        }
+        return bin;
+    }
+}
@@ -0,0 +1,69 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Color pages shared by the tests of the binarizations.
+ */
+final class ScannedPages{
+
+    private ScannedPages(){
+    }
+
+    /**
+     * A scanned page: a noisy background with a brightness gradient and dark letters.
+     *
+     * @param seed   - seed of the page
+     * @param width  - width of the page
+     * @param height - height of the page
+     * @return - the TYPE_INT_RGB page
+     */
+    static BufferedImage page(long seed, int width, int height){
+        Random r = new Random(seed);
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                int gray = Math.min(255, 170 + x * 60 / width + r.nextInt(20));
+                img.setRGB(x, y, new Color(gray, gray - 10, gray - 25).getRGB());
+            }
+        }
+        Graphics2D g = img.createGraphics();
+        for(int y = 30; y < height - 30; y += 40){
+            for(int x = 20; x < width - 30; x += 12 + r.nextInt(10)){
+                int ink = 40 + r.nextInt(60);
+                g.setColor(new Color(ink, ink, ink + 20));
+                g.fillOval(x, y, 5 + r.nextInt(8), 10 + r.nextInt(18));
+            }
+        }
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Asserts that two binary images have the same pixels and some of them are white.
+     *
+     * @param expected - the expected image
+     * @param actual   - the image to check
+     */
+    static void assertSamePixels(BufferedImage expected, BufferedImage actual){
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int white = 0;
+        for(int y = 0; y < expected.getHeight(); y++){
+            for(int x = 0; x < expected.getWidth(); x++){
+                boolean e = (expected.getRGB(x, y) & 0xFFFFFF) != 0;
+                assertEquals(e, (actual.getRGB(x, y) & 0xFFFFFF) != 0, "pixel " + x + "," + y);
+                if(e){
+                    white++;
+                }
+            }
+        }
+        assertTrue(white > 100);
+    }
+}
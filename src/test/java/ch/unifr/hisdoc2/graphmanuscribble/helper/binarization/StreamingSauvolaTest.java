@@ -0,0 +1,47 @@
+package ch.unifr.hisdoc2.graphmanuscribble.helper.binarization;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The streaming Sauvola has to give the same pixels as FastSauvola on the decoded page, for the formats which are
+ * decoded once (PNG) and the ones read in strips (BMP), with strips smaller and bigger than the window.
+ */
+class StreamingSauvolaTest{
+
+    private File dir;
+
+    @BeforeEach
+    void createDir() throws IOException{
+        dir = Files.createTempDirectory("sauvola-test").toFile();
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException{
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    void samePixelsAsFastSauvola() throws IOException{
+        BufferedImage page = ScannedPages.page(3, 420, 530);
+        for(String format : new String[]{"png", "bmp"}){
+            File file = new File(dir, "page." + format);
+            assertTrue(ImageIO.write(page, format, file));
+            for(int window : new int[]{31, BinaryPageImageProcessing.SAUVOLA_WINDOW}){
+                BufferedImage expected = FastSauvola.binarize(page, window);
+                ScannedPages.assertSamePixels(expected, StreamingSauvola.binarize(file, window));
+                ScannedPages.assertSamePixels(expected, StreamingSauvola.binarize(file, window, 7));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.annotation;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.Count;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PageMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.helper.metrics.PipelineMetrics;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraphCollection;
+import org.jgrapht.graph.SimpleGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The hull calculations of a collection are recorded into the metrics of its page, not into the current page.
+ */
+class ConcaveHullExtractionServiceTest{
+
+    @Test
+    void hullsAreRecordedIntoThePageOfTheGraph(){
+        PageMetrics current = PipelineMetrics.getInstance().startPage("current");
+        PageMetrics prefetched = new PageMetrics("prefetched");
+        AngieMSTGraph page = new AngieMSTGraph(Constants.NOISE_PX, true, 200, 200);
+        page.setMetrics(prefetched);
+
+        LarsGraphCollection lgc = new LarsGraphCollection(new LarsGraph(chain(60)));
+        page.addNewSubgraph(lgc, false);
+        ConcaveHullExtractionService.calculateHulls(lgc, () -> false);
+
+        assertEquals(1, prefetched.get(Count.HULLS));
+        assertEquals(0, current.get(Count.HULLS));
+        assertFalse(lgc.getGraphs().get(0).isHullDirty());
+    }
+
+    /**
+     * A path through random points.
+     */
+    private static SimpleGraph<GraphVertex, GraphEdge> chain(int count){
+        Random r = new Random(1);
+        SimpleGraph<GraphVertex, GraphEdge> graph = new SimpleGraph<>(GraphEdge.class);
+        GraphVertex last = null;
+        for(int i = 0; i < count; i++){
+            GraphVertex v = new GraphVertex(20 + r.nextInt(160), 20 + r.nextInt(60));
+            if(graph.addVertex(v)){
+                if(last != null){
+                    graph.addEdge(last, v);
+                }
+                last = v;
+            }
+        }
+        return graph;
+    }
+}
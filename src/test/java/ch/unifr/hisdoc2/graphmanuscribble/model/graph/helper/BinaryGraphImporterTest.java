@@ -0,0 +1,66 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.CompactGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.apache.commons.io.FileUtils;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A graph exported as gbin has to import into the same graph and forest as the gxml export of the same graph.
+ */
+class BinaryGraphImporterTest{
+
+    private File dir;
+
+    @BeforeEach
+    void createDir() throws IOException{
+        dir = Files.createTempDirectory("gbin-test").toFile();
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException{
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    void roundTripEqualsGxml() throws Exception{
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst = TestGraphs.cutMST(7);
+
+        GraphExporter.export2XML(mst, dir.getPath(), "page", "graph");
+        File gbin = BinaryGraphExporter.export2Binary(mst, dir.getPath(), "page", "graph");
+        LoadedGraph fromXml = GraphImporter.xml2Graph(new File(dir, "page_graph" + GraphExporter.EXTENSION));
+        LoadedGraph fromBinary = BinaryGraphImporter.binary2Graph(gbin);
+
+        TestGraphs.assertSameLoadedGraph(fromXml, fromBinary);
+        assertTrue(fromBinary.getForest().size() > 1);
+    }
+
+    @Test
+    void readReturnsTheWrittenArrays() throws Exception{
+        CompactGraph graph = CompactGraph.fromGraph(TestGraphs.cutMST(11));
+        File file = new File(dir, "graph." + BinaryGraphFormat.EXTENSION);
+        BinaryGraphExporter.write(graph, "graph", file);
+
+        CompactGraph read = BinaryGraphImporter.read(file);
+        assertArrayEquals(graph.getCoordinates(), read.getCoordinates());
+        assertArrayEquals(graph.getEdgeEndpoints(), read.getEdgeEndpoints());
+        assertArrayEquals(graph.getWeights(), read.getWeights());
+        assertEquals(graph.getDeleted(), read.getDeleted());
+        //the file is not mapped anymore
+        assertTrue(file.delete());
+    }
+}
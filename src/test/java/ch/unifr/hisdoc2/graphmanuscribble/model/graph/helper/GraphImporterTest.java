@@ -0,0 +1,66 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.apache.commons.io.FileUtils;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A graph exported as gzip compressed and as plain gxml has to import into the same graph and forest.
+ */
+class GraphImporterTest{
+
+    private File dir;
+
+    @BeforeEach
+    void createDir() throws IOException{
+        dir = Files.createTempDirectory("gxml-test").toFile();
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException{
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    void gzipEqualsPlain() throws Exception{
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst = TestGraphs.cutMST(5);
+
+        GraphExporter.export2XML(mst, dir.getPath(), "page", "graph", false);
+        GraphExporter.export2XML(mst, dir.getPath(), "page", "graph", true);
+        File plain = new File(dir, "page_graph" + GraphExporter.EXTENSION);
+        File gzip = new File(dir, "page_graph" + GraphExporter.GZIP_EXTENSION);
+        assertTrue(gzip.length() < plain.length());
+
+        LoadedGraph fromPlain = GraphImporter.xml2Graph(plain);
+        LoadedGraph fromGzip = GraphImporter.xml2Graph(gzip);
+        TestGraphs.assertSameGraph(mst, fromPlain.getOriginal());
+        TestGraphs.assertSameLoadedGraph(fromPlain, fromGzip);
+        assertTrue(fromGzip.getForest().size() > 1);
+    }
+
+    @Test
+    void gzipIsDetectedByContent() throws Exception{
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst = TestGraphs.cutMST(9);
+
+        GraphExporter.export2XML(mst, dir.getPath(), "page", "graph", false);
+        GraphExporter.export2XML(mst, dir.getPath(), "page", "graph", true);
+        //a compressed file without the .gz extension
+        File renamed = new File(dir, "renamed" + GraphExporter.EXTENSION);
+        FileUtils.copyFile(new File(dir, "page_graph" + GraphExporter.GZIP_EXTENSION), renamed);
+
+        TestGraphs.assertSameLoadedGraph(GraphImporter.xml2Graph(new File(dir, "page_graph" + GraphExporter.EXTENSION)),
+                GraphImporter.xml2Graph(renamed));
+    }
+}
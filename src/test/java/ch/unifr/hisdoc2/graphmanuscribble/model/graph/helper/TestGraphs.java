@@ -0,0 +1,105 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.io.LoadedGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraph;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.LarsGraphCollection;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.Subgraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Graphs and graph comparisons shared by the import and export tests.
+ */
+final class TestGraphs{
+
+    private TestGraphs(){
+    }
+
+    /**
+     * Creates the MST of some clusters of points and labels its heaviest edges as deleted.
+     *
+     * @param seed - seed of the points
+     * @return - the cut MST
+     */
+    static Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> cutMST(long seed){
+        Random r = new Random(seed);
+        List<PointHD2> points = new ArrayList<>();
+        for(int c = 0; c < 40; c++){
+            double cx = 50 + r.nextInt(700);
+            double cy = 50 + r.nextInt(500);
+            for(int i = 0; i < 30; i++){
+                points.add(new PointHD2(cx + r.nextGaussian() * 8, cy + r.nextGaussian() * 8));
+            }
+        }
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, 800, 600);
+        Subgraph<GraphVertex, GraphEdge, SimpleWeightedGraph<GraphVertex, GraphEdge>> mst = graph.createMSTGraph(points);
+        new GraphCutter(mst).cutHighCostEdges(new Subgraph<>(mst.getBase(), mst.vertexSet(), mst.edgeSet()));
+        return mst;
+    }
+
+    /**
+     * Asserts that both graphs have the same vertices and edges in the same order.
+     */
+    static void assertSameGraph(Graph<GraphVertex, GraphEdge> expected, Graph<GraphVertex, GraphEdge> actual){
+        List<GraphVertex> expectedVertices = new ArrayList<>(expected.vertexSet());
+        List<GraphVertex> actualVertices = new ArrayList<>(actual.vertexSet());
+        assertEquals(expectedVertices.size(), actualVertices.size());
+        for(int i = 0; i < expectedVertices.size(); i++){
+            assertEquals(expectedVertices.get(i).getX(), actualVertices.get(i).getX());
+            assertEquals(expectedVertices.get(i).getY(), actualVertices.get(i).getY());
+        }
+
+        List<GraphEdge> expectedEdges = new ArrayList<>(expected.edgeSet());
+        List<GraphEdge> actualEdges = new ArrayList<>(actual.edgeSet());
+        assertEquals(expectedEdges.size(), actualEdges.size());
+        for(int i = 0; i < expectedEdges.size(); i++){
+            assertEquals(key(expected.getEdgeSource(expectedEdges.get(i))),
+                    key(actual.getEdgeSource(actualEdges.get(i))));
+            assertEquals(key(expected.getEdgeTarget(expectedEdges.get(i))),
+                    key(actual.getEdgeTarget(actualEdges.get(i))));
+            assertEquals(expectedEdges.get(i).isDeleted(), actualEdges.get(i).isDeleted());
+        }
+    }
+
+    /**
+     * Asserts that both loaded graphs have the same graph and forest.
+     */
+    static void assertSameLoadedGraph(LoadedGraph expected, LoadedGraph actual){
+        assertSameGraph(expected.getOriginal(), actual.getOriginal());
+        assertEquals(expected.isConnected(), actual.isConnected());
+        assertEquals(forest(expected), forest(actual));
+    }
+
+    /**
+     * @return - the vertices of each tree of the forest
+     */
+    static Set<Set<String>> forest(LoadedGraph loaded){
+        Set<Set<String>> trees = new HashSet<>();
+        for(LarsGraphCollection lGC : loaded.getForest()){
+            Set<String> tree = new HashSet<>();
+            for(LarsGraph lG : lGC.getGraphs()){
+                for(GraphVertex v : lG.getGraph().vertexSet()){
+                    tree.add(key(v));
+                }
+            }
+            trees.add(tree);
+        }
+        return trees;
+    }
+
+    private static String key(GraphVertex v){
+        return v.getX() + "," + v.getY();
+    }
+}
@@ -0,0 +1,53 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Binary pages shared by the tests of the contour extraction and the hulls.
+ */
+public final class TestPages{
+
+    private TestPages(){
+    }
+
+    /**
+     * Draws letters, strokes over several bands and rings with components inside. The foreground is white
+     * like in the binary images of the binarization.
+     *
+     * @param seed   - seed of the drawing
+     * @param width  - width of the page
+     * @param height - height of the page, at least 400
+     * @return - the binary page
+     */
+    public static BufferedImage page(long seed, int width, int height){
+        Random r = new Random(seed);
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.WHITE);
+        for(int y = 60; y < height - 40; y += 50){
+            for(int x = 40; x < width - 60; x += 14 + r.nextInt(12)){
+                g.fillOval(x, y, 8 + r.nextInt(10), 14 + r.nextInt(30));
+            }
+        }
+        for(int i = 0; i < 6; i++){
+            int x = 30 + r.nextInt(width - 60);
+            g.fillRect(x, 10 + r.nextInt(100), 3, height / 2 + r.nextInt(height / 2 - 130));
+        }
+        for(int i = 0; i < 4; i++){
+            int x = 50 + r.nextInt(width - 400);
+            int y = 50 + r.nextInt(height - 400);
+            g.fillOval(x, y, 300, 300);
+            g.setColor(Color.BLACK);
+            g.fillOval(x + 10, y + 10, 280, 280);
+            g.setColor(Color.WHITE);
+            g.fillOval(x + 100, y + 100, 60, 60);
+        }
+        g.dispose();
+        return img;
+    }
+}
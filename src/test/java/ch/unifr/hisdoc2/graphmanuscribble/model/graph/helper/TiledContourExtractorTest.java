@@ -0,0 +1,40 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.helper.Constants;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.AngieMSTGraph;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The tiled contour extraction has to give the same points in the same order as the serial one.
+ */
+class TiledContourExtractorTest{
+
+    @Test
+    void tiledEqualsSerial(){
+        for(long seed = 1; seed <= 2; seed++){
+            BufferedImage page = TestPages.page(seed, 600, 1100);
+
+            List<PointHD2> serial = sparseContourPoints(page, false);
+            List<PointHD2> tiled = sparseContourPoints(page, true);
+
+            assertTrue(serial.size() > 500);
+            assertEquals(serial.size(), tiled.size());
+            for(int i = 0; i < serial.size(); i++){
+                assertEquals(serial.get(i).getX(), tiled.get(i).getX(), "x of point " + i);
+                assertEquals(serial.get(i).getY(), tiled.get(i).getY(), "y of point " + i);
+            }
+        }
+    }
+
+    private static List<PointHD2> sparseContourPoints(BufferedImage page, boolean tiled){
+        AngieMSTGraph graph = new AngieMSTGraph(Constants.NOISE_PX, true, page.getWidth(), page.getHeight());
+        graph.setTiledExtraction(tiled);
+        return graph.extractInterestPoints(page, page);
+    }
+}
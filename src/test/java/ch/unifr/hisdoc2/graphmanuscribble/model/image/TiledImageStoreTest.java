@@ -0,0 +1,197 @@
+package ch.unifr.hisdoc2.graphmanuscribble.model.image;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.helper.TestPages;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The pixels read from a store have to be the ones of the image it was created from, for the ARGB and the black and
+ * white stores, and the stores of open pages must survive the eviction.
+ */
+class TiledImageStoreTest{
+
+    private static final int WIDTH = 700;
+    private static final int HEIGHT = 1100;
+
+    private File dir;
+
+    @BeforeEach
+    void createDir() throws IOException{
+        dir = Files.createTempDirectory("tiles-test").toFile();
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException{
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    void binaryImageIsStoredWithOneBitPerPixel() throws IOException{
+        BufferedImage img = binaryPage();
+        TiledImageStore store = TiledImageStore.create(img, dir);
+        File[] files = dir.listFiles();
+        assertTrue(store.isBinary());
+        assertEquals(1, files.length);
+        //a bit per pixel on level 0 and a byte per pixel on the smaller levels, the ARGB store needs over 4 bytes
+        assertTrue(files[0].length() < WIDTH * HEIGHT / 2, files[0].length() + " bytes");
+
+        assertSamePixels(img, store);
+
+        //the smaller levels are the same as the ones of the ARGB store
+        BufferedImage rgb = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        rgb.createGraphics().drawImage(img, 0, 0, null);
+        TiledImageStore argb = TiledImageStore.create(rgb, dir);
+        assertFalse(argb.isBinary());
+        assertEquals(argb.getLevelCount(), store.getLevelCount());
+        for(int l = 1; l < store.getLevelCount(); l++){
+            int w = store.getLevelWidth(l);
+            int h = store.getLevelHeight(l);
+            int[] expected = new int[w * h];
+            int[] actual = new int[w * h];
+            argb.readRegion(l, 0, 0, w, h, expected);
+            store.readRegion(l, 0, 0, w, h, actual);
+            assertArrayEquals(expected, actual, "level " + l);
+        }
+        argb.close();
+        store.close();
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    void colorImageIsStoredAsArgb() throws IOException{
+        BufferedImage img = colorPage();
+        TiledImageStore store = TiledImageStore.create(img, dir);
+        assertFalse(store.isBinary());
+        assertSamePixels(img, store);
+        store.close();
+    }
+
+    @Test
+    void binaryFileIsOpenedWithoutConversion() throws IOException{
+        File png = new File(dir, "binary.png");
+        BufferedImage img = binaryPage();
+        ImageIO.write(img, "png", png);
+        File tiles = new File(dir, "tiles");
+        assertTrue(tiles.mkdir());
+
+        TiledImageStore store = TiledImageStore.open(png, tiles, Long.MAX_VALUE);
+        assertTrue(store.isBinary());
+        assertSamePixels(img, store);
+        store.close();
+
+        //the second open maps the existing store
+        TiledImageStore reopened = TiledImageStore.open(png, tiles, Long.MAX_VALUE);
+        assertEquals(1, tiles.listFiles().length);
+        assertSamePixels(img, reopened);
+        reopened.close();
+    }
+
+    /**
+     * The PNG is decoded once and written in strips, the BMP is read strip by strip with source regions.
+     */
+    @Test
+    void colorFileIsReadInStrips() throws IOException{
+        BufferedImage img = colorPage();
+        File tiles = new File(dir, "tiles");
+        assertTrue(tiles.mkdir());
+        for(String format : new String[]{"png", "bmp"}){
+            File file = new File(dir, "color." + format);
+            assertTrue(ImageIO.write(img, format, file));
+            TiledImageStore store = TiledImageStore.open(file, tiles, Long.MAX_VALUE);
+            assertFalse(store.isBinary());
+            assertSamePixels(img, store);
+            store.close();
+        }
+    }
+
+    @Test
+    void evictKeepsOpenStores() throws IOException{
+        File tiles = new File(dir, "tiles");
+        assertTrue(tiles.mkdir());
+        File first = new File(dir, "first.png");
+        File second = new File(dir, "second.png");
+        ImageIO.write(colorPage(), "png", first);
+        ImageIO.write(binaryPage(), "png", second);
+
+        TiledImageStore open = TiledImageStore.open(first, tiles, Long.MAX_VALUE);
+        TiledImageStore.open(second, tiles, Long.MAX_VALUE).close();
+        assertEquals(2, tiles.listFiles().length);
+
+        TiledImageStore.evict(tiles, 0);
+        File[] left = tiles.listFiles();
+        assertEquals(1, left.length);
+        //still readable after the eviction
+        assertEquals(colorPage().getRGB(10, 20), open.asBufferedImage().getRGB(10, 20));
+
+        open.close();
+        TiledImageStore.evict(tiles, 0);
+        assertEquals(0, tiles.listFiles().length);
+    }
+
+    @Test
+    void closedStoreIsNotReadAnymore() throws IOException{
+        TiledImageStore store = TiledImageStore.create(colorPage(), dir);
+        BufferedImage img = store.asBufferedImage();
+        store.close();
+        assertThrows(NullPointerException.class, () -> store.readRegion(0, 0, 0, 1, 1, new int[1]));
+        assertThrows(NullPointerException.class, () -> img.getRGB(0, 0));
+    }
+
+    /**
+     * Compares level 0 read through the mapped image, readRegion and toFImage with the image.
+     */
+    private static void assertSamePixels(BufferedImage img, TiledImageStore store){
+        BufferedImage mapped = store.asBufferedImage();
+        assertSame(store, TiledImageStore.of(mapped));
+        int[] expected = img.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        assertArrayEquals(expected, mapped.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+
+        int[] region = new int[WIDTH * HEIGHT];
+        store.readRegion(0, 0, 0, WIDTH, HEIGHT, region);
+        assertArrayEquals(expected, region);
+        //a region which does not start at a byte of the binary rows
+        int[] part = new int[13 * 7];
+        store.readRegion(0, 301, 17, 13, 7, part);
+        assertArrayEquals(img.getRGB(301, 17, 13, 7, null, 0, 13), part);
+
+        FImage fromStore = store.toFImage();
+        FImage fromImage = ImageUtilities.createFImage(img);
+        for(int y = 0; y < HEIGHT; y++){
+            assertArrayEquals(fromImage.pixels[y], fromStore.pixels[y]);
+        }
+    }
+
+    private static BufferedImage binaryPage(){
+        BufferedImage page = TestPages.page(6, WIDTH, HEIGHT);
+        BufferedImage bin = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+        bin.createGraphics().drawImage(page, 0, 0, null);
+        return bin;
+    }
+
+    private static BufferedImage colorPage(){
+        BufferedImage page = TestPages.page(7, WIDTH, HEIGHT);
+        for(int y = 0; y < HEIGHT; y++){
+            for(int x = 0; x < WIDTH; x++){
+                page.setRGB(x, y, page.getRGB(x, y) ^ (x * 7 + y * 13) & 0xFFFFFF);
+            }
+        }
+        return page;
+    }
+}
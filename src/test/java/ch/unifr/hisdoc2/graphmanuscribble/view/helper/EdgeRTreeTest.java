@@ -0,0 +1,82 @@
+package ch.unifr.hisdoc2.graphmanuscribble.view.helper;
+
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphEdge;
+import ch.unifr.hisdoc2.graphmanuscribble.model.graph.GraphVertex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The R-tree has to return the same edges as a scan over all edges, also after the tree was emptied.
+ */
+class EdgeRTreeTest{
+
+    @Test
+    void insertAfterRemovingAllEdges(){
+        Random r = new Random(1);
+        List<GraphEdge> edges = edges(r, 1000);
+        EdgeRTree tree = new EdgeRTree(edges);
+        for(GraphEdge e : edges){
+            tree.remove(e);
+        }
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.retrieve(new ArrayList<>(), 0, 0, 1000, 1000).size());
+
+        List<GraphEdge> inserted = edges(r, 100);
+        for(GraphEdge e : inserted){
+            tree.insert(e);
+        }
+        assertEquals(new HashSet<>(inserted), new HashSet<>(tree.retrieve(new ArrayList<>(), 0, 0, 1000, 1000)));
+    }
+
+    @Test
+    void retrieveEqualsScan(){
+        Random r = new Random(2);
+        List<GraphEdge> edges = edges(r, 2000);
+        EdgeRTree tree = new EdgeRTree(edges);
+
+        //remove most of the edges and insert new ones
+        Collections.shuffle(edges, r);
+        List<GraphEdge> kept = new ArrayList<>(edges.subList(1900, edges.size()));
+        for(GraphEdge e : edges.subList(0, 1900)){
+            tree.remove(e);
+        }
+        for(GraphEdge e : edges(r, 300)){
+            tree.insert(e);
+            kept.add(e);
+        }
+        assertEquals(kept.size(), tree.size());
+
+        for(int i = 0; i < 50; i++){
+            double x = r.nextInt(900);
+            double y = r.nextInt(900);
+            double size = 10 + r.nextInt(200);
+            List<GraphEdge> expected = new ArrayList<>();
+            for(GraphEdge e : kept){
+                if(e.getMinX() <= x + size && e.getMaxX() >= x && e.getMinY() <= y + size && e.getMaxY() >= y){
+                    expected.add(e);
+                }
+            }
+            assertEquals(new HashSet<>(expected),
+                    new HashSet<>(tree.retrieve(new ArrayList<>(), x, y, x + size, y + size)));
+        }
+    }
+
+    private static List<GraphEdge> edges(Random r, int count){
+        List<GraphEdge> edges = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            GraphVertex v1 = new GraphVertex(r.nextInt(1000), r.nextInt(1000));
+            GraphVertex v2 = new GraphVertex(v1.getX() + r.nextInt(41) - 20, v1.getY() + r.nextInt(41) - 20);
+            GraphEdge e = new GraphEdge();
+            e.createSegment(v1, v2);
+            edges.add(e);
+        }
+        return edges;
+    }
+}